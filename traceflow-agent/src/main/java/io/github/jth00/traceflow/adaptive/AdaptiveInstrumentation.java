@@ -0,0 +1,215 @@
+package io.github.jth00.traceflow.adaptive;
+
+import io.github.jth00.traceflow.agent.TraceFlowAgent;
+import io.github.jth00.traceflow.vo.MethodInfo;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive instrumentation
+ * Tracks call frequency and self time of traced methods and removes instrumentation
+ * from methods that are both very hot and consistently trivial (getters, mappers, small utils).
+ * Exclusions apply to one method signature, so other overloads stay traced.
+ * Methods matching pinned patterns are never excluded.
+ */
+public class AdaptiveInstrumentation {
+
+    /** Minimum number of traced calls within one evaluation window */
+    private static final long MIN_CALLS_PER_WINDOW = 10_000;
+
+    /** Mean self time below which a method is considered trivial */
+    private static final long MAX_MEAN_SELF_NANOS = 1_000;
+
+    /** Maximum share of calls allowed to reach {@value #MAX_MEAN_SELF_NANOS}ns self time */
+    private static final double MAX_SLOW_CALL_RATIO = 0.01;
+
+    /** Length of one evaluation window */
+    private static final long EVALUATION_INTERVAL_SECONDS = 10;
+
+    private static volatile boolean enabled = false;
+
+    // Per-method statistics of the current window
+    private static final Map<MethodInfo, MethodStats> stats = new ConcurrentHashMap<>();
+
+    // Excluded method signatures with the statistics that caused the exclusion
+    private static final Map<String, Exclusion> exclusions = new ConcurrentHashMap<>();
+
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Per-method counters (striped, contention free)
+     */
+    private static class MethodStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder selfNanos = new LongAdder();
+        final LongAdder slowCalls = new LongAdder();
+
+        void record(long nanos) {
+            calls.increment();
+            selfNanos.add(nanos);
+            if (nanos >= MAX_MEAN_SELF_NANOS) {
+                slowCalls.increment();
+            }
+        }
+    }
+
+    /**
+     * Report of an excluded method
+     */
+    public static class Exclusion {
+        private final String method;
+        private final long calls;
+        private final long meanSelfNanos;
+        private final long excludedAt;
+
+        Exclusion(String method, long calls, long meanSelfNanos, long excludedAt) {
+            this.method = method;
+            this.calls = calls;
+            this.meanSelfNanos = meanSelfNanos;
+            this.excludedAt = excludedAt;
+        }
+
+        public String getMethod() { return method; }
+    }
+
+    // === Control ===
+
+    /**
+     * Start collecting statistics and evaluating them periodically
+     */
+    public static synchronized void enable() {
+        if (enabled) return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "traceflow-adaptive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(AdaptiveInstrumentation::evaluateSafely,
+            EVALUATION_INTERVAL_SECONDS, EVALUATION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        enabled = true;
+
+        System.out.println("[TraceFlow Adaptive] Enabled (min calls: " + MIN_CALLS_PER_WINDOW +
+            "/" + EVALUATION_INTERVAL_SECONDS + "s, max mean self time: " + MAX_MEAN_SELF_NANOS + "ns)");
+    }
+
+    /**
+     * Stop collecting statistics
+     * Methods excluded so far stay excluded until {@link #reset()}
+     */
+    public static synchronized void disable() {
+        if (!enabled) return;
+
+        enabled = false;
+        scheduler.shutdownNow();
+        scheduler = null;
+        stats.clear();
+
+        System.out.println("[TraceFlow Adaptive] Disabled");
+    }
+
+    /**
+     * Remove all adaptive exclusions and re-instrument the affected methods
+     * @return Number of retransformed classes
+     */
+    public static synchronized int reset() {
+        exclusions.clear();
+        stats.clear();
+        return TraceFlowAgent.reconfigure(config -> config.withAdaptiveExcludes(Set.of()));
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get methods excluded by adaptive instrumentation
+     * @return List of exclusions
+     */
+    public static List<Exclusion> getExclusions() {
+        return new ArrayList<>(exclusions.values());
+    }
+
+    // === Collection ===
+
+    /**
+     * Record one traced call
+     * @param method Called method
+     * @param selfNanos Wall time excluding traced children
+     */
+    public static void record(MethodInfo method, long selfNanos) {
+        if (!enabled) return;
+
+        MethodStats methodStats = stats.get(method);
+        if (methodStats == null) {
+            methodStats = stats.computeIfAbsent(method, m -> new MethodStats());
+        }
+        methodStats.record(selfNanos);
+    }
+
+    // === Evaluation ===
+
+    private static void evaluateSafely() {
+        try {
+            evaluate();
+        } catch (Throwable t) {
+            System.err.println("[TraceFlow Adaptive] Evaluation failed: " + t.getMessage());
+        }
+    }
+
+    /**
+     * Exclude methods that were hot and trivial during the last window
+     */
+    private static synchronized void evaluate() {
+        Map<MethodInfo, Exclusion> candidates = new HashMap<>();
+        long now = System.currentTimeMillis();
+
+        for (Map.Entry<MethodInfo, MethodStats> e : stats.entrySet()) {
+            MethodStats methodStats = e.getValue();
+            long calls = methodStats.calls.sumThenReset();
+            long selfNanos = methodStats.selfNanos.sumThenReset();
+            long slowCalls = methodStats.slowCalls.sumThenReset();
+
+            if (calls < MIN_CALLS_PER_WINDOW) continue;
+
+            long meanSelfNanos = selfNanos / calls;
+            if (meanSelfNanos >= MAX_MEAN_SELF_NANOS || slowCalls > calls * MAX_SLOW_CALL_RATIO) continue;
+
+            MethodInfo method = e.getKey();
+            candidates.put(method, new Exclusion(method.getSignature(), calls, meanSelfNanos, now));
+        }
+
+        if (candidates.isEmpty()) return;
+
+        // Checked against the configuration the exclusions are added to, under the agent lock
+        List<String> added = new ArrayList<>();
+        TraceFlowAgent.reconfigure(config -> {
+            Set<String> excludes = new HashSet<>(config.getAdaptiveExcludes());
+            for (Map.Entry<MethodInfo, Exclusion> e : candidates.entrySet()) {
+                MethodInfo method = e.getKey();
+                if (excludes.contains(method.getSignature()) ||
+                    config.isPinnedMethod(method.getClassName(), method.getMethodName())) {
+                    continue;
+                }
+                excludes.add(method.getSignature());
+                added.add(method.getSignature());
+            }
+            return added.isEmpty() ? config : config.withAdaptiveExcludes(excludes);
+        });
+
+        for (Map.Entry<MethodInfo, Exclusion> e : candidates.entrySet()) {
+            if (added.contains(e.getKey().getSignature())) {
+                exclusions.put(e.getKey().getSignature(), e.getValue());
+                stats.remove(e.getKey());
+            }
+        }
+        if (!added.isEmpty()) {
+            System.out.println("[TraceFlow Adaptive] Excluding hot trivial methods: " + added);
+        }
+    }
+}
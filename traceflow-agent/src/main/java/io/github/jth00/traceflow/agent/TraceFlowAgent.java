@@ -1,49 +1,109 @@
 package io.github.jth00.traceflow.agent;
 
+import io.github.jth00.traceflow.adaptive.AdaptiveInstrumentation;
 import io.github.jth00.traceflow.annotations.TraceFlow;
+import io.github.jth00.traceflow.blocking.BlockingBridge;
+import io.github.jth00.traceflow.blocking.BlockingDetector;
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.coroutine.CoroutineTracer;
+import io.github.jth00.traceflow.export.CollectorExporter;
+import io.github.jth00.traceflow.governor.OverheadGovernor;
+import io.github.jth00.traceflow.interceptor.BlockingInterceptor;
+import io.github.jth00.traceflow.interceptor.CoroutineInterceptor;
 import io.github.jth00.traceflow.interceptor.EntryPointInterceptor;
+import io.github.jth00.traceflow.interceptor.JdbcInterceptor;
+import io.github.jth00.traceflow.interceptor.PropagationInterceptor;
 import io.github.jth00.traceflow.interceptor.TraceFlowInterceptor;
-import io.github.jth00.traceflow.server.TraceFlowWebServer;
+import io.github.jth00.traceflow.jdbc.JdbcTracer;
+import io.github.jth00.traceflow.metrics.ThreadResources;
+import io.github.jth00.traceflow.propagation.ContextBridge;
+import io.github.jth00.traceflow.propagation.TracePropagation;
+import io.github.jth00.traceflow.server.ImportFiles;
+import io.github.jth00.traceflow.server.WebServerLauncher;
+import io.github.jth00.traceflow.store.TraceStore;
+import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.agent.builder.ResettableClassFileTransformer;
+import net.bytebuddy.asm.Advice;
 import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.method.ParameterList;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.dynamic.DynamicType;
-import net.bytebuddy.implementation.MethodDelegation;
+import net.bytebuddy.dynamic.scaffold.TypeValidation;
 import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.pool.TypePool;
 import net.bytebuddy.utility.JavaModule;
 
 import java.lang.instrument.Instrumentation;
 import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 import static net.bytebuddy.matcher.ElementMatchers.*;
 
 /**
  * ByteBuddy agent for instrumenting Java methods with TraceFlow
+ *
+ * Instrumentation uses inlined Advice without class format changes, so loaded classes
+ * can be retransformed at runtime when the configuration changes.
  */
 public class TraceFlowAgent {
     private static final int DEFAULT_PORT = 8081;
     private static final String KEY_PORT = "port";
+    private static final String KEY_HOST = "host";
     private static final String KEY_PACKAGE = "package";
-    private static final String JETTY_SERVER_CLASS = "org.eclipse.jetty.server.Server";
-
-    // Packages to exclude from instrumentation
-    private static final List<String> IGNORED_PACKAGE_PREFIXES = List.of(
-        "net.bytebuddy", "java.", "javax.", "jakarta.",
-        "sun.", "jdk.", "org.springframework",
-        "org.hibernate", "com.mysql", "com.zaxxer",
-        "io/github/jth00/traceflow"
-    );
-
-    // Common methods to exclude from tracing
-    private static final List<String> EXCLUDED_METHOD_NAMES = List.of(
-        "builder", "build"
-    );
-
-    private static final String LAMBDA_PREFIX = "lambda$";
-    private static final String ACCESSOR_PREFIX = "access$";
+    private static final String KEY_INCLUDE = "include";
+    private static final String KEY_EXCLUDE = "exclude";
+    private static final String KEY_EXCLUDE_CLASSES = "excludeClasses";
+    private static final String KEY_EXCLUDE_ACCESSORS = "excludeAccessors";
+    private static final String KEY_ENTRY_POINTS = "entryPoints";
+    private static final String KEY_PINNED = "pinned";
+    private static final String KEY_ADAPTIVE = "adaptive";
+    private static final String KEY_CAPTURE = "capture";
+    private static final String KEY_CAPTURE_METHODS = "captureMethods";
+    private static final String KEY_REDACT = "redact";
+    private static final String KEY_RESOURCES = "resources";
+    private static final String KEY_SAMPLING = "sampling";
+    private static final String KEY_JFR_METHODS = "jfrMethods";
+    private static final String KEY_MAX_ENTRIES = "maxEntries";
+    private static final String KEY_MAX_DEPTH = "maxDepth";
+    private static final String KEY_COMPRESS_LOOPS = "compressLoops";
+    private static final String KEY_REPEAT_THRESHOLD = "repeatThreshold";
+    private static final String KEY_DATA_ACCESS = "dataAccess";
+    private static final String KEY_OVERHEAD_BUDGET = "overheadBudget";
+    private static final String KEY_PROPAGATE = "propagate";
+    private static final String KEY_PEERS = "peers";
+    private static final String KEY_BLOCKING = "blocking";
+    private static final String KEY_JDBC = "jdbc";
+    private static final String KEY_COROUTINES = "coroutines";
+    private static final String KEY_COLLECTOR = "collector";
+    private static final String KEY_NODE = "node";
+    private static final String KEY_LOCAL_STORE = "localStore";
+    private static final String KEY_IMPORT_DIR = "importDir";
+    private static final String LIST_SEPARATOR = ";";
+    private static final String KEY_WEB_SERVER = "webServer";
+    private static final String WEB_SERVER_OFF = "off";
+    private static final String WEB_SERVER_LAZY = "lazy";
+
+    /** Number of classes passed to a single retransformClasses call */
+    private static final int RETRANSFORM_BATCH_SIZE = 100;
+
+    // Instrumentation instance kept for runtime retransformation
+    private static Instrumentation instrumentation;
+
+    // Installed transformers, reset on detach
+    private static final List<ResettableClassFileTransformer> installedTransformers = new ArrayList<>();
+
+    // Whether instrumentation is currently installed
+    private static volatile boolean attached = false;
 
     /**
      * Agent entry point called before main method
@@ -52,16 +112,83 @@ public class TraceFlowAgent {
      */
     public static void premain(String agentArgs, Instrumentation inst) {
         System.out.println("[TraceFlow Agent] Starting instrumentation...");
+        long startTime = System.currentTimeMillis();
 
         Map<String, String> args = parseAgentArgs(agentArgs);
+        initialize(args);
+        instrumentation = inst;
+
+        // Classes on the class path were already instrumented by the Gradle plugin
+        if (TraceFlowInstrumenter.isBuildTimeInstrumented(ClassLoader.getSystemClassLoader())) {
+            System.out.println("[TraceFlow Agent] Build-time instrumented classes found, " +
+                "skipping runtime instrumentation");
+            return;
+        }
+
+        // The context bridge must be in the bootstrap class loader before HTTP classes are instrumented
+        if (Boolean.parseBoolean(args.get(KEY_PROPAGATE))) {
+            TracePropagation.install(inst);
+        }
+        if (Boolean.parseBoolean(args.get(KEY_BLOCKING))) {
+            BlockingDetector.install(inst);
+        }
+        if (Boolean.parseBoolean(args.get(KEY_JDBC))) {
+            JdbcTracer.enable();
+        }
+        if (Boolean.parseBoolean(args.get(KEY_COROUTINES))) {
+            CoroutineTracer.enable();
+        }
+
+        installTransformers(inst);
+
+        if (Boolean.parseBoolean(args.get(KEY_ADAPTIVE))) {
+            AdaptiveInstrumentation.enable();
+        }
+
+        System.out.println("[TraceFlow Agent] Instrumentation installed successfully in " +
+            (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    /**
+     * Apply agent arguments to the configuration and the web server
+     * Shared by {@link #premain(String, Instrumentation)} and build-time instrumented applications
+     * @param args Parsed agent arguments
+     */
+    static void initialize(Map<String, String> args) {
         int port = args.containsKey(KEY_PORT) ? parsePort(args.get(KEY_PORT)) : DEFAULT_PORT;
         String targetPackage = args.get(KEY_PACKAGE);
 
-        startWebServer(port);
-        installEntryPointTransformer(inst);
-        installUniversalTransformer(inst, targetPackage);
+        if (targetPackage == null || targetPackage.isEmpty()) {
+            throw new IllegalArgumentException("[TraceFlow Agent] Package path is required. " +
+                "Please specify package path in traceFlow configuration.");
+        }
+
+        TraceFlowConfig.update(createConfig(args));
+        reportExclusions(TraceFlowConfig.current());
+        OverheadGovernor.configure(TraceFlowConfig.current());
+        TracePropagation.configurePeers(splitList(args.get(KEY_PEERS)));
+
+        // Sessions pushed to a collector can skip local storage
+        CollectorExporter.configure(splitList(args.get(KEY_COLLECTOR)), args.get(KEY_NODE));
+        if (CollectorExporter.isEnabled() && "false".equals(args.get(KEY_LOCAL_STORE))) {
+            TraceStore.setLocalStore(false);
+            System.out.println("[TraceFlow] Local session storage disabled, sessions are only pushed to the collector");
+        }
 
-        System.out.println("[TraceFlow Agent] Instrumentation installed successfully");
+        // Web server starts in the background, with the first stored session when lazy,
+        // or not at all when turned off (tests)
+        WebServerLauncher.configure(port, args.get(KEY_HOST));
+        ImportFiles.configure(args.get(KEY_IMPORT_DIR));
+        String webServer = args.get(KEY_WEB_SERVER);
+        if (WEB_SERVER_OFF.equals(webServer)) {
+            WebServerLauncher.disable();
+            System.out.println("[TraceFlow] Web server disabled");
+        } else if (WEB_SERVER_LAZY.equals(webServer)) {
+            WebServerLauncher.startLazily();
+            System.out.println("[TraceFlow] Web server will start on port " + port + " with the first trace session");
+        } else {
+            WebServerLauncher.ensureStarted();
+        }
     }
 
     /**
@@ -69,7 +196,7 @@ public class TraceFlowAgent {
      * @param agentArgs Comma-separated key=value pairs
      * @return Map of parsed arguments
      */
-    private static Map<String, String> parseAgentArgs(String agentArgs) {
+    static Map<String, String> parseAgentArgs(String agentArgs) {
         Map<String, String> map = new HashMap<>();
         if (agentArgs == null || agentArgs.isBlank()) return map;
         for (String part : agentArgs.split(",")) {
@@ -79,6 +206,102 @@ public class TraceFlowAgent {
         return map;
     }
 
+    /**
+     * Build the initial configuration from agent arguments
+     * List values are separated by {@value #LIST_SEPARATOR} (e.g., package=com.a;com.b)
+     * @param args Parsed agent arguments
+     * @return Initial configuration
+     */
+    static TraceFlowConfig createConfig(Map<String, String> args) {
+        List<String> excludes = new ArrayList<>(TraceFlowConfig.DEFAULT_EXCLUDED_METHODS);
+        excludes.addAll(splitList(args.get(KEY_EXCLUDE)));
+
+        List<String> excludedClasses = new ArrayList<>(TraceFlowConfig.DEFAULT_EXCLUDED_CLASS_PATTERNS);
+        excludedClasses.addAll(splitList(args.get(KEY_EXCLUDE_CLASSES)));
+
+        TraceFlowConfig config = new TraceFlowConfig();
+        config.setPackages(splitList(args.get(KEY_PACKAGE)));
+        config.setIncludeMethods(splitList(args.get(KEY_INCLUDE)));
+        config.setExcludeMethods(excludes);
+        config.setExcludedClassPatterns(excludedClasses);
+        config.setExcludeAccessors(Boolean.parseBoolean(args.get(KEY_EXCLUDE_ACCESSORS)));
+        config.setEntryPoints(splitList(args.get(KEY_ENTRY_POINTS)));
+        config.setPinnedMethods(splitList(args.get(KEY_PINNED)));
+
+        config.setCaptureValues(Boolean.parseBoolean(args.get(KEY_CAPTURE)));
+        config.setCaptureMethods(splitList(args.get(KEY_CAPTURE_METHODS)));
+        config.setMeasureResources(Boolean.parseBoolean(args.get(KEY_RESOURCES)));
+        config.setJfrMethodEvents(Boolean.parseBoolean(args.get(KEY_JFR_METHODS)));
+        if (args.containsKey(KEY_SAMPLING)) {
+            config.setSamplingIntervalMillis(Long.parseLong(args.get(KEY_SAMPLING)));
+        }
+        if (args.containsKey(KEY_MAX_ENTRIES)) {
+            config.setMaxSessionEntries(Integer.parseInt(args.get(KEY_MAX_ENTRIES)));
+        }
+        if (args.containsKey(KEY_MAX_DEPTH)) {
+            config.setMaxCallDepth(Integer.parseInt(args.get(KEY_MAX_DEPTH)));
+        }
+        if (args.containsKey(KEY_COMPRESS_LOOPS)) {
+            config.setCompressLoops(Boolean.parseBoolean(args.get(KEY_COMPRESS_LOOPS)));
+        }
+        if (args.containsKey(KEY_REPEAT_THRESHOLD)) {
+            config.setRepeatedCallThreshold(Integer.parseInt(args.get(KEY_REPEAT_THRESHOLD)));
+        }
+        if (args.containsKey(KEY_OVERHEAD_BUDGET)) {
+            config.setOverheadBudgetPercent(Double.parseDouble(args.get(KEY_OVERHEAD_BUDGET)));
+        }
+
+        List<String> dataAccess = new ArrayList<>(TraceFlowConfig.DEFAULT_DATA_ACCESS_PATTERNS);
+        dataAccess.addAll(splitList(args.get(KEY_DATA_ACCESS)));
+        config.setDataAccessPatterns(dataAccess);
+        config.setRedactedFields(splitList(args.get(KEY_REDACT)));
+        return config;
+    }
+
+    /**
+     * Print the static exclusion rules applied by the method matchers
+     * @param config Active configuration
+     */
+    private static void reportExclusions(TraceFlowConfig config) {
+        System.out.println("[TraceFlow Agent] Traced packages: " + config.getPackages());
+        // Types outside these are ignored by name before their class file is parsed
+        System.out.println("[TraceFlow Agent] Warning: @TraceFlow is only recognized in the traced packages" +
+            (config.getEntryPoints().isEmpty() ? "" : " and entry point classes " + config.getEntryPoints()) +
+            "; add other annotated classes to entryPoints");
+        if (config.getSamplingIntervalMillis() > 0) {
+            System.out.println("[TraceFlow Agent] Sampling mode: only entry points are instrumented, " +
+                "stacks sampled every " + config.getSamplingIntervalMillis() + "ms");
+        }
+        System.out.println("[TraceFlow Agent] Excluded classes containing: " + config.getExcludedClassPatterns());
+        System.out.println("[TraceFlow Agent] Excluded methods: " + config.getExcludeMethods() +
+            (config.isExcludeAccessors() ? " + getters/setters" : ""));
+        if (!config.getIncludeMethods().isEmpty()) {
+            System.out.println("[TraceFlow Agent] Included methods only: " + config.getIncludeMethods());
+        }
+        if (config.isCaptureValues()) {
+            System.out.println("[TraceFlow Agent] Capturing values of: " +
+                (config.getCaptureMethods().isEmpty() ? "all traced methods" : config.getCaptureMethods()));
+        }
+        if (config.isMeasureResources()) {
+            System.out.println("[TraceFlow Agent] Measuring CPU time and allocation per traced call" +
+                (ThreadResources.isAvailable() ? "" : " (unsupported by this JVM)"));
+        }
+        System.out.println("[TraceFlow Agent] Session limits: " + limit(config.getMaxSessionEntries()) + " entries, depth " +
+            limit(config.getMaxCallDepth()) + (config.isCompressLoops() ? ", repeated calls folded" : ""));
+    }
+
+    private static String limit(int value) {
+        return value > 0 ? String.valueOf(value) : "unlimited";
+    }
+
+    private static List<String> splitList(String value) {
+        if (value == null || value.isBlank()) return List.of();
+        return Arrays.stream(value.split(LIST_SEPARATOR))
+            .map(String::trim)
+            .filter(s -> !s.isEmpty())
+            .collect(Collectors.toList());
+    }
+
     /**
      * Parse port number from string
      * @param portStr Port number as string
@@ -94,84 +317,459 @@ public class TraceFlowAgent {
     }
 
     /**
-     * Start Jetty web server in a separate daemon thread
-     * @param port Port number for web server
+     * Install the transformer and remember it for detach
+     * @param inst Instrumentation instance
+     */
+    private static void installTransformers(Instrumentation inst) {
+        installedTransformers.add(installTransformer(inst));
+        attached = true;
+    }
+
+    /**
+     * Install a single transformer for entry points and traced methods
+     * - Types outside traced packages and configured entry point classes are ignored by name,
+     *   before their class file is parsed
+     * - Type descriptions come from a cached type pool only (no class loading while matching);
+     *   the cache is weakly keyed by class loader and its entries are softly referenced
+     * - Generated code is not re-validated (advice output is known to be valid)
+     * - Entry point and universal transformations are both applied to a matching type
+     * - With propagation, HTTP client and servlet classes are instrumented as well and
+     *   their modules read the bootstrap-injected context bridge
+     * - With blocking detection, JDK blocking points are instrumented the same way
+     * - With JDBC tracing, driver and pool classes implementing Connection, Statement
+     *   and ResultSet are instrumented regardless of the ignored packages
+     * - With coroutine support, the Kotlin continuation base class is instrumented for
+     *   class loaders that see kotlinx.coroutines, and suspend functions get their own advice
+     * @param inst Instrumentation instance
+     * @return Installed transformer
+     */
+    private static ResettableClassFileTransformer installTransformer(Instrumentation inst) {
+        AgentBuilder builder = new AgentBuilder.Default(new ByteBuddy().with(TypeValidation.DISABLED))
+            .disableClassFormatChanges()
+            .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+            .with(new WeakTypePoolCache())
+            .with(AgentBuilder.DescriptionStrategy.Default.POOL_ONLY)
+            .with(new ErrorListener());
+
+        if (TracePropagation.isEnabled()) {
+            builder = builder.assureReadEdgeTo(inst, ContextBridge.class);
+        }
+        if (BlockingDetector.isEnabled()) {
+            builder = builder.assureReadEdgeTo(inst, BlockingBridge.class);
+        }
+
+        return builder
+            .ignore(not(new PropagatedTypeMatcher().or(new BlockingTypeMatcher()).or(new JdbcTypeMatcher())
+                    .or(new CoroutineTypeMatcher()))
+                .and(new IgnoredTypeMatcher().or(not(new CandidateTypeMatcher()))))
+            .type(new PropagatedTypeMatcher())
+            .transform(new PropagationTransformer())
+            .type(new BlockingTypeMatcher())
+            .transform(new BlockingTransformer())
+            .type(new JdbcTypeMatcher())
+            .transform(new JdbcTransformer())
+            .type(new CoroutineTypeMatcher(), new CoroutineLoaderMatcher())
+            .transform(new CoroutineTransformer())
+            .type(entryPointTypes())
+            .transform(new EntryPointTransformer())
+            .type(new TracedPackageMatcher())
+            .transform(new UniversalMethodTransformer())
+            .installOn(inst);
+    }
+
+    /**
+     * Classes or methods with @TraceFlow annotation, or configured entry points
+     * @return Matcher for types declaring entry points
      */
-    private static void startWebServer(int port) {
-        final int finalPort = port;
-        Thread serverThread = new Thread(() -> {
+    static ElementMatcher.Junction<TypeDescription> entryPointTypes() {
+        return new ConfiguredEntryPointTypeMatcher()
+            .or(isAnnotatedWith(TraceFlow.class))
+            .or(declaresMethod(isAnnotatedWith(TraceFlow.class)));
+    }
+
+    // -------------------- Runtime Reconfiguration --------------------
+
+    /**
+     * Apply a configuration change and retransform affected loaded classes
+     * The change reads the current configuration and is published under the agent lock, so
+     * concurrent changes (control requests, adaptive exclusions) never overwrite each other.
+     * Classes that match the old or the new configuration are retransformed, so
+     * instrumentation is added to newly matching methods and removed from the rest.
+     * @param change Function from the current to the new configuration (the same instance changes nothing)
+     * @return Number of retransformed classes
+     * @throws IllegalArgumentException If the change rejects the current configuration
+     */
+    public static synchronized int reconfigure(UnaryOperator<TraceFlowConfig> change) {
+        TraceFlowConfig oldConfig = TraceFlowConfig.current();
+        TraceFlowConfig newConfig = change.apply(oldConfig);
+        if (newConfig == oldConfig) {
+            return 0;
+        }
+        TraceFlowConfig.update(newConfig);
+        OverheadGovernor.configure(newConfig);
+
+        // Detached: the new configuration is applied on the next attach
+        if (instrumentation == null || !attached) {
+            return 0;
+        }
+
+        // Only adaptive exclusions changed: just the classes declaring those methods
+        Set<String> adaptiveTypes = newConfig.adaptiveChangedTypes(oldConfig);
+        if (adaptiveTypes != null && adaptiveTypes.isEmpty()) {
+            return 0;
+        }
+
+        List<Class<?>> affected = new ArrayList<>();
+        for (Class<?> type : instrumentation.getAllLoadedClasses()) {
+            if (!instrumentation.isModifiableClass(type) || type.isArray() || type.isPrimitive()) {
+                continue;
+            }
+            String name = type.getName();
+            if (adaptiveTypes != null ? adaptiveTypes.contains(name) :
+                isAffected(oldConfig, name) || isAffected(newConfig, name) ||
+                oldConfig.isIgnoredType(name) != newConfig.isIgnoredType(name)) {
+                affected.add(type);
+            }
+        }
+
+        int retransformed = retransform(affected);
+        System.out.println("[TraceFlow Agent] Configuration updated, retransformed " +
+            retransformed + "/" + affected.size() + " classes");
+        return retransformed;
+    }
+
+    private static boolean isAffected(TraceFlowConfig config, String typeName) {
+        return config.isTracedType(typeName) || config.declaresEntryPoint(typeName);
+    }
+
+    /**
+     * Retransform classes in batches, falling back to one-by-one on failure
+     * @param classes Classes to retransform
+     * @return Number of successfully retransformed classes
+     */
+    private static int retransform(List<Class<?>> classes) {
+        int count = 0;
+        for (int from = 0; from < classes.size(); from += RETRANSFORM_BATCH_SIZE) {
+            List<Class<?>> batch = classes.subList(from, Math.min(from + RETRANSFORM_BATCH_SIZE, classes.size()));
             try {
-                // Check if Jetty is available
-                Class.forName(JETTY_SERVER_CLASS);
+                instrumentation.retransformClasses(batch.toArray(new Class<?>[0]));
+                count += batch.size();
+            } catch (Throwable batchError) {
+                for (Class<?> type : batch) {
+                    try {
+                        instrumentation.retransformClasses(type);
+                        count++;
+                    } catch (Throwable e) {
+                        System.err.println("[TraceFlow Agent] Failed to retransform " +
+                            type.getName() + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    // -------------------- Kill Switch --------------------
+
+    /**
+     * Remove all instrumentation and restore the original bytecode of transformed classes
+     * No TraceFlow code runs in application methods until {@link #attach()} is called.
+     * @return true if the agent was attached before the call
+     */
+    public static synchronized boolean detach() {
+        if (instrumentation == null || !attached) {
+            return false;
+        }
+
+        long startTime = System.currentTimeMillis();
+        for (ResettableClassFileTransformer transformer : installedTransformers) {
+            transformer.reset(instrumentation, AgentBuilder.RedefinitionStrategy.RETRANSFORMATION);
+        }
+        installedTransformers.clear();
+        attached = false;
+
+        System.out.println("[TraceFlow Agent] Detached, original bytecode restored in " +
+            (System.currentTimeMillis() - startTime) + "ms");
+        return true;
+    }
+
+    /**
+     * Reinstall instrumentation after {@link #detach()}
+     * Loaded classes matching the current configuration are retransformed.
+     * @return true if the agent was detached before the call
+     */
+    public static synchronized boolean attach() {
+        if (instrumentation == null || attached) {
+            return false;
+        }
+
+        long startTime = System.currentTimeMillis();
+        installTransformers(instrumentation);
+
+        System.out.println("[TraceFlow Agent] Attached, instrumentation reinstalled in " +
+            (System.currentTimeMillis() - startTime) + "ms");
+        return true;
+    }
+
+    /**
+     * Check if the agent was started with -javaagent
+     * @return true if premain has run
+     */
+    static boolean isLoaded() {
+        return instrumentation != null;
+    }
+
+    /**
+     * Check if instrumentation is currently installed
+     * @return true if attached
+     */
+    public static boolean isAttached() {
+        return attached;
+    }
 
-                // Start TraceFlowWebServer
-                TraceFlowWebServer.start(finalPort);
+    // -------------------- Matchers --------------------
 
-            } catch (ClassNotFoundException e) {
-                System.out.println("[TraceFlow] Jetty not available, web UI disabled");
-            } catch (Exception e) {
-                System.err.println("[TraceFlow] Failed to start web server: " + e.getMessage());
+    /**
+     * Matches types in ignored packages of the current configuration
+     */
+    static class IgnoredTypeMatcher extends ElementMatcher.Junction.AbstractBase<TypeDescription> {
+        @Override
+        public boolean matches(TypeDescription target) {
+            return TraceFlowConfig.current().isIgnoredType(target.getName());
+        }
+    }
+
+    /**
+     * Early-exit matcher on type name only
+     * Matches types in traced packages or targeted by configured entry points
+     */
+    static class CandidateTypeMatcher extends ElementMatcher.Junction.AbstractBase<TypeDescription> {
+        @Override
+        public boolean matches(TypeDescription target) {
+            TraceFlowConfig config = TraceFlowConfig.current();
+            String name = target.getName();
+            return config.isTracedType(name) || config.declaresEntryPoint(name);
+        }
+    }
+
+    /**
+     * Matches types in traced packages of the current configuration
+     * Generated, proxy, builder and logger classes are rejected here, before any method matching
+     */
+    static class TracedPackageMatcher extends ElementMatcher.Junction.AbstractBase<TypeDescription> {
+        @Override
+        public boolean matches(TypeDescription target) {
+            TraceFlowConfig config = TraceFlowConfig.current();
+            String name = target.getName();
+            // Sampling mode reconstructs calls from stack samples instead
+            return config.getSamplingIntervalMillis() == 0 && config.isTracedType(name) && !config.isExcludedClass(name);
+        }
+    }
+
+    /**
+     * Matches HTTP client and servlet types instrumented for context propagation
+     */
+    static class PropagatedTypeMatcher extends ElementMatcher.Junction.AbstractBase<TypeDescription> {
+        @Override
+        public boolean matches(TypeDescription target) {
+            if (!TracePropagation.isEnabled()) {
+                return false;
             }
-        });
-        serverThread.setDaemon(true);
-        serverThread.start();
+            String name = target.getName();
+            return name.equals(TracePropagation.URL_CONNECTION_TYPE) ||
+                name.equals(TracePropagation.HTTP_CLIENT_TYPE) ||
+                TracePropagation.SERVLET_TYPES.contains(name);
+        }
+    }
 
-        System.out.println("[TraceFlow] Web server starting on port " + finalPort);
+    /**
+     * Matches JDK classes containing blocking points when blocking detection is enabled
+     */
+    static class BlockingTypeMatcher extends ElementMatcher.Junction.AbstractBase<TypeDescription> {
+        @Override
+        public boolean matches(TypeDescription target) {
+            return BlockingDetector.isEnabled() && BlockingDetector.isBlockingType(target.getName());
+        }
     }
 
     /**
-     * Install transformer for @TraceFlow entry points
-     * Instruments methods annotated with @TraceFlow
+     * Matches JDBC driver and connection pool classes when JDBC tracing is enabled
+     * The type hierarchy is only resolved for names outside JDK and agent packages.
      */
-    private static void installEntryPointTransformer(Instrumentation inst) {
-        new AgentBuilder.Default()
-            .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
-            .ignore(getIgnoreMatcher())
-            .type(
-                // Classes or methods with @TraceFlow annotation
-                isAnnotatedWith(TraceFlow.class)
-                    .or(declaresMethod(isAnnotatedWith(TraceFlow.class)))
-            )
-            .transform(new EntryPointTransformer())
-            .installOn(inst);
+    static class JdbcTypeMatcher extends ElementMatcher.Junction.AbstractBase<TypeDescription> {
+        private static final ElementMatcher<TypeDescription> JDBC_TYPES = not(isInterface())
+            .and(hasSuperType(namedOneOf(JdbcTracer.CONNECTION_TYPE, JdbcTracer.STATEMENT_TYPE, JdbcTracer.RESULT_SET_TYPE)));
+
+        @Override
+        public boolean matches(TypeDescription target) {
+            if (!JdbcTracer.isCandidateType(target.getName())) {
+                return false;
+            }
+            try {
+                return JDBC_TYPES.matches(target);
+            } catch (RuntimeException e) {
+                // Super types missing from the class path
+                return false;
+            }
+        }
     }
 
     /**
-     * Install transformer for all application methods
-     * Traces all methods in the specified package
-     * @param inst Instrumentation instance
-     * @param targetPackage Package path to instrument (e.g., "com.example.myapp")
+     * Matches the Kotlin continuation base class when coroutine support is enabled
      */
-    private static void installUniversalTransformer(Instrumentation inst, String targetPackage) {
-        if (targetPackage == null || targetPackage.isEmpty()) {
-            throw new IllegalArgumentException("[TraceFlow Agent] Package path is required. " +
-                "Please specify package path in traceFlow configuration.");
+    static class CoroutineTypeMatcher extends ElementMatcher.Junction.AbstractBase<TypeDescription> {
+        @Override
+        public boolean matches(TypeDescription target) {
+            return CoroutineTracer.isEnabled() && target.getName().equals(CoroutineTracer.BASE_CONTINUATION_TYPE);
         }
+    }
 
-        new AgentBuilder.Default()
-            .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
-            .ignore(getIgnoreMatcher())
-            .type(nameStartsWith(targetPackage))
-            .transform(new UniversalMethodTransformer())
-            .installOn(inst);
+    /**
+     * Matches class loaders that can load kotlinx.coroutines
+     */
+    static class CoroutineLoaderMatcher extends ElementMatcher.Junction.AbstractBase<ClassLoader> {
+        @Override
+        public boolean matches(ClassLoader target) {
+            return CoroutineTracer.isCoroutineLoader(target);
+        }
+    }
+
+    /**
+     * Matches types targeted by configured entry point patterns
+     */
+    static class ConfiguredEntryPointTypeMatcher extends ElementMatcher.Junction.AbstractBase<TypeDescription> {
+        @Override
+        public boolean matches(TypeDescription target) {
+            return TraceFlowConfig.current().declaresEntryPoint(target.getName());
+        }
+    }
+
+    /**
+     * Matches methods excluded by the include/exclude patterns or adaptive exclusions of a configuration snapshot
+     */
+    static class ExcludedMethodMatcher extends ElementMatcher.Junction.AbstractBase<MethodDescription> {
+        private final TraceFlowConfig config;
+        private final String typeName;
+
+        ExcludedMethodMatcher(TraceFlowConfig config, String typeName) {
+            this.config = config;
+            this.typeName = typeName;
+        }
+
+        @Override
+        public boolean matches(MethodDescription target) {
+            return config.isExcludedMethod(typeName, target.getInternalName(), target.getDescriptor());
+        }
+    }
+
+    /**
+     * Matches methods whose parameter and return values are captured in a configuration snapshot
+     */
+    static class CaptureMethodMatcher extends ElementMatcher.Junction.AbstractBase<MethodDescription> {
+        private final TraceFlowConfig config;
+        private final String typeName;
+
+        CaptureMethodMatcher(TraceFlowConfig config, String typeName) {
+            this.config = config;
+            this.typeName = typeName;
+        }
+
+        @Override
+        public boolean matches(MethodDescription target) {
+            return config.isCaptureMethod(typeName, target.getName());
+        }
+    }
+
+    /**
+     * Matches Kotlin suspend functions: a trailing Continuation parameter and an Object result
+     */
+    static class SuspendMethodMatcher extends ElementMatcher.Junction.AbstractBase<MethodDescription> {
+        @Override
+        public boolean matches(MethodDescription target) {
+            ParameterList<?> parameters = target.getParameters();
+            return !parameters.isEmpty() &&
+                target.getReturnType().asErasure().represents(Object.class) &&
+                parameters.get(parameters.size() - 1).getType().asErasure().getName()
+                    .equals(CoroutineTracer.CONTINUATION_TYPE);
+        }
     }
 
     /**
-     * Create matcher for packages to ignore
-     * @return ElementMatcher for ignored packages
+     * Matches methods configured as entry points in a configuration snapshot
      */
-    private static ElementMatcher<TypeDescription> getIgnoreMatcher() {
-        ElementMatcher.Junction<TypeDescription> matcher = none();
-        for (String prefix : IGNORED_PACKAGE_PREFIXES) {
-            matcher = matcher.or(nameStartsWith(prefix));
+    static class ConfiguredEntryPointMatcher extends ElementMatcher.Junction.AbstractBase<MethodDescription> {
+        private final TraceFlowConfig config;
+        private final String typeName;
+
+        ConfiguredEntryPointMatcher(TraceFlowConfig config, String typeName) {
+            this.config = config;
+            this.typeName = typeName;
         }
-        return matcher;
+
+        @Override
+        public boolean matches(MethodDescription target) {
+            return config.isEntryPoint(typeName, target.getName());
+        }
+    }
+
+    /**
+     * Create matcher for getter/setter methods
+     * Uses the same naming rules as TraceFlowInterceptor.classifyMethod
+     * @return ElementMatcher for accessor methods
+     */
+    static ElementMatcher.Junction<MethodDescription> accessorMethods() {
+        return nameStartsWith("get").and(takesArguments(0))
+            .or(nameStartsWith("is").and(takesArguments(0)))
+            .or(nameStartsWith("set").and(takesArguments(1)));
+    }
+
+    /**
+     * Create matcher for entry point methods of a type
+     * @param typeDescription Type being transformed
+     * @param config Configuration snapshot
+     * @return ElementMatcher for entry point methods
+     */
+    static ElementMatcher.Junction<MethodDescription> entryPointMethods(TypeDescription typeDescription,
+                                                                        TraceFlowConfig config) {
+        boolean classHasTraceFlow = typeDescription.getDeclaredAnnotations().isAnnotationPresent(TraceFlow.class);
+
+        if (classHasTraceFlow) {
+            // Class-level @TraceFlow: all public methods are entry points
+            return isPublic()
+                .and(not(isDeclaredBy(Object.class)))
+                .and(not(isConstructor()))
+                .and(not(isStatic()))
+                .and(not(isSynthetic()))
+                .and(not(isAbstract()));
+        }
+
+        // Method-level @TraceFlow: only annotated methods
+        ElementMatcher.Junction<MethodDescription> annotated = isAnnotatedWith(TraceFlow.class)
+            .and(not(isDeclaredBy(Object.class)))
+            .and(isPublic());
+
+        // Configured entry points follow the same rules as class-level entry points
+        ElementMatcher.Junction<MethodDescription> configured = new ConfiguredEntryPointMatcher(config, typeDescription.getName())
+            .and(not(isDeclaredBy(Object.class)))
+            .and(not(isConstructor()))
+            .and(not(isStatic()))
+            .and(not(isSynthetic()))
+            .and(not(isAbstract()));
+
+        return annotated.or(configured);
     }
 
+    // -------------------- Transformers --------------------
+
     /**
      * Transformer for @TraceFlow entry point methods
      */
     static class EntryPointTransformer implements AgentBuilder.Transformer {
+        /** Advice classes are parsed once and reused for every transformed type */
+        private static final Advice ADVICE = Advice.to(EntryPointInterceptor.class);
+        private static final Advice CAPTURING_ADVICE = Advice.to(EntryPointInterceptor.Capturing.class);
+        private static final Advice SUSPENDING_ADVICE = Advice.to(EntryPointInterceptor.Suspending.class);
+
         @Override
         public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder,
                                                 TypeDescription typeDescription,
@@ -179,27 +777,11 @@ public class TraceFlowAgent {
                                                 JavaModule javaModule,
                                                 ProtectionDomain protectionDomain) {
 
-            boolean classHasTraceFlow = typeDescription.getDeclaredAnnotations().isAnnotationPresent(TraceFlow.class);
-
-            ElementMatcher<MethodDescription> methodMatcher;
-
-            if (classHasTraceFlow) {
-                // Class-level @TraceFlow: all public methods are entry points
-                methodMatcher = isPublic()
-                    .and(not(isDeclaredBy(Object.class)))
-                    .and(not(isConstructor()))
-                    .and(not(isStatic()))
-                    .and(not(isSynthetic()))
-                    .and(not(isAbstract()));
-            } else {
-                // Method-level @TraceFlow: only annotated methods
-                methodMatcher = isAnnotatedWith(TraceFlow.class)
-                    .and(not(isDeclaredBy(Object.class)))
-                    .and(isPublic());
-            }
+            TraceFlowConfig config = TraceFlowConfig.current();
+            ElementMatcher.Junction<MethodDescription> methodMatcher = entryPointMethods(typeDescription, config);
 
-            return builder.method(methodMatcher)
-                .intercept(MethodDelegation.to(EntryPointInterceptor.class));
+            return visit(builder, methodMatcher, new CaptureMethodMatcher(config, typeDescription.getName()),
+                ADVICE, CAPTURING_ADVICE, SUSPENDING_ADVICE);
         }
     }
 
@@ -207,6 +789,11 @@ public class TraceFlowAgent {
      * Transformer for all methods (active only during tracing)
      */
     static class UniversalMethodTransformer implements AgentBuilder.Transformer {
+        /** Advice classes are parsed once and reused for every transformed type */
+        private static final Advice ADVICE = Advice.to(TraceFlowInterceptor.class);
+        private static final Advice CAPTURING_ADVICE = Advice.to(TraceFlowInterceptor.Capturing.class);
+        private static final Advice SUSPENDING_ADVICE = Advice.to(TraceFlowInterceptor.Suspending.class);
+
         @Override
         public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder,
                                                 TypeDescription typeDescription,
@@ -214,18 +801,10 @@ public class TraceFlowAgent {
                                                 JavaModule javaModule,
                                                 ProtectionDomain protectionDomain) {
 
-            // Skip auxiliary class and proxy classes
-            if (typeDescription.getName().contains("$auxiliary$") ||
-                typeDescription.getName().contains("$$EnhancerBy") ||
-                typeDescription.getName().contains("$$FastClassBy") ||
-                typeDescription.getName().contains("$$Hibernate") ||
-                typeDescription.getName().contains("$$MockitoMock") ||
-                typeDescription.getName().contains("$$Proxy") ||
-                typeDescription.getName().contains("Builder")) {
-                return builder;
-            }
+            TraceFlowConfig config = TraceFlowConfig.current();
 
-            //4 Match all methods (including private, protected)
+            // Match all methods (including private, protected)
+            // Every skip rule is decided here, so excluded methods carry no instrumentation at all
             ElementMatcher.Junction<MethodDescription> methodMatcher =
                 not(isConstructor())
                     .and(not(isDeclaredBy(Object.class)))
@@ -234,18 +813,207 @@ public class TraceFlowAgent {
                     .and(not(isBridge()))
                     .and(not(isNative()))
                     .and(not(isAbstract()))
-                    .and(not(isDeclaredBy(nameMatches(".*\\$\\d+$"))));
+                    .and(not(isDeclaredBy(nameMatches(".*\\$\\d+$"))))
+                    .and(not(new ExcludedMethodMatcher(config, typeDescription.getName())))
+                    // Entry points are handled by EntryPointTransformer
+                    .and(not(entryPointMethods(typeDescription, config)));
 
-            for (String name : EXCLUDED_METHOD_NAMES) {
-                methodMatcher = methodMatcher.and(not(named(name)));
+            if (config.isExcludeAccessors()) {
+                methodMatcher = methodMatcher.and(not(accessorMethods()));
             }
 
-            methodMatcher = methodMatcher
-                .and(not(nameStartsWith(LAMBDA_PREFIX)))
-                .and(not(nameStartsWith(ACCESSOR_PREFIX)));
+            return visit(builder, methodMatcher, new CaptureMethodMatcher(config, typeDescription.getName()),
+                ADVICE, CAPTURING_ADVICE, SUSPENDING_ADVICE);
+        }
+    }
 
-            return builder.method(methodMatcher)
-                .intercept(MethodDelegation.to(TraceFlowInterceptor.class));
+    /**
+     * Transformer adding context propagation to HTTP client and servlet classes
+     */
+    static class PropagationTransformer implements AgentBuilder.Transformer {
+        /** Advice classes are parsed once and reused for every transformed type */
+        private static final Advice URL_CONNECTION_ADVICE = Advice.to(PropagationInterceptor.UrlConnection.class);
+        private static final Advice HTTP_CLIENT_ADVICE = Advice.to(PropagationInterceptor.HttpClientSend.class);
+        private static final Advice SERVLET_ADVICE = Advice.to(PropagationInterceptor.Servlet.class);
+
+        @Override
+        public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder,
+                                                TypeDescription typeDescription,
+                                                ClassLoader classLoader,
+                                                JavaModule javaModule,
+                                                ProtectionDomain protectionDomain) {
+
+            String name = typeDescription.getName();
+            if (name.equals(TracePropagation.URL_CONNECTION_TYPE)) {
+                return builder.visit(URL_CONNECTION_ADVICE.on(
+                    namedOneOf("connect", "getInputStream", "getOutputStream").and(takesArguments(0))));
+            }
+            if (name.equals(TracePropagation.HTTP_CLIENT_TYPE)) {
+                // send delegates to sendAsync; nested calls keep the header set by the outer one
+                return builder.visit(HTTP_CLIENT_ADVICE.on(named("sendAsync")));
+            }
+            return builder.visit(SERVLET_ADVICE.on(named("service").and(isPublic()).and(takesArguments(2))));
+        }
+    }
+
+    /**
+     * Applies wait recording advice to the blocking methods of JDK classes
+     */
+    static class BlockingTransformer implements AgentBuilder.Transformer {
+        /** Advice classes are parsed once and reused for every transformed type */
+        private static final Advice WAIT_ADVICE = Advice.to(BlockingInterceptor.Wait.class);
+        private static final Advice PARK_ADVICE = Advice.to(BlockingInterceptor.Park.class);
+
+        @Override
+        public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder,
+                                                TypeDescription typeDescription,
+                                                ClassLoader classLoader,
+                                                JavaModule javaModule,
+                                                ProtectionDomain protectionDomain) {
+
+            String name = typeDescription.getName();
+            if (name.equals(BlockingDetector.LOCK_SUPPORT_TYPE)) {
+                ElementMatcher.Junction<MethodDescription> park = isStatic().and(nameStartsWith("park"));
+                return builder
+                    .visit(PARK_ADVICE.on(park.and(takesArgument(0, Object.class))))
+                    .visit(WAIT_ADVICE.on(park.and(not(takesArgument(0, Object.class)))));
+            }
+            if (name.equals(BlockingDetector.OBJECT_TYPE)) {
+                // wait(long) is native; wait() and wait(long, int) delegate to it
+                return builder.visit(WAIT_ADVICE.on(named("wait").and(not(isNative()))));
+            }
+            if (name.equals(BlockingDetector.SOCKET_TYPE)) {
+                return builder.visit(WAIT_ADVICE.on(named("read").and(takesArguments(byte[].class, int.class, int.class))));
+            }
+            if (name.equals(BlockingDetector.SOCKET_CHANNEL_TYPE)) {
+                return builder.visit(WAIT_ADVICE.on(named("read").and(isPublic())));
+            }
+            // CompletableFuture get/join and FutureTask get
+            return builder.visit(WAIT_ADVICE.on(namedOneOf("get", "join").and(isPublic())));
+        }
+    }
+
+    /**
+     * Applies statement recording advice to JDBC driver and connection pool classes
+     */
+    static class JdbcTransformer implements AgentBuilder.Transformer {
+        /** Advice classes are parsed once and reused for every transformed type */
+        private static final Advice EXECUTE_ADVICE = Advice.to(JdbcInterceptor.Execute.class);
+        private static final Advice EXECUTE_SQL_ADVICE = Advice.to(JdbcInterceptor.ExecuteSql.class);
+        private static final Advice PREPARE_ADVICE = Advice.to(JdbcInterceptor.Prepare.class);
+        private static final Advice NEXT_ADVICE = Advice.to(JdbcInterceptor.Next.class);
+        private static final Advice CLOSE_ADVICE = Advice.to(JdbcInterceptor.Close.class);
+
+        @Override
+        public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder,
+                                                TypeDescription typeDescription,
+                                                ClassLoader classLoader,
+                                                JavaModule javaModule,
+                                                ProtectionDomain protectionDomain) {
+
+            ElementMatcher.Junction<MethodDescription> concrete = isPublic().and(not(isAbstract())).and(not(isBridge()));
+            ElementMatcher.Junction<MethodDescription> close = concrete.and(named("close")).and(takesArguments(0));
+
+            if (hasSuperType(named(JdbcTracer.CONNECTION_TYPE)).matches(typeDescription)) {
+                builder = builder.visit(PREPARE_ADVICE.on(concrete
+                    .and(namedOneOf("prepareStatement", "prepareCall"))
+                    .and(takesArgument(0, String.class))));
+            }
+            if (hasSuperType(named(JdbcTracer.STATEMENT_TYPE)).matches(typeDescription)) {
+                ElementMatcher.Junction<MethodDescription> execute = concrete.and(namedOneOf(
+                    "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch"));
+                builder = builder
+                    .visit(EXECUTE_ADVICE.on(execute.and(takesArguments(0))))
+                    .visit(EXECUTE_SQL_ADVICE.on(execute.and(takesArgument(0, String.class))))
+                    .visit(CLOSE_ADVICE.on(close));
+            }
+            if (hasSuperType(named(JdbcTracer.RESULT_SET_TYPE)).matches(typeDescription)) {
+                builder = builder
+                    .visit(NEXT_ADVICE.on(concrete.and(named("next")).and(takesArguments(0))))
+                    .visit(CLOSE_ADVICE.on(close));
+            }
+            return builder;
+        }
+    }
+
+    /**
+     * Applies context propagation advice to the Kotlin continuation base class
+     */
+    static class CoroutineTransformer implements AgentBuilder.Transformer {
+        /** Advice classes are parsed once and reused for every transformed type */
+        private static final Advice CREATED_ADVICE = Advice.to(CoroutineInterceptor.Created.class);
+        private static final Advice RESUME_ADVICE = Advice.to(CoroutineInterceptor.Resume.class);
+
+        @Override
+        public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder,
+                                                TypeDescription typeDescription,
+                                                ClassLoader classLoader,
+                                                JavaModule javaModule,
+                                                ProtectionDomain protectionDomain) {
+            System.out.println("[TraceFlow Coroutines] Context propagation installed in " + typeDescription.getName());
+            return builder
+                .visit(CREATED_ADVICE.on(isConstructor()))
+                .visit(RESUME_ADVICE.on(named("resumeWith").and(takesArguments(1))));
+        }
+    }
+
+    /**
+     * Apply the capturing advice to captured methods and the default advice to the rest
+     * With coroutine support, suspend functions get the suspending advice instead.
+     * @param builder Type builder
+     * @param methodMatcher Instrumented methods
+     * @param captureMatcher Methods whose values are captured
+     * @param advice Default advice
+     * @param capturingAdvice Capturing advice
+     * @param suspendingAdvice Advice for suspend functions
+     * @return Builder with the advices applied
+     */
+    private static DynamicType.Builder<?> visit(DynamicType.Builder<?> builder,
+                                                ElementMatcher.Junction<MethodDescription> methodMatcher,
+                                                ElementMatcher.Junction<MethodDescription> captureMatcher,
+                                                Advice advice, Advice capturingAdvice, Advice suspendingAdvice) {
+        if (CoroutineTracer.isEnabled()) {
+            builder = builder.visit(suspendingAdvice.on(methodMatcher.and(new SuspendMethodMatcher())));
+            methodMatcher = methodMatcher.and(not(new SuspendMethodMatcher()));
+        }
+        if (!TraceFlowConfig.current().isCaptureValues()) {
+            return builder.visit(advice.on(methodMatcher));
+        }
+        return builder
+            .visit(capturingAdvice.on(methodMatcher.and(captureMatcher)))
+            .visit(advice.on(methodMatcher.and(not(captureMatcher))));
+    }
+
+    /**
+     * Type pool cache per class loader that does not keep the class loader alive
+     * Web application and plugin class loaders can be collected with the types parsed for them,
+     * and parsed types are released under memory pressure.
+     */
+    static class WeakTypePoolCache extends AgentBuilder.PoolStrategy.WithTypePoolCache {
+        private final Map<ClassLoader, TypePool.CacheProvider> caches = Collections.synchronizedMap(new WeakHashMap<>());
+        private final TypePool.CacheProvider bootstrapCache = new TypePool.CacheProvider.Simple.UsingSoftReference();
+
+        WeakTypePoolCache() {
+            super(TypePool.Default.ReaderMode.FAST);
+        }
+
+        @Override
+        protected TypePool.CacheProvider locate(ClassLoader classLoader) {
+            if (classLoader == null) {
+                return bootstrapCache;
+            }
+            return caches.computeIfAbsent(classLoader, loader -> new TypePool.CacheProvider.Simple.UsingSoftReference());
+        }
+    }
+
+    /**
+     * Listener reporting instrumentation failures
+     */
+    static class ErrorListener extends AgentBuilder.Listener.Adapter {
+        @Override
+        public void onError(String typeName, ClassLoader classLoader, JavaModule module,
+                            boolean loaded, Throwable throwable) {
+            System.err.println("[TraceFlow Agent] Failed to instrument " + typeName + ": " + throwable.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,241 @@
+package io.github.jth00.traceflow.agent;
+
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.scaffold.TypeValidation;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.pool.TypePool;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Build-time instrumentation of compiled classes
+ *
+ * Applies the same matchers and Advice as {@link TraceFlowAgent} to a classes directory,
+ * so the packaged application runs traced without -javaagent.
+ * The agent arguments used at build time are stored as a resource and applied
+ * when the first entry point is reached at runtime.
+ */
+public class TraceFlowInstrumenter {
+    /** Marker resource written next to instrumented classes */
+    public static final String INSTRUMENTED_RESOURCE = "META-INF/traceflow/instrumented.properties";
+    private static final String KEY_AGENT_ARGS = "agentArgs";
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private static volatile boolean runtimeInitialized = false;
+
+    /**
+     * Instrument a compiled classes directory
+     * Usage: TraceFlowInstrumenter &lt;classesDir&gt; &lt;outputDir&gt; &lt;agentArgs&gt; [classpath]
+     * @param args Input directory, output directory, agent arguments and optional class path
+     *             (entries separated by the platform path separator) for resolving super types
+     * @throws IOException If classes cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("[TraceFlow Instrumenter] Usage: " +
+                "TraceFlowInstrumenter <classesDir> <outputDir> <agentArgs> [classpath]");
+        }
+
+        List<Path> classpath = new ArrayList<>();
+        if (args.length > 3 && !args[3].isEmpty()) {
+            for (String entry : args[3].split(File.pathSeparator)) {
+                classpath.add(Paths.get(entry));
+            }
+        }
+
+        instrument(Paths.get(args[0]), Paths.get(args[1]), args[2], classpath);
+    }
+
+    /**
+     * Copy a classes directory to the output directory, instrumenting matching classes
+     * @param input Compiled classes directory
+     * @param output Output directory
+     * @param agentArgs Agent arguments in format: ex)port=8081,package=com.example
+     * @param classpath Compile class path used to resolve super types
+     * @return Number of instrumented classes
+     * @throws IOException If classes cannot be read or written
+     */
+    public static int instrument(Path input, Path output, String agentArgs, List<Path> classpath) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        TraceFlowConfig config = TraceFlowAgent.createConfig(TraceFlowAgent.parseAgentArgs(agentArgs));
+        if (config.getPackages().isEmpty()) {
+            throw new IllegalArgumentException("[TraceFlow Instrumenter] Package path is required. " +
+                "Please specify package path in traceFlow configuration.");
+        }
+        TraceFlowConfig.update(config);
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(input)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        int instrumented = 0;
+        int classes = 0;
+        try (ClassFileLocator locator = createLocator(input, classpath)) {
+            TypePool typePool = TypePool.Default.of(locator);
+            // Same class format as runtime instrumentation: no auxiliary types or fields
+            ByteBuddy byteBuddy = new ByteBuddy()
+                .with(TypeValidation.DISABLED)
+                .with(Implementation.Context.Disabled.Factory.INSTANCE);
+
+            for (Path file : files) {
+                Path relative = input.relativize(file);
+                Path target = output.resolve(relative.toString());
+                Files.createDirectories(target.getParent());
+
+                byte[] bytes = null;
+                String fileName = relative.toString();
+                if (fileName.endsWith(CLASS_FILE_EXTENSION) && !fileName.endsWith("-info" + CLASS_FILE_EXTENSION)) {
+                    classes++;
+                    String typeName = fileName
+                        .substring(0, fileName.length() - CLASS_FILE_EXTENSION.length())
+                        .replace(File.separatorChar, '.');
+                    bytes = transform(typeName, typePool, locator, byteBuddy);
+                }
+
+                if (bytes != null) {
+                    Files.write(target, bytes);
+                    instrumented++;
+                } else {
+                    Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+
+        writeMarker(output, agentArgs);
+
+        System.out.println("[TraceFlow Instrumenter] Instrumented " + instrumented + "/" + classes +
+            " classes in " + (System.currentTimeMillis() - startTime) + "ms");
+        return instrumented;
+    }
+
+    /**
+     * Apply the same transformers as the agent to a single type
+     * @param typeName Binary name of the type
+     * @param typePool Type pool over the classes directory and class path
+     * @param locator Class file locator for the original bytes
+     * @param byteBuddy Configured ByteBuddy instance
+     * @return Instrumented class file or null if the type is not traced
+     */
+    private static byte[] transform(String typeName, TypePool typePool,
+                                    ClassFileLocator locator, ByteBuddy byteBuddy) {
+        try {
+            TypeDescription type = typePool.describe(typeName).resolve();
+            if (new TraceFlowAgent.IgnoredTypeMatcher().matches(type) ||
+                !new TraceFlowAgent.CandidateTypeMatcher().matches(type)) {
+                return null;
+            }
+
+            ElementMatcher<TypeDescription> entryPointTypes = TraceFlowAgent.entryPointTypes();
+            boolean entryPoint = entryPointTypes.matches(type);
+            boolean traced = new TraceFlowAgent.TracedPackageMatcher().matches(type);
+            if (!entryPoint && !traced) {
+                return null;
+            }
+
+            DynamicType.Builder<?> builder = byteBuddy.redefine(type, locator);
+            if (entryPoint) {
+                builder = new TraceFlowAgent.EntryPointTransformer().transform(builder, type, null, null, null);
+            }
+            if (traced) {
+                builder = new TraceFlowAgent.UniversalMethodTransformer().transform(builder, type, null, null, null);
+            }
+            return builder.make().getBytes();
+
+        } catch (Exception e) {
+            System.err.println("[TraceFlow Instrumenter] Failed to instrument " + typeName + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static ClassFileLocator createLocator(Path input, List<Path> classpath) throws IOException {
+        List<ClassFileLocator> locators = new ArrayList<>();
+        locators.add(new ClassFileLocator.ForFolder(input.toFile()));
+        for (Path entry : classpath) {
+            if (Files.isDirectory(entry)) {
+                locators.add(new ClassFileLocator.ForFolder(entry.toFile()));
+            } else if (Files.isRegularFile(entry)) {
+                locators.add(ClassFileLocator.ForJarFile.of(entry.toFile()));
+            }
+        }
+        // JDK types
+        locators.add(ClassFileLocator.ForClassLoader.ofSystemLoader());
+        return new ClassFileLocator.Compound(locators);
+    }
+
+    private static void writeMarker(Path output, String agentArgs) throws IOException {
+        Path marker = output.resolve(INSTRUMENTED_RESOURCE);
+        Files.createDirectories(marker.getParent());
+
+        Properties properties = new Properties();
+        properties.setProperty(KEY_AGENT_ARGS, agentArgs);
+        try (OutputStream out = Files.newOutputStream(marker)) {
+            properties.store(out, "TraceFlow build-time instrumentation");
+        }
+    }
+
+    // -------------------- Runtime --------------------
+
+    /**
+     * Check if build-time instrumented classes are visible to a class loader
+     * @param classLoader Class loader to search
+     * @return true if the marker resource exists
+     */
+    public static boolean isBuildTimeInstrumented(ClassLoader classLoader) {
+        return classLoader != null && classLoader.getResource(INSTRUMENTED_RESOURCE) != null;
+    }
+
+    /**
+     * Apply the stored agent arguments once when running without the agent
+     * Does nothing if the agent was started with -javaagent.
+     */
+    public static void ensureInitialized() {
+        if (runtimeInitialized) {
+            return;
+        }
+
+        synchronized (TraceFlowInstrumenter.class) {
+            if (runtimeInitialized) {
+                return;
+            }
+            runtimeInitialized = true;
+
+            if (TraceFlowAgent.isLoaded()) {
+                return;
+            }
+
+            URL resource = TraceFlowInstrumenter.class.getClassLoader().getResource(INSTRUMENTED_RESOURCE);
+            if (resource == null) {
+                return;
+            }
+
+            try (InputStream in = resource.openStream()) {
+                Properties properties = new Properties();
+                properties.load(in);
+                System.out.println("[TraceFlow] Running build-time instrumented classes");
+                TraceFlowAgent.initialize(TraceFlowAgent.parseAgentArgs(properties.getProperty(KEY_AGENT_ARGS)));
+            } catch (Exception e) {
+                System.err.println("[TraceFlow] Failed to load build-time configuration: " + e.getMessage());
+            }
+        }
+    }
+}
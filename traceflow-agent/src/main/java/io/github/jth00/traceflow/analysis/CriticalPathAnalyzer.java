@@ -0,0 +1,230 @@
+package io.github.jth00.traceflow.analysis;
+
+import io.github.jth00.traceflow.vo.SessionAnalysis;
+import io.github.jth00.traceflow.vo.TraceEntry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Critical path and async overlap analysis of a session
+ *
+ * The critical path is found by walking back from the end of the root call:
+ * the child that finished last before the current point is on the path, its own
+ * children are analyzed the same way, and the walk continues from the child's start.
+ * Time not covered by a critical child is attributed to the parent itself.
+ * Async calls that completed after the root returned are reported as detached
+ * and never placed on the critical path.
+ */
+public class CriticalPathAnalyzer {
+
+    /**
+     * Analyze the entries of one session
+     * @param entries Entries of the session
+     * @return Analysis or null if the session has no entries
+     */
+    public static SessionAnalysis analyze(List<TraceEntry> entries) {
+        if (entries.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Node> nodes = new HashMap<>();
+        for (TraceEntry entry : entries) {
+            nodes.put(entry.getId(), new Node(entry));
+        }
+
+        Node root = null;
+        for (Node node : nodes.values()) {
+            Node parent = node.entry.getParentId() != null ? nodes.get(node.entry.getParentId()) : null;
+            if (parent != null) {
+                parent.children.add(node);
+            } else if (root == null || node.start < root.start) {
+                root = node;
+            }
+        }
+
+        // Critical path
+        List<SessionAnalysis.Segment> segments = new ArrayList<>();
+        Set<String> criticalPath = new LinkedHashSet<>();
+        walk(root, root.end, root.end, segments, criticalPath);
+
+        Map<String, Long> ownCritical = new HashMap<>();
+        for (SessionAnalysis.Segment segment : segments) {
+            ownCritical.merge(segment.getEntryId(), segment.getEnd() - segment.getStart(), Long::sum);
+        }
+
+        // Async children
+        List<SessionAnalysis.AsyncChild> asyncChildren = new ArrayList<>();
+        List<long[]> asyncIntervals = new ArrayList<>();
+        String boundingAsyncId = null;
+        long boundingCritical = 0;
+
+        for (Node node : nodes.values()) {
+            if (!node.entry.isAsync()) continue;
+
+            Node parent = nodes.get(node.entry.getParentId());
+            long overlap = 0;
+            long wait = 0;
+            if (parent != null) {
+                List<long[]> siblings = new ArrayList<>();
+                List<long[]> syncSiblings = new ArrayList<>();
+                for (Node sibling : parent.children) {
+                    if (sibling == node) continue;
+                    siblings.add(new long[]{sibling.start, sibling.end});
+                    if (!sibling.entry.isAsync()) syncSiblings.add(new long[]{sibling.start, sibling.end});
+                }
+                overlap = coveredLength(node.start, node.end, siblings);
+
+                long waitStart = Math.max(node.start, parent.start);
+                long waitEnd = Math.min(node.end, parent.end);
+                if (waitEnd > waitStart) {
+                    wait = (waitEnd - waitStart) - coveredLength(waitStart, waitEnd, syncSiblings);
+                }
+            }
+
+            long critical = subtreeCritical(node, ownCritical);
+            if (critical > boundingCritical) {
+                boundingCritical = critical;
+                boundingAsyncId = node.entry.getId();
+            }
+
+            asyncIntervals.add(new long[]{node.start, node.end});
+            asyncChildren.add(new SessionAnalysis.AsyncChild(
+                node.entry.getId(),
+                node.entry.getParentId(),
+                simpleClassName(node.entry.getClassName()) + "." + node.entry.getMethodName(),
+                node.start,
+                node.end - node.start,
+                overlap,
+                wait,
+                critical,
+                node.end > root.end
+            ));
+        }
+
+        return new SessionAnalysis(
+            root.entry.getSessionId(),
+            root.entry.getId(),
+            root.end - root.start,
+            new ArrayList<>(criticalPath),
+            segments,
+            asyncChildren,
+            boundingAsyncId,
+            maxConcurrency(asyncIntervals)
+        );
+    }
+
+    /**
+     * Attribute the range [node.start, until] of a node to itself or its critical children
+     * @param node Node to walk
+     * @param until End of the range on the critical path
+     * @param rootEnd End of the root call (later async completions are detached)
+     * @param segments Collected self segments
+     * @param criticalPath Collected critical entry IDs
+     */
+    private static void walk(Node node, long until, long rootEnd,
+                             List<SessionAnalysis.Segment> segments, Set<String> criticalPath) {
+        criticalPath.add(node.entry.getId());
+
+        List<Node> children = new ArrayList<>(node.children);
+        children.sort(Comparator.comparingLong((Node n) -> n.end).reversed());
+
+        long cursor = until;
+        for (Node child : children) {
+            if (cursor <= node.start) break;
+            if (child.end > rootEnd) continue;
+
+            long childEnd = Math.min(child.end, cursor);
+            if (childEnd <= child.start) continue;
+
+            addSegment(segments, node, childEnd, cursor);
+            walk(child, childEnd, rootEnd, segments, criticalPath);
+            cursor = child.start;
+        }
+        addSegment(segments, node, node.start, cursor);
+    }
+
+    private static void addSegment(List<SessionAnalysis.Segment> segments, Node node, long start, long end) {
+        if (end > start) {
+            segments.add(new SessionAnalysis.Segment(node.entry.getId(), start, end));
+        }
+    }
+
+    private static long subtreeCritical(Node node, Map<String, Long> ownCritical) {
+        long total = ownCritical.getOrDefault(node.entry.getId(), 0L);
+        for (Node child : node.children) {
+            total += subtreeCritical(child, ownCritical);
+        }
+        return total;
+    }
+
+    /**
+     * Length of [start, end] covered by the union of intervals
+     */
+    private static long coveredLength(long start, long end, List<long[]> intervals) {
+        List<long[]> clipped = new ArrayList<>();
+        for (long[] interval : intervals) {
+            long s = Math.max(start, interval[0]);
+            long e = Math.min(end, interval[1]);
+            if (e > s) clipped.add(new long[]{s, e});
+        }
+        clipped.sort(Comparator.comparingLong(interval -> interval[0]));
+
+        long covered = 0;
+        long currentStart = -1;
+        long currentEnd = -1;
+        for (long[] interval : clipped) {
+            if (interval[0] > currentEnd) {
+                covered += currentEnd - currentStart;
+                currentStart = interval[0];
+                currentEnd = interval[1];
+            } else {
+                currentEnd = Math.max(currentEnd, interval[1]);
+            }
+        }
+        return covered + (currentEnd - currentStart);
+    }
+
+    private static int maxConcurrency(List<long[]> intervals) {
+        List<long[]> events = new ArrayList<>();
+        for (long[] interval : intervals) {
+            events.add(new long[]{interval[0], 1});
+            events.add(new long[]{interval[1], -1});
+        }
+        // Times are in milliseconds, so calls sharing a millisecond are counted as concurrent
+        events.sort(Comparator.comparingLong((long[] e) -> e[0]).thenComparingLong(e -> -e[1]));
+
+        int current = 0;
+        int max = 0;
+        for (long[] event : events) {
+            current += (int) event[1];
+            max = Math.max(max, current);
+        }
+        return max;
+    }
+
+    private static String simpleClassName(String className) {
+        return className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1);
+    }
+
+    /**
+     * Entry with its time range and children
+     */
+    private static class Node {
+        final TraceEntry entry;
+        final long start;
+        final long end;
+        final List<Node> children = new ArrayList<>();
+
+        Node(TraceEntry entry) {
+            this.entry = entry;
+            this.start = entry.getStartTime();
+            this.end = entry.getStartTime() + entry.getDuration();
+        }
+    }
+}
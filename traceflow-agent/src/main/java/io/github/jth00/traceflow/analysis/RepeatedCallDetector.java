@@ -0,0 +1,150 @@
+package io.github.jth00.traceflow.analysis;
+
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.vo.CallAggregate;
+import io.github.jth00.traceflow.vo.RepeatedCall;
+import io.github.jth00.traceflow.vo.TraceEntry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detects methods called many times under the same parent call (N+1 queries, remote calls in loops)
+ *
+ * Each flushed session is analyzed once and its findings are accumulated per
+ * entry point, parent method and repeated method. Calls folded into an aggregated
+ * entry count with their aggregated call count, so loop compression does not hide them.
+ */
+public class RepeatedCallDetector {
+
+    /** Maximum number of distinct patterns kept across sessions */
+    private static final int MAX_PATTERNS = 1000;
+
+    /** Maximum number of findings returned */
+    private static final int MAX_FINDINGS = 100;
+
+    // Findings across sessions ("entryPoint|parentMethod|className.methodName" -> finding)
+    private static final Map<String, RepeatedCall> patterns = new ConcurrentHashMap<>();
+
+    /**
+     * Analyze a flushed session and accumulate its findings
+     * @param entries Entries of the session
+     */
+    public static void record(List<TraceEntry> entries) {
+        if (TraceFlowConfig.current().getRepeatedCallThreshold() <= 0) {
+            return;
+        }
+        for (RepeatedCall finding : detect(entries)) {
+            String key = finding.getEntryPoint() + "|" + finding.getParentMethod() + "|" +
+                finding.getClassName() + "." + finding.getMethodName();
+            RepeatedCall total = patterns.get(key);
+            if (total == null) {
+                if (patterns.size() >= MAX_PATTERNS) continue;
+                total = patterns.computeIfAbsent(key, k -> new RepeatedCall(finding.getEntryPoint(),
+                    finding.getParentMethod(), finding.getClassName(), finding.getMethodName(), finding.isDataAccess()));
+            }
+            total.merge(finding);
+        }
+    }
+
+    /**
+     * Get findings accumulated across sessions, by cumulative duration
+     * @return Findings (at most {@value #MAX_FINDINGS})
+     */
+    public static List<RepeatedCall> report() {
+        List<RepeatedCall> findings = new ArrayList<>();
+        for (RepeatedCall finding : patterns.values()) {
+            findings.add(finding.copy());
+        }
+        return top(findings);
+    }
+
+    /**
+     * Clear accumulated findings
+     */
+    public static void reset() {
+        patterns.clear();
+    }
+
+    /**
+     * Find methods called at least the configured threshold times under one parent call
+     * @param entries Entries of one session
+     * @return Findings of the session, by cumulative duration
+     */
+    public static List<RepeatedCall> detect(List<TraceEntry> entries) {
+        return detect(entries, TraceFlowConfig.current().getRepeatedCallThreshold());
+    }
+
+    /**
+     * Find methods called at least the given number of times under one parent call
+     * @param entries Entries of one session
+     * @param threshold Minimum calls under one parent, 0 to disable
+     * @return Findings of the session, by cumulative duration
+     */
+    public static List<RepeatedCall> detect(List<TraceEntry> entries, int threshold) {
+        TraceFlowConfig config = TraceFlowConfig.current();
+        if (threshold <= 0 || entries.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, TraceEntry> byId = new HashMap<>();
+        TraceEntry root = null;
+        for (TraceEntry entry : entries) {
+            byId.put(entry.getId(), entry);
+            if (entry.getMethodType() == MethodTypeEnum.ENTRY_POINT ||
+                (root == null && entry.getParentId() == null)) {
+                root = entry;
+            }
+        }
+        String entryPoint = root != null ? label(root) : "";
+        String sessionId = entries.get(0).getSessionId();
+
+        // parent ID -> repeated method -> {calls, duration}
+        Map<String, Map<String, long[]>> children = new LinkedHashMap<>();
+        Map<String, TraceEntry> samples = new HashMap<>();
+        for (TraceEntry entry : entries) {
+            if (entry.getParentId() == null || entry.getMethodType() == MethodTypeEnum.TRUNCATED) {
+                continue;
+            }
+            String method = entry.getClassName() + "." + entry.getMethodName();
+            CallAggregate aggregate = entry.getAggregate();
+            long[] sum = children.computeIfAbsent(entry.getParentId(), id -> new HashMap<>())
+                .computeIfAbsent(method, m -> new long[2]);
+            sum[0] += aggregate != null ? aggregate.getCount() : 1;
+            sum[1] += entry.getDuration();
+            samples.putIfAbsent(method, entry);
+        }
+
+        // Occurrences under several calls of the same parent method form one finding
+        Map<String, RepeatedCall> findings = new LinkedHashMap<>();
+        children.forEach((parentId, methods) -> methods.forEach((method, sum) -> {
+            if (sum[0] < threshold) return;
+            TraceEntry sample = samples.get(method);
+            TraceEntry parent = byId.get(parentId);
+            String parentMethod = parent != null ? label(parent) : "";
+            findings.computeIfAbsent(parentMethod + "|" + method, k -> new RepeatedCall(entryPoint, parentMethod,
+                    sample.getClassName(), sample.getMethodName(),
+                    config.isDataAccessMethod(sample.getClassName(), sample.getMethodName())))
+                .add(sum[0], sum[1], sessionId, parentId);
+        }));
+        return top(new ArrayList<>(findings.values()));
+    }
+
+    private static List<RepeatedCall> top(List<RepeatedCall> findings) {
+        findings.sort(Comparator.comparingLong(RepeatedCall::getTotalDuration).reversed()
+            .thenComparing(Comparator.comparingLong(RepeatedCall::getTotalCalls).reversed()));
+        return findings.size() > MAX_FINDINGS ? new ArrayList<>(findings.subList(0, MAX_FINDINGS)) : findings;
+    }
+
+    private static String label(TraceEntry entry) {
+        String className = entry.getClassName();
+        return className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1)
+            + "." + entry.getMethodName();
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.jth00.traceflow.analysis;
+
+import io.github.jth00.traceflow.vo.ResourceProfile;
+import io.github.jth00.traceflow.vo.ResourceUsage;
+import io.github.jth00.traceflow.vo.TraceEntry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates per-call allocation and CPU time by method and by call path
+ *
+ * Self values subtract the measured usage of direct children from their parent.
+ * All traced children of a call run on the parent's thread (async children are
+ * measured until they return their future), so the subtraction stays within one thread.
+ * Tracing overhead of a child that falls outside the child's own body is charged
+ * to the parent's self values.
+ */
+public class ResourceProfiler {
+
+    /** Maximum rows returned per table */
+    private static final int MAX_ROWS = 100;
+
+    /**
+     * Profile the entries of the given sessions
+     * @param sessions Entries of each session
+     * @return Aggregated profile
+     */
+    public static ResourceProfile profile(Collection<List<TraceEntry>> sessions) {
+        Map<String, ResourceProfile.Row> methods = new HashMap<>();
+        Map<String, ResourceProfile.Row> paths = new HashMap<>();
+        int measured = 0;
+
+        for (List<TraceEntry> entries : sessions) {
+            Map<String, TraceEntry> byId = new HashMap<>();
+            Map<String, long[]> children = new HashMap<>();
+            for (TraceEntry entry : entries) {
+                byId.put(entry.getId(), entry);
+            }
+            for (TraceEntry entry : entries) {
+                ResourceUsage usage = entry.getResources();
+                if (usage == null || entry.getParentId() == null) continue;
+                long[] sum = children.computeIfAbsent(entry.getParentId(), id -> new long[3]);
+                sum[0] += usage.getAllocatedBytes();
+                sum[1] += usage.getCpuNanos();
+                sum[2] += usage.getWallNanos();
+            }
+
+            Map<String, String> pathCache = new HashMap<>();
+            for (TraceEntry entry : entries) {
+                ResourceUsage usage = entry.getResources();
+                if (usage == null) continue;
+                measured++;
+
+                long[] childUsage = children.getOrDefault(entry.getId(), new long[3]);
+                methods.computeIfAbsent(label(entry), ResourceProfile.Row::new).add(usage, childUsage);
+                paths.computeIfAbsent(path(entry, byId, pathCache), ResourceProfile.Row::new).add(usage, childUsage);
+            }
+        }
+
+        return new ResourceProfile(sessions.size(), measured, top(methods), top(paths));
+    }
+
+    /**
+     * Call path from the session root to an entry
+     */
+    private static String path(TraceEntry entry, Map<String, TraceEntry> byId, Map<String, String> cache) {
+        String cached = cache.get(entry.getId());
+        if (cached != null) {
+            return cached;
+        }
+        TraceEntry parent = entry.getParentId() != null ? byId.get(entry.getParentId()) : null;
+        String path = parent != null ? path(parent, byId, cache) + " > " + label(entry) : label(entry);
+        cache.put(entry.getId(), path);
+        return path;
+    }
+
+    private static List<ResourceProfile.Row> top(Map<String, ResourceProfile.Row> rows) {
+        List<ResourceProfile.Row> sorted = new ArrayList<>(rows.values());
+        sorted.sort(Comparator.comparingLong(ResourceProfile.Row::getSelfAllocatedBytes).reversed()
+            .thenComparing(Comparator.comparingLong(ResourceProfile.Row::getSelfCpuNanos).reversed()));
+        return sorted.size() > MAX_ROWS ? new ArrayList<>(sorted.subList(0, MAX_ROWS)) : sorted;
+    }
+
+    private static String label(TraceEntry entry) {
+        String className = entry.getClassName();
+        return className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1)
+            + "." + entry.getMethodName();
+    }
+}
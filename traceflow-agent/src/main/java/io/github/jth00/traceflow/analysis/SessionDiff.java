@@ -0,0 +1,436 @@
+package io.github.jth00.traceflow.analysis;
+
+import io.github.jth00.traceflow.jfr.JfrImporter;
+import io.github.jth00.traceflow.vo.CallAggregate;
+import io.github.jth00.traceflow.vo.SessionComparison;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares a baseline set of sessions with a current set, call path by call path
+ *
+ * Call trees are aligned by their path from the entry point ("A.run &gt; B.load"), so
+ * sessions of the same endpoint line up even when their entry IDs differ. Paths are keyed
+ * by fully qualified class names and parameter types; the short names are for display only.
+ * Calls, total
+ * and self time are averaged per session on each side. A path is flagged when its mean
+ * self time changed by at least the threshold percentage and the minimum delta, and the
+ * change exceeds the session to session noise (Welch's t statistic of at least 2).
+ *
+ * Can be run standalone against exported sessions (GET /logs output or a .jfr recording),
+ * exiting with status 2 when regressions are found:
+ * java -cp traceflow-agent.jar io.github.jth00.traceflow.analysis.SessionDiff baseline.json current.json
+ */
+public class SessionDiff {
+
+    public static final double DEFAULT_THRESHOLD_PERCENT = 20;
+    public static final long DEFAULT_MIN_DELTA_NANOS = 1_000_000;
+
+    public static final String STATUS_REGRESSED = "REGRESSED";
+    public static final String STATUS_IMPROVED = "IMPROVED";
+    public static final String STATUS_ADDED = "ADDED";
+    public static final String STATUS_REMOVED = "REMOVED";
+    public static final String STATUS_UNCHANGED = "UNCHANGED";
+
+    /** Minimum t statistic of a change, roughly 95% confidence for more than a few sessions */
+    private static final double MIN_T_STATISTIC = 2.0;
+
+    /** Maximum rows returned */
+    private static final int MAX_ROWS = 500;
+
+    static final int EXIT_USAGE = 1;
+    static final int EXIT_REGRESSED = 2;
+
+    private static final String JFR_EXTENSION = ".jfr";
+
+    // === Comparison ===
+
+    /**
+     * Compare two sets of sessions
+     * @param baseline Entries of each baseline session
+     * @param current Entries of each current session
+     * @param thresholdPercent Minimum self time change in percent
+     * @param minDeltaNanos Minimum self time change per session in nanoseconds
+     * @return Rows of all call paths, regressions first
+     */
+    public static SessionComparison compare(Collection<List<TraceEntry>> baseline,
+                                            Collection<List<TraceEntry>> current,
+                                            double thresholdPercent, long minDeltaNanos) {
+        Map<String, PathStats[]> paths = new LinkedHashMap<>();
+        accumulate(baseline, 0, paths);
+        accumulate(current, 1, paths);
+
+        int baselineCount = baseline.size();
+        int currentCount = current.size();
+        List<SessionComparison.Row> rows = new ArrayList<>();
+        int regressions = 0;
+        for (Map.Entry<String, PathStats[]> path : paths.entrySet()) {
+            SessionComparison.Row row = toRow(path.getKey(), path.getValue(), baselineCount, currentCount,
+                thresholdPercent, minDeltaNanos);
+            if (isRegression(row)) {
+                regressions++;
+            }
+            rows.add(row);
+        }
+
+        rows.sort(Comparator.comparing((SessionComparison.Row row) -> !isRegression(row))
+            .thenComparing(row -> isRegression(row) ? -row.getSelfDeltaNanos() : -Math.abs(row.getSelfDeltaNanos())));
+        if (rows.size() > MAX_ROWS) {
+            rows = new ArrayList<>(rows.subList(0, MAX_ROWS));
+        }
+        return new SessionComparison(baselineCount, currentCount, thresholdPercent, minDeltaNanos, regressions, rows);
+    }
+
+    /**
+     * Check if a row counts as a regression (slower or new significant path)
+     * @param row Compared path
+     * @return true for significant regressions
+     */
+    public static boolean isRegression(SessionComparison.Row row) {
+        return STATUS_REGRESSED.equals(row.getStatus()) ||
+            (STATUS_ADDED.equals(row.getStatus()) && row.isSignificant());
+    }
+
+    private static SessionComparison.Row toRow(String key, PathStats[] stats, int baselineCount, int currentCount,
+                                               double thresholdPercent, long minDeltaNanos) {
+        PathStats before = stats[0];
+        PathStats after = stats[1];
+        double baselineSelf = before != null ? (double) before.selfNanos / baselineCount : 0;
+        double currentSelf = after != null ? (double) after.selfNanos / currentCount : 0;
+        double delta = currentSelf - baselineSelf;
+
+        String status;
+        boolean significant;
+        if (before == null) {
+            status = STATUS_ADDED;
+            significant = currentSelf >= minDeltaNanos;
+        } else if (after == null) {
+            status = STATUS_REMOVED;
+            significant = baselineSelf >= minDeltaNanos;
+        } else {
+            boolean large = Math.abs(delta) >= minDeltaNanos &&
+                (baselineSelf == 0 || Math.abs(delta) * 100 / baselineSelf >= thresholdPercent);
+            significant = large && beyondNoise(delta, before, baselineCount, after, currentCount);
+            status = !significant ? STATUS_UNCHANGED : delta > 0 ? STATUS_REGRESSED : STATUS_IMPROVED;
+        }
+
+        PathStats any = before != null ? before : after;
+        return new SessionComparison.Row(key, any.label, any.depth, status, significant,
+            before != null ? (double) before.calls / baselineCount : 0,
+            after != null ? (double) after.calls / currentCount : 0,
+            before != null ? before.totalNanos / baselineCount : 0,
+            after != null ? after.totalNanos / currentCount : 0,
+            Math.round(baselineSelf), Math.round(currentSelf));
+    }
+
+    /**
+     * Welch's t test on per-session self time, sessions without the path count as 0
+     * Too few sessions on either side to estimate the noise are accepted as is.
+     */
+    private static boolean beyondNoise(double delta, PathStats before, int baselineCount,
+                                       PathStats after, int currentCount) {
+        if (baselineCount < 2 || currentCount < 2) {
+            return true;
+        }
+        double error = Math.sqrt(before.variance(baselineCount) / baselineCount +
+            after.variance(currentCount) / currentCount);
+        return error == 0 || Math.abs(delta) / error >= MIN_T_STATISTIC;
+    }
+
+    private static void accumulate(Collection<List<TraceEntry>> sessions, int side, Map<String, PathStats[]> paths) {
+        for (List<TraceEntry> entries : sessions) {
+            Map<String, TraceEntry> byId = new HashMap<>();
+            Map<String, Long> childNanos = new HashMap<>();
+            for (TraceEntry entry : entries) {
+                byId.put(entry.getId(), entry);
+            }
+            for (TraceEntry entry : entries) {
+                // Async children overlap their parent instead of taking part of its time
+                if (entry.getParentId() != null && !entry.isAsync()) {
+                    childNanos.merge(entry.getParentId(), nanos(entry), Long::sum);
+                }
+            }
+
+            // Totals of this session, so each session adds one sample per path
+            Map<String, PathStats> session = new LinkedHashMap<>();
+            Map<String, CallPath> pathCache = new HashMap<>();
+            for (TraceEntry entry : entries) {
+                CallPath path = path(entry, byId, pathCache);
+                PathStats stats = session.computeIfAbsent(path.key, p -> new PathStats(path.depth, path.label));
+                long nanos = nanos(entry);
+                CallAggregate aggregate = entry.getAggregate();
+                stats.calls += aggregate != null ? aggregate.getCount() : 1;
+                stats.totalNanos += nanos;
+                stats.selfNanos += Math.max(0, nanos - childNanos.getOrDefault(entry.getId(), 0L));
+            }
+
+            for (Map.Entry<String, PathStats> path : session.entrySet()) {
+                PathStats[] stats = paths.computeIfAbsent(path.getKey(), p -> new PathStats[2]);
+                if (stats[side] == null) {
+                    stats[side] = new PathStats(path.getValue().depth, path.getValue().label);
+                }
+                stats[side].add(path.getValue());
+            }
+        }
+    }
+
+    /**
+     * Duration of an entry, including all calls folded into it
+     */
+    private static long nanos(TraceEntry entry) {
+        if (entry.getAggregate() != null) {
+            return entry.getAggregate().getTotalNanos();
+        }
+        if (entry.getResources() != null) {
+            return entry.getResources().getWallNanos();
+        }
+        return entry.getDuration() * 1_000_000;
+    }
+
+    /**
+     * Call path from the session root to an entry
+     * Parents are followed iteratively, and a parent cycle (e.g., in an edited export) is cut where it closes.
+     */
+    private static CallPath path(TraceEntry entry, Map<String, TraceEntry> byId, Map<String, CallPath> cache) {
+        Deque<TraceEntry> chain = new ArrayDeque<>();
+        Set<String> onChain = new HashSet<>();
+        CallPath base = null;
+        TraceEntry current = entry;
+        while (current != null && onChain.add(current.getId())) {
+            base = cache.get(current.getId());
+            if (base != null) break;
+            chain.push(current);
+            current = current.getParentId() != null ? byId.get(current.getParentId()) : null;
+        }
+
+        CallPath path = base;
+        while (!chain.isEmpty()) {
+            TraceEntry next = chain.pop();
+            path = path != null ? path.child(next) : new CallPath(key(next), label(next), 0);
+            cache.put(next.getId(), path);
+        }
+        return path;
+    }
+
+    /**
+     * Identity of a call: class, method and parameter types, so equally named classes and overloads stay apart
+     */
+    private static String key(TraceEntry entry) {
+        List<String> parameterTypes = entry.getParameterTypes();
+        String key = entry.getClassName() + "." + entry.getMethodName() +
+            "(" + (parameterTypes != null ? String.join(",", parameterTypes) : "") + ")";
+        return entry.getSql() != null ? key + " [" + entry.getSql().getSql() + "]" : key;
+    }
+
+    private static String label(TraceEntry entry) {
+        String className = entry.getClassName();
+        String label = className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1)
+            + "." + entry.getMethodName();
+        // Statements of one call site differ by their SQL
+        return entry.getSql() != null ? label + " [" + entry.getSql().getSql() + "]" : label;
+    }
+
+    /**
+     * Path of calls from the session root, as a key and a display label
+     */
+    private static class CallPath {
+        final String key;
+        final String label;
+        final int depth;
+
+        CallPath(String key, String label, int depth) {
+            this.key = key;
+            this.label = label;
+            this.depth = depth;
+        }
+
+        CallPath child(TraceEntry entry) {
+            return new CallPath(key + " > " + key(entry), label + " > " + label(entry), depth + 1);
+        }
+    }
+
+    // === Session Selection ===
+
+    /**
+     * Select sessions by ID or by the start time of their entry point
+     * @param sessions Entries of each session
+     * @param sessionIds Session IDs to keep, or null for any
+     * @param from Earliest entry point start (epoch millis, inclusive)
+     * @param to Latest entry point start (epoch millis, exclusive)
+     * @return Selected sessions
+     */
+    public static List<List<TraceEntry>> select(Collection<List<TraceEntry>> sessions, Set<String> sessionIds,
+                                                long from, long to) {
+        List<List<TraceEntry>> selected = new ArrayList<>();
+        for (List<TraceEntry> entries : sessions) {
+            TraceEntry root = null;
+            for (TraceEntry entry : entries) {
+                if (entry.getParentId() == null) {
+                    root = entry;
+                    break;
+                }
+            }
+            if (root == null) continue;
+            if (sessionIds != null && !sessionIds.contains(root.getSessionId())) continue;
+            if (root.getStartTime() < from || root.getStartTime() >= to) continue;
+            selected.add(entries);
+        }
+        return selected;
+    }
+
+    /**
+     * Read exported sessions
+     * - .jfr: TraceFlow events of a flight recording
+     * - otherwise: JSON array of entries as returned by GET /logs
+     * @param file Exported file
+     * @return Entries of each session
+     * @throws IOException If the file cannot be read or parsed
+     */
+    public static Collection<List<TraceEntry>> readFile(Path file) throws IOException {
+        if (file.getFileName().toString().endsWith(JFR_EXTENSION)) {
+            return JfrImporter.read(file).values();
+        }
+
+        TraceEntry[] entries;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            entries = new Gson().fromJson(reader, TraceEntry[].class);
+        } catch (JsonParseException e) {
+            throw new IOException("Not a TraceFlow session export: " + e.getMessage(), e);
+        }
+
+        Map<String, List<TraceEntry>> sessions = new LinkedHashMap<>();
+        if (entries != null) {
+            for (TraceEntry entry : entries) {
+                if (entry != null && entry.getSessionId() != null) {
+                    sessions.computeIfAbsent(entry.getSessionId(), id -> new ArrayList<>()).add(entry);
+                }
+            }
+        }
+        return sessions.values();
+    }
+
+    // === Command Line ===
+
+    /**
+     * Compare two exported session files and exit with status 2 on regressions
+     * @param args Baseline file, current file and options
+     */
+    public static void main(String[] args) throws Exception {
+        System.exit(run(args));
+    }
+
+    /**
+     * Compare two exported session files and print the result
+     * @param args Baseline file, current file and options
+     * @return Exit status: 0, 1 on wrong usage, 2 on regressions
+     * @throws IOException If a file cannot be read or parsed
+     */
+    static int run(String[] args) throws IOException {
+        List<String> files = new ArrayList<>();
+        double threshold = DEFAULT_THRESHOLD_PERCENT;
+        long minDelta = DEFAULT_MIN_DELTA_NANOS;
+        boolean json = false;
+        for (String arg : args) {
+            if (arg.startsWith("--threshold=")) {
+                threshold = Double.parseDouble(arg.substring("--threshold=".length()));
+            } else if (arg.startsWith("--min-delta-ms=")) {
+                minDelta = Math.round(Double.parseDouble(arg.substring("--min-delta-ms=".length())) * 1_000_000);
+            } else if (arg.equals("--json")) {
+                json = true;
+            } else {
+                files.add(arg);
+            }
+        }
+        if (files.size() != 2) {
+            System.err.println("Usage: SessionDiff <baseline.json|.jfr> <current.json|.jfr> " +
+                "[--threshold=" + (int) DEFAULT_THRESHOLD_PERCENT + "] [--min-delta-ms=1] [--json]");
+            return EXIT_USAGE;
+        }
+
+        SessionComparison comparison = compare(readFile(Paths.get(files.get(0))), readFile(Paths.get(files.get(1))),
+            threshold, minDelta);
+        if (json) {
+            System.out.println(new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(comparison));
+        } else {
+            print(comparison);
+        }
+        return comparison.getRegressions() > 0 ? EXIT_REGRESSED : 0;
+    }
+
+    private static void print(SessionComparison comparison) {
+        System.out.println("[TraceFlow Diff] Baseline: " + comparison.getBaselineSessions() +
+            " sessions, current: " + comparison.getCurrentSessions() + " sessions, threshold: " +
+            format(comparison.getThresholdPercent()) + "%, min delta: " + millis(comparison.getMinDeltaNanos()));
+        for (SessionComparison.Row row : comparison.getRows()) {
+            if (!row.isSignificant()) continue;
+            System.out.println(String.format(Locale.ROOT, "%-10s self %s -> %s (%s%s), calls %s -> %s  %s",
+                row.getStatus(), millis(row.getBaselineSelfNanos()), millis(row.getCurrentSelfNanos()),
+                row.getSelfDeltaNanos() >= 0 ? "+" : "", millis(row.getSelfDeltaNanos()),
+                format(row.getBaselineCalls()), format(row.getCurrentCalls()), row.getPath()));
+        }
+        System.out.println("[TraceFlow Diff] " + comparison.getRegressions() + " regressions");
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1_000_000.0);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    /**
+     * Sums of one call path on one side
+     * Within a session the sums of that session, across sessions the sums of all sessions
+     */
+    private static class PathStats {
+        final int depth;
+        final String label;
+        long calls;
+        long totalNanos;
+        long selfNanos;
+        double selfSquares;
+
+        PathStats(int depth, String label) {
+            this.depth = depth;
+            this.label = label;
+        }
+
+        void add(PathStats session) {
+            calls += session.calls;
+            totalNanos += session.totalNanos;
+            selfNanos += session.selfNanos;
+            selfSquares += (double) session.selfNanos * session.selfNanos;
+        }
+
+        /**
+         * Sample variance of per-session self time
+         * @param sessions Number of sessions on this side, including those without the path
+         */
+        double variance(int sessions) {
+            double mean = (double) selfNanos / sessions;
+            return Math.max(0, (selfSquares - sessions * mean * mean) / (sessions - 1));
+        }
+    }
+}
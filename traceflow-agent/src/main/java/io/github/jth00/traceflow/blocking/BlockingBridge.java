@@ -0,0 +1,95 @@
+package io.github.jth00.traceflow.blocking;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Wait recorder shared with instrumented JDK blocking points
+ *
+ * The agent injects this class into the bootstrap class loader, so advice inlined into
+ * LockSupport, Object, futures and sockets can reach it. It must not depend on other
+ * TraceFlow classes. Nested blocking points (a park inside a future's join) are recorded
+ * once, by the outermost one.
+ */
+public class BlockingBridge {
+
+    /** Class recorded for a park without a blocker object */
+    private static final String LOCK_SUPPORT = "java.util.concurrent.locks.LockSupport";
+
+    // Whether the current thread is inside a traced call, provided by the agent
+    private static volatile BooleanSupplier active;
+
+    // Receives finished waits, provided by the agent
+    private static volatile Recorder recorder;
+
+    // Set while the current thread is inside a recorded blocking point
+    private static final ThreadLocal<Boolean> blocking = new ThreadLocal<>();
+
+    /**
+     * Receives a finished wait of a traced thread
+     */
+    public interface Recorder {
+        /**
+         * @param type Class of the blocking point or of the blocker object
+         * @param method Blocking method
+         * @param startNanos Wait start (System.nanoTime)
+         * @param endNanos Wait end (System.nanoTime)
+         */
+        void record(String type, String method, long startNanos, long endNanos);
+    }
+
+    /**
+     * Connect the bridge to the agent
+     * @param activeSupplier Supplier returning true inside a traced call
+     * @param waitRecorder Recorder of finished waits
+     */
+    public static void install(BooleanSupplier activeSupplier, Recorder waitRecorder) {
+        active = activeSupplier;
+        recorder = waitRecorder;
+    }
+
+    /**
+     * Start of a blocking point
+     * @return Start time or -1 if the wait is not recorded
+     */
+    public static long enter() {
+        BooleanSupplier supplier = active;
+        // Untraced threads stop at the supplier, so parks of JDK and pool threads never
+        // create an entry of the guard in their thread-local map
+        if (supplier == null || !supplier.getAsBoolean() || blocking.get() != null) {
+            return -1;
+        }
+        blocking.set(Boolean.TRUE);
+        return System.nanoTime();
+    }
+
+    /**
+     * End of a blocking point
+     * @param startNanos Value returned by {@link #enter()}
+     * @param type Class of the blocking point
+     * @param method Blocking method
+     */
+    public static void exit(long startNanos, String type, String method) {
+        if (startNanos < 0) {
+            return;
+        }
+        long endNanos = System.nanoTime();
+        try {
+            Recorder target = recorder;
+            if (target != null) {
+                target.record(type, method, startNanos, endNanos);
+            }
+        } finally {
+            blocking.remove();
+        }
+    }
+
+    /**
+     * End of a LockSupport park
+     * @param startNanos Value returned by {@link #enter()}
+     * @param blocker Blocker object passed to park, or null
+     * @param method Park method
+     */
+    public static void exitPark(long startNanos, Object blocker, String method) {
+        exit(startNanos, blocker != null ? blocker.getClass().getName() : LOCK_SUPPORT, method);
+    }
+}
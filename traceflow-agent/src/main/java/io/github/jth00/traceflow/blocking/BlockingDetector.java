@@ -0,0 +1,152 @@
+package io.github.jth00.traceflow.blocking;
+
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.context.TraceContext;
+import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import io.github.jth00.traceflow.vo.TraceFrame;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.loading.ClassInjector;
+
+import java.io.File;
+import java.lang.instrument.Instrumentation;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Detection of blocking waits inside traced calls
+ *
+ * Common JDK blocking points are instrumented while tracing is enabled on the thread,
+ * and every wait of at least {@value #MIN_WAIT_MILLIS}ms is recorded as a synthetic
+ * {@link MethodTypeEnum#BLOCKING} child of the traced call it happened in.
+ */
+public class BlockingDetector {
+
+    /** Shorter waits are not recorded (entries have millisecond resolution) */
+    private static final long MIN_WAIT_MILLIS = 1;
+
+    /** Classes injected into the bootstrap class loader (names only, they must not be loaded here first) */
+    private static final List<String> BRIDGE_TYPES = List.of(
+        "io.github.jth00.traceflow.blocking.BlockingBridge",
+        "io.github.jth00.traceflow.blocking.BlockingBridge$Recorder"
+    );
+
+    /** Instrumented blocking points */
+    public static final String LOCK_SUPPORT_TYPE = "java.util.concurrent.locks.LockSupport";
+    public static final String OBJECT_TYPE = "java.lang.Object";
+    public static final Set<String> FUTURE_TYPES = Set.of(
+        "java.util.concurrent.CompletableFuture",
+        "java.util.concurrent.FutureTask"
+    );
+    public static final String SOCKET_TYPE = "sun.nio.ch.NioSocketImpl";
+    public static final String SOCKET_CHANNEL_TYPE = "sun.nio.ch.SocketChannelImpl";
+
+    /** Public names shown for internal socket implementations */
+    private static final Map<String, String> DISPLAY_TYPES = Map.of(
+        SOCKET_TYPE, "java.net.Socket",
+        SOCKET_CHANNEL_TYPE, "java.nio.channels.SocketChannel"
+    );
+
+    // Whether the bridge is installed and blocking points are instrumented
+    private static volatile boolean enabled = false;
+
+    /**
+     * Inject the wait bridge into the bootstrap class loader
+     * Must run before any class referring to {@link BlockingBridge} is loaded.
+     * @param inst Instrumentation instance
+     * @return true if blocking detection is enabled
+     */
+    public static synchronized boolean install(Instrumentation inst) {
+        if (enabled) {
+            return true;
+        }
+        try {
+            ClassFileLocator locator = ClassFileLocator.ForClassLoader.of(BlockingDetector.class.getClassLoader());
+            Map<String, byte[]> types = new HashMap<>();
+            for (String name : BRIDGE_TYPES) {
+                types.put(name, locator.locate(name).resolve());
+            }
+
+            File folder = Files.createTempDirectory("traceflow-blocking").toFile();
+            folder.deleteOnExit();
+            ClassInjector.UsingInstrumentation
+                .of(folder, ClassInjector.UsingInstrumentation.Target.BOOTSTRAP, inst)
+                .injectRaw(types);
+
+            BlockingBridge.install(TraceContext::isTracingEnabled, BlockingDetector::record);
+            enabled = true;
+            System.out.println("[TraceFlow Blocking] Blocking wait detection enabled (waits >= " +
+                MIN_WAIT_MILLIS + "ms)");
+        } catch (Exception e) {
+            System.err.println("[TraceFlow Blocking] Failed to install wait bridge: " + e.getMessage());
+        }
+        return enabled;
+    }
+
+    /**
+     * Check if blocking points are instrumented
+     * @return true if enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Check if a type contains instrumented blocking points
+     * @param typeName Fully qualified class name
+     * @return true if the type is instrumented
+     */
+    public static boolean isBlockingType(String typeName) {
+        return typeName.equals(LOCK_SUPPORT_TYPE) || typeName.equals(OBJECT_TYPE) ||
+            FUTURE_TYPES.contains(typeName) ||
+            typeName.equals(SOCKET_TYPE) || typeName.equals(SOCKET_CHANNEL_TYPE);
+    }
+
+    /**
+     * Record a finished wait as a child of the current traced call
+     * @param type Class of the blocking point or of the blocker object
+     * @param method Blocking method
+     * @param startNanos Wait start
+     * @param endNanos Wait end
+     */
+    static void record(String type, String method, long startNanos, long endNanos) {
+        long duration = (endNanos - startNanos) / 1_000_000;
+        if (duration < MIN_WAIT_MILLIS) {
+            return;
+        }
+        String parentId = TraceContext.peekCall();
+        String sessionId = TraceContext.getSessionId();
+        if (parentId == null || sessionId == null) {
+            return;
+        }
+
+        // Waits inside folded or truncated calls are part of those calls' time
+        TraceFrame frame = TraceContext.getCurrentFrame();
+        if (frame != null && !frame.isRecorded()) {
+            return;
+        }
+        if (!TraceContext.admitEntry()) {
+            if (frame != null) {
+                frame.truncated("[entry limit " + TraceFlowConfig.current().getMaxSessionEntries() + "]",
+                    System.currentTimeMillis() - duration).add(endNanos - startNanos, false, null);
+            }
+            return;
+        }
+
+        TraceContext.addEntry(TraceEntry.builder()
+            .id(UUID.randomUUID().toString())
+            .parentId(parentId)
+            .sessionId(sessionId)
+            .className(DISPLAY_TYPES.getOrDefault(type, type))
+            .methodName(method)
+            .returnType("void")
+            .startTime(System.currentTimeMillis() - duration)
+            .duration(duration)
+            .methodType(MethodTypeEnum.BLOCKING)
+            .build());
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.jth00.traceflow.capture;
+
+/**
+ * Snapshot of a captured parameter or return value
+ * Simple values are rendered on the traced thread; complex objects keep a reference
+ * until {@link ValueCapture} renders them on the capture thread.
+ */
+public class CapturedValue {
+    // Object waiting to be rendered (not serialized)
+    private transient Object pending;
+
+    private volatile String value;
+    private volatile boolean truncated;
+
+    private CapturedValue(Object pending, String value, boolean truncated) {
+        this.pending = pending;
+        this.value = value;
+        this.truncated = truncated;
+    }
+
+    /**
+     * Create an already rendered value (also used for values received by the collector)
+     * @param value Rendered text
+     * @param truncated true if the text was cut at a size limit
+     * @return Captured value
+     */
+    public static CapturedValue rendered(String value, boolean truncated) {
+        return new CapturedValue(null, value, truncated);
+    }
+
+    /**
+     * Create a value rendered later on the capture thread
+     * @param object Object to render
+     * @return Captured value
+     */
+    static CapturedValue pending(Object object) {
+        return new CapturedValue(object, null, false);
+    }
+
+    /**
+     * Take the pending object, releasing the reference
+     * @return Pending object or null if already rendered
+     */
+    synchronized Object takePending() {
+        Object object = pending;
+        pending = null;
+        return object;
+    }
+
+    synchronized boolean isPending() {
+        return pending != null;
+    }
+
+    void complete(String value, boolean truncated) {
+        this.truncated = truncated;
+        this.value = value;
+    }
+
+    // Getters
+    /** Rendered text, null while rendering is pending */
+    public String getValue() { return value; }
+
+    public boolean isTruncated() { return truncated; }
+}
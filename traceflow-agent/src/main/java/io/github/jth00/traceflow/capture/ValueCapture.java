@@ -0,0 +1,325 @@
+package io.github.jth00.traceflow.capture;
+
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.metrics.TraceFlowMetrics;
+import io.github.jth00.traceflow.vo.TraceEntry;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded capture of parameter and return values
+ * - Traced thread: null, primitives, strings and enums are rendered immediately,
+ *   other objects only keep a reference
+ * - Capture thread: pending objects are rendered after the session is flushed,
+ *   within depth, item, length and per-session byte limits
+ * - Redaction: fields and map keys matching TraceFlowConfig redacted fields are masked
+ */
+public class ValueCapture {
+    private static final int MAX_STRING_LENGTH = 256;
+    private static final int MAX_VALUE_LENGTH = 1024;
+    private static final int MAX_DEPTH = 3;
+    private static final int MAX_ITEMS = 10;
+    private static final int SESSION_BYTE_BUDGET = 64 * 1024;
+    private static final int MAX_QUEUED_SESSIONS = 256;
+
+    private static final String REDACTED = "******";
+    private static final String BUDGET_EXCEEDED = "<capture budget exceeded>";
+    private static final String DROPPED = "<capture queue full>";
+
+    // Single daemon thread; sessions that do not fit the queue are dropped instead of blocking
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(MAX_QUEUED_SESSIONS),
+        runnable -> {
+            Thread thread = new Thread(runnable, "traceflow-capture");
+            thread.setDaemon(true);
+            return thread;
+        },
+        (runnable, pool) -> ((RenderTask) runnable).drop()
+    );
+
+    // -------------------- Traced Thread --------------------
+
+    /**
+     * Snapshot method arguments
+     * @param arguments Argument array from the instrumented method
+     * @return Captured values in parameter order
+     */
+    public static List<CapturedValue> snapshotAll(Object[] arguments) {
+        List<CapturedValue> values = new ArrayList<>(arguments.length);
+        for (Object argument : arguments) {
+            values.add(snapshot(argument));
+        }
+        return values;
+    }
+
+    /**
+     * Snapshot a single value
+     * @param value Value to capture
+     * @return Rendered value for simple types, pending value otherwise
+     */
+    public static CapturedValue snapshot(Object value) {
+        if (value == null) {
+            return CapturedValue.rendered("null", false);
+        }
+        if (value instanceof CharSequence) {
+            String text = value.toString();
+            boolean truncated = text.length() > MAX_STRING_LENGTH;
+            return CapturedValue.rendered("\"" + (truncated ? text.substring(0, MAX_STRING_LENGTH) : text) + "\"", truncated);
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return CapturedValue.rendered(value.toString(), false);
+        }
+        if (value instanceof Enum) {
+            return CapturedValue.rendered(((Enum<?>) value).name(), false);
+        }
+        return CapturedValue.pending(value);
+    }
+
+    // -------------------- Capture Thread --------------------
+
+    /**
+     * Render pending values of flushed entries in the background
+     * The callback runs once every value of the entries is rendered (or dropped): immediately
+     * if none is outstanding, otherwise on the capture thread after the render task. Tasks run
+     * in order, so values taken by an earlier task are complete when the callback runs.
+     * @param entries Entries of one session
+     * @param afterRender Callback run after the values are rendered
+     */
+    public static void scheduleRender(List<TraceEntry> entries, Runnable afterRender) {
+        List<CapturedValue> pending = new ArrayList<>();
+        boolean outstanding = false;
+        for (TraceEntry entry : entries) {
+            if (entry.getArguments() != null) {
+                for (CapturedValue value : entry.getArguments()) {
+                    outstanding |= collect(value, pending);
+                }
+            }
+            outstanding |= collect(entry.getReturnValue(), pending);
+        }
+
+        if (outstanding) {
+            executor.execute(new RenderTask(pending, afterRender));
+        } else {
+            afterRender.run();
+        }
+    }
+
+    /**
+     * Collect a pending value
+     * @return true if the value is not rendered yet (pending or taken by an earlier task)
+     */
+    private static boolean collect(CapturedValue value, List<CapturedValue> pending) {
+        if (value == null || value.getValue() != null) {
+            return false;
+        }
+        if (value.isPending()) {
+            pending.add(value);
+        }
+        return true;
+    }
+
+    /**
+     * Renders the pending values of one session within the session byte budget
+     */
+    private static class RenderTask implements Runnable {
+        private final List<CapturedValue> values;
+        private final Runnable afterRender;
+
+        RenderTask(List<CapturedValue> values, Runnable afterRender) {
+            this.values = values;
+            this.afterRender = afterRender;
+        }
+
+        @Override
+        public void run() {
+            try {
+                render();
+            } finally {
+                afterRender.run();
+            }
+        }
+
+        private void render() {
+            TraceFlowConfig config = TraceFlowConfig.current();
+            int budget = SESSION_BYTE_BUDGET;
+
+            for (CapturedValue value : values) {
+                Object object = value.takePending();
+                if (object == null) continue;
+
+                if (budget <= 0) {
+                    value.complete(BUDGET_EXCEEDED, true);
+                    continue;
+                }
+
+                StringBuilder sb = new StringBuilder();
+                try {
+                    append(sb, object, 0, new IdentityHashMap<>(), config);
+                } catch (Throwable e) {
+                    sb.setLength(0);
+                    sb.append('<').append(e.getClass().getSimpleName()).append('>');
+                }
+
+                boolean truncated = sb.length() > MAX_VALUE_LENGTH;
+                String text = truncated ? sb.substring(0, MAX_VALUE_LENGTH) : sb.toString();
+                budget -= text.length();
+                value.complete(text, truncated);
+            }
+        }
+
+        void drop() {
+            TraceFlowMetrics.recordDroppedCapture();
+            for (CapturedValue value : values) {
+                if (value.takePending() != null) {
+                    value.complete(DROPPED, true);
+                }
+            }
+            afterRender.run();
+        }
+    }
+
+    /**
+     * Get number of sessions waiting for the capture thread
+     * @return Queue depth
+     */
+    public static int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    // -------------------- Rendering --------------------
+
+    private static void append(StringBuilder sb, Object value, int depth,
+                               IdentityHashMap<Object, Boolean> visited, TraceFlowConfig config) {
+        if (sb.length() > MAX_VALUE_LENGTH) return;
+
+        if (value == null || value instanceof Number || value instanceof Boolean ||
+            value instanceof Character || value instanceof Enum || value instanceof CharSequence) {
+            sb.append(snapshot(value).getValue());
+            return;
+        }
+
+        Class<?> type = value.getClass();
+        if (visited.containsKey(value)) {
+            sb.append('<').append(type.getSimpleName()).append(" cycle>");
+            return;
+        }
+        if (depth >= MAX_DEPTH) {
+            sb.append(type.getSimpleName()).append("{...}");
+            return;
+        }
+
+        visited.put(value, Boolean.TRUE);
+        try {
+            if (type.isArray()) {
+                appendArray(sb, value, depth, visited, config);
+            } else if (value instanceof Collection) {
+                appendItems(sb, ((Collection<?>) value).iterator(), ((Collection<?>) value).size(), depth, visited, config);
+            } else if (value instanceof Map) {
+                appendMap(sb, (Map<?, ?>) value, depth, visited, config);
+            } else if (isPlatformType(type)) {
+                String text = String.valueOf(value);
+                sb.append(text.length() > MAX_STRING_LENGTH ? text.substring(0, MAX_STRING_LENGTH) : text);
+            } else {
+                appendFields(sb, value, depth, visited, config);
+            }
+        } finally {
+            visited.remove(value);
+        }
+    }
+
+    private static void appendArray(StringBuilder sb, Object array, int depth,
+                                    IdentityHashMap<Object, Boolean> visited, TraceFlowConfig config) {
+        int length = Array.getLength(array);
+        sb.append('[');
+        for (int i = 0; i < Math.min(length, MAX_ITEMS); i++) {
+            if (i > 0) sb.append(", ");
+            append(sb, Array.get(array, i), depth + 1, visited, config);
+        }
+        appendRemaining(sb, length);
+        sb.append(']');
+    }
+
+    private static void appendItems(StringBuilder sb, Iterator<?> items, int size, int depth,
+                                    IdentityHashMap<Object, Boolean> visited, TraceFlowConfig config) {
+        sb.append('[');
+        for (int i = 0; i < MAX_ITEMS && items.hasNext(); i++) {
+            if (i > 0) sb.append(", ");
+            append(sb, items.next(), depth + 1, visited, config);
+        }
+        appendRemaining(sb, size);
+        sb.append(']');
+    }
+
+    private static void appendMap(StringBuilder sb, Map<?, ?> map, int depth,
+                                  IdentityHashMap<Object, Boolean> visited, TraceFlowConfig config) {
+        sb.append('{');
+        int i = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (i == MAX_ITEMS) break;
+            if (i++ > 0) sb.append(", ");
+            String key = String.valueOf(entry.getKey());
+            sb.append(key).append('=');
+            if (config.isRedactedField(key)) {
+                sb.append(REDACTED);
+            } else {
+                append(sb, entry.getValue(), depth + 1, visited, config);
+            }
+        }
+        appendRemaining(sb, map.size());
+        sb.append('}');
+    }
+
+    private static void appendFields(StringBuilder sb, Object value, int depth,
+                                     IdentityHashMap<Object, Boolean> visited, TraceFlowConfig config) {
+        sb.append(value.getClass().getSimpleName()).append('{');
+        boolean first = true;
+        for (Class<?> type = value.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) continue;
+                if (!first) sb.append(", ");
+                first = false;
+
+                sb.append(field.getName()).append('=');
+                if (config.isRedactedField(field.getName())) {
+                    sb.append(REDACTED);
+                } else if (!field.trySetAccessible()) {
+                    sb.append("<inaccessible>");
+                } else {
+                    try {
+                        append(sb, field.get(value), depth + 1, visited, config);
+                    } catch (IllegalAccessException e) {
+                        sb.append("<inaccessible>");
+                    }
+                }
+                if (sb.length() > MAX_VALUE_LENGTH) return;
+            }
+        }
+        sb.append('}');
+    }
+
+    private static void appendRemaining(StringBuilder sb, int size) {
+        if (size > MAX_ITEMS) {
+            sb.append(", ...(+").append(size - MAX_ITEMS).append(')');
+        }
+    }
+
+    /**
+     * JDK value types are rendered with their own toString
+     */
+    private static boolean isPlatformType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.");
+    }
+}
@@ -0,0 +1,695 @@
+package io.github.jth00.traceflow.config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runtime configuration for TraceFlow instrumentation
+ * A published instance is treated as an immutable snapshot: changes are made on a
+ * {@link #copy()} and published via {@link #update(TraceFlowConfig)}
+ *
+ * Method patterns are matched against "className.methodName" and support '*' and '?' wildcards.
+ * A pattern without '.' is matched against the method name only.
+ */
+public class TraceFlowConfig {
+
+    public static final String KEY_PACKAGES = "packages";
+    public static final String KEY_IGNORED_PACKAGES = "ignoredPackages";
+    public static final String KEY_EXCLUDED_CLASS_PATTERNS = "excludedClassPatterns";
+    public static final String KEY_INCLUDE_METHODS = "includeMethods";
+    public static final String KEY_EXCLUDE_METHODS = "excludeMethods";
+    public static final String KEY_EXCLUDE_ACCESSORS = "excludeAccessors";
+    public static final String KEY_ENTRY_POINTS = "entryPoints";
+    public static final String KEY_PINNED_METHODS = "pinnedMethods";
+    public static final String KEY_CAPTURE_VALUES = "captureValues";
+    public static final String KEY_CAPTURE_METHODS = "captureMethods";
+    public static final String KEY_REDACTED_FIELDS = "redactedFields";
+    public static final String KEY_MEASURE_RESOURCES = "measureResources";
+    public static final String KEY_SAMPLING_INTERVAL = "samplingIntervalMillis";
+    public static final String KEY_JFR_METHOD_EVENTS = "jfrMethodEvents";
+    public static final String KEY_MAX_SESSION_ENTRIES = "maxSessionEntries";
+    public static final String KEY_MAX_CALL_DEPTH = "maxCallDepth";
+    public static final String KEY_COMPRESS_LOOPS = "compressLoops";
+    public static final String KEY_REPEATED_CALL_THRESHOLD = "repeatedCallThreshold";
+    public static final String KEY_DATA_ACCESS_PATTERNS = "dataAccessPatterns";
+    public static final String KEY_OVERHEAD_BUDGET = "overheadBudgetPercent";
+
+    // Default session limits
+    public static final int DEFAULT_MAX_SESSION_ENTRIES = 10_000;
+    public static final int DEFAULT_MAX_CALL_DEPTH = 100;
+
+    // Calls of one method under the same parent call reported as repeated
+    public static final int DEFAULT_REPEATED_CALL_THRESHOLD = 10;
+
+    // Repositories, DAOs, mappers, remote clients, JDBC and sockets
+    public static final List<String> DEFAULT_DATA_ACCESS_PATTERNS = List.of(
+        "*Repository*.*", "*Dao*.*", "*DAO*.*", "*Mapper*.*", "*Client.*",
+        "java.sql.*", "javax.sql.*", "java.net.*", "java.nio.channels.*"
+    );
+
+    // Packages to exclude from instrumentation
+    public static final List<String> DEFAULT_IGNORED_PACKAGES = List.of(
+        "net.bytebuddy", "java.", "javax.", "jakarta.",
+        "sun.", "jdk.", "org.springframework",
+        "org.hibernate", "com.mysql", "com.zaxxer",
+        "io.github.jth00.traceflow"
+    );
+
+    // Auxiliary / Proxy / CGLIB / Builder / Logger class identifiers
+    public static final List<String> DEFAULT_EXCLUDED_CLASS_PATTERNS = List.of(
+        "$auxiliary$", "$$", "Builder", "CGLIB", "Logger", "Log4j", "Slf4j"
+    );
+
+    // Common methods to exclude from tracing
+    public static final List<String> DEFAULT_EXCLUDED_METHODS = List.of(
+        // Lombok / Builder
+        "builder", "build",
+        // Object default methods
+        "toString", "hashCode", "equals", "getClass",
+        // Async task bodies (Runnable / Callable)
+        "call", "run",
+        // Lambda bodies and compiler generated accessors
+        "lambda$*", "access$*"
+    );
+
+    // Field and map key names whose values are never captured (case-insensitive substring)
+    public static final List<String> DEFAULT_REDACTED_FIELDS = List.of(
+        "password", "passwd", "secret", "token", "authorization", "credential", "apikey", "cookie"
+    );
+
+    private static final AtomicLong versions = new AtomicLong();
+
+    private static volatile TraceFlowConfig current = new TraceFlowConfig();
+
+    private List<String> packages = List.of();
+    private List<String> ignoredPackages = DEFAULT_IGNORED_PACKAGES;
+    private List<String> excludedClassPatterns = DEFAULT_EXCLUDED_CLASS_PATTERNS;
+    private List<String> includeMethods = List.of();
+    private List<String> excludeMethods = DEFAULT_EXCLUDED_METHODS;
+    private boolean excludeAccessors = false;
+    private List<String> entryPoints = List.of();
+    private List<String> pinnedMethods = List.of();
+    private boolean captureValues = false;
+    private List<String> captureMethods = List.of();
+    private List<String> redactedFields = DEFAULT_REDACTED_FIELDS;
+    private boolean measureResources = false;
+    private long samplingIntervalMillis = 0;
+    private boolean jfrMethodEvents = false;
+    private int maxSessionEntries = DEFAULT_MAX_SESSION_ENTRIES;
+    private int maxCallDepth = DEFAULT_MAX_CALL_DEPTH;
+    private boolean compressLoops = true;
+    private int repeatedCallThreshold = DEFAULT_REPEATED_CALL_THRESHOLD;
+    private List<String> dataAccessPatterns = DEFAULT_DATA_ACCESS_PATTERNS;
+    private double overheadBudgetPercent = 0;
+
+    // Methods excluded by adaptive instrumentation ("className.methodName(descriptor)")
+    private Set<String> adaptiveExcludes = Set.of();
+
+    // Identity of this snapshot, and of the snapshot it differs from only in adaptive exclusions (not serialized)
+    private final transient long version = versions.incrementAndGet();
+    private transient long adaptiveBaseVersion = -1;
+
+    // Compiled patterns (not serialized)
+    private transient List<MethodPattern> includePatterns = List.of();
+    private transient List<MethodPattern> excludePatterns = compile(DEFAULT_EXCLUDED_METHODS);
+    private transient List<MethodPattern> entryPointPatterns = List.of();
+    private transient List<Pattern> entryPointClassPatterns = List.of();
+    private transient boolean nameOnlyEntryPoints = false;
+    private transient List<MethodPattern> pinnedPatterns = List.of();
+    private transient List<MethodPattern> capturePatterns = List.of();
+    private transient List<MethodPattern> dataAccessMethodPatterns = compile(DEFAULT_DATA_ACCESS_PATTERNS);
+
+    /**
+     * Create a configuration with default exclusions and no traced packages
+     */
+    public TraceFlowConfig() {
+    }
+
+    // === Snapshot Access ===
+
+    /**
+     * Get the active configuration snapshot
+     * @return Current configuration
+     */
+    public static TraceFlowConfig current() {
+        return current;
+    }
+
+    /**
+     * Publish a new configuration snapshot
+     * Does not retransform classes by itself; see TraceFlowAgent.reconfigure
+     * @param config New configuration
+     */
+    public static void update(TraceFlowConfig config) {
+        current = config;
+    }
+
+    /**
+     * Create a modifiable copy of this configuration
+     * @return Copy with the same settings
+     */
+    public TraceFlowConfig copy() {
+        TraceFlowConfig copy = new TraceFlowConfig();
+        copy.packages = packages;
+        copy.ignoredPackages = ignoredPackages;
+        copy.excludedClassPatterns = excludedClassPatterns;
+        copy.excludeAccessors = excludeAccessors;
+        copy.adaptiveExcludes = adaptiveExcludes;
+        copy.captureValues = captureValues;
+        copy.redactedFields = redactedFields;
+        copy.measureResources = measureResources;
+        copy.samplingIntervalMillis = samplingIntervalMillis;
+        copy.jfrMethodEvents = jfrMethodEvents;
+        copy.maxSessionEntries = maxSessionEntries;
+        copy.maxCallDepth = maxCallDepth;
+        copy.compressLoops = compressLoops;
+        copy.repeatedCallThreshold = repeatedCallThreshold;
+        copy.overheadBudgetPercent = overheadBudgetPercent;
+        copy.setDataAccessPatterns(dataAccessPatterns);
+        copy.setCaptureMethods(captureMethods);
+        copy.setIncludeMethods(includeMethods);
+        copy.setExcludeMethods(excludeMethods);
+        copy.setEntryPoints(entryPoints);
+        copy.setPinnedMethods(pinnedMethods);
+        return copy;
+    }
+
+    /**
+     * Create a copy with the given fields replaced
+     * Keys that are absent keep their current value. Value capture can only be enabled by agent
+     * arguments, and redacted fields can only be added, so that runtime changes never expose
+     * more argument values than the application was started with.
+     * @param changes Map of field key to new value (list of strings or boolean)
+     * @return New configuration
+     * @throws IllegalArgumentException If a value is invalid or capture settings are changed
+     */
+    public TraceFlowConfig merge(Map<String, Object> changes) {
+        if (changes.containsKey(KEY_CAPTURE_VALUES) || changes.containsKey(KEY_CAPTURE_METHODS)) {
+            throw new IllegalArgumentException(KEY_CAPTURE_VALUES + " and " + KEY_CAPTURE_METHODS +
+                " can only be set by agent arguments (capture, captureMethods)");
+        }
+        TraceFlowConfig merged = copy();
+        if (changes.containsKey(KEY_PACKAGES)) merged.setPackages(toList(changes.get(KEY_PACKAGES)));
+        if (changes.containsKey(KEY_IGNORED_PACKAGES)) merged.setIgnoredPackages(toList(changes.get(KEY_IGNORED_PACKAGES)));
+        if (changes.containsKey(KEY_EXCLUDED_CLASS_PATTERNS)) merged.setExcludedClassPatterns(toList(changes.get(KEY_EXCLUDED_CLASS_PATTERNS)));
+        if (changes.containsKey(KEY_INCLUDE_METHODS)) merged.setIncludeMethods(toList(changes.get(KEY_INCLUDE_METHODS)));
+        if (changes.containsKey(KEY_EXCLUDE_METHODS)) merged.setExcludeMethods(toList(changes.get(KEY_EXCLUDE_METHODS)));
+        if (changes.containsKey(KEY_EXCLUDE_ACCESSORS)) merged.setExcludeAccessors(toBoolean(changes.get(KEY_EXCLUDE_ACCESSORS)));
+        if (changes.containsKey(KEY_ENTRY_POINTS)) merged.setEntryPoints(toList(changes.get(KEY_ENTRY_POINTS)));
+        if (changes.containsKey(KEY_PINNED_METHODS)) merged.setPinnedMethods(toList(changes.get(KEY_PINNED_METHODS)));
+        if (changes.containsKey(KEY_REDACTED_FIELDS)) {
+            List<String> redacted = new ArrayList<>(redactedFields);
+            redacted.addAll(toList(changes.get(KEY_REDACTED_FIELDS)));
+            merged.setRedactedFields(redacted);
+        }
+        if (changes.containsKey(KEY_MEASURE_RESOURCES)) merged.setMeasureResources(toBoolean(changes.get(KEY_MEASURE_RESOURCES)));
+        if (changes.containsKey(KEY_SAMPLING_INTERVAL)) merged.setSamplingIntervalMillis(toLong(changes.get(KEY_SAMPLING_INTERVAL)));
+        if (changes.containsKey(KEY_JFR_METHOD_EVENTS)) merged.setJfrMethodEvents(toBoolean(changes.get(KEY_JFR_METHOD_EVENTS)));
+        if (changes.containsKey(KEY_MAX_SESSION_ENTRIES)) merged.setMaxSessionEntries(toInt(changes.get(KEY_MAX_SESSION_ENTRIES)));
+        if (changes.containsKey(KEY_MAX_CALL_DEPTH)) merged.setMaxCallDepth(toInt(changes.get(KEY_MAX_CALL_DEPTH)));
+        if (changes.containsKey(KEY_COMPRESS_LOOPS)) merged.setCompressLoops(toBoolean(changes.get(KEY_COMPRESS_LOOPS)));
+        if (changes.containsKey(KEY_REPEATED_CALL_THRESHOLD)) merged.setRepeatedCallThreshold(toInt(changes.get(KEY_REPEATED_CALL_THRESHOLD)));
+        if (changes.containsKey(KEY_DATA_ACCESS_PATTERNS)) merged.setDataAccessPatterns(toList(changes.get(KEY_DATA_ACCESS_PATTERNS)));
+        if (changes.containsKey(KEY_OVERHEAD_BUDGET)) merged.setOverheadBudgetPercent(toDouble(changes.get(KEY_OVERHEAD_BUDGET)));
+        return merged;
+    }
+
+    /**
+     * Create a copy with the given adaptive exclusions
+     * @param excludes Method signatures ("className.methodName(descriptor)")
+     * @return New configuration
+     */
+    public TraceFlowConfig withAdaptiveExcludes(Set<String> excludes) {
+        TraceFlowConfig copy = copy();
+        copy.adaptiveExcludes = Set.copyOf(excludes);
+        copy.adaptiveBaseVersion = version;
+        return copy;
+    }
+
+    /**
+     * Get the classes whose adaptive exclusions differ from the configuration this one replaces
+     * @param previous Replaced configuration
+     * @return Class names, or null if this configuration was not derived from the previous one
+     *         by {@link #withAdaptiveExcludes(Set)} alone (other settings may have changed)
+     */
+    public Set<String> adaptiveChangedTypes(TraceFlowConfig previous) {
+        if (adaptiveBaseVersion != previous.version) {
+            return null;
+        }
+        Set<String> types = new HashSet<>();
+        for (String signature : adaptiveExcludes) {
+            if (!previous.adaptiveExcludes.contains(signature)) types.add(declaringType(signature));
+        }
+        for (String signature : previous.adaptiveExcludes) {
+            if (!adaptiveExcludes.contains(signature)) types.add(declaringType(signature));
+        }
+        return types;
+    }
+
+    private static String declaringType(String signature) {
+        return signature.substring(0, signature.lastIndexOf('.', signature.indexOf('(')));
+    }
+
+    // === Matching ===
+
+    /**
+     * Check if a type is excluded from instrumentation entirely
+     * @param typeName Fully qualified type name
+     * @return true if the type belongs to an ignored package
+     */
+    public boolean isIgnoredType(String typeName) {
+        return startsWithAny(typeName, ignoredPackages);
+    }
+
+    /**
+     * Check if a type belongs to a traced package
+     * @param typeName Fully qualified type name
+     * @return true if all methods of the type are candidates for tracing
+     */
+    public boolean isTracedType(String typeName) {
+        return startsWithAny(typeName, packages);
+    }
+
+    /**
+     * Check if a type is a generated, proxy, builder or logger class
+     * @param typeName Fully qualified type name
+     * @return true if the type name contains an excluded class pattern
+     */
+    public boolean isExcludedClass(String typeName) {
+        for (String pattern : excludedClassPatterns) {
+            if (typeName.contains(pattern)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check if a method is excluded by the include/exclude patterns
+     * @param typeName Fully qualified type name
+     * @param methodName Method name
+     * @return true if the method must not be traced
+     */
+    public boolean isExcludedMethod(String typeName, String methodName) {
+        if (matchesAny(excludePatterns, typeName, methodName)) {
+            return true;
+        }
+        return !includePatterns.isEmpty() && !matchesAny(includePatterns, typeName, methodName);
+    }
+
+    /**
+     * Check if a method is excluded by the include/exclude patterns or by adaptive instrumentation
+     * Adaptive exclusions apply to one overload only, so slow overloads of the same name stay traced.
+     * @param typeName Fully qualified type name
+     * @param methodName Method name
+     * @param descriptor Method descriptor (e.g., "(I)Ljava/lang/String;")
+     * @return true if the method must not be instrumented
+     */
+    public boolean isExcludedMethod(String typeName, String methodName, String descriptor) {
+        if (!adaptiveExcludes.isEmpty() && adaptiveExcludes.contains(typeName + "." + methodName + descriptor) &&
+            !matchesAny(pinnedPatterns, typeName, methodName)) {
+            return true;
+        }
+        return isExcludedMethod(typeName, methodName);
+    }
+
+    /**
+     * Check if a method is pinned as always traced
+     * Pinned methods are never excluded by adaptive instrumentation
+     * @param typeName Fully qualified type name
+     * @param methodName Method name
+     * @return true if the method is pinned
+     */
+    public boolean isPinnedMethod(String typeName, String methodName) {
+        return matchesAny(pinnedPatterns, typeName, methodName);
+    }
+
+    /**
+     * Check if a method is configured as an entry point
+     * @param typeName Fully qualified type name
+     * @param methodName Method name
+     * @return true if the method starts a new tracing session
+     */
+    public boolean isEntryPoint(String typeName, String methodName) {
+        return matchesAny(entryPointPatterns, typeName, methodName);
+    }
+
+    /**
+     * Check if a type may declare configured entry points
+     * Name-only patterns (e.g., "handle") target every type in the traced packages.
+     * @param typeName Fully qualified type name
+     * @return true if any entry point pattern targets this type
+     */
+    public boolean declaresEntryPoint(String typeName) {
+        if (nameOnlyEntryPoints && isTracedType(typeName)) return true;
+        for (Pattern pattern : entryPointClassPatterns) {
+            if (pattern.matcher(typeName).matches()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check if parameter and return values of a method are captured
+     * @param typeName Fully qualified type name
+     * @param methodName Method name
+     * @return true if capture is enabled and the method matches the capture patterns (all if empty)
+     */
+    public boolean isCaptureMethod(String typeName, String methodName) {
+        return captureValues && (capturePatterns.isEmpty() || matchesAny(capturePatterns, typeName, methodName));
+    }
+
+    /**
+     * Check if a method accesses a database or a remote service
+     * @param typeName Fully qualified type name
+     * @param methodName Method name
+     * @return true if the method matches the data access patterns
+     */
+    public boolean isDataAccessMethod(String typeName, String methodName) {
+        return matchesAny(dataAccessMethodPatterns, typeName, methodName);
+    }
+
+    /**
+     * Check if a field or map key holds a value that must not be captured
+     * @param name Field name or map key
+     * @return true if the name contains a redacted field pattern
+     */
+    public boolean isRedactedField(String name) {
+        String lower = name.toLowerCase();
+        for (String field : redactedFields) {
+            if (lower.contains(field)) return true;
+        }
+        return false;
+    }
+
+    // === Getters / Setters ===
+
+    public List<String> getPackages() { return packages; }
+
+    public void setPackages(List<String> packages) {
+        this.packages = List.copyOf(packages);
+    }
+
+    public List<String> getIgnoredPackages() { return ignoredPackages; }
+
+    /**
+     * Set packages excluded from instrumentation
+     * The default packages (the agent itself, ByteBuddy, the JDK) always stay ignored,
+     * so the agent never instruments its own code.
+     * @param ignoredPackages Additional package prefixes
+     */
+    public void setIgnoredPackages(List<String> ignoredPackages) {
+        List<String> merged = new ArrayList<>(DEFAULT_IGNORED_PACKAGES);
+        for (String ignored : ignoredPackages) {
+            if (!merged.contains(ignored)) merged.add(ignored);
+        }
+        this.ignoredPackages = List.copyOf(merged);
+    }
+
+    public List<String> getExcludedClassPatterns() { return excludedClassPatterns; }
+
+    public void setExcludedClassPatterns(List<String> excludedClassPatterns) {
+        this.excludedClassPatterns = List.copyOf(excludedClassPatterns);
+    }
+
+    public List<String> getIncludeMethods() { return includeMethods; }
+
+    public void setIncludeMethods(List<String> includeMethods) {
+        this.includeMethods = List.copyOf(includeMethods);
+        this.includePatterns = compile(includeMethods);
+    }
+
+    public List<String> getExcludeMethods() { return excludeMethods; }
+
+    public void setExcludeMethods(List<String> excludeMethods) {
+        this.excludeMethods = List.copyOf(excludeMethods);
+        this.excludePatterns = compile(excludeMethods);
+    }
+
+    /** Getter/setter methods are left uninstrumented when true */
+    public boolean isExcludeAccessors() { return excludeAccessors; }
+
+    public void setExcludeAccessors(boolean excludeAccessors) {
+        this.excludeAccessors = excludeAccessors;
+    }
+
+    public List<String> getEntryPoints() { return entryPoints; }
+
+    public void setEntryPoints(List<String> entryPoints) {
+        this.entryPoints = List.copyOf(entryPoints);
+        this.entryPointPatterns = compile(entryPoints);
+        this.entryPointClassPatterns = compileClassParts(entryPoints);
+        this.nameOnlyEntryPoints = entryPoints.stream().anyMatch(glob -> glob.indexOf('.') < 0);
+    }
+
+    public List<String> getPinnedMethods() { return pinnedMethods; }
+
+    public void setPinnedMethods(List<String> pinnedMethods) {
+        this.pinnedMethods = List.copyOf(pinnedMethods);
+        this.pinnedPatterns = compile(pinnedMethods);
+    }
+
+    public Set<String> getAdaptiveExcludes() { return adaptiveExcludes; }
+
+    /** Parameter and return values are captured when true */
+    public boolean isCaptureValues() { return captureValues; }
+
+    public void setCaptureValues(boolean captureValues) {
+        this.captureValues = captureValues;
+    }
+
+    public List<String> getCaptureMethods() { return captureMethods; }
+
+    public void setCaptureMethods(List<String> captureMethods) {
+        this.captureMethods = List.copyOf(captureMethods);
+        this.capturePatterns = compile(captureMethods);
+    }
+
+    public List<String> getRedactedFields() { return redactedFields; }
+
+    /**
+     * Set field and map key names whose values are never captured
+     * The default names (password, token, ...) are always redacted.
+     * @param redactedFields Additional names (case-insensitive substrings)
+     */
+    public void setRedactedFields(List<String> redactedFields) {
+        this.redactedFields = Stream.concat(DEFAULT_REDACTED_FIELDS.stream(), redactedFields.stream())
+            .map(String::toLowerCase)
+            .distinct()
+            .collect(Collectors.toUnmodifiableList());
+    }
+
+    /** Thread CPU time and heap allocation are measured per traced call when true */
+    public boolean isMeasureResources() { return measureResources; }
+
+    public void setMeasureResources(boolean measureResources) {
+        this.measureResources = measureResources;
+    }
+
+    /**
+     * Sampling interval in sampling mode
+     * @return Interval in milliseconds, 0 when every call is instrumented
+     */
+    public long getSamplingIntervalMillis() { return samplingIntervalMillis; }
+
+    public void setSamplingIntervalMillis(long samplingIntervalMillis) {
+        if (samplingIntervalMillis < 0) {
+            throw new IllegalArgumentException("Sampling interval must not be negative: " + samplingIntervalMillis);
+        }
+        this.samplingIntervalMillis = samplingIntervalMillis;
+    }
+
+    /** Traced calls are emitted as flight recorder events (while a recording runs) when true */
+    public boolean isJfrMethodEvents() { return jfrMethodEvents; }
+
+    public void setJfrMethodEvents(boolean jfrMethodEvents) {
+        this.jfrMethodEvents = jfrMethodEvents;
+    }
+
+    /**
+     * Maximum number of entries recorded per session
+     * Further calls are summarized in their parent entry.
+     * @return Entry limit, 0 for no limit
+     */
+    public int getMaxSessionEntries() { return maxSessionEntries; }
+
+    public void setMaxSessionEntries(int maxSessionEntries) {
+        if (maxSessionEntries < 0) {
+            throw new IllegalArgumentException("Max session entries must not be negative: " + maxSessionEntries);
+        }
+        this.maxSessionEntries = maxSessionEntries;
+    }
+
+    /**
+     * Maximum depth of recorded calls below the entry point
+     * Deeper calls are summarized in their parent entry.
+     * @return Depth limit, 0 for no limit
+     */
+    public int getMaxCallDepth() { return maxCallDepth; }
+
+    public void setMaxCallDepth(int maxCallDepth) {
+        if (maxCallDepth < 0) {
+            throw new IllegalArgumentException("Max call depth must not be negative: " + maxCallDepth);
+        }
+        this.maxCallDepth = maxCallDepth;
+    }
+
+    /** Consecutive calls of the same method under the same parent are folded into one entry when true */
+    public boolean isCompressLoops() { return compressLoops; }
+
+    public void setCompressLoops(boolean compressLoops) {
+        this.compressLoops = compressLoops;
+    }
+
+    /**
+     * Minimum number of calls of one method under the same parent call reported as repeated
+     * A single call is never repeated, so the smallest threshold is 2.
+     * @return Threshold, 0 when detection is disabled
+     */
+    public int getRepeatedCallThreshold() { return repeatedCallThreshold; }
+
+    public void setRepeatedCallThreshold(int repeatedCallThreshold) {
+        if (repeatedCallThreshold < 0 || repeatedCallThreshold == 1) {
+            throw new IllegalArgumentException("Repeated call threshold must be 0 (disabled) or at least 2: " + repeatedCallThreshold);
+        }
+        this.repeatedCallThreshold = repeatedCallThreshold;
+    }
+
+    public List<String> getDataAccessPatterns() { return dataAccessPatterns; }
+
+    public void setDataAccessPatterns(List<String> dataAccessPatterns) {
+        this.dataAccessPatterns = List.copyOf(dataAccessPatterns);
+        this.dataAccessMethodPatterns = compile(dataAccessPatterns);
+    }
+
+    /**
+     * Share of CPU and request time the agent may use before the overhead governor throttles tracing
+     * @return Budget in percent, 0 when the governor is disabled
+     */
+    public double getOverheadBudgetPercent() { return overheadBudgetPercent; }
+
+    public void setOverheadBudgetPercent(double overheadBudgetPercent) {
+        if (!(overheadBudgetPercent >= 0 && overheadBudgetPercent < 100)) {
+            throw new IllegalArgumentException("Overhead budget must be between 0 and 100 percent: " + overheadBudgetPercent);
+        }
+        this.overheadBudgetPercent = overheadBudgetPercent;
+    }
+
+    // === Pattern Helpers ===
+
+    private static boolean startsWithAny(String name, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (name.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private static boolean matchesAny(List<MethodPattern> patterns, String typeName, String methodName) {
+        if (patterns.isEmpty()) return false;
+        String qualifiedName = typeName + "." + methodName;
+        for (MethodPattern pattern : patterns) {
+            String target = pattern.qualified ? qualifiedName : methodName;
+            if (pattern.regex.matcher(target).matches()) return true;
+        }
+        return false;
+    }
+
+    private static List<MethodPattern> compile(List<String> globs) {
+        List<MethodPattern> patterns = new ArrayList<>();
+        for (String glob : globs) {
+            patterns.add(new MethodPattern(Pattern.compile(globToRegex(glob)), glob.indexOf('.') >= 0));
+        }
+        return patterns;
+    }
+
+    /**
+     * Compile the class part (before the last '.') of qualified method patterns
+     */
+    private static List<Pattern> compileClassParts(List<String> globs) {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String glob : globs) {
+            int lastDot = glob.lastIndexOf('.');
+            if (lastDot > 0) {
+                patterns.add(Pattern.compile(globToRegex(glob.substring(0, lastDot))));
+            }
+        }
+        return patterns;
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : glob.trim().toCharArray()) {
+            switch (c) {
+                case '*': sb.append(".*"); break;
+                case '?': sb.append('.'); break;
+                case '.': sb.append("\\."); break;
+                case '$': sb.append("\\$"); break;
+                default:
+                    if (Character.isLetterOrDigit(c) || c == '_') {
+                        sb.append(c);
+                    } else {
+                        sb.append('\\').append(c);
+                    }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static List<String> toList(Object value) {
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException("Expected a list but got: " + value);
+        }
+        return ((List<?>) value).stream().map(String::valueOf).collect(Collectors.toList());
+    }
+
+    private static boolean toBoolean(Object value) {
+        if (value instanceof Boolean) return (Boolean) value;
+        return Boolean.parseBoolean(String.valueOf(value));
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Number) return ((Number) value).longValue();
+        try {
+            return Long.parseLong(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number but got: " + value);
+        }
+    }
+
+    /**
+     * Convert a limit or count, rejected instead of wrapped when it does not fit an int
+     */
+    private static int toInt(Object value) {
+        long number = toLong(value);
+        if (number < 0 || number > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Expected a number between 0 and " + Integer.MAX_VALUE + " but got: " + value);
+        }
+        return (int) number;
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        try {
+            return Double.parseDouble(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number but got: " + value);
+        }
+    }
+
+    /**
+     * Compiled method pattern, qualified when it contains a class part
+     */
+    private static class MethodPattern {
+        final Pattern regex;
+        final boolean qualified;
+
+        MethodPattern(Pattern regex, boolean qualified) {
+            this.regex = regex;
+            this.qualified = qualified;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.jth00.traceflow.context;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Entries that recorded the exceptions of one session
+ * Exceptions are compared by identity, never by equals/hashCode, so distinct exceptions of a
+ * class overriding them keep their own origin. They are held weakly and do not outlive their use.
+ */
+class ErrorOrigins {
+    private final Map<IdentityKey, String> origins = new HashMap<>();
+    private final ReferenceQueue<Throwable> collected = new ReferenceQueue<>();
+
+    /**
+     * Register the entry recording an exception unless the exception was recorded before
+     * @param error Exception
+     * @param entryId Entry recording the exception
+     * @return Entry that recorded the exception first, or null if this entry is the first
+     */
+    synchronized String putIfAbsent(Throwable error, String entryId) {
+        expunge();
+        return origins.putIfAbsent(new IdentityKey(error, collected), entryId);
+    }
+
+    private void expunge() {
+        Object key;
+        while ((key = collected.poll()) != null) {
+            origins.remove(key);
+        }
+    }
+
+    /**
+     * Weak key equal only to keys of the same exception instance
+     */
+    private static class IdentityKey extends WeakReference<Throwable> {
+        private final int hash;
+
+        IdentityKey(Throwable error, ReferenceQueue<Throwable> queue) {
+            super(error, queue);
+            this.hash = System.identityHashCode(error);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof IdentityKey)) return false;
+            Throwable error = get();
+            return error != null && error == ((IdentityKey) other).get();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.jth00.traceflow.context;
+
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.governor.OverheadGovernor;
+import io.github.jth00.traceflow.enums.RecordModeEnum;
+import io.github.jth00.traceflow.metrics.TraceFlowMetrics;
+import io.github.jth00.traceflow.vo.CallAggregate;
+import io.github.jth00.traceflow.vo.MethodInfo;
+import io.github.jth00.traceflow.vo.ResourceUsage;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import io.github.jth00.traceflow.vo.TraceFrame;
+
+import java.util.UUID;
+
+/**
+ * Keeps sessions bounded while they are recorded
+ * - Consecutive calls of the same method under the same parent are folded into one
+ *   aggregated entry; the first call keeps its subtree as the representative one
+ * - Calls deeper than the depth limit or beyond the entry limit are not recorded and
+ *   summarized as a TRUNCATED child of their parent
+ *
+ * Decisions are made when a call enters, so recorded entries always have a recorded parent.
+ * All state lives in the frames of the calling thread.
+ */
+public class SessionLimits {
+
+    /** Class name of synthetic summary entries */
+    public static final String SUMMARY_CLASS = "TraceFlow";
+
+    /**
+     * Decide how a call entering below the given frame is recorded
+     * Releases the held back sibling run when a different method is called.
+     * @param parent Frame of the calling traced method
+     * @param method Entering method
+     * @param startTime Wall clock start time of the call
+     * @return Record mode of the call
+     */
+    public static RecordModeEnum admit(TraceFrame parent, MethodInfo method, long startTime) {
+        if (parent == null) {
+            return RecordModeEnum.RECORDED;
+        }
+        if (!parent.isRecorded()) {
+            return RecordModeEnum.HIDDEN;
+        }
+
+        TraceFlowConfig config = TraceFlowConfig.current();
+        if (parent.getRunMethod() != null) {
+            if (config.isCompressLoops() && parent.getRunMethod() == method) {
+                return RecordModeEnum.FOLDED;
+            }
+            releaseRun(parent);
+        }
+
+        int maxDepth = config.getMaxCallDepth();
+        int governedDepth = OverheadGovernor.limitDepth(maxDepth);
+        // Session looked up only while the governor limits the depth
+        if (governedDepth != maxDepth && TraceContext.isSessionGoverned()) {
+            maxDepth = governedDepth;
+        }
+        if (maxDepth > 0 && parent.getDepth() >= maxDepth) {
+            parent.truncated("[depth limit " + maxDepth + "]", startTime);
+            return RecordModeEnum.TRUNCATED;
+        }
+        if (!TraceContext.admitEntry()) {
+            parent.truncated("[entry limit " + config.getMaxSessionEntries() + "]", startTime);
+            return RecordModeEnum.TRUNCATED;
+        }
+        return RecordModeEnum.RECORDED;
+    }
+
+    /**
+     * Record the entry of a finished call
+     * Synchronous calls are held back in their parent while compression is enabled,
+     * so that following repeats can be folded into them.
+     * @param frame Frame of the finished call
+     * @param entry Entry of the call
+     * @param nanos Elapsed time of the call
+     */
+    public static void record(TraceFrame frame, TraceEntry entry, long nanos) {
+        TraceFrame parent = frame.getParent();
+        if (parent == null || !TraceFlowConfig.current().isCompressLoops()) {
+            TraceContext.addEntry(entry);
+            return;
+        }
+        CallAggregate aggregate = new CallAggregate();
+        aggregate.add(nanos, entry.isError(), entry.getResources());
+        parent.startRun(frame.getMethod(), entry, aggregate);
+    }
+
+    /**
+     * Account a call that was not recorded in its parent
+     * @param frame Frame of the finished call
+     * @param nanos Elapsed time of the call
+     * @param error true if the call threw
+     * @param resources Resource usage of the call or null if not measured
+     */
+    public static void skip(TraceFrame frame, long nanos, boolean error, ResourceUsage resources) {
+        TraceFrame parent = frame.getParent();
+        switch (frame.getMode()) {
+            case FOLDED:
+                // The run is only released by a sibling entering, which cannot happen before this exit
+                parent.getRunAggregate().add(nanos, error, resources);
+                TraceFlowMetrics.recordFoldedCall();
+                break;
+            case TRUNCATED:
+                parent.getTruncated().add(nanos, error, null);
+                TraceFlowMetrics.recordTruncatedCall();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Add the held back child run and the truncation summary of a finishing frame
+     * Called before the frame's own entry is recorded.
+     * @param frame Frame of the finishing call
+     */
+    public static void release(TraceFrame frame) {
+        releaseRun(frame);
+
+        CallAggregate truncated = frame.getTruncated();
+        if (truncated != null) {
+            TraceContext.addEntry(TraceEntry.builder()
+                .id(UUID.randomUUID().toString())
+                .parentId(frame.getId())
+                .sessionId(frame.getSessionId())
+                .className(SUMMARY_CLASS)
+                .methodName(frame.getTruncatedReason())
+                .startTime(frame.getTruncatedStartTime())
+                .duration(truncated.getTotalNanos() / 1_000_000)
+                .methodType(MethodTypeEnum.TRUNCATED)
+                .aggregate(truncated)
+                .build());
+        }
+    }
+
+    private static void releaseRun(TraceFrame frame) {
+        TraceEntry entry = frame.takeRunEntry();
+        if (entry != null) {
+            TraceContext.addEntry(entry);
+        }
+    }
+}
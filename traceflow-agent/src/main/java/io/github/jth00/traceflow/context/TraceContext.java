@@ -1,18 +1,22 @@
 package io.github.jth00.traceflow.context;
 
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.metrics.TraceFlowMetrics;
 import io.github.jth00.traceflow.store.TraceStore;
 import io.github.jth00.traceflow.vo.TraceEntry;
+import io.github.jth00.traceflow.vo.TraceFrame;
 
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages tracing context for method execution
  * Simplified version with immediate cleanup
  * - No TTL, no touch(), no scheduled cleanup
- * - Sessions with async methods are retained
- * - Sessions without async are removed immediately
+ * - Sessions with pending async calls are retained until the calls complete
+ * - Sessions without pending async calls are removed immediately
  * - Max 50 sessions enforced at entry
  */
 public class TraceContext {
@@ -29,6 +33,12 @@ public class TraceContext {
     // Call stack for tracking parent-child relationships
     private static final ThreadLocal<Deque<String>> callStack = ThreadLocal.withInitial(ArrayDeque::new);
 
+    // Innermost traced frame for self time accounting
+    private static final ThreadLocal<TraceFrame> currentFrame = new ThreadLocal<>();
+
+    // Root call the overhead governor refused to trace, until it exits
+    private static final ThreadLocal<TraceFrame> skippedRoot = new ThreadLocal<>();
+
     // Session data storage (thread-safe)
     private static final Map<String, SessionData> sessions = new ConcurrentHashMap<>();
 
@@ -39,15 +49,23 @@ public class TraceContext {
         final String sessionId;
         final List<TraceEntry> entries;
         final AtomicBoolean active;
-
-        SessionData(String sessionId) {
+        // Calls admitted for recording, checked against the entry limit
+        final AtomicInteger admitted;
+        // Exceptions already recorded, with the entry holding their stack trace
+        final ErrorOrigins errorOrigins;
+        // Async calls (futures, suspended calls) started but not yet recorded
+        final AtomicInteger pending;
+        // false if the overhead governor must not limit the session (e.g., a test method)
+        final boolean governed;
+
+        SessionData(String sessionId, boolean governed) {
             this.sessionId = sessionId;
+            this.governed = governed;
             this.entries = new CopyOnWriteArrayList<>();
             this.active = new AtomicBoolean(true);
-        }
-
-        boolean hasAsyncMethods() {
-            return entries.stream().anyMatch(TraceEntry::isAsync);
+            this.admitted = new AtomicInteger();
+            this.errorOrigins = new ErrorOrigins();
+            this.pending = new AtomicInteger();
         }
     }
 
@@ -75,6 +93,33 @@ public class TraceContext {
         return Boolean.TRUE.equals(tracingEnabled.get());
     }
 
+    /**
+     * Mark the current thread as running an entry point call that is not traced
+     * Nested entry points are not traced either, so a skipped request never starts partial sessions.
+     * @param root Frame of the skipped root call
+     */
+    public static void skipSession(TraceFrame root) {
+        skippedRoot.set(root);
+    }
+
+    /**
+     * Check if the current thread runs inside a skipped root call
+     * @return true if entry points must not start a session
+     */
+    public static boolean isSessionSkipped() {
+        return skippedRoot.get() != null;
+    }
+
+    /**
+     * End the skipped root call of the current thread
+     * @param frame Exiting frame; nested frames leave the mark in place
+     */
+    public static void endSkippedSession(TraceFrame frame) {
+        if (skippedRoot.get() == frame) {
+            skippedRoot.remove();
+        }
+    }
+
     /**
      * Check if tracing is enabled for a specific session
      * @param sessionId Session ID to check
@@ -85,14 +130,24 @@ public class TraceContext {
         return session != null && session.active.get();
     }
 
+    /**
+     * Check if a session is still held in memory (running or waiting for async calls)
+     * @param sessionId Session ID to check
+     * @return true if entries can still be added to the session
+     */
+    public static boolean isSessionRetained(String sessionId) {
+        return sessionId != null && sessions.containsKey(sessionId);
+    }
+
     // === Session Management Methods ===
 
     /**
      * Start a new tracing session
      * Enforces max session limit by removing the oldest inactive session
      * @param sessionId Unique session identifier
+     * @param governed false if the overhead governor must not limit the session
      */
-    public static void startNewSession(String sessionId) {
+    public static void startNewSession(String sessionId, boolean governed) {
         // Enforce max sessions limit
         if (sessions.size() >= MAX_SESSIONS) {
             // Find and remove the oldest inactive session
@@ -101,12 +156,13 @@ public class TraceContext {
                 .findFirst()
                 .ifPresent(e -> {
                     sessions.remove(e.getKey());
+                    TraceFlowMetrics.recordEvictedSession();
                     System.out.println("[TraceContext] Removed oldest inactive session to make room");
                 });
         }
 
         currentSessionId.set(sessionId);
-        sessions.put(sessionId, new SessionData(sessionId));
+        sessions.put(sessionId, new SessionData(sessionId, governed));
         callStack.set(new ArrayDeque<>());
 
         System.out.println("[TraceContext] New session started: " + sessionId +
@@ -121,6 +177,14 @@ public class TraceContext {
         return currentSessionId.get();
     }
 
+    /**
+     * Get number of sessions held in memory (running or waiting for async completion)
+     * @return Session count
+     */
+    public static int getSessionCount() {
+        return sessions.size();
+    }
+
     // === Call Stack Management ===
 
     /**
@@ -149,6 +213,126 @@ public class TraceContext {
         return stack.isEmpty() ? null : stack.peek();
     }
 
+    /**
+     * Get the innermost traced frame of the current thread
+     * @return Current frame or null
+     */
+    public static TraceFrame getCurrentFrame() {
+        return currentFrame.get();
+    }
+
+    /**
+     * Set the innermost traced frame of the current thread
+     * @param frame Frame to set (null to clear)
+     */
+    public static void setCurrentFrame(TraceFrame frame) {
+        currentFrame.set(frame);
+    }
+
+    // === Thread Attachment ===
+
+    /**
+     * Tracing state of a thread, saved while the thread runs a suspended call of another
+     * session (a coroutine resumed on a pooled thread) and restored afterwards
+     */
+    public static final class ThreadState {
+        private final boolean enabled;
+        private final String sessionId;
+        private final Deque<String> stack;
+        private final TraceFrame frame;
+
+        private ThreadState(boolean enabled, String sessionId, Deque<String> stack, TraceFrame frame) {
+            this.enabled = enabled;
+            this.sessionId = sessionId;
+            this.stack = stack;
+            this.frame = frame;
+        }
+    }
+
+    /**
+     * Save the tracing state of the current thread
+     * @return State to pass to {@link #restoreThreadState(ThreadState)}
+     */
+    public static ThreadState saveThreadState() {
+        return new ThreadState(isTracingEnabled(), currentSessionId.get(), callStack.get(), currentFrame.get());
+    }
+
+    /**
+     * Attach the current thread to an active session, below the given call
+     * The thread gets a call stack of its own, so the frames of the saved state are untouched.
+     * @param sessionId Session to continue
+     * @param parentId Call the following calls are recorded under, null for none
+     */
+    public static void attachThread(String sessionId, String parentId) {
+        tracingEnabled.set(true);
+        currentSessionId.set(sessionId);
+        Deque<String> stack = new ArrayDeque<>();
+        if (parentId != null) {
+            stack.push(parentId);
+        }
+        callStack.set(stack);
+        currentFrame.remove();
+    }
+
+    /**
+     * Restore the tracing state saved before attaching the thread
+     * @param state Saved state
+     */
+    public static void restoreThreadState(ThreadState state) {
+        tracingEnabled.set(state.enabled);
+        currentSessionId.set(state.sessionId);
+        callStack.set(state.stack);
+        currentFrame.set(state.frame);
+    }
+
+    /**
+     * Leave the session on the current thread without flushing it
+     * Used when the root call suspends: the session stays active until the root completes.
+     */
+    public static void detachThread() {
+        clearThreadLocals();
+    }
+
+    /**
+     * Check if the overhead governor may limit the current session
+     * @return false for sessions started with the governor bypassed
+     */
+    public static boolean isSessionGoverned() {
+        String sessionId = currentSessionId.get();
+        SessionData session = sessionId != null ? sessions.get(sessionId) : null;
+        return session == null || session.governed;
+    }
+
+    /**
+     * Reserve room for one more entry in the current session
+     * Calls are admitted on entry, so a recorded call always has a recorded parent.
+     * @return true if the call may be recorded, false if the session reached its entry limit
+     */
+    public static boolean admitEntry() {
+        int max = TraceFlowConfig.current().getMaxSessionEntries();
+        if (max <= 0) {
+            return true;
+        }
+        String sessionId = currentSessionId.get();
+        SessionData session = sessionId != null ? sessions.get(sessionId) : null;
+        return session == null || session.admitted.incrementAndGet() <= max;
+    }
+
+    /**
+     * Register the entry recording an exception, once per exception and session
+     * An exception propagating through several traced frames is first recorded by the frame
+     * that threw it, so later (outer) frames find the thrower's entry here.
+     * Exceptions are compared by identity.
+     * @param sessionId Session of the failed call
+     * @param error Exception thrown by the call
+     * @param entryId Entry of the failed call
+     * @return Entry that recorded the exception first, or null if this entry is the first
+     */
+    public static String claimError(String sessionId, Throwable error, String entryId) {
+        SessionData session = sessions.get(sessionId);
+        return session != null ? session.errorOrigins.putIfAbsent(error, entryId) : null;
+    }
+
     /**
      * Add an entry to the current session
      * @param entry TraceEntry to add
@@ -164,44 +348,88 @@ public class TraceContext {
     }
 
     /**
-     * Add an entry to a specific session (for async processing)
-     * @param sessionId Target session ID
-     * @param entry TraceEntry to add
+     * Add several trace entries to the current session
+     * @param entries Entries to add
      */
-    public static void addEntryToSession(String sessionId, TraceEntry entry) {
+    public static void addEntries(List<TraceEntry> entries) {
+        String sessionId = currentSessionId.get();
+        if (sessionId != null && !entries.isEmpty()) {
+            SessionData session = sessions.get(sessionId);
+            if (session != null) {
+                session.entries.addAll(entries);
+            }
+        }
+    }
+
+    /**
+     * Register an async call of a session that is recorded when its result is available
+     * The session is kept in memory after the flush until all its async calls completed.
+     * @param sessionId Session of the async call
+     */
+    public static void beginAsync(String sessionId) {
         SessionData session = sessions.get(sessionId);
         if (session != null) {
+            session.pending.incrementAndGet();
+        }
+    }
+
+    /**
+     * Record the entry of a completed async call (registered by {@link #beginAsync(String)})
+     * If the session was already flushed, the stored session is updated once its last async
+     * call completed, with all late entries at once, and the session is removed.
+     * @param sessionId Target session ID
+     * @param entry TraceEntry of the async call
+     * @return true if the entry was added, false if the session is no longer held
+     */
+    public static boolean completeAsync(String sessionId, TraceEntry entry) {
+        SessionData session = sessions.get(sessionId);
+        if (session == null) {
+            return false;
+        }
+        synchronized (session) {
             session.entries.add(entry);
+            if (session.pending.decrementAndGet() <= 0 && !session.active.get()) {
+                // Completed after the root returned: store the session again with the late entries
+                TraceStore.updateTraces(new ArrayList<>(session.entries));
+                sessions.remove(sessionId);
+                System.out.println("[TraceContext] Async calls completed, removed session: " + sessionId);
+            }
         }
+        return true;
     }
 
     /**
      * Flush session data to the store
      * Strategy:
-     * - If session has async methods: keep in memory (for async completion)
-     * - If session has no async methods: remove immediately (save memory)
+     * - If session has pending async calls: keep in memory until they complete
+     * - Otherwise: remove immediately (save memory)
      */
     public static void flush() {
         String sessionId = currentSessionId.get();
         if (sessionId != null) {
             SessionData session = sessions.get(sessionId);
             if (session != null && !session.entries.isEmpty()) {
-                // Save to store
-                TraceStore.addTraces(new ArrayList<>(session.entries));
-
-                // Check if session has async methods
-                boolean hasAsync = session.hasAsyncMethods();
-
-                if (hasAsync) {
-                    // Has async methods -> Keep in memory for async completion
+                List<TraceEntry> flushed;
+                boolean pending;
+                // Async calls completing meanwhile either make it into this flush or update the store
+                synchronized (session) {
+                    flushed = new ArrayList<>(session.entries);
+                    TraceStore.addTraces(flushed);
                     session.active.set(false);
-                    System.out.println("[TraceContext] Flushed " + session.entries.size() +
-                        " entries (has async, keeping session): " + sessionId);
+                    pending = session.pending.get() > 0;
+                    if (!pending) {
+                        sessions.remove(sessionId);
+                    }
+                }
+
+                if (pending) {
+                    // Pending async calls -> Keep in memory until they complete
+                    System.out.println("[TraceContext] Flushed " + flushed.size() +
+                        " entries (async pending, keeping session): " + sessionId);
                 } else {
-                    // No async methods -> Remove immediately to save memory
-                    sessions.remove(sessionId);
-                    System.out.println("[TraceContext] Flushed " + session.entries.size() +
-                        " entries (sync only, removed immediately): " + sessionId);
+                    // No pending async calls -> Remove immediately to save memory
+                    System.out.println("[TraceContext] Flushed " + flushed.size() +
+                        " entries (removed immediately): " + sessionId);
                 }
             }
         }
@@ -217,5 +445,6 @@ public class TraceContext {
         tracingEnabled.set(false);
         currentSessionId.set(null);
         callStack.set(new ArrayDeque<>());
+        currentFrame.remove();
     }
 }
\ No newline at end of file
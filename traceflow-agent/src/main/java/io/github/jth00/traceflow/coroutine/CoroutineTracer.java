@@ -0,0 +1,318 @@
+package io.github.jth00.traceflow.coroutine;
+
+import io.github.jth00.traceflow.context.TraceContext;
+import io.github.jth00.traceflow.interceptor.TraceFlowInterceptor;
+import io.github.jth00.traceflow.vo.MethodInfo;
+import io.github.jth00.traceflow.vo.TraceFrame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Trace context propagation for Kotlin coroutines
+ *
+ * A suspend function returns COROUTINE_SUSPENDED at its first suspension point and is called
+ * again with its own state machine each time the coroutine resumes, often on another thread
+ * whose ThreadLocal call stack is empty or belongs to another session.
+ * - Every continuation remembers the traced frame it was created in
+ * - Resuming a continuation attaches the thread to that frame's session and restores the
+ *   previous thread state afterwards, like a ThreadContextElement of kotlinx.coroutines
+ * - A suspended call stays open until its state machine returns the result, and is then
+ *   recorded as an async entry covering the whole call
+ *
+ * The resume hooks are inlined into kotlin.coroutines.jvm.internal.BaseContinuationImpl,
+ * which every dispatched coroutine resumes through. They are only installed for class loaders
+ * that also see kotlinx.coroutines, so plain Kotlin or Java applications are not affected.
+ */
+public class CoroutineTracer {
+
+    /** Instrumented base class of all compiled suspend functions and suspend lambdas */
+    public static final String BASE_CONTINUATION_TYPE = "kotlin.coroutines.jvm.internal.BaseContinuationImpl";
+
+    /** Last parameter type of compiled suspend functions */
+    public static final String CONTINUATION_TYPE = "kotlin.coroutines.Continuation";
+
+    /** Class the resume hooks require next to the Kotlin standard library */
+    private static final String COROUTINES_MARKER = "kotlinx/coroutines/CoroutineScope.class";
+
+    /** Direct superclass of suspend function state machines (lambdas extend SuspendLambda) */
+    private static final String CONTINUATION_IMPL_TYPE = "kotlin.coroutines.jvm.internal.ContinuationImpl";
+
+    private static final String SINGLETONS_TYPE = "kotlin.coroutines.intrinsics.CoroutineSingletons";
+    private static final String SUSPENDED_NAME = "COROUTINE_SUSPENDED";
+
+    // Whether coroutine classes and suspend functions are instrumented
+    private static volatile boolean enabled = false;
+
+    // COROUTINE_SUSPENDED marker, resolved from the first suspending call
+    private static volatile Object suspendedMarker;
+
+    // Frame each continuation was created in (weak keys, continuations are dropped when done).
+    // Frames refer to continuations only weakly, so a value never keeps its own key alive.
+    private static final Map<Object, TraceFrame> origins = Collections.synchronizedMap(new WeakHashMap<>());
+
+    // Suspended tail calls (no state machine of their own), by the continuation they return to (weak keys)
+    private static final Map<Object, List<TraceFrame>> tailCalls = Collections.synchronizedMap(new WeakHashMap<>());
+
+    // Frame the current thread was attached to by a resumed continuation
+    private static final ThreadLocal<TraceFrame> attached = new ThreadLocal<>();
+
+    /**
+     * Thread state replaced while a continuation runs
+     */
+    public static final class Resumption {
+        private final TraceContext.ThreadState state;
+        private final TraceFrame attached;
+
+        private Resumption(TraceContext.ThreadState state, TraceFrame attached) {
+            this.state = state;
+            this.attached = attached;
+        }
+    }
+
+    /**
+     * Enable instrumentation of coroutine classes and suspend functions
+     * Must be called before the transformer is installed.
+     */
+    public static void enable() {
+        enabled = true;
+        System.out.println("[TraceFlow Coroutines] Suspend function tracing enabled");
+    }
+
+    /**
+     * Check if coroutine classes and suspend functions are instrumented
+     * @return true if enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Check if kotlinx.coroutines is visible to a class loader
+     * @param classLoader Loader of the Kotlin standard library
+     * @return true if the resume hooks should be installed
+     */
+    public static boolean isCoroutineLoader(ClassLoader classLoader) {
+        ClassLoader loader = classLoader != null ? classLoader : ClassLoader.getSystemClassLoader();
+        return enabled && loader.getResource(COROUTINES_MARKER) != null;
+    }
+
+    // ---- Advice Hooks: BaseContinuationImpl ----
+
+    /**
+     * Continuation created (constructor exit)
+     * Remembers the traced frame running on this thread, and the state machine of a suspend call.
+     * @param continuation New continuation
+     */
+    public static void created(Object continuation) {
+        if (!TraceContext.isTracingEnabled()) {
+            return;
+        }
+        TraceFrame frame = TraceContext.getCurrentFrame();
+        if (frame == null) {
+            frame = attached.get();
+        }
+        if (frame == null || frame.getSessionId() == null) {
+            return;
+        }
+
+        // A suspend function creates its state machine first, before running its body
+        if (frame.getContinuation() == null && frame.getMethod().isSuspend() &&
+            isStateMachineOf(continuation, frame.getMethod())) {
+            frame.setContinuation(continuation);
+        }
+        origins.put(continuation, frame);
+    }
+
+    /**
+     * Continuation resumed (resumeWith enter)
+     * Attaches the thread to the session the continuation was created in.
+     * @param continuation Resumed continuation
+     * @return State to restore on exit, or null if the thread was not attached
+     */
+    public static Resumption resume(Object continuation) {
+        if (origins.isEmpty()) {
+            return null;
+        }
+        TraceFrame frame = origins.get(continuation);
+        if (frame == null) {
+            return null;
+        }
+        // Sessions flushed while suspended calls were pending are still held until they complete
+        if (!TraceContext.isSessionRetained(frame.getSessionId())) {
+            origins.remove(continuation);
+            return null;
+        }
+
+        Resumption resumption = new Resumption(TraceContext.saveThreadState(), attached.get());
+        if (continuation == frame.getContinuation()) {
+            // The suspended call itself resumes, it is entered again below its own parent
+            TraceContext.attachThread(frame.getSessionId(), frame.getParentId());
+            attached.set(callerOf(frame));
+        } else {
+            TraceContext.attachThread(frame.getSessionId(), frame.getId());
+            attached.set(frame);
+        }
+        completeTailCalls(continuation);
+        return resumption;
+    }
+
+    /**
+     * Continuation returned or suspended again (resumeWith exit)
+     * @param resumption State returned by {@link #resume(Object)}
+     */
+    public static void resumed(Resumption resumption) {
+        if (resumption == null) {
+            return;
+        }
+        TraceContext.restoreThreadState(resumption.state);
+        attached.set(resumption.attached);
+    }
+
+    // ---- Advice Hooks: Suspend Functions ----
+
+    /**
+     * Find the suspended call a traced suspend function is entered again for
+     * A resumed call gets its own state machine as continuation argument; a recursive call
+     * passing the same continuation is told apart because the frame is still running.
+     * @param continuation Last argument of the call
+     * @return Frame of the resumed call, now current on this thread, or null for a new call
+     */
+    public static TraceFrame resumeCall(Object continuation) {
+        if (!TraceContext.isTracingEnabled() || origins.isEmpty()) {
+            return null;
+        }
+        completeTailCalls(continuation);
+
+        TraceFrame frame = origins.get(continuation);
+        if (frame == null || frame.getContinuation() != continuation || isRunning(frame) ||
+            !frame.getSessionId().equals(TraceContext.getSessionId())) {
+            return null;
+        }
+        frame.setSuspended(false);
+        TraceContext.pushCall(frame.getId());
+        TraceContext.setCurrentFrame(frame);
+        return frame;
+    }
+
+    /**
+     * Keep a call open that returned at a suspension point
+     * Calls without a state machine (tail calls) complete when the continuation they return
+     * to resumes; if that is not a traced call, they are recorded at once.
+     * @param frame Frame of the suspend call
+     * @param result Method result
+     * @return true if the call suspended and is recorded when it completes
+     */
+    public static boolean suspend(TraceFrame frame, Object result) {
+        if (!isSuspended(result)) {
+            return false;
+        }
+        if (frame.getContinuation() == null) {
+            Object completion = frame.getCompletion();
+            TraceFrame caller = completion != null ? origins.get(completion) : null;
+            if (caller == null || caller.getContinuation() != completion) {
+                return false;
+            }
+            tailCalls.computeIfAbsent(completion, c -> Collections.synchronizedList(new ArrayList<>())).add(frame);
+        }
+        frame.setSuspended(true);
+        return true;
+    }
+
+    /**
+     * Finish a segment of a resumed call
+     * @param frame Frame of the resumed call
+     * @param result Method result
+     * @param error Exception thrown by the method or null
+     * @return true if the call completed, false if it suspended again
+     */
+    public static boolean finish(TraceFrame frame, Object result, Throwable error) {
+        if (error == null && isSuspended(result)) {
+            frame.setSuspended(true);
+            return false;
+        }
+        frame.setSuspended(false);
+        frame.setContinuation(null);
+        return true;
+    }
+
+    /**
+     * Check for the COROUTINE_SUSPENDED marker
+     * @param result Result of a suspend call
+     * @return true if the call suspended
+     */
+    public static boolean isSuspended(Object result) {
+        if (result == null) {
+            return false;
+        }
+        if (result == suspendedMarker) {
+            return true;
+        }
+        if (result instanceof Enum && SUSPENDED_NAME.equals(((Enum<?>) result).name()) &&
+            SINGLETONS_TYPE.equals(result.getClass().getName())) {
+            suspendedMarker = result;
+            return true;
+        }
+        return false;
+    }
+
+    // ---- Internal ----
+
+    /**
+     * Record tail calls waiting for a continuation that is about to run
+     */
+    private static void completeTailCalls(Object continuation) {
+        if (tailCalls.isEmpty()) {
+            return;
+        }
+        List<TraceFrame> frames = tailCalls.remove(continuation);
+        if (frames == null) {
+            return;
+        }
+        synchronized (frames) {
+            for (TraceFrame frame : frames) {
+                frame.setSuspended(false);
+                if (frame.isRecorded()) {
+                    TraceFlowInterceptor.completeSuspended(frame, null, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Frame continuations created after a resumed call returned belong to
+     */
+    private static TraceFrame callerOf(TraceFrame frame) {
+        if (frame.getParent() != null) {
+            return frame.getParent();
+        }
+        Object completion = frame.getCompletion();
+        return completion != null ? origins.get(completion) : null;
+    }
+
+    /**
+     * Check if a frame is on the traced call path of this thread
+     */
+    private static boolean isRunning(TraceFrame frame) {
+        for (TraceFrame f = TraceContext.getCurrentFrame(); f != null; f = f.getParent()) {
+            if (f == frame) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if a continuation is the state machine compiled for a suspend function
+     * State machines are named Owner$method$N and extend ContinuationImpl directly.
+     */
+    private static boolean isStateMachineOf(Object continuation, MethodInfo method) {
+        Class<?> type = continuation.getClass();
+        Class<?> superType = type.getSuperclass();
+        return superType != null && CONTINUATION_IMPL_TYPE.equals(superType.getName()) &&
+            type.getName().startsWith(method.getClassName() + "$" + method.getMethodName() + "$");
+    }
+}
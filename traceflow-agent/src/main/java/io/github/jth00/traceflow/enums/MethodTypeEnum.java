@@ -12,5 +12,17 @@ public enum MethodTypeEnum {
     BUSINESS,
 
     /** Entry point method (annotated with @TraceFlow) */
-    ENTRY_POINT
+    ENTRY_POINT,
+
+    /** Synthetic entry for a wait on a lock, monitor, future or socket inside a traced call */
+    BLOCKING,
+
+    /** Call reconstructed from stack samples, with an estimated duration */
+    SAMPLED,
+
+    /** Synthetic entry summarizing calls not recorded because of a session limit */
+    TRUNCATED,
+
+    /** Synthetic entry for a JDBC statement executed inside a traced call */
+    SQL
 }
@@ -0,0 +1,18 @@
+package io.github.jth00.traceflow.enums;
+
+/**
+ * How a traced call is recorded in its session
+ */
+public enum RecordModeEnum {
+    /** Recorded as its own entry */
+    RECORDED,
+
+    /** Repeat of the previous sibling call, folded into its aggregated entry */
+    FOLDED,
+
+    /** Not recorded because of the session depth or entry limit, summarized in its parent */
+    TRUNCATED,
+
+    /** Descendant of a folded or truncated call, not recorded */
+    HIDDEN
+}
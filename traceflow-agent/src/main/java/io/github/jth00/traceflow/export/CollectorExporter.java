@@ -0,0 +1,218 @@
+package io.github.jth00.traceflow.export;
+
+import io.github.jth00.traceflow.metrics.TraceFlowMetrics;
+import io.github.jth00.traceflow.vo.SessionLink;
+import io.github.jth00.traceflow.vo.TraceEntry;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes completed sessions to TraceFlow collectors
+ *
+ * Sessions are queued on the traced thread and sent in batches by a single daemon thread
+ * ("traceflow-exporter"). With several collectors, sessions are partitioned by session ID;
+ * a session started by another JVM uses the calling session ID, so both land on the same collector.
+ * When the queue is full or a collector is unreachable, sessions are dropped.
+ */
+public class CollectorExporter {
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int MAX_BATCH_SESSIONS = 64;
+    private static final long BATCH_WAIT_MILLIS = 200;
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final long RETRY_DELAY_MILLIS = 5000;
+
+    private static final BlockingQueue<TraceBatchCodec.Session> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    // Collector addresses (partition index = position)
+    private static volatile List<InetSocketAddress> collectors = List.of();
+    private static volatile String node;
+    private static Thread worker;
+
+    // Open connections and retry times per collector (exporter thread only)
+    private static final Map<InetSocketAddress, OutputStream> connections = new HashMap<>();
+    private static final Map<InetSocketAddress, Long> retryAt = new HashMap<>();
+
+    /**
+     * Configure collectors and start the exporter thread
+     * @param addresses Collector addresses in host:port form
+     * @param nodeName Name of this agent in the collector UI (null for host name and PID)
+     */
+    public static synchronized void configure(List<String> addresses, String nodeName) {
+        List<InetSocketAddress> parsed = new ArrayList<>();
+        for (String address : addresses) {
+            int colon = address.lastIndexOf(':');
+            if (colon <= 0) {
+                System.err.println("[TraceFlow Exporter] Invalid collector address: " + address);
+                continue;
+            }
+            try {
+                parsed.add(InetSocketAddress.createUnresolved(address.substring(0, colon),
+                    Integer.parseInt(address.substring(colon + 1))));
+            } catch (IllegalArgumentException e) {
+                System.err.println("[TraceFlow Exporter] Invalid collector address: " + address);
+            }
+        }
+        if (parsed.isEmpty()) {
+            return;
+        }
+
+        collectors = List.copyOf(parsed);
+        node = nodeName != null && !nodeName.isBlank() ? nodeName : ManagementFactory.getRuntimeMXBean().getName();
+
+        if (worker == null) {
+            worker = new Thread(CollectorExporter::run, "traceflow-exporter");
+            worker.setDaemon(true);
+            worker.start();
+        }
+        System.out.println("[TraceFlow Exporter] Pushing sessions of node " + node + " to " + addresses);
+    }
+
+    /**
+     * Check if sessions are pushed to a collector
+     * @return true if collectors are configured
+     */
+    public static boolean isEnabled() {
+        return !collectors.isEmpty();
+    }
+
+    /**
+     * Queue a completed session
+     * @param entries Entries of the session
+     * @param link Link to the calling JVM or null
+     */
+    public static void export(List<TraceEntry> entries, SessionLink link) {
+        if (collectors.isEmpty() || entries.isEmpty()) {
+            return;
+        }
+        if (!queue.offer(new TraceBatchCodec.Session(entries, link))) {
+            TraceFlowMetrics.recordDroppedExport(1);
+        }
+    }
+
+    /**
+     * Get number of sessions waiting to be pushed
+     * @return Queue depth
+     */
+    public static int getQueueDepth() {
+        return queue.size();
+    }
+
+    // === Exporter Thread ===
+
+    private static void run() {
+        List<TraceBatchCodec.Session> batch = new ArrayList<>(MAX_BATCH_SESSIONS);
+        while (true) {
+            try {
+                batch.add(queue.take());
+
+                // Collect more sessions for a short time to amortize the round trip
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BATCH_WAIT_MILLIS);
+                while (batch.size() < MAX_BATCH_SESSIONS) {
+                    TraceBatchCodec.Session next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable t) {
+                System.err.println("[TraceFlow Exporter] Failed to export sessions: " + t.getMessage());
+                TraceFlowMetrics.recordDroppedExport(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Partition a batch by collector and write one frame per collector
+     */
+    private static void send(List<TraceBatchCodec.Session> batch) throws IOException {
+        List<InetSocketAddress> targets = collectors;
+        Map<InetSocketAddress, List<TraceBatchCodec.Session>> partitions = new HashMap<>();
+        for (TraceBatchCodec.Session session : batch) {
+            String key = session.getLink() != null ? session.getLink().getParentSessionId() : session.getSessionId();
+            InetSocketAddress target = targets.get(Math.floorMod(key.hashCode(), targets.size()));
+            partitions.computeIfAbsent(target, k -> new ArrayList<>()).add(session);
+        }
+
+        for (Map.Entry<InetSocketAddress, List<TraceBatchCodec.Session>> partition : partitions.entrySet()) {
+            InetSocketAddress target = partition.getKey();
+            List<TraceBatchCodec.Session> sessions = partition.getValue();
+
+            OutputStream out = connect(target);
+            if (out == null) {
+                TraceFlowMetrics.recordDroppedExport(sessions.size());
+                continue;
+            }
+            try {
+                TraceBatchCodec.writeFrame(out, node, sessions);
+                TraceFlowMetrics.recordExported(sessions.size());
+            } catch (IOException e) {
+                System.err.println("[TraceFlow Exporter] Lost connection to " + describe(target) + ": " + e.getMessage());
+                disconnect(target);
+                TraceFlowMetrics.recordDroppedExport(sessions.size());
+            }
+        }
+    }
+
+    /**
+     * Get the connection to a collector, reconnecting after the retry delay
+     * @param target Collector address
+     * @return Output stream or null if the collector is unavailable
+     */
+    private static OutputStream connect(InetSocketAddress target) {
+        OutputStream out = connections.get(target);
+        if (out != null) {
+            return out;
+        }
+        Long retry = retryAt.get(target);
+        if (retry != null && System.currentTimeMillis() < retry) {
+            return null;
+        }
+
+        try {
+            Socket socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(target.getHostString(), target.getPort()), CONNECT_TIMEOUT_MILLIS);
+            out = new BufferedOutputStream(socket.getOutputStream());
+            connections.put(target, out);
+            retryAt.remove(target);
+            System.out.println("[TraceFlow Exporter] Connected to collector " + describe(target));
+            return out;
+        } catch (IOException e) {
+            System.err.println("[TraceFlow Exporter] Collector " + describe(target) + " unavailable: " + e.getMessage());
+            retryAt.put(target, System.currentTimeMillis() + RETRY_DELAY_MILLIS);
+            return null;
+        }
+    }
+
+    private static String describe(InetSocketAddress address) {
+        return address.getHostString() + ":" + address.getPort();
+    }
+
+    private static void disconnect(InetSocketAddress target) {
+        OutputStream out = connections.remove(target);
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+        }
+        retryAt.put(target, System.currentTimeMillis() + RETRY_DELAY_MILLIS);
+    }
+}
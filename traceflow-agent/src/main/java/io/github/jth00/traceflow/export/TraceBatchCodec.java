@@ -0,0 +1,442 @@
+package io.github.jth00.traceflow.export;
+
+import io.github.jth00.traceflow.capture.CapturedValue;
+import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.vo.CallAggregate;
+import io.github.jth00.traceflow.vo.ResourceUsage;
+import io.github.jth00.traceflow.vo.SessionLink;
+import io.github.jth00.traceflow.vo.SqlExecution;
+import io.github.jth00.traceflow.vo.TraceEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary format of session batches pushed from agents to the collector
+ *
+ * Frame: magic (int), payload length (int), payload.
+ * Payload: version, node name, string table, sessions.
+ * Every string (IDs, class, method and type names, errors, captured values) is written once
+ * into the string table and referenced by index; numbers are variable-length encoded and
+ * start times are relative to the first entry of the session.
+ */
+public class TraceBatchCodec {
+    /** "TFB1" */
+    public static final int MAGIC = 0x54464231;
+    private static final int VERSION = 1;
+
+    /** Largest accepted payload */
+    public static final int MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+
+    private static final int FLAG_ASYNC = 1;
+    private static final int FLAG_ERROR = 1 << 1;
+    private static final int FLAG_ARGUMENTS = 1 << 2;
+    private static final int FLAG_RETURN_VALUE = 1 << 3;
+    private static final int FLAG_RESOURCES = 1 << 4;
+    private static final int FLAG_AGGREGATE = 1 << 5;
+    private static final int FLAG_SQL = 1 << 6;
+    private static final int FLAG_ERROR_ORIGIN = 1 << 7;
+    private static final int NO_METHOD_TYPE = 0xFF;
+
+    private static final MethodTypeEnum[] METHOD_TYPES = MethodTypeEnum.values();
+
+    /**
+     * Completed session with its optional link to a calling JVM
+     */
+    public static class Session {
+        private final List<TraceEntry> entries;
+        private final SessionLink link;
+
+        public Session(List<TraceEntry> entries, SessionLink link) {
+            this.entries = entries;
+            this.link = link;
+        }
+
+        public String getSessionId() { return entries.get(0).getSessionId(); }
+
+        public List<TraceEntry> getEntries() { return entries; }
+
+        /** Link to the calling session, null if started locally */
+        public SessionLink getLink() { return link; }
+    }
+
+    /**
+     * Sessions received from one agent
+     */
+    public static class Batch {
+        private final String node;
+        private final List<Session> sessions;
+
+        public Batch(String node, List<Session> sessions) {
+            this.node = node;
+            this.sessions = sessions;
+        }
+
+        public String getNode() { return node; }
+
+        public List<Session> getSessions() { return sessions; }
+    }
+
+    // === Framing ===
+
+    /**
+     * Write a framed batch
+     * @param out Target stream
+     * @param node Name of the sending agent
+     * @param sessions Sessions to send
+     */
+    public static void writeFrame(OutputStream out, String node, List<Session> sessions) throws IOException {
+        byte[] payload = encode(node, sessions);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(payload.length);
+        data.write(payload);
+        data.flush();
+    }
+
+    /**
+     * Read the payload of the next frame
+     * @param in Source stream
+     * @return Payload or null at end of stream
+     */
+    public static byte[] readFrame(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int magic;
+        try {
+            magic = data.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (magic != MAGIC) {
+            throw new IOException("Not a TraceFlow batch (magic " + Integer.toHexString(magic) + ")");
+        }
+        int length = data.readInt();
+        if (length < 0 || length > MAX_PAYLOAD_BYTES) {
+            throw new IOException("Invalid batch size: " + length);
+        }
+        // Buffered as the bytes arrive, so a header alone does not allocate the announced size
+        byte[] payload = data.readNBytes(length);
+        if (payload.length < length) {
+            throw new EOFException("Batch truncated after " + payload.length + " of " + length + " bytes");
+        }
+        return payload;
+    }
+
+    // === Encoding ===
+
+    /**
+     * Encode sessions into a payload
+     * @param node Name of the sending agent
+     * @param sessions Sessions to encode
+     * @return Payload bytes
+     */
+    public static byte[] encode(String node, List<Session> sessions) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+
+        writeVarLong(body, sessions.size());
+        for (Session session : sessions) {
+            List<TraceEntry> entries = session.getEntries();
+            writeRef(body, strings, session.getSessionId());
+
+            SessionLink link = session.getLink();
+            body.writeBoolean(link != null);
+            if (link != null) {
+                writeRef(body, strings, link.getParentSessionId());
+                writeRef(body, strings, link.getParentEntryId());
+            }
+
+            long baseTime = entries.get(0).getStartTime();
+            writeVarLong(body, entries.size());
+            writeVarLong(body, zigZag(baseTime));
+            for (TraceEntry entry : entries) {
+                writeEntry(body, strings, entry, baseTime);
+            }
+        }
+        body.flush();
+
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(bodyBytes.size() + strings.size() * 16 + 16);
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeByte(VERSION);
+        writeString(payload, node);
+        writeVarLong(payload, strings.size());
+        for (String value : strings.keySet()) {
+            writeString(payload, value);
+        }
+        bodyBytes.writeTo(payload);
+        payload.flush();
+        return payloadBytes.toByteArray();
+    }
+
+    private static void writeEntry(DataOutputStream out, Map<String, Integer> strings,
+                                   TraceEntry entry, long baseTime) throws IOException {
+        writeRef(out, strings, entry.getId());
+        writeRef(out, strings, entry.getParentId());
+        writeRef(out, strings, entry.getClassName());
+        writeRef(out, strings, entry.getMethodName());
+        writeRef(out, strings, entry.getReturnType());
+
+        List<String> parameterTypes = entry.getParameterTypes() != null ? entry.getParameterTypes() : List.of();
+        writeVarLong(out, parameterTypes.size());
+        for (String type : parameterTypes) {
+            writeRef(out, strings, type);
+        }
+
+        writeVarLong(out, zigZag(entry.getStartTime() - baseTime));
+        writeVarLong(out, zigZag(entry.getDuration()));
+
+        int flags = (entry.isAsync() ? FLAG_ASYNC : 0)
+            | (entry.isError() ? FLAG_ERROR : 0)
+            | (entry.getArguments() != null ? FLAG_ARGUMENTS : 0)
+            | (entry.getReturnValue() != null ? FLAG_RETURN_VALUE : 0)
+            | (entry.getResources() != null ? FLAG_RESOURCES : 0)
+            | (entry.getAggregate() != null ? FLAG_AGGREGATE : 0)
+            | (entry.getSql() != null ? FLAG_SQL : 0)
+            | (entry.getErrorOriginId() != null ? FLAG_ERROR_ORIGIN : 0);
+        out.writeByte(flags);
+
+        writeRef(out, strings, entry.getErrorType());
+        writeRef(out, strings, entry.getErrorMessage());
+        writeRef(out, strings, entry.getStackTrace());
+        out.writeByte(entry.getMethodType() != null ? entry.getMethodType().ordinal() : NO_METHOD_TYPE);
+
+        if (entry.getArguments() != null) {
+            writeVarLong(out, entry.getArguments().size());
+            for (CapturedValue argument : entry.getArguments()) {
+                writeValue(out, strings, argument);
+            }
+        }
+        if (entry.getReturnValue() != null) {
+            writeValue(out, strings, entry.getReturnValue());
+        }
+        if (entry.getResources() != null) {
+            writeVarLong(out, zigZag(entry.getResources().getAllocatedBytes()));
+            writeVarLong(out, zigZag(entry.getResources().getCpuNanos()));
+            writeVarLong(out, zigZag(entry.getResources().getWallNanos()));
+        }
+        if (entry.getAggregate() != null) {
+            CallAggregate aggregate = entry.getAggregate();
+            writeVarLong(out, aggregate.getCount());
+            writeVarLong(out, aggregate.getTotalNanos());
+            writeVarLong(out, aggregate.getMinNanos());
+            writeVarLong(out, aggregate.getMaxNanos());
+            writeVarLong(out, aggregate.getErrorCount());
+        }
+        if (entry.getSql() != null) {
+            writeRef(out, strings, entry.getSql().getSql());
+            writeVarLong(out, zigZag(entry.getSql().getRows()));
+        }
+        if (entry.getErrorOriginId() != null) {
+            writeRef(out, strings, entry.getErrorOriginId());
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Map<String, Integer> strings,
+                                   CapturedValue value) throws IOException {
+        // Sessions are queued after their values are rendered; null only for a missing value
+        writeRef(out, strings, value != null ? value.getValue() : null);
+        out.writeBoolean(value != null && value.isTruncated());
+    }
+
+    /**
+     * Write a string table reference (0 = null, otherwise index + 1)
+     */
+    private static void writeRef(DataOutputStream out, Map<String, Integer> strings, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        Integer index = strings.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.put(value, index);
+        }
+        writeVarLong(out, index + 1L);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // === Decoding ===
+
+    /**
+     * Decode a payload
+     * @param payload Payload of one frame
+     * @return Decoded batch
+     * @throws IOException If the payload is malformed
+     */
+    public static Batch decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported batch version: " + version);
+        }
+        String node = readString(in);
+
+        int stringCount = readCount(in);
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < stringCount; i++) {
+            strings.add(readString(in));
+        }
+
+        int sessionCount = readCount(in);
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < sessionCount; i++) {
+            String sessionId = readRef(in, strings);
+            SessionLink link = in.readBoolean()
+                ? new SessionLink(sessionId, readRef(in, strings), readRef(in, strings))
+                : null;
+
+            int entryCount = readCount(in);
+            long baseTime = unZigZag(readVarLong(in));
+            List<TraceEntry> entries = new ArrayList<>();
+            for (int j = 0; j < entryCount; j++) {
+                entries.add(readEntry(in, strings, sessionId, baseTime));
+            }
+            if (!entries.isEmpty()) {
+                sessions.add(new Session(entries, link));
+            }
+        }
+        return new Batch(node, sessions);
+    }
+
+    private static TraceEntry readEntry(DataInputStream in, List<String> strings,
+                                        String sessionId, long baseTime) throws IOException {
+        String id = readRef(in, strings);
+        String parentId = readRef(in, strings);
+        String className = readRef(in, strings);
+        String methodName = readRef(in, strings);
+        String returnType = readRef(in, strings);
+
+        int parameterCount = readCount(in);
+        List<String> parameterTypes = new ArrayList<>();
+        for (int i = 0; i < parameterCount; i++) {
+            parameterTypes.add(readRef(in, strings));
+        }
+
+        long startTime = baseTime + unZigZag(readVarLong(in));
+        long duration = unZigZag(readVarLong(in));
+        int flags = in.readUnsignedByte();
+
+        String errorType = readRef(in, strings);
+        String errorMessage = readRef(in, strings);
+        String stackTrace = readRef(in, strings);
+        int methodTypeOrdinal = in.readUnsignedByte();
+        MethodTypeEnum methodType = methodTypeOrdinal < METHOD_TYPES.length ? METHOD_TYPES[methodTypeOrdinal] : null;
+
+        List<CapturedValue> arguments = null;
+        if ((flags & FLAG_ARGUMENTS) != 0) {
+            int count = readCount(in);
+            arguments = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                arguments.add(readValue(in, strings));
+            }
+        }
+        CapturedValue returnValue = (flags & FLAG_RETURN_VALUE) != 0 ? readValue(in, strings) : null;
+        ResourceUsage resources = null;
+        if ((flags & FLAG_RESOURCES) != 0) {
+            resources = new ResourceUsage(unZigZag(readVarLong(in)), unZigZag(readVarLong(in)), unZigZag(readVarLong(in)));
+        }
+        CallAggregate aggregate = null;
+        if ((flags & FLAG_AGGREGATE) != 0) {
+            aggregate = new CallAggregate(readVarLong(in), readVarLong(in), readVarLong(in), readVarLong(in), readVarLong(in));
+        }
+        SqlExecution sql = null;
+        if ((flags & FLAG_SQL) != 0) {
+            sql = new SqlExecution(readRef(in, strings), unZigZag(readVarLong(in)), null);
+        }
+        String errorOriginId = (flags & FLAG_ERROR_ORIGIN) != 0 ? readRef(in, strings) : null;
+
+        return TraceEntry.builder()
+            .id(id).parentId(parentId).sessionId(sessionId)
+            .className(className).methodName(methodName).returnType(returnType)
+            .parameterTypes(Collections.unmodifiableList(parameterTypes))
+            .startTime(startTime).duration(duration)
+            .async((flags & FLAG_ASYNC) != 0)
+            .error((flags & FLAG_ERROR) != 0, errorType, errorMessage)
+            .stackTrace(stackTrace).methodType(methodType)
+            .arguments(arguments).returnValue(returnValue).resources(resources)
+            .aggregate(aggregate).sql(sql).errorOriginId(errorOriginId)
+            .build();
+    }
+
+    private static CapturedValue readValue(DataInputStream in, List<String> strings) throws IOException {
+        String value = readRef(in, strings);
+        return CapturedValue.rendered(value, in.readBoolean());
+    }
+
+    private static String readRef(DataInputStream in, List<String> strings) throws IOException {
+        long ref = readVarLong(in);
+        if (ref == 0) {
+            return null;
+        }
+        if (ref > strings.size()) {
+            throw new IOException("Invalid string reference: " + ref);
+        }
+        return strings.get((int) ref - 1);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readCount(in);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a count of bytes or items
+     * Every item takes at least one byte, so a count larger than the unread rest of the payload
+     * is rejected before anything is allocated for it.
+     */
+    private static int readCount(DataInputStream in) throws IOException {
+        long count = readVarLong(in);
+        if (count < 0 || count > in.available()) {
+            throw new IOException("Invalid count: " + count);
+        }
+        return (int) count;
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length number");
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,303 @@
+package io.github.jth00.traceflow.governor;
+
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.metrics.TraceFlowMetrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the agent's own cost within the configured overhead budget
+ *
+ * Every window the governor adds up the time spent in TraceFlow code: interceptor
+ * enter/exit time and session flushes on traced threads, plus the CPU time of the agent's
+ * own threads (web server, capture, exporter, sampler). It compares that with
+ * - the CPU capacity of the window (all processors), and
+ * - the duration of traced entry point calls, scaled down by the share of sessions traced,
+ *   as the latency added to an average request.
+ * While the larger of the two is over budget, the governor steps down: entry points start
+ * a session for only 1 in 2, 4, ... {@value #MAX_SAMPLE_INTERVAL} calls, and at the last level
+ * sessions record the entry point and its direct children only. It steps back up once the
+ * overhead is below half the budget, so that doubling the traced sessions stays within it.
+ */
+public class OverheadGovernor {
+
+    /** Length of one evaluation window */
+    private static final long WINDOW_SECONDS = 5;
+
+    /** Fewest sessions traced before deep tracing is disabled (1 in N entry point calls) */
+    private static final int MAX_SAMPLE_INTERVAL = 64;
+
+    /** Last level: sampling at its lowest rate and deep tracing disabled */
+    static final int MAX_LEVEL = Integer.numberOfTrailingZeros(MAX_SAMPLE_INTERVAL) + 1;
+
+    /** Call depth recorded while deep tracing is disabled (entry point and direct children) */
+    private static final int SHALLOW_CALL_DEPTH = 1;
+
+    /** Name prefix of the agent's own threads */
+    private static final String AGENT_THREAD_PREFIX = "traceflow-";
+
+    // Current level, 0 when every session is traced
+    private static volatile int level = 0;
+
+    // 1 in N entry point calls starts a session
+    private static volatile int sampleInterval = 1;
+
+    // Overhead of the last window in percent
+    private static volatile double overheadPercent = 0;
+
+    private static ScheduledExecutorService scheduler;
+
+    // Counters at the start of the current window
+    private static long windowStartNanos;
+    private static long lastOverheadNanos;
+    private static long lastFlushNanos;
+    private static long lastSessionNanos;
+    // CPU time of each agent thread at the start of the window
+    private static final Map<Long, Long> lastThreadCpuNanos = new HashMap<>();
+
+    // === Control ===
+
+    /**
+     * Start or stop the governor to match the configured budget
+     * Stopping returns to full tracing.
+     * @param config Active configuration
+     */
+    public static synchronized void configure(TraceFlowConfig config) {
+        double budget = config.getOverheadBudgetPercent();
+        if (budget > 0 && scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "traceflow-governor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Agent threads already running are only charged for CPU used from now on
+            startWindow(agentThreadCpu());
+            scheduler.scheduleAtFixedRate(OverheadGovernor::evaluateSafely,
+                WINDOW_SECONDS, WINDOW_SECONDS, TimeUnit.SECONDS);
+            System.out.println("[TraceFlow Governor] Enabled (budget: " + format(budget) + "% of CPU and request time)");
+        } else if (budget <= 0 && scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            setLevel(0);
+            overheadPercent = 0;
+            lastThreadCpuNanos.clear();
+            System.out.println("[TraceFlow Governor] Disabled, tracing every session");
+        }
+    }
+
+    // === Admission ===
+
+    /**
+     * Decide whether an entry point call starts a tracing session
+     * @return true if the call is traced
+     */
+    public static boolean admitSession() {
+        int interval = sampleInterval;
+        if (interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0) {
+            return true;
+        }
+        TraceFlowMetrics.recordSkippedSession();
+        return false;
+    }
+
+    /**
+     * Call depth limit with deep tracing disabled at the last level
+     * @param maxCallDepth Configured depth limit, 0 when unlimited
+     * @return Effective depth limit
+     */
+    public static int limitDepth(int maxCallDepth) {
+        return limitDepth(maxCallDepth, level);
+    }
+
+    public static int getLevel() { return level; }
+
+    public static int getSampleInterval() { return sampleInterval; }
+
+    public static double getOverheadPercent() { return overheadPercent; }
+
+    // === Evaluation ===
+
+    private static void evaluateSafely() {
+        try {
+            evaluate();
+        } catch (Throwable t) {
+            System.err.println("[TraceFlow Governor] Evaluation failed: " + t.getMessage());
+        }
+    }
+
+    /**
+     * Measure the last window and move one level if needed
+     */
+    private static synchronized void evaluate() {
+        double budget = TraceFlowConfig.current().getOverheadBudgetPercent();
+        if (budget <= 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long windowNanos = now - windowStartNanos;
+        long overhead = TraceFlowMetrics.getOverheadNanos() - lastOverheadNanos;
+        long flush = TraceFlowMetrics.getFlushNanos() - lastFlushNanos;
+        long traced = TraceFlowMetrics.getSessionNanos() - lastSessionNanos;
+        Map<Long, Long> threadCpu = agentThreadCpu();
+        long agentCpu = cpuSinceWindowStart(threadCpu);
+        startWindow(threadCpu);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        double cpuPercent = cpuPercent(windowNanos, processors, overhead, flush, agentCpu);
+        double latencyPercent = latencyPercent(overhead, flush, traced, level);
+        overheadPercent = Math.max(cpuPercent, latencyPercent);
+
+        int newLevel = nextLevel(windowNanos, processors, overhead, flush, traced, agentCpu, budget, level);
+        if (newLevel == level) {
+            return;
+        }
+        String measured = format(overheadPercent) + "% (cpu " + format(cpuPercent) + "%, latency " +
+            format(latencyPercent) + "%)";
+        String direction = newLevel > level ? " over budget " : " under budget ";
+        setLevel(newLevel);
+        System.out.println("[TraceFlow Governor] Overhead " + measured + direction + format(budget) +
+            "%, " + describe());
+    }
+
+    static void setLevel(int newLevel) {
+        level = newLevel;
+        sampleInterval = sampleInterval(newLevel);
+    }
+
+    // === Decision ===
+
+    /**
+     * Level for the next window, from the counters of the last one
+     * One level up while the overhead is over budget, one level down once it is below half of it.
+     * @param windowNanos Length of the window
+     * @param processors Available processors
+     * @param overhead Interceptor time on traced threads in the window
+     * @param flush Session flush time on traced threads in the window
+     * @param traced Duration of traced entry point calls in the window
+     * @param agentCpu CPU time of agent threads in the window
+     * @param budget Overhead budget in percent, 0 when the governor is disabled
+     * @param level Level during the window
+     * @return New level, 0 when the governor is disabled
+     */
+    static int nextLevel(long windowNanos, int processors, long overhead, long flush, long traced,
+                         long agentCpu, double budget, int level) {
+        if (budget <= 0) {
+            return 0;
+        }
+        double percent = Math.max(cpuPercent(windowNanos, processors, overhead, flush, agentCpu),
+            latencyPercent(overhead, flush, traced, level));
+        if (percent > budget && level < MAX_LEVEL) {
+            return level + 1;
+        }
+        if (percent < budget / 2 && level > 0) {
+            return level - 1;
+        }
+        return level;
+    }
+
+    /**
+     * Agent time as a share of the CPU capacity of the window
+     */
+    static double cpuPercent(long windowNanos, int processors, long overhead, long flush, long agentCpu) {
+        long capacity = windowNanos * processors;
+        return capacity > 0 ? 100.0 * (overhead + flush + agentCpu) / capacity : 0;
+    }
+
+    /**
+     * Time added to an average entry point call
+     * Untraced calls add no latency, so the traced share spreads over the sampling interval.
+     */
+    static double latencyPercent(long overhead, long flush, long traced, int level) {
+        return traced > 0 ? 100.0 * (overhead + flush) / traced / sampleInterval(level) : 0;
+    }
+
+    /**
+     * 1 in N entry point calls traced at a level
+     */
+    static int sampleInterval(int level) {
+        return 1 << Math.min(level, MAX_LEVEL - 1);
+    }
+
+    /**
+     * Call depth limit at a level
+     * @param maxCallDepth Configured depth limit, 0 when unlimited
+     * @param level Governor level
+     * @return Effective depth limit
+     */
+    static int limitDepth(int maxCallDepth, int level) {
+        if (level < MAX_LEVEL) {
+            return maxCallDepth;
+        }
+        return maxCallDepth > 0 ? Math.min(maxCallDepth, SHALLOW_CALL_DEPTH) : SHALLOW_CALL_DEPTH;
+    }
+
+    private static String describe() {
+        if (level == 0) return "tracing every session";
+        String sampling = "tracing 1 in " + sampleInterval + " sessions";
+        return level == MAX_LEVEL ? sampling + ", deep tracing disabled" : sampling;
+    }
+
+    /**
+     * Take the counters at the start of a window as baseline
+     * @param threadCpu CPU time of each agent thread now
+     */
+    private static void startWindow(Map<Long, Long> threadCpu) {
+        windowStartNanos = System.nanoTime();
+        lastOverheadNanos = TraceFlowMetrics.getOverheadNanos();
+        lastFlushNanos = TraceFlowMetrics.getFlushNanos();
+        lastSessionNanos = TraceFlowMetrics.getSessionNanos();
+        lastThreadCpuNanos.clear();
+        lastThreadCpuNanos.putAll(threadCpu);
+    }
+
+    /**
+     * CPU time used by each agent thread so far
+     * @return CPU nanoseconds by thread ID, empty if thread CPU time is not supported
+     */
+    private static Map<Long, Long> agentThreadCpu() {
+        Map<Long, Long> cpuByThread = new HashMap<>();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadCpuTimeSupported() || !threads.isThreadCpuTimeEnabled()) {
+            return cpuByThread;
+        }
+
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info == null || !info.getThreadName().startsWith(AGENT_THREAD_PREFIX)) {
+                continue;
+            }
+            long cpu = threads.getThreadCpuTime(info.getThreadId());
+            if (cpu >= 0) {
+                cpuByThread.put(info.getThreadId(), cpu);
+            }
+        }
+        return cpuByThread;
+    }
+
+    /**
+     * CPU time used by agent threads in the current window
+     * Threads started during the window are charged from zero.
+     * @param threadCpu CPU time of each agent thread now
+     * @return CPU nanoseconds
+     */
+    private static long cpuSinceWindowStart(Map<Long, Long> threadCpu) {
+        long total = 0;
+        for (Map.Entry<Long, Long> thread : threadCpu.entrySet()) {
+            total += thread.getValue() - lastThreadCpuNanos.getOrDefault(thread.getKey(), 0L);
+        }
+        return total;
+    }
+
+    private static String format(double percent) {
+        return String.format(Locale.ROOT, "%.2f", percent);
+    }
+}
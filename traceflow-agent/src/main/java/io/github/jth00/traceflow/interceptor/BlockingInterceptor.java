@@ -0,0 +1,51 @@
+package io.github.jth00.traceflow.interceptor;
+
+import io.github.jth00.traceflow.blocking.BlockingBridge;
+import net.bytebuddy.asm.Advice;
+
+/**
+ * Advice recording blocking waits of traced threads
+ *
+ * Inlined into JDK classes, so it only refers to {@link BlockingBridge},
+ * which is injected into the bootstrap class loader.
+ */
+public class BlockingInterceptor {
+
+    /**
+     * Blocking method recorded under its own class and method name
+     * Applied to Object.wait, future get/join and socket reads
+     */
+    public static class Wait {
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        public static long enter() {
+            return BlockingBridge.enter();
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+        public static void exit(@Advice.Enter long startNanos,
+                                @Advice.Origin("#t") String type,
+                                @Advice.Origin("#m") String method) {
+            BlockingBridge.exit(startNanos, type, method);
+        }
+    }
+
+    /**
+     * LockSupport park with a blocker object, recorded under the blocker's class
+     * (e.g., the lock or condition a thread waits on)
+     */
+    public static class Park {
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        public static long enter() {
+            return BlockingBridge.enter();
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+        public static void exit(@Advice.Enter long startNanos,
+                                @Advice.Argument(0) Object blocker,
+                                @Advice.Origin("#m") String method) {
+            BlockingBridge.exitPark(startNanos, blocker, method);
+        }
+    }
+}
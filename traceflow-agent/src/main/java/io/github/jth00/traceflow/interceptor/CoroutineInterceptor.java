@@ -0,0 +1,40 @@
+package io.github.jth00.traceflow.interceptor;
+
+import io.github.jth00.traceflow.coroutine.CoroutineTracer;
+import net.bytebuddy.asm.Advice;
+
+/**
+ * Advice propagating the trace context through Kotlin coroutine resumptions
+ *
+ * Inlined into kotlin.coroutines.jvm.internal.BaseContinuationImpl; every hook returns
+ * immediately unless a continuation was created inside a traced session.
+ */
+public class CoroutineInterceptor {
+
+    /**
+     * Constructor of a continuation (suspend function state machine or suspend lambda)
+     */
+    public static class Created {
+
+        @Advice.OnMethodExit(suppress = Throwable.class)
+        public static void exit(@Advice.This Object continuation) {
+            CoroutineTracer.created(continuation);
+        }
+    }
+
+    /**
+     * resumeWith, running the continuation and the callers it completes
+     */
+    public static class Resume {
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        public static CoroutineTracer.Resumption enter(@Advice.This Object continuation) {
+            return CoroutineTracer.resume(continuation);
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+        public static void exit(@Advice.Enter CoroutineTracer.Resumption resumption) {
+            CoroutineTracer.resumed(resumption);
+        }
+    }
+}
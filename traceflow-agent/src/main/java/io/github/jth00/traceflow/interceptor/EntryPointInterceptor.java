@@ -1,114 +1,301 @@
 package io.github.jth00.traceflow.interceptor;
 
+import io.github.jth00.traceflow.agent.TraceFlowInstrumenter;
+import io.github.jth00.traceflow.capture.ValueCapture;
+import io.github.jth00.traceflow.context.SessionLimits;
 import io.github.jth00.traceflow.context.TraceContext;
+import io.github.jth00.traceflow.coroutine.CoroutineTracer;
+import io.github.jth00.traceflow.governor.OverheadGovernor;
+import io.github.jth00.traceflow.jfr.FlightEvents;
+import io.github.jth00.traceflow.metrics.TraceFlowMetrics;
+import io.github.jth00.traceflow.propagation.TracePropagation;
+import io.github.jth00.traceflow.registry.MethodRegistry;
+import io.github.jth00.traceflow.sampling.StackSampler;
+import io.github.jth00.traceflow.vo.MethodInfo;
+import io.github.jth00.traceflow.vo.ResourceUsage;
 import io.github.jth00.traceflow.vo.TraceEntry;
 import io.github.jth00.traceflow.enums.MethodTypeEnum;
-import net.bytebuddy.implementation.bind.annotation.*;
+import io.github.jth00.traceflow.enums.RecordModeEnum;
+import io.github.jth00.traceflow.vo.TraceFrame;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
 
-import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.Callable;
-import java.util.stream.Collectors;
 
 /**
- * Interceptor for @TraceFlow entry point methods
+ * Advice for @TraceFlow entry point methods
  * Starts a new tracing session and captures the root method call
+ *
+ * Advice code is inlined into the instrumented method without changing the class shape,
+ * so entry points can be added or removed on loaded classes by retransformation.
  */
 public class EntryPointInterceptor {
 
-    /** Maximum number of stack trace lines to capture when an error occurs */
-    private static final int MAX_ERROR_STACKTRACE_LINES = 5;
+    // -------------------- Advice --------------------
 
     /**
-     * Intercept method execution at entry point
-     * @param method Original method being intercepted
-     * @param callable Callable to invoke original method
-     * @return Original method result
-     * @throws Exception Any exception from original method
+     * Inlined at method entry
+     * @param signature Constant signature of the instrumented method
+     * @return Frame of the root call
      */
-    @RuntimeType
-    public static Object intercept(@Origin Method method,
-                                   @SuperCall Callable<?> callable) throws Exception {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static TraceFrame enter(@Advice.Origin(MethodRegistry.SIGNATURE_PATTERN) String signature) {
+        return onEnter(signature);
+    }
+
+    /**
+     * Inlined at method exit (normal or exceptional)
+     * @param frame Frame returned by {@link #enter(String)}
+     * @param thrown Exception thrown by the method or null
+     */
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void exit(@Advice.Enter TraceFrame frame,
+                            @Advice.Thrown Throwable thrown) {
+        onExit(frame, null, thrown);
+    }
+
+    /**
+     * Advice for entry points whose parameter and return values are captured
+     * Applied instead of the default advice when capture is enabled for a method
+     */
+    public static class Capturing {
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        public static TraceFrame enter(@Advice.Origin(MethodRegistry.SIGNATURE_PATTERN) String signature,
+                                       @Advice.AllArguments Object[] arguments) {
+            TraceFrame frame = onEnter(signature);
+            if (frame != null && frame.isRecorded()) {
+                frame.setArguments(ValueCapture.snapshotAll(arguments));
+            }
+            return frame;
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+        public static void exit(@Advice.Enter TraceFrame frame,
+                                @Advice.Return(typing = Assigner.Typing.DYNAMIC) Object returned,
+                                @Advice.Thrown Throwable thrown) {
+            onExit(frame, returned, thrown);
+        }
+    }
+
+    /**
+     * Advice for entry points that are Kotlin suspend functions
+     * The session stays open while the root call is suspended and is flushed by the thread
+     * running its last segment. Values are not captured.
+     */
+    public static class Suspending {
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        public static TraceFrame enter(@Advice.Origin(MethodRegistry.SIGNATURE_PATTERN) String signature,
+                                       @Advice.AllArguments Object[] arguments,
+                                       @Advice.Local("resumed") boolean resumed) {
+            Object continuation = arguments[arguments.length - 1];
+            TraceFrame frame = CoroutineTracer.resumeCall(continuation);
+            resumed = frame != null;
+            if (frame == null) {
+                frame = onEnter(signature);
+                if (frame != null) {
+                    frame.setCompletion(continuation);
+                }
+            }
+            return frame;
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+        public static void exit(@Advice.Enter TraceFrame frame,
+                                @Advice.Local("resumed") boolean resumed,
+                                @Advice.Return(typing = Assigner.Typing.DYNAMIC) Object returned,
+                                @Advice.Thrown Throwable thrown) {
+            if (resumed) {
+                onResumedExit(frame, returned, thrown);
+            } else {
+                onExit(frame, returned, thrown);
+            }
+        }
+    }
+
+    // -------------------- Session Lifecycle --------------------
+
+    /**
+     * Start a new tracing session at entry point
+     * An entry point reached inside an active session is traced as a regular child call
+     * @param signature Signature of the entry point method
+     * @return Frame of the root call
+     */
+    public static TraceFrame onEnter(String signature) {
+        return enterSession(signature, true);
+    }
+
+    /**
+     * Start a new tracing session that the overhead governor cannot skip or limit
+     * For callers that check the recorded session (e.g., test methods with trace expectations)
+     * @param signature Signature of the entry point method
+     * @return Frame of the root call
+     */
+    public static TraceFrame onEnterAlwaysTraced(String signature) {
+        return enterSession(signature, false);
+    }
+
+    /**
+     * @param governed true if the overhead governor decides whether the call is traced
+     */
+    private static TraceFrame enterSession(String signature, boolean governed) {
+        if (TraceContext.isTracingEnabled()) {
+            return TraceFlowInterceptor.onEnter(signature);
+        }
+
+        // Build-time instrumented applications are configured on the first session
+        TraceFlowInstrumenter.ensureInitialized();
+
+        MethodInfo method = MethodRegistry.resolve(signature);
+
+        // Over the overhead budget only some calls start a session, the rest are only timed.
+        // Entry points nested in a skipped call are skipped with it.
+        if (governed && TraceContext.isSessionSkipped()) {
+            return hiddenFrame(method);
+        }
+        if (governed && !OverheadGovernor.admitSession()) {
+            TraceFrame frame = hiddenFrame(method);
+            TraceContext.skipSession(frame);
+            return frame;
+        }
 
         // Start new tracing session
         String sessionId = UUID.randomUUID().toString();
         String rootId = UUID.randomUUID().toString();
 
-        TraceContext.startNewSession(sessionId);
+        TraceContext.startNewSession(sessionId, governed);
         TraceContext.enableTracing();
         TraceContext.pushCall(rootId);
 
-        // Extract parameter types
-        List<String> parameterTypes = Arrays.stream(method.getParameterTypes())
-            .map(Class::getSimpleName)
-            .collect(Collectors.toList());
-
-        long startTime = System.currentTimeMillis();
-        Object result = null;
-        Throwable error = null;
-        MethodTypeEnum methodType = MethodTypeEnum.ENTRY_POINT;
-        try {
-            System.out.println("[EntryPoint] Starting trace: " +
-                method.getDeclaringClass().getSimpleName() + "." + method.getName());
-
-            result = callable.call();
-
-        } catch (Throwable t) {
-            error = t;
-            methodType = MethodTypeEnum.ERROR;
-            throw t;
-        } finally {
-            long duration = System.currentTimeMillis() - startTime;
-            String stackTrace = error != null ? getStackTraceString(error) : null;
-
-            TraceEntry entry = new TraceEntry(
-                rootId,
-                null,
-                sessionId,
-                method.getDeclaringClass().getName(),
-                method.getName(),
-                method.getReturnType().getSimpleName(),
-                parameterTypes,
-                startTime,
-                duration,
-                false,
-                error != null,
-                error != null ? error.getClass().getSimpleName() : null,
-                error != null ? error.getMessage() : null,
-                stackTrace,
-                methodType
-            );
-
-            TraceContext.addEntry(entry);
+        // Requests from another traced JVM link the session to the calling entry
+        TracePropagation.linkInbound(sessionId);
+
+        System.out.println("[EntryPoint] Starting trace: " +
+            simpleClassName(method.getClassName()) + "." + method.getMethodName());
+
+        long nanos = System.nanoTime();
+        TraceFrame frame = new TraceFrame(method, rootId, null, sessionId,
+            System.currentTimeMillis(), nanos, nanos, null, RecordModeEnum.RECORDED);
+        TraceContext.setCurrentFrame(frame);
+        if (StackSampler.isEnabled()) {
+            StackSampler.begin(sessionId, rootId, method);
+        }
+        FlightEvents.beginSession(frame);
+        TraceFlowInterceptor.startResources(frame);
+        return frame;
+    }
+
+    /**
+     * Record the root entry and flush the session
+     * @param frame Frame of the root call
+     * @param result Return value (only passed when values are captured)
+     * @param error Exception thrown by the entry point or null
+     */
+    public static void onExit(TraceFrame frame, Object result, Throwable error) {
+        if (frame == null) {
+            return;
+        }
+
+        // Call not traced by the overhead governor: entry point metrics only
+        if (frame.getSessionId() == null) {
+            TraceContext.endSkippedSession(frame);
+            TraceFlowMetrics.recordEntryPoint(frame.getMethod(), System.nanoTime() - frame.getStartNanos(), error != null);
+            return;
+        }
+
+        // Nested entry point: recorded as a child of the active session
+        if (frame.getParentId() != null) {
+            TraceFlowInterceptor.onExit(frame, result, error);
+            return;
+        }
+
+        // Suspend entry point returning at a suspension point: the session stays open
+        if (error == null && frame.getMethod().isSuspend() && CoroutineTracer.suspend(frame, result)) {
+            TraceContext.addEntries(StackSampler.end());
             TraceContext.popCall();
-            TraceContext.disableTracing();
-            TraceContext.flush();
+            TraceContext.detachThread();
+            return;
+        }
+        finishRoot(frame, result, error, false);
+    }
 
-            System.out.println("[EntryPoint] Trace completed: " + duration + "ms");
+    /**
+     * Finish a later segment of a suspended entry point, run after its coroutine resumed
+     * @param frame Frame of the resumed call
+     * @param result Method result or COROUTINE_SUSPENDED
+     * @param error Exception thrown by the method or null
+     */
+    public static void onResumedExit(TraceFrame frame, Object result, Throwable error) {
+        if (frame.getParentId() != null) {
+            TraceFlowInterceptor.onResumedExit(frame, result, error);
+            return;
         }
 
-        return result;
+        if (!CoroutineTracer.finish(frame, result, error)) {
+            TraceContext.popCall();
+            TraceContext.detachThread();
+            return;
+        }
+        finishRoot(frame, result, error, true);
     }
 
     /**
-     * Convert exception stack trace to string (top N lines only)
-     * @param throwable Exception to extract stack trace from
-     * @return Stack trace as string (limited to first {@value #MAX_ERROR_STACKTRACE_LINES} lines)
+     * Record the root entry and flush the session
+     * @param resumed true if the root call suspended and completed on a resumed segment
      */
-    private static String getStackTraceString(Throwable throwable) {
-        if (throwable == null) return null;
+    private static void finishRoot(TraceFrame frame, Object result, Throwable error, boolean resumed) {
+        long endNanos = System.nanoTime();
+        // Thread resources are not comparable across the threads a suspended call ran on
+        ResourceUsage resources = resumed ? null : TraceFlowInterceptor.finishResources(frame, endNanos);
+        MethodInfo method = frame.getMethod();
+        TraceFlowMetrics.recordEntryPoint(method, endNanos - frame.getStartNanos(), error != null);
+        long duration = System.currentTimeMillis() - frame.getStartTime();
+        MethodTypeEnum methodType = error != null ? MethodTypeEnum.ERROR : MethodTypeEnum.ENTRY_POINT;
+        String errorOriginId = error != null ? TraceContext.claimError(frame.getSessionId(), error, frame.getId()) : null;
+        String stackTrace = error != null && errorOriginId == null ? TraceFlowInterceptor.getStackTraceString(error) : null;
 
-        StackTraceElement[] elements = throwable.getStackTrace();
-        int limit = Math.min(MAX_ERROR_STACKTRACE_LINES, elements.length);
+        TraceEntry entry = TraceEntry.builder()
+            .id(frame.getId())
+            .sessionId(frame.getSessionId())
+            .method(method)
+            .startTime(frame.getStartTime())
+            .duration(duration)
+            .error(error)
+            .stackTrace(stackTrace)
+            .methodType(methodType)
+            .arguments(frame.getArguments())
+            .returnValue(TraceFlowInterceptor.captureReturn(frame, result, error))
+            .resources(resources)
+            .errorOriginId(errorOriginId)
+            .build();
 
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < limit; i++) {
-            sb.append(elements[i].toString());
-            if (i < limit - 1) sb.append("\n");
+        // Calls below the entry point in sampling mode (sampled on the starting thread only)
+        if (!resumed) {
+            TraceContext.addEntries(StackSampler.end());
         }
+        SessionLimits.release(frame);
+        TraceContext.addEntry(entry);
+        FlightEvents.commit(frame, methodType, false, error);
+        TraceContext.popCall();
+        TraceContext.disableTracing();
+        long flushNanos = System.nanoTime();
+        TraceContext.flush();
+        TraceFlowMetrics.recordSession(endNanos - frame.getStartNanos(), System.nanoTime() - flushNanos);
+
+        System.out.println("[EntryPoint] Trace completed: " + duration + "ms");
+    }
+
+    /**
+     * Frame of an entry point call that is timed but not traced
+     */
+    private static TraceFrame hiddenFrame(MethodInfo method) {
+        long nanos = System.nanoTime();
+        return new TraceFrame(method, null, null, null,
+            System.currentTimeMillis(), nanos, nanos, null, RecordModeEnum.HIDDEN);
+    }
 
-        return sb.toString();
+    private static String simpleClassName(String className) {
+        return className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package io.github.jth00.traceflow.interceptor;
+
+import io.github.jth00.traceflow.jdbc.JdbcTracer;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+
+/**
+ * Advice recording JDBC statements executed by traced threads
+ *
+ * Inlined into JDBC driver and connection pool classes; every hook returns
+ * immediately unless tracing is enabled on the thread.
+ */
+public class JdbcInterceptor {
+
+    /**
+     * Execute method of a prepared statement (SQL given at prepare time)
+     */
+    public static class Execute {
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        public static long enter() {
+            return JdbcTracer.enter();
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+        public static void exit(@Advice.Enter long startNanos,
+                                @Advice.This Object statement,
+                                @Advice.Origin("#m") String method,
+                                @Advice.Origin("#r") String returnType,
+                                @Advice.Return(typing = Assigner.Typing.DYNAMIC) Object returned,
+                                @Advice.Thrown Throwable thrown) {
+            JdbcTracer.exit(startNanos, statement, method, returnType, null, returned, thrown);
+        }
+    }
+
+    /**
+     * Execute method taking the SQL text as first argument
+     */
+    public static class ExecuteSql {
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        public static long enter() {
+            return JdbcTracer.enter();
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+        public static void exit(@Advice.Enter long startNanos,
+                                @Advice.This Object statement,
+                                @Advice.Origin("#m") String method,
+                                @Advice.Origin("#r") String returnType,
+                                @Advice.Argument(0) String sql,
+                                @Advice.Return(typing = Assigner.Typing.DYNAMIC) Object returned,
+                                @Advice.Thrown Throwable thrown) {
+            JdbcTracer.exit(startNanos, statement, method, returnType, sql, returned, thrown);
+        }
+    }
+
+    /**
+     * Connection prepareStatement/prepareCall, remembering the SQL of the statement
+     */
+    public static class Prepare {
+
+        @Advice.OnMethodExit(suppress = Throwable.class)
+        public static void exit(@Advice.Argument(0) String sql,
+                                @Advice.Return(typing = Assigner.Typing.DYNAMIC) Object statement) {
+            JdbcTracer.prepared(statement, sql);
+        }
+    }
+
+    /**
+     * ResultSet next, counting the rows read from a query
+     */
+    public static class Next {
+
+        @Advice.OnMethodExit(suppress = Throwable.class)
+        public static void exit(@Advice.This Object resultSet,
+                                @Advice.Return boolean hasRow) {
+            JdbcTracer.next(resultSet, hasRow);
+        }
+    }
+
+    /**
+     * Statement or ResultSet close
+     */
+    public static class Close {
+
+        @Advice.OnMethodExit(suppress = Throwable.class)
+        public static void exit(@Advice.This Object closed) {
+            JdbcTracer.closed(closed);
+        }
+    }
+}
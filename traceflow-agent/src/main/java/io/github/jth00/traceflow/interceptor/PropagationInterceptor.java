@@ -0,0 +1,72 @@
+package io.github.jth00.traceflow.interceptor;
+
+import io.github.jth00.traceflow.propagation.ContextBridge;
+import net.bytebuddy.asm.Advice;
+
+import java.net.HttpURLConnection;
+import java.net.http.HttpRequest;
+
+/**
+ * Advice propagating the trace context over HTTP
+ *
+ * Inlined into JDK and servlet container classes, so it only refers to
+ * {@link ContextBridge}, which is injected into the bootstrap class loader.
+ */
+public class PropagationInterceptor {
+
+    /**
+     * Outbound: adds the context header before an HttpURLConnection connects
+     * Applied to connect, getInputStream and getOutputStream
+     */
+    public static class UrlConnection {
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        public static void enter(@Advice.This HttpURLConnection connection,
+                                 @Advice.FieldValue("connected") boolean connected) {
+            if (!connected && connection.getRequestProperty(ContextBridge.HEADER) == null) {
+                String header = ContextBridge.outboundHeader();
+                if (header != null) {
+                    connection.setRequestProperty(ContextBridge.HEADER, header);
+                }
+            }
+        }
+    }
+
+    /**
+     * Outbound: sends a copy of the HttpRequest with the context header
+     * Applied to HttpClient sendAsync, which send also delegates to
+     */
+    public static class HttpClientSend {
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        public static void enter(@Advice.Argument(value = 0, readOnly = false) HttpRequest request) {
+            if (request != null && request.headers().firstValue(ContextBridge.HEADER).isEmpty()) {
+                String header = ContextBridge.outboundHeader();
+                if (header != null) {
+                    request = HttpRequest.newBuilder(request, ContextBridge.ALL_HEADERS)
+                        .header(ContextBridge.HEADER, header)
+                        .build();
+                }
+            }
+        }
+    }
+
+    /**
+     * Inbound: exposes the context header of a servlet request to entry points on the same thread
+     * Applied to HttpServlet.service(ServletRequest, ServletResponse)
+     */
+    public static class Servlet {
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        public static boolean enter(@Advice.Argument(0) Object request) {
+            return ContextBridge.enterInbound(request);
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+        public static void exit(@Advice.Enter boolean entered) {
+            if (entered) {
+                ContextBridge.exitInbound();
+            }
+        }
+    }
+}
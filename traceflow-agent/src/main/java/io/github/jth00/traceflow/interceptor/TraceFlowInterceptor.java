@@ -1,23 +1,32 @@
 
 package io.github.jth00.traceflow.interceptor;
 
+import io.github.jth00.traceflow.adaptive.AdaptiveInstrumentation;
+import io.github.jth00.traceflow.capture.CapturedValue;
+import io.github.jth00.traceflow.capture.ValueCapture;
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.context.SessionLimits;
 import io.github.jth00.traceflow.context.TraceContext;
+import io.github.jth00.traceflow.coroutine.CoroutineTracer;
+import io.github.jth00.traceflow.jfr.FlightEvents;
+import io.github.jth00.traceflow.metrics.ThreadResources;
+import io.github.jth00.traceflow.metrics.TraceFlowMetrics;
 import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.enums.RecordModeEnum;
+import io.github.jth00.traceflow.registry.MethodRegistry;
+import io.github.jth00.traceflow.vo.MethodInfo;
+import io.github.jth00.traceflow.vo.ResourceUsage;
 import io.github.jth00.traceflow.vo.TraceEntry;
-import net.bytebuddy.implementation.bind.annotation.*;
+import io.github.jth00.traceflow.vo.TraceFrame;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
 
-import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-import java.util.stream.Collectors;
 
 /**
- * Interceptor for all traced methods
+ * Advice for all traced methods
  * Only active when TraceContext is enabled
  */
 public class TraceFlowInterceptor {
@@ -25,145 +34,354 @@ public class TraceFlowInterceptor {
     /** Maximum number of stack trace lines to capture when an error occurs */
     private static final int MAX_ERROR_STACKTRACE_LINES = 5;
 
-    // Object default methods
-    private static final Set<String> OBJECT_METHODS = Set.of(
-        "toString", "hashCode", "equals", "getClass"
-    );
+    // -------------------- Advice --------------------
 
-    // Lombok / Builder related methods
-    private static final Set<String> LOMBOK_METHODS = Set.of(
-        "builder", "build"
-    );
+    /**
+     * Inlined at method entry
+     * @param signature Constant signature of the instrumented method
+     * @return Frame of the traced call or null if the call is not traced
+     */
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static TraceFrame enter(@Advice.Origin(MethodRegistry.SIGNATURE_PATTERN) String signature) {
+        return onEnter(signature);
+    }
+
+    /**
+     * Inlined at method exit (normal or exceptional)
+     * @param frame Frame returned by {@link #enter(String)}
+     * @param returned Return value, replaced when the method returns a CompletionStage
+     * @param thrown Exception thrown by the method or null
+     */
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void exit(@Advice.Enter TraceFrame frame,
+                            @Advice.Return(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object returned,
+                            @Advice.Thrown Throwable thrown) {
+        if (frame != null) {
+            returned = onExit(frame, returned, thrown);
+        }
+    }
+
+    /**
+     * Advice for methods whose parameter and return values are captured
+     * Applied instead of the default advice when capture is enabled for a method
+     */
+    public static class Capturing {
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        public static TraceFrame enter(@Advice.Origin(MethodRegistry.SIGNATURE_PATTERN) String signature,
+                                       @Advice.AllArguments Object[] arguments) {
+            TraceFrame frame = onEnter(signature);
+            if (frame != null && frame.isRecorded()) {
+                frame.setArguments(ValueCapture.snapshotAll(arguments));
+            }
+            return frame;
+        }
 
-    // Lambda / Async related prefixes
-    private static final String LAMBDA_PREFIX = "lambda$";
-    private static final String ACCESSOR_PREFIX = "access$";
+        @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+        public static void exit(@Advice.Enter TraceFrame frame,
+                                @Advice.Return(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object returned,
+                                @Advice.Thrown Throwable thrown) {
+            if (frame != null) {
+                returned = onExit(frame, returned, thrown);
+            }
+        }
+    }
 
-    // Auxiliary / Proxy / CGLIB class identifiers
-    private static final List<String> EXCLUDED_CLASS_PATTERNS = List.of(
-        "$auxiliary$", "$$", "$Builder", "CGLIB", "Logger", "Log4j", "Slf4j"
-    );
+    /**
+     * Advice for Kotlin suspend functions, which run in segments when they suspend
+     * Applied instead of the default advice when coroutine support is enabled; the last
+     * argument tells a resumed call from a new one. Values are not captured.
+     */
+    public static class Suspending {
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        public static TraceFrame enter(@Advice.Origin(MethodRegistry.SIGNATURE_PATTERN) String signature,
+                                       @Advice.AllArguments Object[] arguments,
+                                       @Advice.Local("resumed") boolean resumed) {
+            Object continuation = arguments[arguments.length - 1];
+            TraceFrame frame = CoroutineTracer.resumeCall(continuation);
+            resumed = frame != null;
+            if (frame == null) {
+                frame = onEnter(signature);
+                if (frame != null) {
+                    frame.setCompletion(continuation);
+                }
+            }
+            return frame;
+        }
 
-    private static final Set<String> ASYNC_METHOD_NAMES = Set.of(
-        "call", "run"
-    );
+        @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+        public static void exit(@Advice.Enter TraceFrame frame,
+                                @Advice.Local("resumed") boolean resumed,
+                                @Advice.Return(typing = Assigner.Typing.DYNAMIC) Object returned,
+                                @Advice.Thrown Throwable thrown) {
+            if (frame == null) {
+                return;
+            }
+            if (resumed) {
+                onResumedExit(frame, returned, thrown);
+            } else {
+                onExit(frame, returned, thrown);
+            }
+        }
+    }
 
     // -------------------- Intercept --------------------
 
     /**
-     * Intercept method execution for tracing
-     * @param method Original method being intercepted
-     * @param callable Callable to invoke original method
-     * @return Original method result
-     * @throws Exception Any exception from original method
+     * Begin tracing a method call
+     * Only active when TraceContext is enabled for the current thread
+     * @param signature Signature of the instrumented method
+     * @return Frame of the traced call or null if the call is not traced
      */
-    @RuntimeType
-    public static Object intercept(@Origin Method method,
-                                   @SuperCall Callable<?> callable) throws Exception {
-
+    public static TraceFrame onEnter(String signature) {
         if (!TraceContext.isTracingEnabled()) {
-            return callable.call();
+            return null;
         }
 
-        if (shouldSkipMethod(method)) {
-            return callable.call();
-        }
+        // Skip rules are applied by the agent's method matchers, so every call reaching here is traced
+        MethodInfo method = MethodRegistry.resolve(signature);
 
         String parentId = TraceContext.peekCall();
-        String currentId = UUID.randomUUID().toString();
-        String sessionId = TraceContext.getSessionId();
-
         if (parentId == null) {
-            return callable.call();
+            return null;
         }
 
-        List<String> parameterTypes = Arrays.stream(method.getParameterTypes())
-            .map(Class::getSimpleName)
-            .collect(Collectors.toList());
+        long enterNanos = System.nanoTime();
+        long startTime = System.currentTimeMillis();
+        TraceFrame parentFrame = TraceContext.getCurrentFrame();
+        RecordModeEnum mode = SessionLimits.admit(parentFrame, method, startTime);
 
+        // Calls that are not recorded keep the parent ID on the stack for their descendants
+        String currentId = mode == RecordModeEnum.RECORDED ? UUID.randomUUID().toString() : parentId;
         TraceContext.pushCall(currentId);
 
-        long startTime = System.currentTimeMillis();
-        Object result = null;
-        Throwable error = null;
+        TraceFrame frame = new TraceFrame(method, currentId, parentId, TraceContext.getSessionId(),
+            startTime, enterNanos, System.nanoTime(), parentFrame, mode);
+        TraceContext.setCurrentFrame(frame);
+        if (mode == RecordModeEnum.RECORDED) {
+            startResources(frame);
+            FlightEvents.beginCall(frame);
+        } else if (mode == RecordModeEnum.FOLDED) {
+            startResources(frame);
+        }
+        return frame;
+    }
+
+    /**
+     * Finish tracing a method call and record its entry
+     * @param frame Frame of the traced call
+     * @param result Original method result
+     * @param error Exception thrown by the method or null
+     * @return Result to return to the caller (wrapped for async methods)
+     */
+    public static Object onExit(TraceFrame frame, Object result, Throwable error) {
+        long endNanos = System.nanoTime();
+        ResourceUsage resources = finishResources(frame, endNanos);
+
+        if (!frame.isRecorded()) {
+            SessionLimits.skip(frame, endNanos - frame.getStartNanos(), error != null, resources);
+            TraceContext.popCall();
+            finishFrame(frame, endNanos, false);
+            return result;
+        }
+
+        MethodInfo method = frame.getMethod();
+        long startTime = frame.getStartTime();
         boolean isAsync = false;
 
         try {
-            result = callable.call();
+            // Suspend function returning at a suspension point: recorded when the call completes
+            if (error == null && method.isSuspend() && CoroutineTracer.suspend(frame, result)) {
+                isAsync = true;
+                TraceContext.beginAsync(frame.getSessionId());
+                FlightEvents.commit(frame, classifyMethod(method, false), true, null);
+                return result;
+            }
+
+            // Folded runs and truncation summaries of direct children
+            SessionLimits.release(frame);
 
             // Handle async methods (CompletableFuture)
-            if (result instanceof CompletionStage) {
-                isAsync = true;
+            if (error == null && result instanceof CompletionStage) {
                 CompletableFuture<?> future = result instanceof CompletableFuture ?
                     (CompletableFuture<?>) result : ((CompletionStage<?>) result).toCompletableFuture();
 
-                final String capturedSessionId = sessionId;
-                final String capturedParentId = parentId;
-                final List<String> capturedParamTypes = parameterTypes;
-
-                result = future.whenComplete((r, t) -> {
-                    if (TraceContext.isTracingEnabledForSession(capturedSessionId)) {
-                        long duration = System.currentTimeMillis() - startTime;
-                        MethodTypeEnum methodType = classifyMethod(method, t != null);
-                        String stackTrace = t != null ? getStackTraceString(t) : null;
-
-                        TraceEntry asyncEntry = new TraceEntry(
-                            currentId,
-                            capturedParentId,
-                            capturedSessionId,
-                            method.getDeclaringClass().getName(),
-                            method.getName(),
-                            method.getReturnType().getSimpleName(),
-                            capturedParamTypes,
-                            startTime,
-                            duration,
-                            true,  // async
-                            t != null,
-                            t != null ? t.getClass().getSimpleName() : null,
-                            t != null ? t.getMessage() : null,
-                            stackTrace,
-                            methodType
-                        );
-
-                        TraceContext.addEntryToSession(capturedSessionId, asyncEntry);
-                    }
-                });
-            }
+                isAsync = true;
+                TraceContext.beginAsync(frame.getSessionId());
+                FlightEvents.commit(frame, classifyMethod(method, false), true, null);
 
-        } catch (Throwable t) {
-            error = t;
-            throw t;
-        } finally {
-            if (!isAsync) {
-                long duration = System.currentTimeMillis() - startTime;
-                MethodTypeEnum methodType = classifyMethod(method, error != null);
-                String stackTrace = error != null ? getStackTraceString(error) : null;
-
-                TraceEntry entry = new TraceEntry(
-                    currentId,
-                    parentId,
-                    sessionId,
-                    method.getDeclaringClass().getName(),
-                    method.getName(),
-                    method.getReturnType().getSimpleName(),
-                    parameterTypes,
-                    startTime,
-                    duration,
-                    false,  // sync
-                    error != null,
-                    error != null ? error.getClass().getSimpleName() : null,
-                    error != null ? error.getMessage() : null,
-                    stackTrace,
-                    methodType
-                );
-
-                TraceContext.addEntry(entry);
+                // Resources measured until the future was returned
+                return future.whenComplete((r, t) -> recordAsync(frame, resources, r, t));
             }
 
+            long duration = System.currentTimeMillis() - startTime;
+            MethodTypeEnum methodType = classifyMethod(method, error != null);
+            // Frames an exception propagates through reference the entry of the frame that threw it
+            String errorOriginId = error != null ? TraceContext.claimError(frame.getSessionId(), error, frame.getId()) : null;
+            String stackTrace = error != null && errorOriginId == null ? getStackTraceString(error) : null;
+
+            TraceEntry entry = TraceEntry.builder()
+                .id(frame.getId())
+                .parentId(frame.getParentId())
+                .sessionId(frame.getSessionId())
+                .method(method)
+                .startTime(startTime)
+                .duration(duration)
+                .error(error)
+                .stackTrace(stackTrace)
+                .methodType(methodType)
+                .arguments(frame.getArguments())
+                .returnValue(captureReturn(frame, result, error))
+                .resources(resources)
+                .errorOriginId(errorOriginId)
+                .build();
+
+            SessionLimits.record(frame, entry, endNanos - frame.getStartNanos());
+            FlightEvents.commit(frame, methodType, false, error);
+            return result;
+        } finally {
             TraceContext.popCall();
+            finishFrame(frame, endNanos, isAsync);
+        }
+    }
+
+    /**
+     * Finish a later segment of a suspend call, run after its coroutine resumed
+     * The call is recorded once it returns its result instead of suspending again.
+     * @param frame Frame of the resumed call
+     * @param result Method result or COROUTINE_SUSPENDED
+     * @param error Exception thrown by the method or null
+     */
+    public static void onResumedExit(TraceFrame frame, Object result, Throwable error) {
+        TraceContext.popCall();
+        TraceContext.setCurrentFrame(null);
+        if (CoroutineTracer.finish(frame, result, error) && frame.isRecorded()) {
+            completeSuspended(frame, result, error);
+        }
+    }
+
+    /**
+     * Record a suspend call that completed after suspending
+     * Called on the thread running its last segment, attached to the call's session.
+     * @param frame Frame of the suspend call
+     * @param result Method result
+     * @param error Exception thrown by the method or null
+     */
+    public static void completeSuspended(TraceFrame frame, Object result, Throwable error) {
+        SessionLimits.release(frame);
+        // Thread resources are not comparable across the threads the call ran on
+        recordAsync(frame, null, result, error);
+    }
+
+    /**
+     * Record the entry of an async call when its result is available
+     * If the session was flushed meanwhile, the stored session is updated with the entry.
+     * @param frame Frame of the async call
+     * @param resources Resource usage until the call returned, or null
+     * @param result Async result
+     * @param error Exception the call completed with or null
+     */
+    private static void recordAsync(TraceFrame frame, ResourceUsage resources, Object result, Throwable error) {
+        String sessionId = frame.getSessionId();
+        if (!TraceContext.isSessionRetained(sessionId)) {
+            return;
+        }
+        MethodInfo method = frame.getMethod();
+        long duration = System.currentTimeMillis() - frame.getStartTime();
+        MethodTypeEnum methodType = classifyMethod(method, error != null);
+        String errorOriginId = error != null ? TraceContext.claimError(sessionId, error, frame.getId()) : null;
+        String stackTrace = error != null && errorOriginId == null ? getStackTraceString(error) : null;
+
+        CapturedValue asyncReturn = captureReturn(frame, result, error);
+
+        TraceEntry asyncEntry = TraceEntry.builder()
+            .id(frame.getId())
+            .parentId(frame.getParentId())
+            .sessionId(sessionId)
+            .method(method)
+            .startTime(frame.getStartTime())
+            .duration(duration)
+            .async(true)
+            .error(error)
+            .stackTrace(stackTrace)
+            .methodType(methodType)
+            .arguments(frame.getArguments())
+            .returnValue(asyncReturn)
+            .resources(resources)
+            .errorOriginId(errorOriginId)
+            .build();
+
+        // Captured values are rendered when the session is flushed or updated with this entry
+        TraceContext.completeAsync(sessionId, asyncEntry);
+    }
+
+    /**
+     * Restore the parent frame and account self time
+     * The parent is charged with the full time including recording overhead,
+     * so only the method body itself counts as self time.
+     * @param frame Finished frame
+     * @param endNanos Time the method body returned
+     * @param isAsync true if the method returned a CompletionStage or suspended
+     */
+    private static void finishFrame(TraceFrame frame, long endNanos, boolean isAsync) {
+        TraceFrame parent = frame.getParent();
+
+        TraceContext.setCurrentFrame(parent);
+
+        // Async methods only report the time to create the future
+        if (!isAsync) {
+            long selfNanos = endNanos - frame.getStartNanos() - frame.getChildNanos();
+            AdaptiveInstrumentation.record(frame.getMethod(), selfNanos);
+        }
+
+        long now = System.nanoTime();
+        if (parent != null) {
+            parent.addChildNanos(now - frame.getEnterNanos());
+        }
+
+        // Enter overhead (before the body started) and exit overhead (after it returned)
+        TraceFlowMetrics.recordOverhead((frame.getStartNanos() - frame.getEnterNanos()) + (now - endNanos));
+    }
+
+    /**
+     * Record thread CPU time and allocated bytes at body start if resources are measured
+     * @param frame Frame of the traced call
+     */
+    static void startResources(TraceFrame frame) {
+        if (TraceFlowConfig.current().isMeasureResources() && ThreadResources.isAvailable()) {
+            frame.setResourceStart(ThreadResources.cpuNanos(), ThreadResources.allocatedBytes());
+        }
+    }
+
+    /**
+     * Measure CPU time and allocation of the method body on the calling thread
+     * @param frame Frame of the traced call
+     * @param endNanos Time the method body returned
+     * @return Resource usage or null if the call was not measured
+     */
+    static ResourceUsage finishResources(TraceFrame frame, long endNanos) {
+        if (!frame.isResourceMeasured()) {
+            return null;
         }
+        return new ResourceUsage(
+            ThreadResources.allocatedBytes() - frame.getStartAllocatedBytes(),
+            ThreadResources.cpuNanos() - frame.getStartCpuNanos(),
+            endNanos - frame.getStartNanos());
+    }
 
-        return result;
+    /**
+     * Capture the return value of a captured method
+     * @param frame Frame of the traced call
+     * @param result Method result
+     * @param error Exception thrown by the method or null
+     * @return Captured value or null if the method is not captured, void, or failed
+     */
+    static CapturedValue captureReturn(TraceFrame frame, Object result, Throwable error) {
+        if (frame.getArguments() == null || error != null || "void".equals(frame.getMethod().getReturnType())) {
+            return null;
+        }
+        return ValueCapture.snapshot(result);
     }
 
     // -------------------- Method Classification --------------------
@@ -173,12 +391,12 @@ public class TraceFlowInterceptor {
      * @param method Method to classify
      * @return Method type enum
      */
-    private static MethodTypeEnum classifyMethod(Method method, boolean hasError) {
+    private static MethodTypeEnum classifyMethod(MethodInfo method, boolean hasError) {
         if (hasError) {
             return MethodTypeEnum.ERROR;
         }
 
-        String name = method.getName();
+        String name = method.getMethodName();
         int paramCount = method.getParameterCount();
 
         if (name.startsWith("get") && paramCount == 0) {
@@ -196,38 +414,13 @@ public class TraceFlowInterceptor {
         return MethodTypeEnum.BUSINESS;
     }
 
-    // -------------------- Method Exclusion Filter --------------------
-
-    /**
-     * Check if method should be skipped from tracing
-     * @param method Method to check
-     * @return true if method should be skipped
-     */
-    private static boolean shouldSkipMethod(Method method) {
-        String className = method.getDeclaringClass().getName();
-        String methodName = method.getName();
-
-        for (String pattern : EXCLUDED_CLASS_PATTERNS) {
-            if (className.contains(pattern)) return true;
-        }
-
-        if (methodName.startsWith(LAMBDA_PREFIX) || methodName.startsWith(ACCESSOR_PREFIX)) {
-            return true;
-        }
-
-        if (OBJECT_METHODS.contains(methodName) || LOMBOK_METHODS.contains(methodName) || ASYNC_METHOD_NAMES.contains(methodName)) {
-            return true;
-        }
-
-        return false;
-    }
-
     /**
      * Convert exception stack trace to string (top N lines only)
+     * Called once per exception and session, by the first frame recording it
      * @param throwable Exception to extract stack trace from
      * @return Stack trace as string (limited to first {@value #MAX_ERROR_STACKTRACE_LINES} lines)
      */
-    private static String getStackTraceString(Throwable throwable) {
+    static String getStackTraceString(Throwable throwable) {
         if (throwable == null) return null;
 
         StackTraceElement[] elements = throwable.getStackTrace();
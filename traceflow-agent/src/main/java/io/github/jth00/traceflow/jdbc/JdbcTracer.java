@@ -0,0 +1,376 @@
+package io.github.jth00.traceflow.jdbc;
+
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.context.TraceContext;
+import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.vo.SqlExecution;
+import io.github.jth00.traceflow.vo.SqlStatistic;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import io.github.jth00.traceflow.vo.TraceFrame;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Recording of JDBC statements executed inside traced calls
+ *
+ * Driver classes implementing Connection, Statement and ResultSet are instrumented when
+ * enabled, but do nothing unless tracing is enabled on the thread. Each execution is recorded
+ * as a synthetic {@link MethodTypeEnum#SQL} child of the traced call, with its normalized SQL,
+ * execution time and row count. Statements wrapped by a connection pool are recorded once,
+ * by the outermost (pool) statement.
+ */
+public class JdbcTracer {
+
+    /** Instrumented JDBC interfaces */
+    public static final String CONNECTION_TYPE = "java.sql.Connection";
+    public static final String STATEMENT_TYPE = "java.sql.Statement";
+    public static final String RESULT_SET_TYPE = "java.sql.ResultSet";
+
+    /** Implementations in these packages are never instrumented */
+    private static final List<String> EXCLUDED_PACKAGES = List.of(
+        "java.", "javax.", "jdk.", "sun.", "com.sun.", "net.bytebuddy.", "io.github.jth00.traceflow."
+    );
+
+    /** Longer SQL text is truncated */
+    public static final int MAX_SQL_LENGTH = 1000;
+
+    /** Statements and result sets tracked per thread before the oldest are forgotten */
+    private static final int MAX_TRACKED = 256;
+
+    /** SQL of a statement prepared outside the traced session */
+    private static final String UNKNOWN_SQL = "(prepared before tracing)";
+
+    // IN lists of any length are normalized to the same text
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN \\(\\?(?: ?, ?\\?)+\\)");
+
+    // Whether driver classes are instrumented
+    private static volatile boolean enabled = false;
+
+    // Statements and result sets of the current session on this thread
+    private static final ThreadLocal<State> states = ThreadLocal.withInitial(State::new);
+
+    /**
+     * Per-thread tracking of the current session
+     */
+    private static class State {
+        private String sessionId;
+        private boolean executing;
+        private final Map<Object, String> statements = new IdentityHashMap<>();
+        private final Map<Object, SqlExecution> resultSets = new IdentityHashMap<>();
+
+        private void reset(String sessionId) {
+            this.sessionId = sessionId;
+            statements.clear();
+            resultSets.clear();
+        }
+
+        private <V> void track(Map<Object, V> map, Object key, V value) {
+            if (map.size() >= MAX_TRACKED) {
+                map.clear();
+            }
+            map.put(key, value);
+        }
+    }
+
+    /**
+     * Enable instrumentation of JDBC driver classes
+     * Must be called before the transformer is installed.
+     */
+    public static void enable() {
+        enabled = true;
+        System.out.println("[TraceFlow JDBC] Statement tracing enabled (SQL truncated to " +
+            MAX_SQL_LENGTH + " characters)");
+    }
+
+    /**
+     * Check if JDBC driver classes are instrumented
+     * @return true if enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Name check done before the type hierarchy is resolved
+     * @param typeName Fully qualified class name
+     * @return true if the type may be an instrumented JDBC implementation
+     */
+    public static boolean isCandidateType(String typeName) {
+        if (!enabled) {
+            return false;
+        }
+        for (String prefix : EXCLUDED_PACKAGES) {
+            if (typeName.startsWith(prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ---- Advice Hooks ----
+
+    /**
+     * Start of a statement execution
+     * @return Start time or -1 if the execution is not recorded
+     */
+    public static long enter() {
+        if (!TraceContext.isTracingEnabled()) {
+            return -1;
+        }
+        State state = current();
+        if (state == null || state.executing) {
+            return -1;
+        }
+        state.executing = true;
+        return System.nanoTime();
+    }
+
+    /**
+     * End of a statement execution
+     * @param startNanos Value returned by {@link #enter()}
+     * @param statement Executed statement
+     * @param method Execute method
+     * @param returnType Return type of the execute method
+     * @param sql SQL passed to the method, or null for a prepared statement
+     * @param returned Update count(s), result set or null
+     * @param thrown Exception thrown by the driver or null
+     */
+    public static void exit(long startNanos, Object statement, String method, String returnType,
+                            String sql, Object returned, Throwable thrown) {
+        if (startNanos < 0) {
+            return;
+        }
+        long endNanos = System.nanoTime();
+        State state = states.get();
+        try {
+            record(state, statement, method, returnType, sql, returned, thrown, endNanos - startNanos);
+        } finally {
+            state.executing = false;
+        }
+    }
+
+    /**
+     * Remember the SQL of a statement prepared inside a traced call
+     * @param statement Prepared statement
+     * @param sql SQL passed to prepareStatement/prepareCall
+     */
+    public static void prepared(Object statement, String sql) {
+        if (statement == null || sql == null || !TraceContext.isTracingEnabled()) {
+            return;
+        }
+        State state = current();
+        if (state != null) {
+            state.track(state.statements, statement, normalize(sql));
+        }
+    }
+
+    /**
+     * Count a row read from a query result
+     * @param resultSet Result set
+     * @param hasRow Value returned by next()
+     */
+    public static void next(Object resultSet, boolean hasRow) {
+        if (!hasRow || !TraceContext.isTracingEnabled()) {
+            return;
+        }
+        State state = current();
+        SqlExecution execution = state != null ? state.resultSets.get(resultSet) : null;
+        if (execution != null) {
+            execution.addRow();
+        }
+    }
+
+    /**
+     * Forget a closed statement or result set
+     * @param closed Statement or result set
+     */
+    public static void closed(Object closed) {
+        if (!TraceContext.isTracingEnabled()) {
+            return;
+        }
+        State state = current();
+        if (state != null) {
+            state.statements.remove(closed);
+            state.resultSets.remove(closed);
+        }
+    }
+
+    // ---- Recording ----
+
+    private static State current() {
+        String sessionId = TraceContext.getSessionId();
+        if (sessionId == null) {
+            return null;
+        }
+        State state = states.get();
+        if (!sessionId.equals(state.sessionId)) {
+            state.reset(sessionId);
+        }
+        return state;
+    }
+
+    private static void record(State state, Object statement, String method, String returnType,
+                               String sql, Object returned, Throwable thrown, long nanos) {
+        String parentId = TraceContext.peekCall();
+        String sessionId = TraceContext.getSessionId();
+        if (parentId == null || sessionId == null) {
+            return;
+        }
+
+        // Statistics include executions inside folded or truncated calls
+        String text = sql != null ? normalize(sql) : state.statements.getOrDefault(statement, UNKNOWN_SQL);
+        boolean query = returned instanceof ResultSet;
+        // Failed executions return the default value of the method
+        long rows = thrown != null ? -1 : query ? 0 : rowCount(returned);
+        SqlStatistic statistic = SqlStatistics.record(text, nanos, thrown != null, Math.max(rows, 0), sessionId);
+        SqlExecution execution = new SqlExecution(text, rows, statistic);
+        if (query) {
+            state.track(state.resultSets, returned, execution);
+        }
+
+        TraceFrame frame = TraceContext.getCurrentFrame();
+        if (frame != null && !frame.isRecorded()) {
+            return;
+        }
+        long duration = nanos / 1_000_000;
+        long startTime = System.currentTimeMillis() - duration;
+        if (!TraceContext.admitEntry()) {
+            if (frame != null) {
+                frame.truncated("[entry limit " + TraceFlowConfig.current().getMaxSessionEntries() + "]", startTime)
+                    .add(nanos, thrown != null, null);
+            }
+            return;
+        }
+
+        TraceContext.addEntry(TraceEntry.builder()
+            .id(UUID.randomUUID().toString())
+            .parentId(parentId)
+            .sessionId(sessionId)
+            .className(statementType(statement))
+            .methodName(method)
+            .returnType(displayType(returnType))
+            .parameterTypes(sql != null ? List.of(String.class.getName()) : List.of())
+            .startTime(startTime)
+            .duration(duration)
+            .error(thrown)
+            .methodType(MethodTypeEnum.SQL)
+            .sql(execution)
+            .build());
+    }
+
+    /**
+     * JDBC interface shown for a driver statement
+     */
+    private static String statementType(Object statement) {
+        if (statement instanceof CallableStatement) return CallableStatement.class.getName();
+        if (statement instanceof PreparedStatement) return PreparedStatement.class.getName();
+        return STATEMENT_TYPE;
+    }
+
+    /**
+     * Source name of an array return type (executeBatch returns int[], shown as [I)
+     */
+    private static String displayType(String returnType) {
+        if (returnType.equals("[I")) return "int[]";
+        if (returnType.equals("[J")) return "long[]";
+        return returnType;
+    }
+
+    /**
+     * Rows affected by an update or a batch
+     * @param returned Value returned by the execute method
+     * @return Row count or -1 if unknown
+     */
+    private static long rowCount(Object returned) {
+        if (returned instanceof Integer || returned instanceof Long) {
+            return ((Number) returned).longValue();
+        }
+        long total = 0;
+        if (returned instanceof int[]) {
+            for (int count : (int[]) returned) {
+                if (count < 0) return -1;  // SUCCESS_NO_INFO or EXECUTE_FAILED
+                total += count;
+            }
+            return total;
+        }
+        if (returned instanceof long[]) {
+            for (long count : (long[]) returned) {
+                if (count < 0) return -1;
+                total += count;
+            }
+            return total;
+        }
+        return -1;
+    }
+
+    /**
+     * Normalize SQL text for display and grouping
+     * String and number literals become ?, comments are removed, whitespace is collapsed,
+     * IN lists are shortened and the result is truncated to {@value #MAX_SQL_LENGTH} characters.
+     * @param sql SQL text
+     * @return Normalized SQL
+     */
+    public static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(Math.min(sql.length(), MAX_SQL_LENGTH) + 8);
+        int length = sql.length();
+        boolean space = false;
+
+        for (int i = 0; i < length && out.length() <= MAX_SQL_LENGTH; i++) {
+            char c = sql.charAt(i);
+            char next = i + 1 < length ? sql.charAt(i + 1) : 0;
+
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (c == '-' && next == '-') {
+                while (i < length && sql.charAt(i) != '\n') i++;
+                space = true;
+                continue;
+            }
+            if (c == '/' && next == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 1;
+                space = true;
+                continue;
+            }
+
+            if (space && out.length() > 0) {
+                out.append(' ');
+            }
+            space = false;
+
+            if (c == '\'') {
+                // '' inside a literal is an escaped quote
+                for (i++; i < length; i++) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 >= length || sql.charAt(i + 1) != '\'') break;
+                        i++;
+                    }
+                }
+                out.append('?');
+            } else if (Character.isDigit(c) && !endsWithIdentifier(out)) {
+                while (i + 1 < length && (Character.isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.')) i++;
+                out.append('?');
+            } else {
+                out.append(c);
+            }
+        }
+
+        String normalized = IN_LIST.matcher(out).replaceAll("IN (?, ...)");
+        return normalized.length() > MAX_SQL_LENGTH ? normalized.substring(0, MAX_SQL_LENGTH) + "..." : normalized;
+    }
+
+    private static boolean endsWithIdentifier(StringBuilder out) {
+        if (out.length() == 0) return false;
+        char last = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '$' || last == '"' || last == '`';
+    }
+}
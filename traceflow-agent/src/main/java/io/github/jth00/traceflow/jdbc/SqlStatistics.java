@@ -0,0 +1,68 @@
+package io.github.jth00.traceflow.jdbc;
+
+import io.github.jth00.traceflow.vo.SqlStatistic;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-statement statistics of SQL executed inside traced calls
+ *
+ * Executions are accumulated by normalized SQL text as they happen, including those
+ * not recorded as entries because of a session limit.
+ */
+public class SqlStatistics {
+
+    /** Maximum number of distinct statements kept */
+    private static final int MAX_STATEMENTS = 1000;
+
+    /** Maximum number of statements returned */
+    private static final int MAX_REPORTED = 100;
+
+    // Normalized SQL -> statistics
+    private static final Map<String, SqlStatistic> statements = new ConcurrentHashMap<>();
+
+    /**
+     * Add one execution of a statement
+     * @param sql Normalized SQL text
+     * @param nanos Execution time
+     * @param error true if the statement failed
+     * @param rows Updated rows, or 0 if unknown
+     * @param sessionId Session of the execution
+     * @return Statistics of the statement, or null if too many distinct statements are kept
+     */
+    public static SqlStatistic record(String sql, long nanos, boolean error, long rows, String sessionId) {
+        SqlStatistic statistic = statements.get(sql);
+        if (statistic == null) {
+            if (statements.size() >= MAX_STATEMENTS) {
+                return null;
+            }
+            statistic = statements.computeIfAbsent(sql, SqlStatistic::new);
+        }
+        statistic.add(nanos, error, rows, sessionId);
+        return statistic;
+    }
+
+    /**
+     * Get statement statistics, by cumulative execution time
+     * @return Statistics (at most {@value #MAX_REPORTED})
+     */
+    public static List<SqlStatistic> report() {
+        List<SqlStatistic> report = new ArrayList<>();
+        for (SqlStatistic statistic : statements.values()) {
+            report.add(statistic.copy());
+        }
+        report.sort(Comparator.comparingLong(SqlStatistic::getTotalNanos).reversed());
+        return report.size() > MAX_REPORTED ? new ArrayList<>(report.subList(0, MAX_REPORTED)) : report;
+    }
+
+    /**
+     * Clear accumulated statistics
+     */
+    public static void reset() {
+        statements.clear();
+    }
+}
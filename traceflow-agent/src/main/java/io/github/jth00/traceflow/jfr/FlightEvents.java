@@ -0,0 +1,83 @@
+package io.github.jth00.traceflow.jfr;
+
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.vo.MethodInfo;
+import io.github.jth00.traceflow.vo.TraceFrame;
+
+/**
+ * Emits TraceFlow sessions and calls as JDK Flight Recorder events
+ *
+ * Events are only created while a recording enables them, so without a recording
+ * a session costs one event allocation and a traced call nothing. Method call events
+ * additionally require jfrMethodEvents in the configuration.
+ */
+public class FlightEvents {
+    public static final String SESSION_EVENT = "io.github.jth00.traceflow.Session";
+    public static final String METHOD_CALL_EVENT = "io.github.jth00.traceflow.MethodCall";
+
+    /** Separator of parameter types in events */
+    static final String TYPE_SEPARATOR = ",";
+
+    /**
+     * Start the session event of an entry point call
+     * @param frame Frame of the root call
+     */
+    public static void beginSession(TraceFrame frame) {
+        SessionEvent event = new SessionEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            frame.setFlightEvent(event);
+        }
+    }
+
+    /**
+     * Start the event of a traced call if method call events are enabled
+     * @param frame Frame of the traced call
+     */
+    public static void beginCall(TraceFrame frame) {
+        if (!TraceFlowConfig.current().isJfrMethodEvents()) {
+            return;
+        }
+        MethodCallEvent event = new MethodCallEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            event.parentId = frame.getParentId();
+            frame.setFlightEvent(event);
+        }
+    }
+
+    /**
+     * End and commit the event of a finished call
+     * @param frame Frame of the call
+     * @param methodType Classification of the call
+     * @param async true if the call returned a CompletionStage
+     * @param error Exception thrown by the call or null
+     */
+    public static void commit(TraceFrame frame, MethodTypeEnum methodType, boolean async, Throwable error) {
+        TraceFlowEvent event = frame.getFlightEvent();
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+
+        MethodInfo method = frame.getMethod();
+        event.sessionId = frame.getSessionId();
+        event.entryId = frame.getId();
+        event.className = method.getClassName();
+        event.methodName = method.getMethodName();
+        event.returnType = method.getReturnType();
+        event.parameterTypes = String.join(TYPE_SEPARATOR, method.getParameterTypes());
+        event.methodType = methodType.name();
+        event.async = async;
+        event.error = error != null;
+        if (error != null) {
+            event.errorType = error.getClass().getSimpleName();
+            event.errorMessage = error.getMessage();
+        }
+        event.commit();
+    }
+}
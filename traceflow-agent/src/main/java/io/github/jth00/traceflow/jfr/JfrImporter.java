@@ -0,0 +1,101 @@
+package io.github.jth00.traceflow.jfr;
+
+import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.server.WebServerLauncher;
+import io.github.jth00.traceflow.store.TraceStore;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads TraceFlow events from a .jfr file back into TraceStore
+ *
+ * Session events become root entries and method call events their descendants.
+ * Can be run standalone to browse a recording in the web UI:
+ * java -cp traceflow-agent.jar io.github.jth00.traceflow.jfr.JfrImporter recording.jfr [port]
+ */
+public class JfrImporter {
+    private static final int DEFAULT_PORT = 8081;
+
+    /**
+     * Import all TraceFlow sessions of a recording
+     * @param file Recording file
+     * @return Number of imported sessions
+     * @throws IOException If the file cannot be read or is not a recording
+     */
+    public static int importFile(Path file) throws IOException {
+        Map<String, List<TraceEntry>> sessions = read(file);
+        sessions.values().forEach(TraceStore::addTraces);
+        System.out.println("[TraceFlow JFR] Imported " + sessions.size() + " sessions from " + file);
+        return sessions.size();
+    }
+
+    /**
+     * Read all TraceFlow sessions of a recording without storing them
+     * @param file Recording file
+     * @return Entries by session ID, in recording order
+     * @throws IOException If the file cannot be read or is not a recording
+     */
+    public static Map<String, List<TraceEntry>> read(Path file) throws IOException {
+        Map<String, List<TraceEntry>> sessions = new LinkedHashMap<>();
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                String name = event.getEventType().getName();
+                boolean root = FlightEvents.SESSION_EVENT.equals(name);
+                if (!root && !FlightEvents.METHOD_CALL_EVENT.equals(name)) {
+                    continue;
+                }
+                TraceEntry entry = toEntry(event, root);
+                if (entry.getSessionId() != null) {
+                    sessions.computeIfAbsent(entry.getSessionId(), id -> new ArrayList<>()).add(entry);
+                }
+            }
+        }
+        return sessions;
+    }
+
+    private static TraceEntry toEntry(RecordedEvent event, boolean root) {
+        String parameterTypes = event.getString("parameterTypes");
+        String methodType = event.getString("methodType");
+        return TraceEntry.builder()
+            .id(event.getString("entryId"))
+            .parentId(root ? null : event.getString("parentId"))
+            .sessionId(event.getString("sessionId"))
+            .className(event.getString("className"))
+            .methodName(event.getString("methodName"))
+            .returnType(event.getString("returnType"))
+            .parameterTypes(parameterTypes == null || parameterTypes.isEmpty() ?
+                List.of() : Arrays.asList(parameterTypes.split(FlightEvents.TYPE_SEPARATOR)))
+            .startTime(event.getStartTime().toEpochMilli())
+            .duration(event.getDuration().toMillis())
+            .async(event.getBoolean("async"))
+            .error(event.getBoolean("error"), event.getString("errorType"), event.getString("errorMessage"))
+            .methodType(methodType != null ? MethodTypeEnum.valueOf(methodType) : null)
+            .build();
+    }
+
+    /**
+     * Import a recording and serve it in the web UI
+     * @param args Recording file and optional web UI port
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: JfrImporter <recording.jfr> [port]");
+            System.exit(1);
+        }
+        WebServerLauncher.configure(args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT, null);
+        WebServerLauncher.ensureStarted();
+        importFile(Paths.get(args[0]));
+        Thread.currentThread().join();
+    }
+}
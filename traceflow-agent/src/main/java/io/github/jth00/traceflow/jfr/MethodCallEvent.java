@@ -0,0 +1,17 @@
+package io.github.jth00.traceflow.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Traced method call inside a TraceFlow session
+ * Only created while jfrMethodEvents is enabled in the configuration.
+ */
+@Name(FlightEvents.METHOD_CALL_EVENT)
+@Label("TraceFlow Method Call")
+@Description("Traced method call inside a TraceFlow session")
+public class MethodCallEvent extends TraceFlowEvent {
+    @Label("Parent Entry ID")
+    public String parentId;
+}
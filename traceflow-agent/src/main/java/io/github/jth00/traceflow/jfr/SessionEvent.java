@@ -0,0 +1,14 @@
+package io.github.jth00.traceflow.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Entry point call of a TraceFlow session
+ */
+@Name(FlightEvents.SESSION_EVENT)
+@Label("TraceFlow Session")
+@Description("Entry point call of a TraceFlow session")
+public class SessionEvent extends TraceFlowEvent {
+}
@@ -0,0 +1,50 @@
+package io.github.jth00.traceflow.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Fields shared by TraceFlow flight recorder events
+ * Start time and duration are the JFR event timings of the call.
+ */
+@Category("TraceFlow")
+@StackTrace(false)
+public abstract class TraceFlowEvent extends Event {
+    @Label("Session ID")
+    public String sessionId;
+
+    @Label("Entry ID")
+    public String entryId;
+
+    @Label("Class Name")
+    public String className;
+
+    @Label("Method Name")
+    public String methodName;
+
+    @Label("Return Type")
+    public String returnType;
+
+    @Label("Parameter Types")
+    @Description("Comma-separated parameter types")
+    public String parameterTypes;
+
+    @Label("Method Type")
+    public String methodType;
+
+    @Label("Async")
+    @Description("Returned a CompletionStage; the duration covers creating it")
+    public boolean async;
+
+    @Label("Error")
+    public boolean error;
+
+    @Label("Error Type")
+    public String errorType;
+
+    @Label("Error Message")
+    public String errorMessage;
+}
@@ -0,0 +1,72 @@
+package io.github.jth00.traceflow.metrics;
+
+/**
+ * JMX view of agent-internal health
+ * Registered as io.github.jth00.traceflow:type=Agent
+ */
+public interface AgentMetricsMXBean {
+    boolean isAttached();
+
+    /** Sessions held by TraceContext (running or waiting for async completion) */
+    int getActiveSessions();
+
+    int getStoredSessions();
+
+    long getStoredEntries();
+
+    /** Distinct call tree shapes shared by stored sessions */
+    int getStoredShapes();
+
+    /** Rough heap estimate of stored entries */
+    long getStoredBytes();
+
+    /** Inactive sessions evicted by TraceContext to respect its session limit */
+    long getEvictedSessions();
+
+    /** Sessions whose captured values were dropped because the capture queue was full */
+    long getDroppedCaptures();
+
+    /** Sessions waiting on the capture thread */
+    int getCaptureQueueDepth();
+
+    /** Sessions pushed to the collector */
+    long getExportedSessions();
+
+    /** Sessions dropped because the export queue was full or the collector was unreachable */
+    long getDroppedExports();
+
+    /** Sessions waiting on the exporter thread */
+    int getExportQueueDepth();
+
+    long getTracedCalls();
+
+    /** Thread stacks taken in sampling mode */
+    long getStackSamples();
+
+    /** Repeated sibling calls folded into an aggregated entry */
+    long getFoldedCalls();
+
+    /** Calls not recorded because of the session entry or depth limit */
+    long getTruncatedCalls();
+
+    /** Mean time spent in TraceFlow code per traced call */
+    double getOverheadNanosPerCall();
+
+    /** Total time spent in TraceFlow code, in milliseconds */
+    double getOverheadMillis();
+
+    /** Total time spent flushing sessions on traced threads, in milliseconds */
+    double getFlushMillis();
+
+    /** Overhead governor level, 0 when every session is traced */
+    int getGovernorLevel();
+
+    /** 1 in N entry point calls starts a session */
+    int getGovernorSampleInterval();
+
+    /** Agent overhead measured in the last governor window, in percent */
+    double getGovernorOverheadPercent();
+
+    /** Entry point calls not traced by the overhead governor */
+    long getSkippedSessions();
+}
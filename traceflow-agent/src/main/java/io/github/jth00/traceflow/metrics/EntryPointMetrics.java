@@ -0,0 +1,73 @@
+package io.github.jth00.traceflow.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of a single entry point method
+ */
+public class EntryPointMetrics implements EntryPointMetricsMXBean {
+    private final String className;
+    private final String methodName;
+    private final long firstCallMillis = System.currentTimeMillis();
+
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    EntryPointMetrics(String className, String methodName) {
+        this.className = className;
+        this.methodName = methodName;
+    }
+
+    /**
+     * Record a completed entry point call
+     * @param nanos Call duration in nanoseconds
+     * @param error true if the call threw
+     */
+    void record(long nanos, boolean error) {
+        latency.record(nanos);
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    LatencyHistogram getLatency() { return latency; }
+
+    @Override
+    public String getClassName() { return className; }
+
+    @Override
+    public String getMethodName() { return methodName; }
+
+    @Override
+    public long getCalls() { return latency.getCount(); }
+
+    @Override
+    public long getErrors() { return errors.sum(); }
+
+    @Override
+    public double getErrorRate() {
+        long calls = getCalls();
+        return calls == 0 ? 0 : (double) getErrors() / calls;
+    }
+
+    @Override
+    public double getThroughputPerSecond() {
+        long elapsed = Math.max(1, System.currentTimeMillis() - firstCallMillis);
+        return getCalls() * 1000.0 / elapsed;
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long calls = getCalls();
+        return calls == 0 ? 0 : latency.getSumNanos() / 1_000_000.0 / calls;
+    }
+
+    @Override
+    public double getP50Millis() { return latency.quantileMillis(0.50); }
+
+    @Override
+    public double getP95Millis() { return latency.quantileMillis(0.95); }
+
+    @Override
+    public double getP99Millis() { return latency.quantileMillis(0.99); }
+}
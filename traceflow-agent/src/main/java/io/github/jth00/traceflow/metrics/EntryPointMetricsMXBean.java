@@ -0,0 +1,29 @@
+package io.github.jth00.traceflow.metrics;
+
+/**
+ * JMX view of a single entry point
+ * Registered as io.github.jth00.traceflow:type=EntryPoint,name=ClassName.methodName
+ */
+public interface EntryPointMetricsMXBean {
+    String getClassName();
+
+    String getMethodName();
+
+    long getCalls();
+
+    long getErrors();
+
+    /** Errors / calls since the agent started */
+    double getErrorRate();
+
+    /** Mean calls per second since the first call */
+    double getThroughputPerSecond();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+}
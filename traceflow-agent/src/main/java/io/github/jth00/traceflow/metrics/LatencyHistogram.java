@@ -0,0 +1,82 @@
+package io.github.jth00.traceflow.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram (striped, contention free)
+ * Bucket bounds follow the Prometheus default latency buckets.
+ */
+public class LatencyHistogram {
+
+    /** Upper bounds of the buckets in nanoseconds; the last bucket is unbounded */
+    static final long[] BOUNDS_NANOS = {
+        1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+        100_000_000L, 250_000_000L, 500_000_000L, 1_000_000_000L,
+        2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record one observation
+     * @param nanos Latency in nanoseconds
+     */
+    public void record(long nanos) {
+        int i = 0;
+        while (i < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[i]) i++;
+        buckets[i].increment();
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Snapshot of the per-bucket counts (not cumulative)
+     * @return Counts, the last element being the unbounded bucket
+     */
+    public long[] bucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    public long getCount() { return count.sum(); }
+
+    public long getSumNanos() { return sumNanos.sum(); }
+
+    /**
+     * Estimate a quantile by linear interpolation inside the matching bucket
+     * @param quantile Quantile between 0 and 1
+     * @return Estimated latency in milliseconds, 0 if nothing was recorded
+     */
+    public double quantileMillis(double quantile) {
+        long[] counts = bucketCounts();
+        long total = 0;
+        for (long c : counts) total += c;
+        if (total == 0) return 0;
+
+        double rank = quantile * total;
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) continue;
+            if (seen + counts[i] >= rank) {
+                // Unbounded bucket: report its lower bound
+                if (i == BOUNDS_NANOS.length) return BOUNDS_NANOS[i - 1] / 1_000_000.0;
+                long lower = i == 0 ? 0 : BOUNDS_NANOS[i - 1];
+                double fraction = (rank - seen) / counts[i];
+                return (lower + fraction * (BOUNDS_NANOS[i] - lower)) / 1_000_000.0;
+            }
+            seen += counts[i];
+        }
+        return BOUNDS_NANOS[BOUNDS_NANOS.length - 1] / 1_000_000.0;
+    }
+}
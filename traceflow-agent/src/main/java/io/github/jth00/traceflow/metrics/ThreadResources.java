@@ -0,0 +1,57 @@
+package io.github.jth00.traceflow.metrics;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * CPU time and heap allocation of the current thread
+ * Backed by the HotSpot ThreadMXBean; unavailable on JVMs without it.
+ */
+public class ThreadResources {
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        try {
+            if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+                return null;
+            }
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (!threads.isCurrentThreadCpuTimeSupported() || !threads.isThreadAllocatedMemorySupported()) {
+                return null;
+            }
+            if (!threads.isThreadCpuTimeEnabled()) {
+                threads.setThreadCpuTimeEnabled(true);
+            }
+            if (!threads.isThreadAllocatedMemoryEnabled()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+            }
+            return threads;
+        } catch (RuntimeException e) {
+            System.err.println("[TraceFlow] Thread CPU time and allocation measurement unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Check if CPU time and allocation can be measured
+     * @return true if supported by the JVM
+     */
+    public static boolean isAvailable() {
+        return THREADS != null;
+    }
+
+    /**
+     * CPU time consumed by the current thread
+     * @return Nanoseconds
+     */
+    public static long cpuNanos() {
+        return THREADS.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * Heap bytes allocated by the current thread
+     * @return Bytes since thread start
+     */
+    public static long allocatedBytes() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+}
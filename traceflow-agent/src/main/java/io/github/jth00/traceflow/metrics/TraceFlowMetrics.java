@@ -0,0 +1,362 @@
+package io.github.jth00.traceflow.metrics;
+
+import io.github.jth00.traceflow.agent.TraceFlowAgent;
+import io.github.jth00.traceflow.capture.ValueCapture;
+import io.github.jth00.traceflow.context.TraceContext;
+import io.github.jth00.traceflow.export.CollectorExporter;
+import io.github.jth00.traceflow.governor.OverheadGovernor;
+import io.github.jth00.traceflow.store.TraceStore;
+import io.github.jth00.traceflow.vo.MethodInfo;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live metrics of entry points and of the agent itself
+ * - Counters are LongAdder based, so traced threads never contend on them
+ * - Exposed as JMX MXBeans and as Prometheus text on /metrics
+ * - MBeans are registered with the first entry point call, not in premain,
+ *   so the platform MBean server is not initialized before the application
+ */
+public class TraceFlowMetrics {
+    private static final String JMX_DOMAIN = "io.github.jth00.traceflow";
+
+    // Entry point metrics by "className.methodName" (overloads share one series)
+    private static final Map<String, EntryPointMetrics> entryPoints = new ConcurrentHashMap<>();
+
+    private static final LongAdder evictedSessions = new LongAdder();
+    private static final LongAdder droppedCaptures = new LongAdder();
+    private static final LongAdder exportedSessions = new LongAdder();
+    private static final LongAdder droppedExports = new LongAdder();
+    private static final LongAdder tracedCalls = new LongAdder();
+    private static final LongAdder overheadNanos = new LongAdder();
+    private static final LongAdder stackSamples = new LongAdder();
+    private static final LongAdder samplerNanos = new LongAdder();
+    private static final LongAdder foldedCalls = new LongAdder();
+    private static final LongAdder truncatedCalls = new LongAdder();
+    private static final LongAdder sessionNanos = new LongAdder();
+    private static final LongAdder flushNanos = new LongAdder();
+    private static final LongAdder skippedSessions = new LongAdder();
+
+    private static final AgentMetrics agentMetrics = new AgentMetrics();
+    private static final AtomicBoolean agentRegistered = new AtomicBoolean(false);
+
+    // === Recording ===
+
+    /**
+     * Record a completed root entry point call
+     * @param method Entry point method
+     * @param nanos Call duration in nanoseconds
+     * @param error true if the call threw
+     */
+    public static void recordEntryPoint(MethodInfo method, long nanos, boolean error) {
+        String key = method.getClassName() + "." + method.getMethodName();
+        EntryPointMetrics metrics = entryPoints.get(key);
+        if (metrics == null) {
+            metrics = entryPoints.computeIfAbsent(key, k -> {
+                EntryPointMetrics created = new EntryPointMetrics(method.getClassName(), method.getMethodName());
+                registerEntryPoint(created);
+                return created;
+            });
+        }
+        metrics.record(nanos, error);
+    }
+
+    /**
+     * Record time spent in TraceFlow code for one traced call
+     * @param nanos Enter and exit overhead in nanoseconds
+     */
+    public static void recordOverhead(long nanos) {
+        tracedCalls.increment();
+        overheadNanos.add(nanos);
+    }
+
+    /**
+     * Record a completed tracing session
+     * @param nanos Duration of the root entry point call
+     * @param flush Time spent flushing the session to the store
+     */
+    public static void recordSession(long nanos, long flush) {
+        sessionNanos.add(nanos);
+        flushNanos.add(flush);
+    }
+
+    /**
+     * Record one pass of the stack sampler
+     * @param threads Number of sampled threads
+     * @param nanos Time spent taking and processing the stacks
+     */
+    public static void recordStackSamples(int threads, long nanos) {
+        stackSamples.add(threads);
+        samplerNanos.add(nanos);
+    }
+
+    public static void recordFoldedCall() {
+        foldedCalls.increment();
+    }
+
+    public static void recordTruncatedCall() {
+        truncatedCalls.increment();
+    }
+
+    public static void recordSkippedSession() {
+        skippedSessions.increment();
+    }
+
+    public static void recordEvictedSession() {
+        evictedSessions.increment();
+    }
+
+    public static void recordDroppedCapture() {
+        droppedCaptures.increment();
+    }
+
+    public static void recordExported(int sessions) {
+        exportedSessions.add(sessions);
+    }
+
+    public static void recordDroppedExport(int sessions) {
+        droppedExports.add(sessions);
+    }
+
+    /**
+     * Get metrics of all entry points seen so far
+     * @return Entry point metrics
+     */
+    public static Collection<EntryPointMetrics> getEntryPoints() {
+        return entryPoints.values();
+    }
+
+    public static AgentMetricsMXBean getAgentMetrics() {
+        return agentMetrics;
+    }
+
+    public static long getOverheadNanos() {
+        return overheadNanos.sum();
+    }
+
+    public static long getFlushNanos() {
+        return flushNanos.sum();
+    }
+
+    public static long getSessionNanos() {
+        return sessionNanos.sum();
+    }
+
+    // === JMX ===
+
+    private static void registerEntryPoint(EntryPointMetrics metrics) {
+        if (agentRegistered.compareAndSet(false, true)) {
+            register(JMX_DOMAIN + ":type=Agent", agentMetrics);
+        }
+        String name = metrics.getClassName().substring(metrics.getClassName().lastIndexOf('.') + 1) +
+            "." + metrics.getMethodName();
+        register(JMX_DOMAIN + ":type=EntryPoint,name=" + ObjectName.quote(name) +
+            ",class=" + ObjectName.quote(metrics.getClassName()), metrics);
+    }
+
+    private static void register(String objectName, Object mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(mbean, name);
+            }
+        } catch (Exception e) {
+            System.err.println("[TraceFlow] Failed to register MBean " + objectName + ": " + e.getMessage());
+        }
+    }
+
+    // === Prometheus ===
+
+    /**
+     * Render all metrics in Prometheus text exposition format (version 0.0.4)
+     * @return Metrics text
+     */
+    public static String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+
+        header(sb, "traceflow_entry_point_calls_total", "counter", "Completed entry point calls");
+        for (EntryPointMetrics m : entryPoints.values()) {
+            sample(sb, "traceflow_entry_point_calls_total", labels(m), m.getCalls());
+        }
+
+        header(sb, "traceflow_entry_point_errors_total", "counter", "Entry point calls that threw");
+        for (EntryPointMetrics m : entryPoints.values()) {
+            sample(sb, "traceflow_entry_point_errors_total", labels(m), m.getErrors());
+        }
+
+        header(sb, "traceflow_entry_point_duration_seconds", "histogram", "Entry point call duration");
+        for (EntryPointMetrics m : entryPoints.values()) {
+            String labels = labels(m);
+            long[] counts = m.getLatency().bucketCounts();
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                String le = i < LatencyHistogram.BOUNDS_NANOS.length
+                    ? seconds(LatencyHistogram.BOUNDS_NANOS[i]) : "+Inf";
+                sample(sb, "traceflow_entry_point_duration_seconds_bucket", labels + ",le=\"" + le + "\"", cumulative);
+            }
+            sample(sb, "traceflow_entry_point_duration_seconds_sum", labels, seconds(m.getLatency().getSumNanos()));
+            sample(sb, "traceflow_entry_point_duration_seconds_count", labels, cumulative);
+        }
+
+        AgentMetricsMXBean agent = agentMetrics;
+        gauge(sb, "traceflow_attached", "1 if instrumentation is installed", agent.isAttached() ? 1 : 0);
+        gauge(sb, "traceflow_active_sessions", "Sessions held by TraceContext", agent.getActiveSessions());
+        gauge(sb, "traceflow_store_sessions", "Sessions in TraceStore", agent.getStoredSessions());
+        gauge(sb, "traceflow_store_entries", "Entries in TraceStore", agent.getStoredEntries());
+        gauge(sb, "traceflow_store_shapes", "Distinct call tree shapes in TraceStore", agent.getStoredShapes());
+        gauge(sb, "traceflow_store_bytes", "Estimated heap size of TraceStore entries", agent.getStoredBytes());
+        gauge(sb, "traceflow_capture_queue_depth", "Sessions waiting for value rendering", agent.getCaptureQueueDepth());
+        gauge(sb, "traceflow_export_queue_depth", "Sessions waiting to be pushed to the collector", agent.getExportQueueDepth());
+
+        header(sb, "traceflow_evicted_sessions_total", "counter", "Sessions evicted by the session limit");
+        sample(sb, "traceflow_evicted_sessions_total", null, agent.getEvictedSessions());
+        header(sb, "traceflow_dropped_captures_total", "counter", "Sessions whose captured values were dropped");
+        sample(sb, "traceflow_dropped_captures_total", null, agent.getDroppedCaptures());
+        header(sb, "traceflow_exported_sessions_total", "counter", "Sessions pushed to the collector");
+        sample(sb, "traceflow_exported_sessions_total", null, agent.getExportedSessions());
+        header(sb, "traceflow_dropped_exports_total", "counter", "Sessions dropped before reaching the collector");
+        sample(sb, "traceflow_dropped_exports_total", null, agent.getDroppedExports());
+        header(sb, "traceflow_traced_calls_total", "counter", "Traced method calls");
+        sample(sb, "traceflow_traced_calls_total", null, agent.getTracedCalls());
+        header(sb, "traceflow_overhead_seconds_total", "counter", "Time spent in TraceFlow code on traced threads");
+        sample(sb, "traceflow_overhead_seconds_total", null, seconds(overheadNanos.sum()));
+        header(sb, "traceflow_stack_samples_total", "counter", "Thread stacks taken by the sampler");
+        sample(sb, "traceflow_stack_samples_total", null, agent.getStackSamples());
+        header(sb, "traceflow_sampler_seconds_total", "counter", "Time spent by the sampler thread");
+        sample(sb, "traceflow_sampler_seconds_total", null, seconds(samplerNanos.sum()));
+        header(sb, "traceflow_folded_calls_total", "counter", "Repeated calls folded into an aggregated entry");
+        sample(sb, "traceflow_folded_calls_total", null, agent.getFoldedCalls());
+        header(sb, "traceflow_truncated_calls_total", "counter", "Calls not recorded because of session limits");
+        sample(sb, "traceflow_truncated_calls_total", null, agent.getTruncatedCalls());
+        header(sb, "traceflow_flush_seconds_total", "counter", "Time spent flushing sessions on traced threads");
+        sample(sb, "traceflow_flush_seconds_total", null, seconds(flushNanos.sum()));
+
+        gauge(sb, "traceflow_governor_level", "Overhead governor level, 0 when every session is traced", agent.getGovernorLevel());
+        gauge(sb, "traceflow_governor_sample_interval", "1 in N entry point calls starts a session", agent.getGovernorSampleInterval());
+        header(sb, "traceflow_governor_overhead_ratio", "gauge", "Agent overhead measured in the last governor window");
+        sample(sb, "traceflow_governor_overhead_ratio", null,
+            String.format(Locale.ROOT, "%.6f", agent.getGovernorOverheadPercent() / 100));
+        header(sb, "traceflow_governor_skipped_sessions_total", "counter", "Entry point calls not traced by the overhead governor");
+        sample(sb, "traceflow_governor_skipped_sessions_total", null, agent.getSkippedSessions());
+
+        return sb.toString();
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, long value) {
+        header(sb, name, "gauge", help);
+        sample(sb, name, null, value);
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, Object value) {
+        sb.append(name);
+        if (labels != null) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static String labels(EntryPointMetrics m) {
+        return "class=\"" + escape(m.getClassName()) + "\",method=\"" + escape(m.getMethodName()) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1_000_000_000.0)
+            .replaceAll("0+$", "").replaceAll("\\.$", ".0");
+    }
+
+    /**
+     * Agent health view backed by the shared counters
+     */
+    private static class AgentMetrics implements AgentMetricsMXBean {
+        @Override
+        public boolean isAttached() { return TraceFlowAgent.isAttached(); }
+
+        @Override
+        public int getActiveSessions() { return TraceContext.getSessionCount(); }
+
+        @Override
+        public int getStoredSessions() { return TraceStore.getSessionCount(); }
+
+        @Override
+        public long getStoredEntries() { return TraceStore.getEntryCount(); }
+
+        @Override
+        public int getStoredShapes() { return TraceStore.getShapeCount(); }
+
+        @Override
+        public long getStoredBytes() { return TraceStore.estimateBytes(); }
+
+        @Override
+        public long getEvictedSessions() { return evictedSessions.sum(); }
+
+        @Override
+        public long getDroppedCaptures() { return droppedCaptures.sum(); }
+
+        @Override
+        public int getCaptureQueueDepth() { return ValueCapture.getQueueDepth(); }
+
+        @Override
+        public long getExportedSessions() { return exportedSessions.sum(); }
+
+        @Override
+        public long getDroppedExports() { return droppedExports.sum(); }
+
+        @Override
+        public int getExportQueueDepth() { return CollectorExporter.getQueueDepth(); }
+
+        @Override
+        public long getTracedCalls() { return tracedCalls.sum(); }
+
+        @Override
+        public long getStackSamples() { return stackSamples.sum(); }
+
+        @Override
+        public long getFoldedCalls() { return foldedCalls.sum(); }
+
+        @Override
+        public long getTruncatedCalls() { return truncatedCalls.sum(); }
+
+        @Override
+        public double getOverheadNanosPerCall() {
+            long calls = tracedCalls.sum();
+            return calls == 0 ? 0 : (double) overheadNanos.sum() / calls;
+        }
+
+        @Override
+        public double getOverheadMillis() { return overheadNanos.sum() / 1_000_000.0; }
+
+        @Override
+        public double getFlushMillis() { return flushNanos.sum() / 1_000_000.0; }
+
+        @Override
+        public int getGovernorLevel() { return OverheadGovernor.getLevel(); }
+
+        @Override
+        public int getGovernorSampleInterval() { return OverheadGovernor.getSampleInterval(); }
+
+        @Override
+        public double getGovernorOverheadPercent() { return OverheadGovernor.getOverheadPercent(); }
+
+        @Override
+        public long getSkippedSessions() { return skippedSessions.sum(); }
+    }
+}
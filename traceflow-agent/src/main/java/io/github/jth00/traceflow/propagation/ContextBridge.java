@@ -0,0 +1,128 @@
+package io.github.jth00.traceflow.propagation;
+
+import java.lang.reflect.Method;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Context holder shared with instrumented JDK and servlet container classes
+ *
+ * The agent injects this class into the bootstrap class loader, so advice inlined into
+ * HttpURLConnection, HttpClient and HttpServlet can reach it from any class loader.
+ * It must not depend on other TraceFlow classes.
+ */
+public class ContextBridge {
+
+    /** Header carrying the caller's session and entry ID */
+    public static final String HEADER = "X-TraceFlow-Context";
+
+    /** Header filter keeping every header when an HttpRequest is copied */
+    public static final BiPredicate<String, String> ALL_HEADERS = (name, value) -> true;
+
+    // Outbound header value of the current thread, provided by the agent
+    private static volatile Supplier<String> outbound;
+
+    // Header of the inbound request handled by the current thread
+    private static final ThreadLocal<String> inbound = new ThreadLocal<>();
+
+    // getHeader(String) of the servlet request interface, per request class
+    private static final HeaderMethods headerMethods = new HeaderMethods();
+
+    // === Outbound ===
+
+    /**
+     * Set the provider of the outbound header value
+     * @param supplier Supplier returning the header value or null outside a traced call
+     */
+    public static void setOutbound(Supplier<String> supplier) {
+        outbound = supplier;
+    }
+
+    /**
+     * Get the header value to send from the current thread
+     * @return Header value or null if no traced call is active
+     */
+    public static String outboundHeader() {
+        Supplier<String> supplier = outbound;
+        return supplier != null ? supplier.get() : null;
+    }
+
+    // === Inbound ===
+
+    /**
+     * Remember the context header of an inbound servlet request
+     * Nested service calls of the same request keep the outer value.
+     * @param request Servlet request (javax or jakarta)
+     * @return true if this call set the header and must clear it on exit
+     */
+    public static boolean enterInbound(Object request) {
+        if (inbound.get() != null || request == null) {
+            return false;
+        }
+        Method getHeader = headerMethods.get(request.getClass());
+        if (getHeader == null) {
+            return false;
+        }
+        try {
+            String value = (String) getHeader.invoke(request, HEADER);
+            if (value == null || value.isEmpty()) {
+                return false;
+            }
+            inbound.set(value);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Clear the inbound header at the end of the request
+     */
+    public static void exitInbound() {
+        inbound.remove();
+    }
+
+    /**
+     * Get the context header of the request handled by the current thread
+     * @return Header value or null
+     */
+    public static String inboundHeader() {
+        return inbound.get();
+    }
+
+    /**
+     * Cache of getHeader(String) per servlet request class
+     * A named class, so it is injected together with the bridge
+     */
+    public static class HeaderMethods extends ClassValue<Method> {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            return findHeaderMethod(type);
+        }
+    }
+
+    private static Method findHeaderMethod(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Class<?> candidate : current.getInterfaces()) {
+                Method method = findInterfaceMethod(candidate);
+                if (method != null) return method;
+            }
+        }
+        return null;
+    }
+
+    private static Method findInterfaceMethod(Class<?> type) {
+        if (type.getName().endsWith(".servlet.http.HttpServletRequest")) {
+            try {
+                return type.getMethod("getHeader", String.class);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+        for (Class<?> parent : type.getInterfaces()) {
+            Method method = findInterfaceMethod(parent);
+            if (method != null) return method;
+        }
+        return null;
+    }
+}
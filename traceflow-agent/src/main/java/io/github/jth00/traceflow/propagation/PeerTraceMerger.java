@@ -0,0 +1,145 @@
+package io.github.jth00.traceflow.propagation;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.github.jth00.traceflow.store.TraceStore;
+import io.github.jth00.traceflow.vo.SessionLink;
+import io.github.jth00.traceflow.vo.TraceEntry;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges sessions of other JVMs into a local session tree
+ *
+ * Linked sessions are pulled from the {@code /logs?action=linked} endpoint of every peer,
+ * and their root entries are re-parented under the entry that made the outbound call.
+ * Linked sessions of this JVM (e.g., loopback calls) are merged the same way.
+ */
+public class PeerTraceMerger {
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+    private static final int READ_TIMEOUT_MILLIS = 3000;
+
+    /** Maximum number of calls followed from the requested session */
+    private static final int MAX_HOPS = 4;
+
+    private static final String LOCAL = "local";
+
+    /**
+     * Build the linked session list served to peers
+     * @param parentSessionId Session ID in the calling JVM
+     * @return Linked sessions with their entries
+     */
+    public static List<Map<String, Object>> linkedSessions(String parentSessionId) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SessionLink link : TraceStore.getLinkedSessions(parentSessionId)) {
+            Map<String, Object> session = new HashMap<>();
+            session.put("sessionId", link.getSessionId());
+            session.put("parentSessionId", link.getParentSessionId());
+            session.put("parentEntryId", link.getParentEntryId());
+            session.put("entries", TraceStore.getTracesBySession(link.getSessionId()));
+            result.add(session);
+        }
+        return result;
+    }
+
+    /**
+     * Merge linked sessions of this JVM and of all peers into a session
+     * @param sessionId Local session ID
+     * @param entries Entries of the local session
+     * @param gson Gson instance used for local entries
+     * @return Local and remote entries, remote entries marked with their peer
+     */
+    public static JsonArray merge(String sessionId, List<TraceEntry> entries, Gson gson) {
+        JsonArray merged = gson.toJsonTree(entries).getAsJsonArray();
+        Set<String> visited = new HashSet<>();
+        visited.add(sessionId);
+        appendLinked(sessionId, merged, visited, 1, gson);
+        return merged;
+    }
+
+    private static void appendLinked(String parentSessionId, JsonArray merged, Set<String> visited,
+                                     int hop, Gson gson) {
+        if (hop > MAX_HOPS) {
+            return;
+        }
+
+        Map<String, JsonArray> linkedBySource = new HashMap<>();
+        linkedBySource.put(LOCAL, gson.toJsonTree(linkedSessions(parentSessionId)).getAsJsonArray());
+        for (String peer : TracePropagation.getPeers()) {
+            JsonArray linked = fetchLinked(peer, parentSessionId);
+            if (linked != null) {
+                linkedBySource.put(peer, linked);
+            }
+        }
+
+        linkedBySource.forEach((source, linked) -> {
+            for (JsonElement element : linked) {
+                JsonObject session = element.getAsJsonObject();
+                String childSessionId = session.get("sessionId").getAsString();
+                if (!visited.add(childSessionId)) {
+                    continue;
+                }
+
+                String parentEntryId = session.get("parentEntryId").getAsString();
+                for (JsonElement entryElement : session.getAsJsonArray("entries")) {
+                    JsonObject entry = entryElement.getAsJsonObject();
+                    if (!entry.has("parentId") || entry.get("parentId").isJsonNull()) {
+                        entry.addProperty("parentId", parentEntryId);
+                    }
+                    if (!LOCAL.equals(source)) {
+                        entry.addProperty("peer", source);
+                    }
+                    merged.add(entry);
+                }
+                appendLinked(childSessionId, merged, visited, hop + 1, gson);
+            }
+        });
+    }
+
+    /**
+     * Fetch linked sessions from a peer
+     * @param peer Base URL of the peer web server
+     * @param parentSessionId Session ID in this JVM
+     * @return Linked sessions or null if the peer is unavailable
+     */
+    private static JsonArray fetchLinked(String peer, String parentSessionId) {
+        HttpURLConnection connection = null;
+        try {
+            URL url = new URL(peer + "/logs?action=linked&parentSessionId=" +
+                URLEncoder.encode(parentSessionId, StandardCharsets.UTF_8));
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                System.err.println("[TraceFlow Propagation] Peer " + peer + " returned " + connection.getResponseCode());
+                return null;
+            }
+            try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+                return JsonParser.parseReader(reader).getAsJsonArray();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[TraceFlow Propagation] Failed to fetch from peer " + peer + ": " + e.getMessage());
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+}
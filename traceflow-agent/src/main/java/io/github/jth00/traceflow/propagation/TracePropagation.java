@@ -0,0 +1,154 @@
+package io.github.jth00.traceflow.propagation;
+
+import io.github.jth00.traceflow.context.TraceContext;
+import io.github.jth00.traceflow.store.TraceStore;
+import io.github.jth00.traceflow.vo.SessionLink;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.loading.ClassInjector;
+
+import java.io.File;
+import java.lang.instrument.Instrumentation;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cross-JVM trace context propagation
+ *
+ * Outbound HTTP calls made inside a traced method carry the header
+ * {@value ContextBridge#HEADER}: {@code <sessionId>;<entryId>}.
+ * A session started while handling such a request is linked to that entry,
+ * and the calling agent merges linked sessions pulled from its peers.
+ */
+public class TracePropagation {
+    private static final String SEPARATOR = ";";
+
+    /** Maximum length of an ID read from an inbound header */
+    private static final int MAX_ID_LENGTH = 64;
+
+    /** Classes injected into the bootstrap class loader (names only, they must not be loaded here first) */
+    private static final List<String> BRIDGE_TYPES = List.of(
+        "io.github.jth00.traceflow.propagation.ContextBridge",
+        "io.github.jth00.traceflow.propagation.ContextBridge$HeaderMethods"
+    );
+
+    /** Instrumented HTTP client and servlet types */
+    public static final String URL_CONNECTION_TYPE = "sun.net.www.protocol.http.HttpURLConnection";
+    public static final String HTTP_CLIENT_TYPE = "jdk.internal.net.http.HttpClientImpl";
+    public static final Set<String> SERVLET_TYPES = Set.of(
+        "jakarta.servlet.http.HttpServlet",
+        "javax.servlet.http.HttpServlet"
+    );
+
+    // Whether the bridge is installed and HTTP classes are instrumented
+    private static volatile boolean enabled = false;
+
+    // Base URLs of peer agents (e.g., http://localhost:8082)
+    private static volatile List<String> peers = List.of();
+
+    /**
+     * Inject the context bridge into the bootstrap class loader
+     * Must run before any class referring to {@link ContextBridge} is loaded.
+     * @param inst Instrumentation instance
+     * @return true if propagation is enabled
+     */
+    public static synchronized boolean install(Instrumentation inst) {
+        if (enabled) {
+            return true;
+        }
+        try {
+            ClassFileLocator locator = ClassFileLocator.ForClassLoader.of(TracePropagation.class.getClassLoader());
+            Map<String, byte[]> types = new HashMap<>();
+            for (String name : BRIDGE_TYPES) {
+                types.put(name, locator.locate(name).resolve());
+            }
+
+            File folder = Files.createTempDirectory("traceflow-bridge").toFile();
+            folder.deleteOnExit();
+            ClassInjector.UsingInstrumentation
+                .of(folder, ClassInjector.UsingInstrumentation.Target.BOOTSTRAP, inst)
+                .injectRaw(types);
+
+            ContextBridge.setOutbound(TracePropagation::outboundHeader);
+            enabled = true;
+            System.out.println("[TraceFlow Propagation] Context propagation enabled (header " +
+                ContextBridge.HEADER + ")");
+        } catch (Exception e) {
+            System.err.println("[TraceFlow Propagation] Failed to install context bridge: " + e.getMessage());
+        }
+        return enabled;
+    }
+
+    /**
+     * Check if HTTP calls are instrumented for propagation
+     * @return true if enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set the peer agents whose linked sessions are merged into local sessions
+     * @param peerUrls Base URLs of peer web servers
+     */
+    public static void configurePeers(List<String> peerUrls) {
+        peers = List.copyOf(peerUrls);
+        if (!peers.isEmpty()) {
+            System.out.println("[TraceFlow Propagation] Peers: " + peers);
+        }
+    }
+
+    /**
+     * Get the configured peer agents
+     * @return Base URLs of peer web servers
+     */
+    public static List<String> getPeers() {
+        return peers;
+    }
+
+    /**
+     * Header value for an outbound call of the current thread
+     * @return {@code <sessionId>;<entryId>} or null outside a traced call
+     */
+    static String outboundHeader() {
+        if (!TraceContext.isTracingEnabled()) {
+            return null;
+        }
+        String sessionId = TraceContext.getSessionId();
+        String entryId = TraceContext.peekCall();
+        if (sessionId == null || entryId == null) {
+            return null;
+        }
+        return sessionId + SEPARATOR + entryId;
+    }
+
+    /**
+     * Link a new session to the remote caller of the request handled by the current thread
+     * @param sessionId New session ID
+     */
+    public static void linkInbound(String sessionId) {
+        if (!enabled) {
+            return;
+        }
+        String header = ContextBridge.inboundHeader();
+        if (header == null) {
+            return;
+        }
+
+        String[] parts = header.split(SEPARATOR, -1);
+        if (parts.length != 2 || !isValidId(parts[0]) || !isValidId(parts[1])) {
+            System.err.println("[TraceFlow Propagation] Ignoring malformed context header");
+            return;
+        }
+
+        TraceStore.linkSession(new SessionLink(sessionId, parts[0], parts[1]));
+        System.out.println("[TraceFlow Propagation] Session " + sessionId +
+            " linked to remote session " + parts[0]);
+    }
+
+    private static boolean isValidId(String id) {
+        return !id.isEmpty() && id.length() <= MAX_ID_LENGTH && id.chars().allMatch(c -> c == '-' || Character.isLetterOrDigit(c));
+    }
+}
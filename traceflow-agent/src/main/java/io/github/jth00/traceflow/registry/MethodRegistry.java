@@ -0,0 +1,124 @@
+package io.github.jth00.traceflow.registry;
+
+import io.github.jth00.traceflow.vo.MethodInfo;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry of instrumented methods
+ * Advice code only carries a constant signature string; the registry resolves it
+ * to a shared {@link MethodInfo} on first use so no reflection happens per call
+ */
+public class MethodRegistry {
+
+    /** Advice.Origin pattern producing "className.methodName(descriptor)" */
+    public static final String SIGNATURE_PATTERN = "#t.#m#d";
+
+    private static final Map<String, MethodInfo> methods = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * Resolve method information for an advice signature
+     * @param signature Signature in {@value #SIGNATURE_PATTERN} format
+     * @return Shared method information
+     */
+    public static MethodInfo resolve(String signature) {
+        MethodInfo info = methods.get(signature);
+        if (info != null) {
+            return info;
+        }
+        return methods.computeIfAbsent(signature, MethodRegistry::parse);
+    }
+
+    /**
+     * Build the advice signature of a reflected method
+     * Used to start sessions from code that is not instrumented (e.g., test methods)
+     * @param method Method
+     * @return Signature in {@value #SIGNATURE_PATTERN} format
+     */
+    public static String signature(Method method) {
+        StringBuilder sb = new StringBuilder(method.getDeclaringClass().getName())
+            .append('.').append(method.getName()).append('(');
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            sb.append(parameterType.descriptorString());
+        }
+        return sb.append(')').append(method.getReturnType().descriptorString()).toString();
+    }
+
+    /**
+     * Get all methods resolved so far
+     * @return List of method information
+     */
+    public static List<MethodInfo> getMethods() {
+        return new ArrayList<>(methods.values());
+    }
+
+    /**
+     * Parse "com.example.Foo.bar(Ljava/lang/String;I)V" into method information
+     */
+    private static MethodInfo parse(String signature) {
+        int paren = signature.indexOf('(');
+        int dot = signature.lastIndexOf('.', paren);
+        int close = signature.indexOf(')', paren);
+
+        String className = signature.substring(0, dot);
+        String methodName = signature.substring(dot + 1, paren);
+
+        List<String> parameterTypes = new ArrayList<>();
+        int i = paren + 1;
+        while (i < close) {
+            int end = typeEnd(signature, i);
+            parameterTypes.add(simpleName(signature.substring(i, end)));
+            i = end;
+        }
+        String returnType = simpleName(signature.substring(close + 1));
+
+        return new MethodInfo(nextId.getAndIncrement(), signature, className, methodName,
+            returnType, Collections.unmodifiableList(parameterTypes));
+    }
+
+    /**
+     * Find the end index of the type descriptor starting at the given index
+     */
+    private static int typeEnd(String descriptor, int start) {
+        int i = start;
+        while (descriptor.charAt(i) == '[') i++;
+        if (descriptor.charAt(i) == 'L') {
+            return descriptor.indexOf(';', i) + 1;
+        }
+        return i + 1;
+    }
+
+    /**
+     * Convert a type descriptor to the equivalent of Class.getSimpleName()
+     */
+    private static String simpleName(String descriptor) {
+        int dimensions = 0;
+        while (descriptor.charAt(dimensions) == '[') dimensions++;
+        String element = descriptor.substring(dimensions);
+
+        String name;
+        switch (element.charAt(0)) {
+            case 'Z': name = "boolean"; break;
+            case 'B': name = "byte"; break;
+            case 'C': name = "char"; break;
+            case 'S': name = "short"; break;
+            case 'I': name = "int"; break;
+            case 'J': name = "long"; break;
+            case 'F': name = "float"; break;
+            case 'D': name = "double"; break;
+            case 'V': name = "void"; break;
+            default:
+                String internalName = element.substring(1, element.length() - 1);
+                int start = Math.max(internalName.lastIndexOf('/'), internalName.lastIndexOf('$')) + 1;
+                name = internalName.substring(start);
+        }
+        return name + "[]".repeat(dimensions);
+    }
+}
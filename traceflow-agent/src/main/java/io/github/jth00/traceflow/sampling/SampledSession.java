@@ -0,0 +1,156 @@
+package io.github.jth00.traceflow.sampling;
+
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.vo.TraceEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Call tree of one session rebuilt from stack samples
+ *
+ * A frame seen at the same depth with the same method in consecutive samples is treated
+ * as one call; a call is opened at the first sample containing it and closed at the first
+ * sample that no longer does. Start and end are estimated half an interval before the
+ * first and after the last sample, so repeated short calls in a loop appear as one call
+ * and calls shorter than an interval may be missed.
+ */
+class SampledSession {
+    /** Maximum number of calls per session */
+    private static final int MAX_CALLS = 2000;
+
+    private final String sessionId;
+    private final String rootId;
+    private final String rootClass;
+    private final String rootMethod;
+    private final long startMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+
+    // Calls on the stack at the last sample, outermost first
+    private final List<Call> open = new ArrayList<>();
+    private final List<Call> closed = new ArrayList<>();
+    private int callCount = 0;
+    private boolean finished = false;
+
+    SampledSession(String sessionId, String rootId, String rootClass, String rootMethod) {
+        this.sessionId = sessionId;
+        this.rootId = rootId;
+        this.rootClass = rootClass;
+        this.rootMethod = rootMethod;
+    }
+
+    /**
+     * Add a stack sample of the session thread
+     * @param stack Stack trace, innermost frame first
+     * @param now Sample time
+     * @param config Active configuration
+     */
+    void sample(StackTraceElement[] stack, long now, TraceFlowConfig config) {
+        if (finished) {
+            return;
+        }
+        List<StackTraceElement> path = tracedPath(stack, config);
+        if (path == null) {
+            return;
+        }
+
+        int common = 0;
+        while (common < open.size() && common < path.size() && open.get(common).matches(path.get(common))) {
+            common++;
+        }
+        while (open.size() > common) {
+            closed.add(open.remove(open.size() - 1));
+        }
+        for (int i = common; i < path.size() && callCount < MAX_CALLS; i++) {
+            String parentId = i == 0 ? rootId : open.get(i - 1).id;
+            open.add(new Call(path.get(i), parentId, now));
+            callCount++;
+        }
+        for (Call call : open) {
+            call.lastSeen = now;
+        }
+    }
+
+    /**
+     * Close all calls and convert them to entries
+     * @param now End of the entry point call
+     * @param intervalMillis Sampling interval
+     * @return Sampled entries
+     */
+    List<TraceEntry> finish(long now, long intervalMillis) {
+        finished = true;
+        closed.addAll(open);
+        open.clear();
+
+        long halfInterval = Math.max(intervalMillis, 1) * 1_000_000 / 2;
+        List<TraceEntry> entries = new ArrayList<>(closed.size());
+        for (Call call : closed) {
+            long start = Math.max(startNanos, call.firstSeen - halfInterval);
+            long end = Math.min(now, call.lastSeen + halfInterval);
+            entries.add(TraceEntry.builder()
+                .id(call.id)
+                .parentId(call.parentId)
+                .sessionId(sessionId)
+                .className(call.className)
+                .methodName(call.methodName)
+                .startTime(startMillis + (start - startNanos) / 1_000_000)
+                .duration(Math.max(0, end - start) / 1_000_000)
+                .methodType(MethodTypeEnum.SAMPLED)
+                .build());
+        }
+        return entries;
+    }
+
+    /**
+     * Traced frames above the entry point, outermost first
+     * @return Frames or null if the entry point is not on the stack
+     */
+    private List<StackTraceElement> tracedPath(StackTraceElement[] stack, TraceFlowConfig config) {
+        int rootIndex = -1;
+        for (int i = stack.length - 1; i >= 0; i--) {
+            if (stack[i].getMethodName().equals(rootMethod) && stack[i].getClassName().equals(rootClass)) {
+                rootIndex = i;
+                break;
+            }
+        }
+        if (rootIndex < 0) {
+            return null;
+        }
+
+        List<StackTraceElement> path = new ArrayList<>();
+        for (int i = rootIndex - 1; i >= 0; i--) {
+            String className = stack[i].getClassName();
+            if (config.isTracedType(className) && !config.isExcludedClass(className) &&
+                !config.isExcludedMethod(className, stack[i].getMethodName())) {
+                path.add(stack[i]);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Call seen in one or more consecutive samples
+     */
+    private static class Call {
+        final String id = UUID.randomUUID().toString();
+        final String parentId;
+        final String className;
+        final String methodName;
+        final long firstSeen;
+        long lastSeen;
+
+        Call(StackTraceElement frame, String parentId, long firstSeen) {
+            this.parentId = parentId;
+            this.className = frame.getClassName();
+            this.methodName = frame.getMethodName();
+            this.firstSeen = firstSeen;
+            this.lastSeen = firstSeen;
+        }
+
+        boolean matches(StackTraceElement frame) {
+            return methodName.equals(frame.getMethodName()) && className.equals(frame.getClassName());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.jth00.traceflow.sampling;
+
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.metrics.TraceFlowMetrics;
+import io.github.jth00.traceflow.vo.MethodInfo;
+import io.github.jth00.traceflow.vo.TraceEntry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sampling profiler for entry point sessions
+ *
+ * In sampling mode only entry points are instrumented. While a session runs, a timer
+ * thread takes the stack of its thread every sampling interval (all active sessions in
+ * one ThreadMXBean call), keeps the frames of traced packages above the entry point,
+ * and rebuilds an approximate call tree from consecutive samples.
+ * The cost grows with the sampling rate and the number of active sessions,
+ * not with the number of calls.
+ */
+public class StackSampler {
+
+    /** Poll interval of the sampler thread while sampling is disabled */
+    private static final long IDLE_MILLIS = 500;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // Sessions being sampled (thread ID -> session)
+    private static final Map<Long, SampledSession> sessions = new ConcurrentHashMap<>();
+
+    private static Thread samplerThread;
+
+    /**
+     * Check if the agent runs in sampling mode
+     * @return true if only entry points are instrumented and sessions are sampled
+     */
+    public static boolean isEnabled() {
+        return TraceFlowConfig.current().getSamplingIntervalMillis() > 0;
+    }
+
+    /**
+     * Start sampling the session of the current thread
+     * @param sessionId Session ID
+     * @param rootId Entry ID of the entry point call
+     * @param root Entry point method
+     */
+    public static void begin(String sessionId, String rootId, MethodInfo root) {
+        ensureStarted();
+        sessions.put(Thread.currentThread().getId(),
+            new SampledSession(sessionId, rootId, root.getClassName(), root.getMethodName()));
+    }
+
+    /**
+     * Stop sampling the session of the current thread
+     * @return Reconstructed entries below the entry point
+     */
+    public static List<TraceEntry> end() {
+        SampledSession session = sessions.remove(Thread.currentThread().getId());
+        if (session == null) {
+            return List.of();
+        }
+        synchronized (session) {
+            return session.finish(System.nanoTime(), TraceFlowConfig.current().getSamplingIntervalMillis());
+        }
+    }
+
+    private static synchronized void ensureStarted() {
+        if (samplerThread != null) {
+            return;
+        }
+        samplerThread = new Thread(StackSampler::run, "traceflow-sampler");
+        samplerThread.setDaemon(true);
+        samplerThread.start();
+        System.out.println("[TraceFlow Sampler] Sampling every " +
+            TraceFlowConfig.current().getSamplingIntervalMillis() + "ms");
+    }
+
+    private static void run() {
+        while (true) {
+            long interval = TraceFlowConfig.current().getSamplingIntervalMillis();
+            try {
+                Thread.sleep(interval > 0 ? interval : IDLE_MILLIS);
+                if (interval > 0 && !sessions.isEmpty()) {
+                    sampleAll();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("[TraceFlow Sampler] Sampling failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Take the stacks of all sampled threads at one safepoint and add them to their sessions
+     */
+    private static void sampleAll() {
+        long start = System.nanoTime();
+        long[] ids = sessions.keySet().stream().mapToLong(Long::longValue).toArray();
+        ThreadInfo[] infos = THREADS.getThreadInfo(ids, false, false);
+        long now = System.nanoTime();
+
+        TraceFlowConfig config = TraceFlowConfig.current();
+        for (ThreadInfo info : infos) {
+            if (info == null) continue;
+            SampledSession session = sessions.get(info.getThreadId());
+            if (session == null) continue;
+            synchronized (session) {
+                session.sample(info.getStackTrace(), now, config);
+            }
+        }
+        TraceFlowMetrics.recordStackSamples(infos.length, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.jth00.traceflow.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Files the web API may read for imports and comparisons
+ *
+ * The web API has no authentication, so requests can only name files inside the directory
+ * given by the agent option importDir (not changeable at runtime). Without it, recordings
+ * must be uploaded in the request body.
+ */
+public class ImportFiles {
+
+    // Directory requests may read from (real path), null if file names are rejected
+    private static volatile Path directory;
+
+    /**
+     * Set the directory requests may read from
+     * @param dir Directory path, null or empty to reject all file names
+     */
+    public static void configure(String dir) {
+        if (dir == null || dir.isEmpty()) {
+            directory = null;
+            return;
+        }
+        try {
+            directory = Paths.get(dir).toRealPath();
+            System.out.println("[TraceFlow] Web API may import files from " + directory);
+        } catch (IOException | InvalidPathException e) {
+            directory = null;
+            System.err.println("[TraceFlow] Import directory not available: " + dir);
+        }
+    }
+
+    /**
+     * Resolve a file named in a request
+     * @param name File name, relative to the import directory or absolute inside it
+     * @return Real path of the file
+     * @throws SecurityException If no directory is configured or the file is outside it
+     * @throws IOException If the file does not exist
+     */
+    public static Path resolve(String name) throws IOException {
+        Path dir = directory;
+        if (dir == null) {
+            throw new SecurityException("Reading files is disabled (agent option importDir), upload the content instead");
+        }
+        Path file;
+        try {
+            // Real path: symbolic links and ".." must not lead out of the directory
+            file = dir.resolve(name).toRealPath();
+        } catch (InvalidPathException e) {
+            throw new IOException("Invalid file name: " + name);
+        }
+        if (!file.startsWith(dir) || !Files.isRegularFile(file)) {
+            throw new SecurityException("File is outside the import directory: " + name);
+        }
+        return file;
+    }
+
+    /**
+     * Write uploaded content to a temporary file (readers like JFR need a file)
+     * @param content Uploaded bytes
+     * @param suffix File suffix (e.g., ".jfr")
+     * @return Temporary file, to be deleted by the caller
+     * @throws IOException If the file cannot be written
+     */
+    public static Path writeTemp(byte[] content, String suffix) throws IOException {
+        Path file = Files.createTempFile("traceflow-upload", suffix);
+        Files.write(file, content);
+        return file;
+    }
+}
@@ -1,11 +1,15 @@
 package io.github.jth00.traceflow.server;
 
+import io.github.jth00.traceflow.servlet.MetricsServlet;
+import io.github.jth00.traceflow.servlet.TraceFlowControlServlet;
 import io.github.jth00.traceflow.servlet.TraceFlowServlet;
 import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.ResourceHandler;
 import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 
 /**
  * Jetty web server for TraceFlow UI
@@ -16,18 +20,28 @@ public class TraceFlowWebServer {
     private static final String WEB_RESOURCE_DIR = "web";
     private static final String WELCOME_FILE = "index.html";
     private static final String LOGS_PATH = "/logs";
+    private static final String CONTROL_PATH = "/control";
+    private static final String METRICS_PATH = "/metrics";
 
     /**
      * Start the web server
+     * @param host Host name or address to listen on
      * @param port Port number to listen on
      */
-    public static void start(int port) {
+    public static void start(String host, int port) {
         if (server != null && server.isRunning()) {
             return;
         }
 
         try {
-            server = new Server(port);
+            // Named request threads, so the overhead governor counts their CPU time
+            QueuedThreadPool threadPool = new QueuedThreadPool();
+            threadPool.setName("traceflow-web");
+            server = new Server(threadPool);
+            ServerConnector connector = new ServerConnector(server);
+            connector.setHost(host);
+            connector.setPort(port);
+            server.addConnector(connector);
 
             // Static resource handler
             ResourceHandler resourceHandler = new ResourceHandler();
@@ -44,6 +58,8 @@ public class TraceFlowWebServer {
             ServletContextHandler servletHandler = new ServletContextHandler(ServletContextHandler.SESSIONS);
             servletHandler.setContextPath("/");
             servletHandler.addServlet(TraceFlowServlet.class, LOGS_PATH);
+            servletHandler.addServlet(TraceFlowControlServlet.class, CONTROL_PATH);
+            servletHandler.addServlet(MetricsServlet.class, METRICS_PATH);
 
             // Combine handlers
             Handler.Sequence handlers = new Handler.Sequence(
@@ -54,7 +70,7 @@ public class TraceFlowWebServer {
             server.setHandler(handlers);
             server.start();
 
-            System.out.println("[TraceFlow] Web UI started at http://localhost:" + port);
+            System.out.println("[TraceFlow] Web UI started at http://" + host + ":" + port);
 
         } catch (Exception e) {
             System.err.println("[TraceFlow] Failed to start web server: " + e.getMessage());
@@ -0,0 +1,90 @@
+package io.github.jth00.traceflow.server;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Starts TraceFlowWebServer on its own thread
+ * Started from premain by default, so the control API (including the detach kill switch) and
+ * metrics are reachable before any entry point runs. With webServer=lazy it starts with the
+ * first stored session instead, keeping Jetty's class loading off the startup path. Static UI
+ * files are only read from the class path when requested.
+ */
+public class WebServerLauncher {
+    private static final String JETTY_SERVER_CLASS = "org.eclipse.jetty.server.Server";
+
+    /** Address the server listens on unless configured: this machine only */
+    public static final String DEFAULT_HOST = "127.0.0.1";
+
+    private static final AtomicBoolean started = new AtomicBoolean(false);
+    private static volatile boolean disabled = false;
+    private static volatile boolean lazy = false;
+    private static volatile int port = 8081;
+    private static volatile String host = DEFAULT_HOST;
+
+    /**
+     * Set the address used when the server starts
+     * The web API has no authentication, so it only listens on the loopback interface
+     * unless another host (e.g., 0.0.0.0 for all interfaces) is configured.
+     * @param serverPort Port number for web server
+     * @param serverHost Host name or address to listen on, null for {@value #DEFAULT_HOST}
+     */
+    public static void configure(int serverPort, String serverHost) {
+        port = serverPort;
+        host = serverHost != null && !serverHost.isEmpty() ? serverHost : DEFAULT_HOST;
+    }
+
+    /**
+     * Never start the web server (e.g., in test JVMs that only read TraceStore in-process)
+     */
+    public static void disable() {
+        disabled = true;
+    }
+
+    /**
+     * Start the web server with the first stored session instead of right away
+     */
+    public static void startLazily() {
+        lazy = true;
+    }
+
+    /**
+     * Start a lazily started web server, called whenever a session is stored
+     */
+    public static void onSessionStored() {
+        if (lazy) {
+            ensureStarted();
+        }
+    }
+
+    /**
+     * Start the web server if it has not been started yet
+     * Only the first call spawns the server thread
+     */
+    public static void ensureStarted() {
+        if (disabled || !started.compareAndSet(false, true)) {
+            return;
+        }
+        lazy = false;
+
+        final int finalPort = port;
+        final String finalHost = host;
+        Thread serverThread = new Thread(() -> {
+            try {
+                // Check if Jetty is available
+                Class.forName(JETTY_SERVER_CLASS);
+
+                // Start TraceFlowWebServer
+                TraceFlowWebServer.start(finalHost, finalPort);
+
+            } catch (ClassNotFoundException e) {
+                System.out.println("[TraceFlow] Jetty not available, web UI disabled");
+            } catch (Exception e) {
+                System.err.println("[TraceFlow] Failed to start web server: " + e.getMessage());
+            }
+        }, "traceflow-web-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        System.out.println("[TraceFlow] Web server starting on " + finalHost + ":" + finalPort);
+    }
+}
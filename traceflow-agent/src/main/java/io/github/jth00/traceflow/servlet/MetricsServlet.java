@@ -0,0 +1,23 @@
+package io.github.jth00.traceflow.servlet;
+
+import io.github.jth00.traceflow.metrics.TraceFlowMetrics;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Prometheus scrape endpoint
+ * Serves entry point and agent health metrics in text exposition format
+ */
+public class MetricsServlet extends HttpServlet {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=UTF-8";
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType(CONTENT_TYPE);
+        resp.setHeader("Cache-Control", "no-cache");
+        resp.getWriter().write(TraceFlowMetrics.toPrometheus());
+    }
+}
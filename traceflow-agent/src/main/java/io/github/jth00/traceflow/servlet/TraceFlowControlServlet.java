@@ -0,0 +1,240 @@
+package io.github.jth00.traceflow.servlet;
+
+import io.github.jth00.traceflow.adaptive.AdaptiveInstrumentation;
+import io.github.jth00.traceflow.agent.TraceFlowAgent;
+import io.github.jth00.traceflow.analysis.RepeatedCallDetector;
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.jdbc.SqlStatistics;
+import io.github.jth00.traceflow.jfr.JfrImporter;
+import io.github.jth00.traceflow.server.ImportFiles;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * REST API servlet for runtime agent control
+ * Changes instrumentation settings and retransforms loaded classes without JVM restart
+ */
+public class TraceFlowControlServlet extends HttpServlet {
+    private static final String ACTION_STATUS = "status";
+    private static final String ACTION_DETACH = "detach";
+    private static final String ACTION_ATTACH = "attach";
+    private static final String ACTION_ADAPTIVE = "adaptive";
+    private static final String ACTION_ADAPTIVE_RESET = "adaptive-reset";
+    private static final String ACTION_IMPORT_JFR = "import-jfr";
+    private static final String ACTION_REPEATED_RESET = "repeated-reset";
+    private static final String ACTION_SQL_RESET = "sql-reset";
+
+    private static final String KEY_CONFIG = "config";
+    private static final String KEY_RETRANSFORMED = "retransformed";
+    private static final String KEY_ATTACHED = "attached";
+    private static final String KEY_CHANGED = "changed";
+    private static final String KEY_ENABLED = "enabled";
+    private static final String KEY_EXCLUDED = "excluded";
+    private static final String KEY_PINNED = "pinned";
+    private static final String KEY_IMPORTED = "imported";
+
+    // Content types a browser cannot send cross-origin without a CORS preflight (never allowed here)
+    private static final String JSON_CONTENT_TYPE = "application/json";
+    private static final String RECORDING_CONTENT_TYPE = "application/octet-stream";
+
+    private static final Type CHANGES_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+
+    /**
+     * Handle GET requests
+     * Supports three modes:
+     * 1. ?action=status - Get attach state and current configuration
+     * 2. ?action=adaptive - Get adaptive instrumentation report
+     * 3. (default) - Get current configuration
+     */
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("application/json; charset=UTF-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        Gson gson = new Gson();
+
+        if (ACTION_STATUS.equals(req.getParameter("action"))) {
+            Map<String, Object> response = new HashMap<>();
+            response.put(KEY_ATTACHED, TraceFlowAgent.isAttached());
+            response.put(KEY_CONFIG, TraceFlowConfig.current());
+            resp.getWriter().write(gson.toJson(response));
+        } else if (ACTION_ADAPTIVE.equals(req.getParameter("action"))) {
+            resp.getWriter().write(gson.toJson(adaptiveReport()));
+        } else {
+            resp.getWriter().write(gson.toJson(TraceFlowConfig.current()));
+        }
+    }
+
+    /**
+     * Handle POST requests
+     * Supports eight modes:
+     * 1. ?action=detach - Remove all instrumentation (kill switch)
+     * 2. ?action=attach - Reinstall instrumentation after detach
+     * 3. ?action=adaptive&amp;enabled=true|false - Toggle adaptive instrumentation
+     * 4. ?action=adaptive-reset - Remove adaptive exclusions and re-instrument
+     * 5. ?action=import-jfr - Import TraceFlow sessions from a flight recording in the request body
+     *    (or ?action=import-jfr&amp;path=app.jfr for a file in the import directory)
+     * 6. ?action=repeated-reset - Clear repeated call findings accumulated across sessions
+     * 7. ?action=sql-reset - Clear SQL statement statistics accumulated across sessions
+     * 8. (default) - Apply configuration changes from the request body
+     *
+     * Body is a JSON object with any of packages, ignoredPackages, excludedClassPatterns,
+     * includeMethods, excludeMethods, excludeAccessors, entryPoints and pinnedMethods;
+     * omitted fields keep their current value. Ignored packages are added to the defaults.
+     * ex) {"packages": ["com.example.order"], "excludeMethods": ["com.example.order.*Mapper.*"]}
+     *
+     * Every request must be sent as application/json (a recording upload as
+     * application/octet-stream), so that web pages cannot post to the API with forms
+     * or other requests that skip the CORS preflight.
+     */
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("application/json; charset=UTF-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        Gson gson = new Gson();
+        String contentType = mediaType(req.getContentType());
+        if (!JSON_CONTENT_TYPE.equals(contentType) && !RECORDING_CONTENT_TYPE.equals(contentType)) {
+            resp.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                "Content-Type must be " + JSON_CONTENT_TYPE + " (or " + RECORDING_CONTENT_TYPE + " for recordings)");
+            return;
+        }
+        // Read the body before any getParameter call, which would consume form-encoded bodies
+        byte[] content = req.getInputStream().readAllBytes();
+        String body = new String(content, StandardCharsets.UTF_8);
+        String action = req.getParameter("action");
+        if (RECORDING_CONTENT_TYPE.equals(contentType) && !ACTION_IMPORT_JFR.equals(action)) {
+            resp.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Content-Type must be " + JSON_CONTENT_TYPE);
+            return;
+        }
+
+        if (ACTION_DETACH.equals(action) || ACTION_ATTACH.equals(action)) {
+            boolean changed = ACTION_DETACH.equals(action) ? TraceFlowAgent.detach() : TraceFlowAgent.attach();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put(KEY_CHANGED, changed);
+            response.put(KEY_ATTACHED, TraceFlowAgent.isAttached());
+            resp.getWriter().write(gson.toJson(response));
+            return;
+        }
+
+        if (ACTION_ADAPTIVE.equals(action)) {
+            if (Boolean.parseBoolean(req.getParameter(KEY_ENABLED))) {
+                AdaptiveInstrumentation.enable();
+            } else {
+                AdaptiveInstrumentation.disable();
+            }
+            resp.getWriter().write(gson.toJson(adaptiveReport()));
+            return;
+        }
+
+        if (ACTION_ADAPTIVE_RESET.equals(action)) {
+            int retransformed = AdaptiveInstrumentation.reset();
+
+            Map<String, Object> response = adaptiveReport();
+            response.put(KEY_RETRANSFORMED, retransformed);
+            resp.getWriter().write(gson.toJson(response));
+            return;
+        }
+
+        if (ACTION_REPEATED_RESET.equals(action) || ACTION_SQL_RESET.equals(action)) {
+            if (ACTION_REPEATED_RESET.equals(action)) {
+                RepeatedCallDetector.reset();
+            } else {
+                SqlStatistics.reset();
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put(KEY_CHANGED, true);
+            resp.getWriter().write(gson.toJson(response));
+            return;
+        }
+
+        if (ACTION_IMPORT_JFR.equals(action)) {
+            String path = req.getParameter("path");
+            if (path == null && content.length == 0) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Recording is required in the request body");
+                return;
+            }
+            int imported;
+            Path upload = null;
+            try {
+                // Named files are only read from the import directory
+                Path file = path != null ? ImportFiles.resolve(path) : (upload = ImportFiles.writeTemp(content, ".jfr"));
+                imported = JfrImporter.importFile(file);
+            } catch (SecurityException e) {
+                resp.sendError(HttpServletResponse.SC_FORBIDDEN, e.getMessage());
+                return;
+            } catch (IOException e) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Cannot read recording: " + e.getMessage());
+                return;
+            } finally {
+                if (upload != null) {
+                    Files.deleteIfExists(upload);
+                }
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put(KEY_IMPORTED, imported);
+            resp.getWriter().write(gson.toJson(response));
+            return;
+        }
+
+        Map<String, Object> changes;
+        try {
+            changes = gson.fromJson(body, CHANGES_TYPE);
+        } catch (JsonParseException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid configuration: " + e.getMessage());
+            return;
+        }
+
+        if (changes == null || changes.isEmpty()) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "No configuration changes");
+            return;
+        }
+
+        // Merged under the agent lock so concurrent adaptive exclusions are kept
+        Map<String, Object> requested = changes;
+        int retransformed;
+        try {
+            retransformed = TraceFlowAgent.reconfigure(config -> config.merge(requested));
+        } catch (IllegalArgumentException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid configuration: " + e.getMessage());
+            return;
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put(KEY_CONFIG, TraceFlowConfig.current());
+        response.put(KEY_RETRANSFORMED, retransformed);
+        resp.getWriter().write(gson.toJson(response));
+    }
+
+    /**
+     * Media type of a Content-Type header without parameters
+     * @param contentType Header value (e.g., application/json; charset=UTF-8) or null
+     * @return Lower case media type, null if absent
+     */
+    private static String mediaType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int separator = contentType.indexOf(';');
+        return (separator >= 0 ? contentType.substring(0, separator) : contentType).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Map<String, Object> adaptiveReport() {
+        Map<String, Object> report = new HashMap<>();
+        report.put(KEY_ENABLED, AdaptiveInstrumentation.isEnabled());
+        report.put(KEY_EXCLUDED, AdaptiveInstrumentation.getExclusions());
+        report.put(KEY_PINNED, TraceFlowConfig.current().getPinnedMethods());
+        return report;
+    }
+}
@@ -1,6 +1,14 @@
 package io.github.jth00.traceflow.servlet;
 
+import io.github.jth00.traceflow.analysis.CriticalPathAnalyzer;
+import io.github.jth00.traceflow.analysis.RepeatedCallDetector;
+import io.github.jth00.traceflow.analysis.ResourceProfiler;
+import io.github.jth00.traceflow.analysis.SessionDiff;
+import io.github.jth00.traceflow.jdbc.SqlStatistics;
+import io.github.jth00.traceflow.propagation.PeerTraceMerger;
+import io.github.jth00.traceflow.server.ImportFiles;
 import io.github.jth00.traceflow.store.TraceStore;
+import io.github.jth00.traceflow.vo.SubtreePage;
 import io.github.jth00.traceflow.vo.TraceEntry;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,12 +26,27 @@ import java.util.*;
 public class TraceFlowServlet extends HttpServlet {
     private static final String ACTION_SESSIONS = "sessions";
     private static final String ACTION_NEW_SESSIONS = "new-sessions";
+    private static final String ACTION_ANALYSIS = "analysis";
+    private static final String ACTION_LINKED = "linked";
+    private static final String ACTION_RESOURCES = "resources";
+    private static final String ACTION_SHAPES = "shapes";
+    private static final String ACTION_REPEATED = "repeated";
+    private static final String ACTION_SQL = "sql";
+    private static final String ACTION_DIFF = "diff";
+    private static final String ACTION_SUBTREE = "subtree";
+    private static final String SIDE_BASELINE = "baseline";
+    private static final String SIDE_CURRENT = "current";
+    private static final String PARAM_MERGE = "merge";
+    private static final String MERGE_PEERS = "peers";
 
     private static final String KEY_SESSIONS = "sessions";
     private static final String KEY_COUNT = "count";
     private static final String KEY_NEW_SESSIONS = "newSessions";
     private static final String KEY_HAS_NEW = "hasNew";
 
+    private static final int DEFAULT_PAGE_SIZE = 200;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private static final Set<String> sentSessions = new HashSet<>();
 
     /**
@@ -32,6 +55,17 @@ public class TraceFlowServlet extends HttpServlet {
      * 1. ?action=sessions - Get all session IDs
      * 2. ?action=new-sessions - Get only new session IDs
      * 3. ?sessionId=xxx - Get trace data for specific session
+     * 4. ?action=analysis&amp;sessionId=xxx - Get critical path and async overlap analysis
+     * 5. ?action=linked&amp;parentSessionId=xxx - Get sessions started by calls of a session in another JVM
+     * 6. ?sessionId=xxx&amp;merge=peers - Get session data merged with linked sessions of peer agents
+     * 7. ?action=resources[&amp;sessionId=xxx] - Get allocation and CPU time per method and call path
+     * 8. ?action=shapes - Get stored sessions grouped by call tree shape
+     * 9. ?action=repeated[&amp;sessionId=xxx] - Get methods called repeatedly under one parent call (N+1)
+     * 10. ?action=sql - Get per-statement statistics of SQL executed in traced calls
+     * 11. ?action=diff&amp;baseline=id1,id2|baselineFrom=&amp;baselineTo=|baselineFile=name[&amp;current...]
+     *     - Compare call paths of two session sets (current defaults to all other stored sessions)
+     * 12. ?action=subtree&amp;sessionId=xxx[&amp;parentId=yyy][&amp;offset=0][&amp;limit=200]
+     *     - Get one page of the direct children of an entry (session roots without parentId)
      */
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
@@ -62,6 +96,105 @@ public class TraceFlowServlet extends HttpServlet {
             response.put(KEY_HAS_NEW, !newSessions.isEmpty());
             resp.getWriter().write(gson.toJson(response));
 
+        } else if (ACTION_ANALYSIS.equals(action) && sessionId != null) {
+            // Critical path analysis, computed on demand
+            List<TraceEntry> entries = TraceStore.getTracesBySession(sessionId);
+            if (entries.isEmpty()) {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown session: " + sessionId);
+                return;
+            }
+            resp.getWriter().write(gson.toJson(CriticalPathAnalyzer.analyze(entries)));
+
+        } else if (ACTION_RESOURCES.equals(action)) {
+            // Resource profile of one session or of all stored sessions
+            List<List<TraceEntry>> sessions = sessionId != null ?
+                List.of(TraceStore.getTracesBySession(sessionId)) : TraceStore.getSessions();
+            resp.getWriter().write(gson.toJson(ResourceProfiler.profile(sessions)));
+
+        } else if (ACTION_REPEATED.equals(action)) {
+            // Repeated calls of one session, or accumulated across flushed sessions
+            List<?> findings = sessionId != null ?
+                RepeatedCallDetector.detect(TraceStore.getTracesBySession(sessionId)) : RepeatedCallDetector.report();
+            resp.getWriter().write(gson.toJson(findings));
+
+        } else if (ACTION_SQL.equals(action)) {
+            // Statement statistics accumulated across traced sessions
+            resp.getWriter().write(gson.toJson(SqlStatistics.report()));
+
+        } else if (ACTION_DIFF.equals(action)) {
+            // Per call path comparison of a baseline and a current session set
+            List<List<TraceEntry>> baseline;
+            List<List<TraceEntry>> current;
+            double threshold;
+            long minDelta;
+            try {
+                baseline = selectSessions(req, SIDE_BASELINE);
+                if (baseline == null) {
+                    resp.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                        "baseline, baselineFrom/baselineTo or baselineFile is required");
+                    return;
+                }
+                current = selectSessions(req, SIDE_CURRENT);
+                if (current == null) {
+                    Set<String> baselineIds = new HashSet<>();
+                    baseline.forEach(entries -> baselineIds.add(entries.get(0).getSessionId()));
+                    current = new ArrayList<>();
+                    for (List<TraceEntry> entries : TraceStore.getSessions()) {
+                        if (!entries.isEmpty() && !baselineIds.contains(entries.get(0).getSessionId())) {
+                            current.add(entries);
+                        }
+                    }
+                }
+                threshold = parseDouble(req.getParameter("threshold"), SessionDiff.DEFAULT_THRESHOLD_PERCENT);
+                minDelta = Math.round(parseDouble(req.getParameter("minDeltaMs"),
+                    SessionDiff.DEFAULT_MIN_DELTA_NANOS / 1_000_000.0) * 1_000_000);
+            } catch (SecurityException e) {
+                resp.sendError(HttpServletResponse.SC_FORBIDDEN, e.getMessage());
+                return;
+            } catch (IOException | IllegalArgumentException e) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Cannot select sessions: " + e.getMessage());
+                return;
+            }
+            resp.getWriter().write(gson.toJson(SessionDiff.compare(baseline, current, threshold, minDelta)));
+
+        } else if (ACTION_SUBTREE.equals(action) && sessionId != null) {
+            // Children of one entry, paged, for sessions too large to fetch at once
+            int offset;
+            int limit;
+            try {
+                offset = Math.max(0, parseInt(req.getParameter("offset"), 0));
+                limit = Math.min(MAX_PAGE_SIZE, Math.max(1, parseInt(req.getParameter("limit"), DEFAULT_PAGE_SIZE)));
+            } catch (NumberFormatException e) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid offset or limit: " + e.getMessage());
+                return;
+            }
+            String parentId = req.getParameter("parentId");
+            SubtreePage page = TraceStore.getSubtree(sessionId, parentId, offset, limit);
+            if (page == null) {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND,
+                    "Unknown session or entry: " + sessionId + (parentId != null ? " / " + parentId : ""));
+                return;
+            }
+            resp.getWriter().write(gson.toJson(page));
+
+        } else if (ACTION_SHAPES.equals(action)) {
+            // Sessions grouped by call tree shape
+            resp.getWriter().write(gson.toJson(TraceStore.getShapeGroups()));
+
+        } else if (ACTION_LINKED.equals(action)) {
+            // Linked sessions pulled by the calling agent
+            String parentSessionId = req.getParameter("parentSessionId");
+            if (parentSessionId == null) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "parentSessionId is required");
+                return;
+            }
+            resp.getWriter().write(gson.toJson(PeerTraceMerger.linkedSessions(parentSessionId)));
+
+        } else if (sessionId != null && MERGE_PEERS.equals(req.getParameter(PARAM_MERGE))) {
+            // Session data with linked sessions of this JVM and peer agents
+            List<TraceEntry> entries = TraceStore.getTracesBySession(sessionId);
+            resp.getWriter().write(gson.toJson(PeerTraceMerger.merge(sessionId, entries, gson)));
+
         } else if (sessionId != null) {
             // Return specific session data
             List<TraceEntry> entries = TraceStore.getTracesBySession(sessionId);
@@ -73,4 +206,40 @@ public class TraceFlowServlet extends HttpServlet {
             resp.getWriter().write(gson.toJson(entries));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Select one side of a comparison
+     * - {side}=id1,id2: stored sessions by ID
+     * - {side}From / {side}To: stored sessions by entry point start time (epoch millis)
+     * - {side}File=name: sessions exported from GET /logs or a .jfr recording, in the import directory
+     * @param req Request
+     * @param side Parameter prefix ("baseline" or "current")
+     * @return Selected sessions, or null if no parameter of the side is present
+     * @throws IOException If the file cannot be read
+     * @throws SecurityException If the file is outside the import directory
+     */
+    private static List<List<TraceEntry>> selectSessions(HttpServletRequest req, String side) throws IOException {
+        String file = req.getParameter(side + "File");
+        if (file != null) {
+            return new ArrayList<>(SessionDiff.readFile(ImportFiles.resolve(file)));
+        }
+
+        String ids = req.getParameter(side);
+        String from = req.getParameter(side + "From");
+        String to = req.getParameter(side + "To");
+        if (ids == null && from == null && to == null) {
+            return null;
+        }
+        Set<String> sessionIds = ids != null ? new HashSet<>(Arrays.asList(ids.split(","))) : null;
+        return SessionDiff.select(TraceStore.getSessions(), sessionIds,
+            from != null ? Long.parseLong(from) : 0, to != null ? Long.parseLong(to) : Long.MAX_VALUE);
+    }
+
+    private static double parseDouble(String value, double defaultValue) {
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.jth00.traceflow.store;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Call tree structure of a session without timings, IDs or errors
+ * Nodes are in pre-order; each node holds its method and the index of its parent.
+ * Equal shapes are interned by TraceStore and shared by all sessions with the same tree.
+ */
+final class SessionShape {
+    private final String[] classNames;
+    private final String[] methodNames;
+    private final String[] returnTypes;
+    private final List<List<String>> parameterTypes;
+    private final int[] parents;
+    private final int hash;
+
+    // Assigned when the shape is added to the pool
+    private int id = -1;
+
+    // Nodes in the subtree of each node, computed on first use
+    private volatile int[] subtreeSizes;
+
+    SessionShape(String[] classNames, String[] methodNames, String[] returnTypes,
+                 List<List<String>> parameterTypes, int[] parents) {
+        this.classNames = classNames;
+        this.methodNames = methodNames;
+        this.returnTypes = returnTypes;
+        this.parameterTypes = parameterTypes;
+        this.parents = parents;
+
+        int h = Arrays.hashCode(parents);
+        for (int i = 0; i < parents.length; i++) {
+            h = 31 * h + Objects.hashCode(classNames[i]);
+            h = 31 * h + Objects.hashCode(methodNames[i]);
+        }
+        this.hash = h;
+    }
+
+    int size() { return parents.length; }
+
+    String className(int node) { return classNames[node]; }
+
+    String methodName(int node) { return methodNames[node]; }
+
+    String returnType(int node) { return returnTypes[node]; }
+
+    List<String> parameterTypes(int node) { return parameterTypes.get(node); }
+
+    /** Index of the parent node, -1 for a root */
+    int parent(int node) { return parents[node]; }
+
+    /**
+     * Number of nodes in the subtree of a node, including the node
+     * Pre-order keeps a subtree contiguous (node .. node + size - 1). A node whose parent
+     * comes after it (a parent cycle) starts its own subtree.
+     * @param node Node index
+     * @return Subtree size
+     */
+    int subtreeSize(int node) {
+        int[] sizes = subtreeSizes;
+        if (sizes == null) {
+            sizes = new int[parents.length];
+            for (int i = parents.length - 1; i >= 0; i--) {
+                sizes[i]++;
+                if (isTreeParent(parents[i], i)) {
+                    sizes[parents[i]] += sizes[i];
+                }
+            }
+            subtreeSizes = sizes;
+        }
+        return sizes[node];
+    }
+
+    /**
+     * Index of the next sibling subtree, or the end of the parent's subtree
+     * @param node Node index
+     * @return Index after the subtree of the node
+     */
+    int subtreeEnd(int node) {
+        return node + subtreeSize(node);
+    }
+
+    private static boolean isTreeParent(int parent, int node) {
+        return parent >= 0 && parent < node;
+    }
+
+    int getId() { return id; }
+
+    void setId(int id) { this.id = id; }
+
+    /**
+     * Rough heap size of the shape (arrays and per node references)
+     * Class, method and type names are shared with MethodInfo and not counted
+     * @return Estimated bytes
+     */
+    long estimateBytes() {
+        return 5 * 16 + parents.length * (4L * 4 + 4);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SessionShape)) return false;
+        SessionShape other = (SessionShape) o;
+        return hash == other.hash
+            && Arrays.equals(parents, other.parents)
+            && Arrays.equals(classNames, other.classNames)
+            && Arrays.equals(methodNames, other.methodNames)
+            && Arrays.equals(returnTypes, other.returnTypes)
+            && parameterTypes.equals(other.parameterTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,349 @@
+package io.github.jth00.traceflow.store;
+
+import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.vo.SubtreePage;
+import io.github.jth00.traceflow.vo.TraceEntry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compact form of a stored session
+ * The call tree is a shared {@link SessionShape}; the session keeps only what differs between
+ * calls of the same shape: entry IDs, start offsets, durations, method types and flags.
+ * Entries carrying errors, captured values, resources or aggregates are kept as they are.
+ */
+final class StoredSession {
+    private static final int FLAG_ASYNC = 1;
+    private static final byte NO_METHOD_TYPE = -1;
+    private static final MethodTypeEnum[] METHOD_TYPES = MethodTypeEnum.values();
+
+    private final String sessionId;
+    private final SessionShape shape;
+    private final long baseTime;
+
+    // Entry IDs as UUID bits (two longs per node), or as strings when not all IDs are UUIDs
+    private final long[] idBits;
+    private final String[] ids;
+
+    private final long[] startOffsets;
+    private final long[] durations;
+    private final byte[] methodTypes;
+    private final byte[] flags;
+
+    // Entries kept as they are, indexed by node; null if every entry is plain
+    private final TraceEntry[] details;
+
+    private StoredSession(String sessionId, SessionShape shape, long baseTime, long[] idBits, String[] ids,
+                          long[] startOffsets, long[] durations, byte[] methodTypes, byte[] flags,
+                          TraceEntry[] details) {
+        this.sessionId = sessionId;
+        this.shape = shape;
+        this.baseTime = baseTime;
+        this.idBits = idBits;
+        this.ids = ids;
+        this.startOffsets = startOffsets;
+        this.durations = durations;
+        this.methodTypes = methodTypes;
+        this.flags = flags;
+        this.details = details;
+    }
+
+    /**
+     * Split the entries of a session into its shape and per call values
+     * @param sessionId Session identifier
+     * @param entries Entries of the session in any order
+     * @param pool Returns the shared instance of an equal shape
+     * @return Compact session
+     */
+    static StoredSession create(String sessionId, List<TraceEntry> entries, UnaryOperator<SessionShape> pool) {
+        int n = entries.size();
+        Map<String, Integer> index = indexById(entries);
+        int[] order = preOrder(entries, index);
+        int[] position = new int[n];
+        for (int p = 0; p < n; p++) {
+            position[order[p]] = p;
+        }
+
+        String[] classNames = new String[n];
+        String[] methodNames = new String[n];
+        String[] returnTypes = new String[n];
+        List<List<String>> parameterTypes = new ArrayList<>(n);
+        int[] parents = new int[n];
+        long[] idBits = new long[2 * n];
+        String[] ids = new String[n];
+        boolean uuids = true;
+        long baseTime = entries.get(order[0]).getStartTime();
+        long[] startOffsets = new long[n];
+        long[] durations = new long[n];
+        byte[] methodTypes = new byte[n];
+        byte[] flags = new byte[n];
+        TraceEntry[] details = null;
+
+        for (int p = 0; p < n; p++) {
+            TraceEntry entry = entries.get(order[p]);
+            Integer parent = entry.getParentId() != null ? index.get(entry.getParentId()) : null;
+            parents[p] = parent != null && parent != order[p] ? position[parent] : -1;
+
+            classNames[p] = entry.getClassName();
+            methodNames[p] = entry.getMethodName();
+            returnTypes[p] = entry.getReturnType();
+            parameterTypes.add(entry.getParameterTypes());
+
+            ids[p] = entry.getId();
+            if (uuids) {
+                uuids = toUuidBits(entry.getId(), idBits, 2 * p);
+            }
+            startOffsets[p] = entry.getStartTime() - baseTime;
+            durations[p] = entry.getDuration();
+            methodTypes[p] = entry.getMethodType() != null ? (byte) entry.getMethodType().ordinal() : NO_METHOD_TYPE;
+            flags[p] = (byte) (entry.isAsync() ? FLAG_ASYNC : 0);
+
+            boolean detached = parents[p] < 0 && entry.getParentId() != null;
+            if (detached || !isPlain(entry, sessionId)) {
+                if (details == null) {
+                    details = new TraceEntry[n];
+                }
+                details[p] = entry;
+            }
+        }
+
+        SessionShape shape = pool.apply(new SessionShape(classNames, methodNames, returnTypes, parameterTypes, parents));
+        return new StoredSession(sessionId, shape, baseTime,
+            uuids ? idBits : null, uuids ? null : ids,
+            startOffsets, durations, methodTypes, flags, details);
+    }
+
+    /**
+     * Rebuild the entries of the session in pre-order
+     * @return New list of entries
+     */
+    List<TraceEntry> toEntries() {
+        int n = shape.size();
+        List<TraceEntry> entries = new ArrayList<>(n);
+        String[] nodeIds = new String[n];
+        for (int p = 0; p < n; p++) {
+            nodeIds[p] = id(p);
+        }
+        for (int p = 0; p < n; p++) {
+            int parent = shape.parent(p);
+            entries.add(entry(p, nodeIds[p], parent >= 0 ? nodeIds[parent] : null));
+        }
+        return entries;
+    }
+
+    /**
+     * Rebuild one page of the direct children of an entry
+     * Only the returned entries are rebuilt, so large sessions can be browsed page by page.
+     * @param parentId Entry ID of the parent, or null for the session roots
+     * @param offset Index of the first child to return
+     * @param limit Maximum number of children to return
+     * @return Page of children, or null if the parent is not part of the session
+     */
+    SubtreePage page(String parentId, int offset, int limit) {
+        int n = shape.size();
+        int first;
+        int end;
+        if (parentId == null) {
+            first = 0;
+            end = n;
+        } else {
+            int parent = indexOf(parentId);
+            if (parent < 0) {
+                return null;
+            }
+            first = parent + 1;
+            end = shape.subtreeEnd(parent);
+        }
+
+        List<SubtreePage.Node> nodes = new ArrayList<>(Math.min(limit, 256));
+        int total = 0;
+        for (int c = first; c < end; c = shape.subtreeEnd(c), total++) {
+            if (total < offset || nodes.size() >= limit) continue;
+            int grandchildren = 0;
+            for (int g = c + 1; g < shape.subtreeEnd(c); g = shape.subtreeEnd(g)) {
+                grandchildren++;
+            }
+            int treeParent = shape.parent(c);
+            String entryParentId = parentId != null ? parentId : treeParent >= 0 ? id(treeParent) : null;
+            nodes.add(new SubtreePage.Node(entry(c, id(c), entryParentId), grandchildren,
+                shape.subtreeSize(c) - 1));
+        }
+        return new SubtreePage(sessionId, parentId, n, total, offset, nodes);
+    }
+
+    SessionShape getShape() { return shape; }
+
+    int size() { return shape.size(); }
+
+    /** Duration of the first root entry */
+    long getRootDuration() { return durations[0]; }
+
+    /**
+     * Rough heap size of the per call values (the shared shape is not counted)
+     * @return Estimated bytes
+     */
+    long estimateBytes() {
+        int n = shape.size();
+        long bytes = 64 + 6 * 16 + n * (8L + 8 + 1 + 1);
+        bytes += idBits != null ? 16L * n : n * (8L + 76);
+        if (details != null) {
+            bytes += 8L * n;
+            for (TraceEntry entry : details) {
+                if (entry != null) bytes += entry.estimateBytes();
+            }
+        }
+        return bytes;
+    }
+
+    // -------------------- Helpers --------------------
+
+    private TraceEntry entry(int node, String nodeId, String parentId) {
+        if (details != null && details[node] != null) {
+            return details[node];
+        }
+        byte type = methodTypes[node];
+        return TraceEntry.builder()
+            .id(nodeId)
+            .parentId(parentId)
+            .sessionId(sessionId)
+            .className(shape.className(node))
+            .methodName(shape.methodName(node))
+            .returnType(shape.returnType(node))
+            .parameterTypes(shape.parameterTypes(node))
+            .startTime(baseTime + startOffsets[node])
+            .duration(durations[node])
+            .async((flags[node] & FLAG_ASYNC) != 0)
+            .methodType(type != NO_METHOD_TYPE ? METHOD_TYPES[type] : null)
+            .build();
+    }
+
+    /**
+     * Node index of an entry ID
+     * @return Index, or -1 if the ID is not part of the session
+     */
+    private int indexOf(String entryId) {
+        int n = shape.size();
+        if (idBits == null) {
+            for (int p = 0; p < n; p++) {
+                if (entryId.equals(ids[p])) return p;
+            }
+            return -1;
+        }
+        long[] bits = new long[2];
+        if (!toUuidBits(entryId, bits, 0)) {
+            return -1;
+        }
+        for (int p = 0; p < n; p++) {
+            if (idBits[2 * p] == bits[0] && idBits[2 * p + 1] == bits[1]) return p;
+        }
+        return -1;
+    }
+
+    private String id(int node) {
+        if (idBits == null) {
+            return ids[node];
+        }
+        return new UUID(idBits[2 * node], idBits[2 * node + 1]).toString();
+    }
+
+    private static boolean isPlain(TraceEntry entry, String sessionId) {
+        return !entry.isError() && entry.getErrorType() == null && entry.getErrorMessage() == null &&
+            entry.getStackTrace() == null && entry.getArguments() == null && entry.getReturnValue() == null &&
+            entry.getResources() == null && entry.getAggregate() == null && entry.getSql() == null &&
+            sessionId.equals(entry.getSessionId());
+    }
+
+    /**
+     * Store a canonical UUID string as two longs
+     * @return false if the ID does not round-trip through UUID
+     */
+    private static boolean toUuidBits(String id, long[] bits, int offset) {
+        if (id == null || id.length() != 36) {
+            return false;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            if (!uuid.toString().equals(id)) {
+                return false;
+            }
+            bits[offset] = uuid.getMostSignificantBits();
+            bits[offset + 1] = uuid.getLeastSignificantBits();
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, Integer> indexById(List<TraceEntry> entries) {
+        Map<String, Integer> index = new HashMap<>(entries.size() * 2);
+        for (int i = 0; i < entries.size(); i++) {
+            index.putIfAbsent(entries.get(i).getId(), i);
+        }
+        return index;
+    }
+
+    /**
+     * Order entries depth first, siblings by start time then by recording order
+     * Entries whose parent is missing from the session (or unreachable) become roots.
+     * @return Entry indexes in pre-order
+     */
+    private static int[] preOrder(List<TraceEntry> entries, Map<String, Integer> index) {
+        int n = entries.size();
+        List<List<Integer>> children = new ArrayList<>(n);
+        List<Integer> roots = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            children.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            String parentId = entries.get(i).getParentId();
+            Integer parent = parentId != null ? index.get(parentId) : null;
+            if (parent == null || parent == i) {
+                roots.add(i);
+            } else {
+                children.get(parent).add(i);
+            }
+        }
+
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        int count = visit(entries, roots, children, order, visited, 0);
+        // Entries on a parent cycle are unreachable from any root
+        for (int i = 0; i < n && count < n; i++) {
+            if (!visited[i]) {
+                count = visit(entries, List.of(i), children, order, visited, count);
+            }
+        }
+        return order;
+    }
+
+    private static int visit(List<TraceEntry> entries, List<Integer> roots, List<List<Integer>> children,
+                             int[] order, boolean[] visited, int count) {
+        Deque<Integer> stack = new ArrayDeque<>();
+        pushSorted(entries, roots, stack);
+        while (!stack.isEmpty()) {
+            int i = stack.pop();
+            if (visited[i]) continue;
+            visited[i] = true;
+            order[count++] = i;
+            pushSorted(entries, children.get(i), stack);
+        }
+        return count;
+    }
+
+    private static void pushSorted(List<TraceEntry> entries, List<Integer> nodes, Deque<Integer> stack) {
+        nodes.sort((a, b) -> {
+            int c = Long.compare(entries.get(a).getStartTime(), entries.get(b).getStartTime());
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        for (int k = nodes.size() - 1; k >= 0; k--) {
+            stack.push(nodes.get(k));
+        }
+    }
+}
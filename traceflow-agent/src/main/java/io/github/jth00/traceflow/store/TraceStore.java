@@ -1,19 +1,49 @@
 package io.github.jth00.traceflow.store;
 
+import io.github.jth00.traceflow.analysis.RepeatedCallDetector;
+import io.github.jth00.traceflow.capture.ValueCapture;
+import io.github.jth00.traceflow.export.CollectorExporter;
+import io.github.jth00.traceflow.server.WebServerLauncher;
+import io.github.jth00.traceflow.vo.SessionLink;
+import io.github.jth00.traceflow.vo.ShapeGroup;
+import io.github.jth00.traceflow.vo.SubtreePage;
 import io.github.jth00.traceflow.vo.TraceEntry;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Thread-safe storage for trace data
  * Manages trace entries organized by session
+ *
+ * Sessions are stored compactly: the call tree shape (methods and parent structure) is
+ * interned in a shared pool and each session keeps only its IDs, timings and errors.
+ * Entries are rebuilt when a session is read.
  */
 public class TraceStore {
     // Session-based data storage
-    private static final Map<String, List<TraceEntry>> sessionData = new ConcurrentHashMap<>();
+    private static final Map<String, StoredSession> sessionData = new ConcurrentHashMap<>();
     private static final Set<String> completedSessions = ConcurrentHashMap.newKeySet();
 
+    // Sessions started by a call from another JVM (session ID -> link)
+    private static final Map<String, SessionLink> sessionLinks = new ConcurrentHashMap<>();
+
+    // Shared call tree shapes
+    private static final Map<SessionShape, SessionShape> shapes = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextShapeId = new AtomicInteger();
+
+    // Whether sessions are kept in this JVM (false when they are only pushed to a collector)
+    private static volatile boolean localStore = true;
+
+    /**
+     * Keep sessions in this JVM or only push them to the collector
+     * @param enabled false to skip local storage (the web server still serves the control API and metrics)
+     */
+    public static void setLocalStore(boolean enabled) {
+        localStore = enabled;
+    }
+
     /**
      * Add trace entries for a session
      * @param entries List of trace entries to add
@@ -22,17 +52,51 @@ public class TraceStore {
         if (entries.isEmpty()) return;
 
         String sessionId = entries.get(0).getSessionId();
-        sessionData.put(sessionId, new ArrayList<>(entries));
+        RepeatedCallDetector.record(entries);
+        export(entries, sessionLinks.get(sessionId));
+        WebServerLauncher.onSessionStored();
+        if (!localStore) {
+            sessionLinks.remove(sessionId);
+            return;
+        }
+
+        sessionData.put(sessionId, StoredSession.create(sessionId, entries, TraceStore::intern));
         completedSessions.add(sessionId);
     }
 
+    /**
+     * Replace a stored session with entries recorded after it was flushed
+     * Used once the last async call of a flushed session completed; the session is exported
+     * again, and the collector replaces its copy by session ID.
+     * @param entries All entries of the session
+     */
+    public static void updateTraces(List<TraceEntry> entries) {
+        if (entries.isEmpty()) return;
+
+        String sessionId = entries.get(0).getSessionId();
+        export(entries, sessionLinks.get(sessionId));
+        if (!localStore) {
+            return;
+        }
+        sessionData.put(sessionId, StoredSession.create(sessionId, entries, TraceStore::intern));
+        completedSessions.add(sessionId);
+    }
+
+    /**
+     * Render captured values off the traced thread, then queue the session for the collectors
+     * Exporting first would encode values that are still pending.
+     */
+    private static void export(List<TraceEntry> entries, SessionLink link) {
+        ValueCapture.scheduleRender(entries, () -> CollectorExporter.export(entries, link));
+    }
+
     /**
      * Get all trace entries (for backward compatibility)
      * @return Combined list of all trace entries
      */
     public static List<TraceEntry> getTraces() {
         List<TraceEntry> allEntries = new ArrayList<>();
-        sessionData.values().forEach(allEntries::addAll);
+        sessionData.values().forEach(session -> allEntries.addAll(session.toEntries()));
         return allEntries;
     }
 
@@ -42,7 +106,63 @@ public class TraceStore {
      * @return List of trace entries for the session
      */
     public static List<TraceEntry> getTracesBySession(String sessionId) {
-        return sessionData.getOrDefault(sessionId, new ArrayList<>());
+        StoredSession session = sessionData.get(sessionId);
+        return session != null ? session.toEntries() : new ArrayList<>();
+    }
+
+    /**
+     * Get one page of the direct children of an entry, without rebuilding the whole session
+     * @param sessionId Session identifier
+     * @param parentId Entry ID of the parent, or null for the session roots
+     * @param offset Index of the first child
+     * @param limit Maximum number of children
+     * @return Page of children, or null if the session or the parent entry is unknown
+     */
+    public static SubtreePage getSubtree(String sessionId, String parentId, int offset, int limit) {
+        StoredSession session = sessionData.get(sessionId);
+        return session != null ? session.page(parentId, offset, limit) : null;
+    }
+
+    /**
+     * Get the entries of all stored sessions
+     * @return Entry lists, one per session
+     */
+    public static List<List<TraceEntry>> getSessions() {
+        List<List<TraceEntry>> sessions = new ArrayList<>();
+        sessionData.values().forEach(session -> sessions.add(session.toEntries()));
+        return sessions;
+    }
+
+    /**
+     * Group stored sessions by call tree shape, largest groups first
+     * @return Shape groups
+     */
+    public static List<ShapeGroup> getShapeGroups() {
+        Map<SessionShape, List<String>> sessionIds = new HashMap<>();
+        Map<SessionShape, long[]> durations = new HashMap<>();  // total, max
+        sessionData.forEach((id, session) -> {
+            sessionIds.computeIfAbsent(session.getShape(), k -> new ArrayList<>()).add(id);
+            long[] stats = durations.computeIfAbsent(session.getShape(), k -> new long[2]);
+            stats[0] += session.getRootDuration();
+            stats[1] = Math.max(stats[1], session.getRootDuration());
+        });
+
+        List<ShapeGroup> groups = new ArrayList<>();
+        sessionIds.forEach((shape, ids) -> {
+            long[] stats = durations.get(shape);
+            groups.add(new ShapeGroup(shape.getId(), shape.className(0), shape.methodName(0), shape.size(),
+                ids.size(), stats[0] / ids.size(), stats[1], ids));
+        });
+        groups.sort(Comparator.comparingInt(ShapeGroup::getSessionCount).reversed());
+        return groups;
+    }
+
+    /**
+     * Get number of distinct call tree shapes
+     * @return Shape count
+     */
+    public static int getShapeCount() {
+        return shapes.size();
     }
 
     /**
@@ -53,15 +173,97 @@ public class TraceStore {
         return new HashSet<>(completedSessions);
     }
 
+    /**
+     * Link a session to the remote call that started it
+     * @param link Session link
+     */
+    public static void linkSession(SessionLink link) {
+        sessionLinks.put(link.getSessionId(), link);
+    }
+
+    /**
+     * Get stored sessions started by calls of a parent session
+     * @param parentSessionId Session ID in the calling JVM
+     * @return Links of completed child sessions
+     */
+    public static List<SessionLink> getLinkedSessions(String parentSessionId) {
+        List<SessionLink> links = new ArrayList<>();
+        for (SessionLink link : sessionLinks.values()) {
+            if (link.getParentSessionId().equals(parentSessionId) &&
+                completedSessions.contains(link.getSessionId())) {
+                links.add(link);
+            }
+        }
+        return links;
+    }
+
+    /**
+     * Get sessions started by calls of a parent session that are not stored yet
+     * @param parentSessionId Session ID in the calling JVM
+     * @return Session IDs of linked sessions still running
+     */
+    public static List<String> getRunningLinkedSessions(String parentSessionId) {
+        List<String> sessionIds = new ArrayList<>();
+        for (SessionLink link : sessionLinks.values()) {
+            if (link.getParentSessionId().equals(parentSessionId) &&
+                !completedSessions.contains(link.getSessionId())) {
+                sessionIds.add(link.getSessionId());
+            }
+        }
+        return sessionIds;
+    }
+
+    /**
+     * Get number of stored sessions
+     * @return Session count
+     */
+    public static int getSessionCount() {
+        return sessionData.size();
+    }
+
+    /**
+     * Get number of stored entries across all sessions
+     * @return Entry count
+     */
+    public static long getEntryCount() {
+        long count = 0;
+        for (StoredSession session : sessionData.values()) {
+            count += session.size();
+        }
+        return count;
+    }
+
+    /**
+     * Estimate heap size of stored entries
+     * @return Estimated bytes
+     */
+    public static long estimateBytes() {
+        long bytes = 0;
+        for (StoredSession session : sessionData.values()) {
+            bytes += session.estimateBytes();
+        }
+        for (SessionShape shape : shapes.keySet()) {
+            bytes += shape.estimateBytes();
+        }
+        return bytes;
+    }
+
     /**
      * Get session summary (session ID -> entry count)
      * @return Map of session IDs to entry counts
      */
     public static Map<String, Integer> getSessionSummary() {
         Map<String, Integer> summary = new HashMap<>();
-        sessionData.forEach((id, entries) -> {
-            summary.put(id, entries.size());
+        sessionData.forEach((id, session) -> {
+            summary.put(id, session.size());
         });
         return summary;
     }
+
+    private static SessionShape intern(SessionShape shape) {
+        return shapes.computeIfAbsent(shape, added -> {
+            added.setId(nextShapeId.incrementAndGet());
+            return added;
+        });
+    }
 }
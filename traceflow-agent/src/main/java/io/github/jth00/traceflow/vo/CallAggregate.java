@@ -0,0 +1,67 @@
+package io.github.jth00.traceflow.vo;
+
+/**
+ * Count and timing of several calls represented by one entry
+ * Used for consecutive repeats of the same sibling call and for calls cut off by session limits.
+ * Accumulated by the thread owning the parent frame, then attached to an entry.
+ */
+public class CallAggregate {
+    private long count;
+    private long totalNanos;
+    private long minNanos;
+    private long maxNanos;
+    private long errorCount;
+
+    // Summed thread CPU time and allocation of measured calls (not serialized)
+    private transient long cpuNanos;
+    private transient long allocatedBytes;
+
+    public CallAggregate() {
+        this.minNanos = Long.MAX_VALUE;
+    }
+
+    public CallAggregate(long count, long totalNanos, long minNanos, long maxNanos, long errorCount) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.minNanos = minNanos;
+        this.maxNanos = maxNanos;
+        this.errorCount = errorCount;
+    }
+
+    /**
+     * Add one call
+     * @param nanos Elapsed time of the call
+     * @param error true if the call threw
+     * @param resources Resource usage of the call or null if not measured
+     */
+    public void add(long nanos, boolean error, ResourceUsage resources) {
+        count++;
+        totalNanos += nanos;
+        minNanos = Math.min(minNanos, nanos);
+        maxNanos = Math.max(maxNanos, nanos);
+        if (error) errorCount++;
+        if (resources != null) {
+            cpuNanos += resources.getCpuNanos();
+            allocatedBytes += resources.getAllocatedBytes();
+        }
+    }
+
+    /**
+     * Summed resource usage of the aggregated calls
+     * @return Usage with total CPU time, allocation and wall time
+     */
+    public ResourceUsage toResourceUsage() {
+        return new ResourceUsage(allocatedBytes, cpuNanos, totalNanos);
+    }
+
+    // Getters
+    public long getCount() { return count; }
+
+    public long getTotalNanos() { return totalNanos; }
+
+    public long getMinNanos() { return count > 0 ? minNanos : 0; }
+
+    public long getMaxNanos() { return maxNanos; }
+
+    public long getErrorCount() { return errorCount; }
+}
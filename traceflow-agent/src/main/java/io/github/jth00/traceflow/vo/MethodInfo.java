@@ -0,0 +1,49 @@
+package io.github.jth00.traceflow.vo;
+
+import java.util.List;
+
+/**
+ * Static description of an instrumented method
+ * Resolved once per method signature and shared by all trace entries of that method
+ */
+public class MethodInfo {
+    // Descriptor end of Kotlin suspend functions: a trailing Continuation parameter, Object result
+    private static final String SUSPEND_DESCRIPTOR_END = "Lkotlin/coroutines/Continuation;)Ljava/lang/Object;";
+
+    private final int id;
+    private final String signature;
+    private final String className;
+    private final String methodName;
+    private final String returnType;
+    private final List<String> parameterTypes;
+    private final boolean suspend;
+
+    public MethodInfo(int id, String signature, String className, String methodName,
+                      String returnType, List<String> parameterTypes) {
+        this.id = id;
+        this.signature = signature;
+        this.className = className;
+        this.methodName = methodName;
+        this.returnType = returnType;
+        this.parameterTypes = parameterTypes;
+        this.suspend = signature.endsWith(SUSPEND_DESCRIPTOR_END);
+    }
+
+    // Getters
+    public int getId() { return id; }
+
+    public String getSignature() { return signature; }
+
+    public String getClassName() { return className; }
+
+    public String getMethodName() { return methodName; }
+
+    public String getReturnType() { return returnType; }
+
+    public List<String> getParameterTypes() { return parameterTypes; }
+
+    public int getParameterCount() { return parameterTypes.size(); }
+
+    /** True for Kotlin suspend functions, which may return before their call completes */
+    public boolean isSuspend() { return suspend; }
+}
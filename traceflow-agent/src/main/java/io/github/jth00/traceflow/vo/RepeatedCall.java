@@ -0,0 +1,112 @@
+package io.github.jth00.traceflow.vo;
+
+/**
+ * A method called many times under the same parent call (N+1 pattern)
+ * Either one occurrence in a session or the sum of occurrences across sessions.
+ */
+public class RepeatedCall {
+    private final String entryPoint;
+    private final String parentMethod;
+    private final String className;
+    private final String methodName;
+    private final boolean dataAccess;
+
+    private int sessions;
+    private long occurrences;
+    private long totalCalls;
+    private long maxCalls;
+    private long totalDuration;
+
+    // Most recent session with this pattern, and the parent entry in that session
+    private String sessionId;
+    private String parentEntryId;
+
+    public RepeatedCall(String entryPoint, String parentMethod, String className, String methodName,
+                        boolean dataAccess) {
+        this.entryPoint = entryPoint;
+        this.parentMethod = parentMethod;
+        this.className = className;
+        this.methodName = methodName;
+        this.dataAccess = dataAccess;
+    }
+
+    /**
+     * Add one parent call that repeated the method
+     * @param calls Number of calls under the parent
+     * @param duration Cumulative duration of the calls in milliseconds
+     * @param sessionId Session of the parent call
+     * @param parentEntryId Entry ID of the parent call
+     */
+    public void add(long calls, long duration, String sessionId, String parentEntryId) {
+        if (!sessionId.equals(this.sessionId)) {
+            sessions++;
+        }
+        occurrences++;
+        totalCalls += calls;
+        maxCalls = Math.max(maxCalls, calls);
+        totalDuration += duration;
+        this.sessionId = sessionId;
+        this.parentEntryId = parentEntryId;
+    }
+
+    /**
+     * Add the occurrences of one session
+     * @param session Occurrences found in a single session
+     */
+    public synchronized void merge(RepeatedCall session) {
+        sessions++;
+        occurrences += session.occurrences;
+        totalCalls += session.totalCalls;
+        maxCalls = Math.max(maxCalls, session.maxCalls);
+        totalDuration += session.totalDuration;
+        sessionId = session.sessionId;
+        parentEntryId = session.parentEntryId;
+    }
+
+    /**
+     * Snapshot of this accumulator
+     * @return Copy with the current counts
+     */
+    public synchronized RepeatedCall copy() {
+        RepeatedCall copy = new RepeatedCall(entryPoint, parentMethod, className, methodName, dataAccess);
+        copy.sessions = sessions;
+        copy.occurrences = occurrences;
+        copy.totalCalls = totalCalls;
+        copy.maxCalls = maxCalls;
+        copy.totalDuration = totalDuration;
+        copy.sessionId = sessionId;
+        copy.parentEntryId = parentEntryId;
+        return copy;
+    }
+
+    // Getters
+    /** Entry point of the sessions ("SimpleClass.method") */
+    public String getEntryPoint() { return entryPoint; }
+
+    /** Method making the repeated calls ("SimpleClass.method") */
+    public String getParentMethod() { return parentMethod; }
+
+    public String getClassName() { return className; }
+
+    public String getMethodName() { return methodName; }
+
+    /** True if the method matches the data access patterns */
+    public boolean isDataAccess() { return dataAccess; }
+
+    public int getSessions() { return sessions; }
+
+    /** Number of parent calls that repeated the method */
+    public long getOccurrences() { return occurrences; }
+
+    public long getTotalCalls() { return totalCalls; }
+
+    /** Most calls under a single parent call */
+    public long getMaxCalls() { return maxCalls; }
+
+    /** Cumulative duration of the repeated calls in milliseconds */
+    public long getTotalDuration() { return totalDuration; }
+
+    public String getSessionId() { return sessionId; }
+
+    public String getParentEntryId() { return parentEntryId; }
+}
@@ -0,0 +1,88 @@
+package io.github.jth00.traceflow.vo;
+
+import java.util.List;
+
+/**
+ * Heap allocation and CPU time aggregated per method and per call path
+ * Only entries recorded while resource measurement was enabled are counted.
+ */
+public class ResourceProfile {
+    private final int sessionCount;
+    private final int measuredEntries;
+    private final List<Row> methods;
+    private final List<Row> paths;
+
+    public ResourceProfile(int sessionCount, int measuredEntries, List<Row> methods, List<Row> paths) {
+        this.sessionCount = sessionCount;
+        this.measuredEntries = measuredEntries;
+        this.methods = methods;
+        this.paths = paths;
+    }
+
+    // Getters
+    public int getSessionCount() { return sessionCount; }
+
+    public int getMeasuredEntries() { return measuredEntries; }
+
+    /** Rows keyed by "Class.method", sorted by self allocation */
+    public List<Row> getMethods() { return methods; }
+
+    /** Rows keyed by the call path from the entry point ("A.run &gt; B.load"), sorted by self allocation */
+    public List<Row> getPaths() { return paths; }
+
+    /**
+     * Totals of one method or path
+     * - total: including traced children
+     * - self: excluding traced children
+     * - waitNanos: self wall time not spent on CPU (blocked, waiting or descheduled)
+     */
+    public static class Row {
+        private final String key;
+        private long calls;
+        private long allocatedBytes;
+        private long selfAllocatedBytes;
+        private long cpuNanos;
+        private long selfCpuNanos;
+        private long wallNanos;
+        private long selfWallNanos;
+        private long waitNanos;
+
+        public Row(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Add one measured call
+         * @param total Usage including children
+         * @param children Summed usage of traced children
+         */
+        public void add(ResourceUsage total, long[] children) {
+            calls++;
+            allocatedBytes += total.getAllocatedBytes();
+            cpuNanos += total.getCpuNanos();
+            wallNanos += total.getWallNanos();
+            selfAllocatedBytes += Math.max(0, total.getAllocatedBytes() - children[0]);
+            selfCpuNanos += Math.max(0, total.getCpuNanos() - children[1]);
+            selfWallNanos += Math.max(0, total.getWallNanos() - children[2]);
+            waitNanos = Math.max(0, selfWallNanos - selfCpuNanos);
+        }
+
+        public String getKey() { return key; }
+
+        public long getCalls() { return calls; }
+
+        public long getAllocatedBytes() { return allocatedBytes; }
+
+        public long getSelfAllocatedBytes() { return selfAllocatedBytes; }
+
+        public long getCpuNanos() { return cpuNanos; }
+
+        public long getSelfCpuNanos() { return selfCpuNanos; }
+
+        public long getWallNanos() { return wallNanos; }
+
+        public long getSelfWallNanos() { return selfWallNanos; }
+
+        public long getWaitNanos() { return waitNanos; }
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.jth00.traceflow.vo;
+
+/**
+ * Heap allocation and CPU time of one traced call, measured on the calling thread
+ * Includes traced children and the tracing overhead of those children.
+ */
+public class ResourceUsage {
+    private final long allocatedBytes;
+    private final long cpuNanos;
+    private final long wallNanos;
+
+    public ResourceUsage(long allocatedBytes, long cpuNanos, long wallNanos) {
+        this.allocatedBytes = allocatedBytes;
+        this.cpuNanos = cpuNanos;
+        this.wallNanos = wallNanos;
+    }
+
+    // Getters
+    public long getAllocatedBytes() { return allocatedBytes; }
+
+    public long getCpuNanos() { return cpuNanos; }
+
+    public long getWallNanos() { return wallNanos; }
+}
@@ -0,0 +1,118 @@
+package io.github.jth00.traceflow.vo;
+
+import java.util.List;
+
+/**
+ * Critical path and async overlap analysis of one session
+ * All times are in milliseconds (the resolution of trace entries)
+ */
+public class SessionAnalysis {
+    private final String sessionId;
+    private final String rootId;
+    private final long totalDuration;
+    private final List<String> criticalPath;
+    private final List<Segment> segments;
+    private final List<AsyncChild> asyncChildren;
+    private final String boundingAsyncId;
+    private final int maxAsyncConcurrency;
+
+    public SessionAnalysis(String sessionId, String rootId, long totalDuration,
+                           List<String> criticalPath, List<Segment> segments,
+                           List<AsyncChild> asyncChildren, String boundingAsyncId,
+                           int maxAsyncConcurrency) {
+        this.sessionId = sessionId;
+        this.rootId = rootId;
+        this.totalDuration = totalDuration;
+        this.criticalPath = criticalPath;
+        this.segments = segments;
+        this.asyncChildren = asyncChildren;
+        this.boundingAsyncId = boundingAsyncId;
+        this.maxAsyncConcurrency = maxAsyncConcurrency;
+    }
+
+    // Getters
+    public String getSessionId() { return sessionId; }
+
+    public String getRootId() { return rootId; }
+
+    public long getTotalDuration() { return totalDuration; }
+
+    /** Entry IDs on the critical path, from the root down */
+    public List<String> getCriticalPath() { return criticalPath; }
+
+    /** Time ranges attributed to each critical entry's own work */
+    public List<Segment> getSegments() { return segments; }
+
+    public List<AsyncChild> getAsyncChildren() { return asyncChildren; }
+
+    /** Async entry contributing most to the critical path, or null */
+    public String getBoundingAsyncId() { return boundingAsyncId; }
+
+    public int getMaxAsyncConcurrency() { return maxAsyncConcurrency; }
+
+    /**
+     * Part of the critical path spent in an entry itself (not in its children)
+     */
+    public static class Segment {
+        private final String entryId;
+        private final long start;
+        private final long end;
+
+        public Segment(String entryId, long start, long end) {
+            this.entryId = entryId;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getEntryId() { return entryId; }
+
+        public long getStart() { return start; }
+
+        public long getEnd() { return end; }
+    }
+
+    /**
+     * Concurrency report of an async entry
+     * - overlap: time running alongside at least one sibling call
+     * - wait: time within the parent call not covered by synchronous siblings
+     *   (the parent was blocked or doing untraced work)
+     * - critical: time of this entry's subtree on the critical path
+     */
+    public static class AsyncChild {
+        private final String entryId;
+        private final String parentId;
+        private final String method;
+        private final long start;
+        private final long duration;
+        private final long overlap;
+        private final long wait;
+        private final long critical;
+        private final boolean detached;
+
+        public AsyncChild(String entryId, String parentId, String method, long start, long duration,
+                          long overlap, long wait, long critical, boolean detached) {
+            this.entryId = entryId;
+            this.parentId = parentId;
+            this.method = method;
+            this.start = start;
+            this.duration = duration;
+            this.overlap = overlap;
+            this.wait = wait;
+            this.critical = critical;
+            this.detached = detached;
+        }
+
+        public String getEntryId() { return entryId; }
+
+        public String getMethod() { return method; }
+
+        public long getOverlap() { return overlap; }
+
+        public long getWait() { return wait; }
+
+        public long getCritical() { return critical; }
+
+        /** Completed after the entry point returned, so it could not bound its latency */
+        public boolean isDetached() { return detached; }
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.jth00.traceflow.vo;
+
+import java.util.List;
+
+/**
+ * Per call path differences between a baseline and a current set of sessions
+ * Values are averaged per session, so sets of different sizes can be compared.
+ */
+public class SessionComparison {
+    private final int baselineSessions;
+    private final int currentSessions;
+    private final double thresholdPercent;
+    private final long minDeltaNanos;
+    private final int regressions;
+    private final List<Row> rows;
+
+    public SessionComparison(int baselineSessions, int currentSessions, double thresholdPercent,
+                             long minDeltaNanos, int regressions, List<Row> rows) {
+        this.baselineSessions = baselineSessions;
+        this.currentSessions = currentSessions;
+        this.thresholdPercent = thresholdPercent;
+        this.minDeltaNanos = minDeltaNanos;
+        this.regressions = regressions;
+        this.rows = rows;
+    }
+
+    // Getters
+    public int getBaselineSessions() { return baselineSessions; }
+
+    public int getCurrentSessions() { return currentSessions; }
+
+    public double getThresholdPercent() { return thresholdPercent; }
+
+    public long getMinDeltaNanos() { return minDeltaNanos; }
+
+    /** Number of rows flagged as significant regressions */
+    public int getRegressions() { return regressions; }
+
+    /** Rows keyed by the call path from the entry point ("A.run &gt; B.load"), regressions first */
+    public List<Row> getRows() { return rows; }
+
+    /**
+     * One call path in both sets
+     * - calls, totalNanos and selfNanos are means per session (0 when the path is absent)
+     * - self time excludes synchronous traced children
+     */
+    public static class Row {
+        private final String key;
+        private final String path;
+        private final int depth;
+        private final String status;
+        private final boolean significant;
+
+        private final double baselineCalls;
+        private final double currentCalls;
+        private final long baselineTotalNanos;
+        private final long currentTotalNanos;
+        private final long baselineSelfNanos;
+        private final long currentSelfNanos;
+
+        // Deltas are stored as fields so they are part of the JSON response
+        private final double callsDelta;
+        private final long totalDeltaNanos;
+        private final long selfDeltaNanos;
+        private final double selfChangePercent;
+
+        public Row(String key, String path, int depth, String status, boolean significant,
+                   double baselineCalls, double currentCalls,
+                   long baselineTotalNanos, long currentTotalNanos,
+                   long baselineSelfNanos, long currentSelfNanos) {
+            this.key = key;
+            this.path = path;
+            this.depth = depth;
+            this.status = status;
+            this.significant = significant;
+            this.baselineCalls = baselineCalls;
+            this.currentCalls = currentCalls;
+            this.baselineTotalNanos = baselineTotalNanos;
+            this.currentTotalNanos = currentTotalNanos;
+            this.baselineSelfNanos = baselineSelfNanos;
+            this.currentSelfNanos = currentSelfNanos;
+            this.callsDelta = currentCalls - baselineCalls;
+            this.totalDeltaNanos = currentTotalNanos - baselineTotalNanos;
+            this.selfDeltaNanos = currentSelfNanos - baselineSelfNanos;
+            this.selfChangePercent = baselineSelfNanos > 0 ? 100.0 * selfDeltaNanos / baselineSelfNanos : 0;
+        }
+
+        /** Call path with fully qualified class names and parameter types, unique per row */
+        public String getKey() { return key; }
+
+        /** Call path with simple class names for display, may be shared by rows of equally named classes */
+        public String getPath() { return path; }
+
+        /** Depth below the entry point (0 for the entry point) */
+        public int getDepth() { return depth; }
+
+        /** REGRESSED, IMPROVED, ADDED, REMOVED or UNCHANGED */
+        public String getStatus() { return status; }
+
+        /** true if the self time change exceeds the thresholds and the session to session noise */
+        public boolean isSignificant() { return significant; }
+
+        public double getBaselineCalls() { return baselineCalls; }
+
+        public double getCurrentCalls() { return currentCalls; }
+
+        public long getBaselineTotalNanos() { return baselineTotalNanos; }
+
+        public long getCurrentTotalNanos() { return currentTotalNanos; }
+
+        public long getBaselineSelfNanos() { return baselineSelfNanos; }
+
+        public long getCurrentSelfNanos() { return currentSelfNanos; }
+
+        public double getCallsDelta() { return callsDelta; }
+
+        public long getTotalDeltaNanos() { return totalDeltaNanos; }
+
+        public long getSelfDeltaNanos() { return selfDeltaNanos; }
+
+        /** Self time change in percent, 0 when the path is absent from the baseline */
+        public double getSelfChangePercent() { return selfChangePercent; }
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.jth00.traceflow.vo;
+
+/**
+ * Link of a local session to the remote call that started it
+ * Created when an entry point runs for a request carrying a TraceFlow context header
+ */
+public class SessionLink {
+    private final String sessionId;
+    private final String parentSessionId;
+    private final String parentEntryId;
+
+    public SessionLink(String sessionId, String parentSessionId, String parentEntryId) {
+        this.sessionId = sessionId;
+        this.parentSessionId = parentSessionId;
+        this.parentEntryId = parentEntryId;
+    }
+
+    // Getters
+    public String getSessionId() { return sessionId; }
+
+    public String getParentSessionId() { return parentSessionId; }
+
+    public String getParentEntryId() { return parentEntryId; }
+}
@@ -0,0 +1,49 @@
+package io.github.jth00.traceflow.vo;
+
+import java.util.List;
+
+/**
+ * Stored sessions sharing the same call tree shape
+ */
+public class ShapeGroup {
+    private final int shapeId;
+    private final String rootClassName;
+    private final String rootMethodName;
+    private final int entryCount;
+    private final int sessionCount;
+    private final long avgDuration;
+    private final long maxDuration;
+    private final List<String> sessionIds;
+
+    public ShapeGroup(int shapeId, String rootClassName, String rootMethodName, int entryCount,
+                      int sessionCount, long avgDuration, long maxDuration, List<String> sessionIds) {
+        this.shapeId = shapeId;
+        this.rootClassName = rootClassName;
+        this.rootMethodName = rootMethodName;
+        this.entryCount = entryCount;
+        this.sessionCount = sessionCount;
+        this.avgDuration = avgDuration;
+        this.maxDuration = maxDuration;
+        this.sessionIds = sessionIds;
+    }
+
+    // Getters
+    public int getShapeId() { return shapeId; }
+
+    public String getRootClassName() { return rootClassName; }
+
+    public String getRootMethodName() { return rootMethodName; }
+
+    /** Entries per session */
+    public int getEntryCount() { return entryCount; }
+
+    public int getSessionCount() { return sessionCount; }
+
+    /** Average root duration in milliseconds */
+    public long getAvgDuration() { return avgDuration; }
+
+    /** Longest root duration in milliseconds */
+    public long getMaxDuration() { return maxDuration; }
+
+    public List<String> getSessionIds() { return sessionIds; }
+}
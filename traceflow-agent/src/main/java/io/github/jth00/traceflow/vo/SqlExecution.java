@@ -0,0 +1,37 @@
+package io.github.jth00.traceflow.vo;
+
+/**
+ * SQL statement executed by a traced call
+ * Rows of a query are counted while its result set is read, so the count of a
+ * SELECT grows after the entry is recorded.
+ */
+public class SqlExecution {
+    private final String sql;
+    private long rows;
+
+    // Statistics of the statement, also updated while rows are read (not serialized)
+    private final transient SqlStatistic statistic;
+
+    public SqlExecution(String sql, long rows, SqlStatistic statistic) {
+        this.sql = sql;
+        this.rows = rows;
+        this.statistic = statistic;
+    }
+
+    /**
+     * Count one row read from the result set of a query
+     */
+    public void addRow() {
+        rows++;
+        if (statistic != null) {
+            statistic.addRows(1);
+        }
+    }
+
+    // Getters
+    /** Normalized SQL text (literals replaced by ?) */
+    public String getSql() { return sql; }
+
+    /** Updated or read rows, -1 if unknown */
+    public long getRows() { return rows; }
+}
@@ -0,0 +1,77 @@
+package io.github.jth00.traceflow.vo;
+
+/**
+ * Executions of one normalized SQL statement, accumulated across traced sessions
+ */
+public class SqlStatistic {
+    private final String sql;
+
+    private long executions;
+    private long errors;
+    private long totalNanos;
+    private long maxNanos;
+    private long rows;
+
+    // Most recent session executing the statement
+    private String sessionId;
+
+    public SqlStatistic(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * Add one execution
+     * @param nanos Execution time
+     * @param error true if the statement failed
+     * @param rows Updated rows, or 0 for a query whose rows are counted later
+     * @param sessionId Session of the execution
+     */
+    public synchronized void add(long nanos, boolean error, long rows, String sessionId) {
+        executions++;
+        if (error) errors++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        if (rows > 0) this.rows += rows;
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * Add rows read from the result set of an execution
+     * @param count Number of rows
+     */
+    public synchronized void addRows(long count) {
+        rows += count;
+    }
+
+    /**
+     * Snapshot of this accumulator
+     * @return Copy with the current counts
+     */
+    public synchronized SqlStatistic copy() {
+        SqlStatistic copy = new SqlStatistic(sql);
+        copy.executions = executions;
+        copy.errors = errors;
+        copy.totalNanos = totalNanos;
+        copy.maxNanos = maxNanos;
+        copy.rows = rows;
+        copy.sessionId = sessionId;
+        return copy;
+    }
+
+    // Getters
+    /** Normalized SQL text (literals replaced by ?) */
+    public String getSql() { return sql; }
+
+    public long getExecutions() { return executions; }
+
+    public long getErrors() { return errors; }
+
+    public long getTotalNanos() { return totalNanos; }
+
+    public long getMaxNanos() { return maxNanos; }
+
+    /** Updated rows plus rows read from query results */
+    public long getRows() { return rows; }
+
+    public String getSessionId() { return sessionId; }
+}
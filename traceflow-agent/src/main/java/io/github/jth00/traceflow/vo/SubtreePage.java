@@ -0,0 +1,66 @@
+package io.github.jth00.traceflow.vo;
+
+import java.util.List;
+
+/**
+ * One page of the direct children of an entry in a stored session
+ * Lets the web UI browse sessions too large to fetch at once, expanding nodes on demand.
+ */
+public class SubtreePage {
+    private final String sessionId;
+    private final String parentId;
+    private final int sessionSize;
+    private final int totalChildren;
+    private final int offset;
+    private final List<Node> nodes;
+
+    public SubtreePage(String sessionId, String parentId, int sessionSize, int totalChildren,
+                       int offset, List<Node> nodes) {
+        this.sessionId = sessionId;
+        this.parentId = parentId;
+        this.sessionSize = sessionSize;
+        this.totalChildren = totalChildren;
+        this.offset = offset;
+        this.nodes = nodes;
+    }
+
+    // Getters
+    public String getSessionId() { return sessionId; }
+
+    /** Parent entry ID, null for the session roots */
+    public String getParentId() { return parentId; }
+
+    /** Number of entries in the whole session */
+    public int getSessionSize() { return sessionSize; }
+
+    /** Number of direct children of the parent (all pages) */
+    public int getTotalChildren() { return totalChildren; }
+
+    /** Index of the first node of this page among the children */
+    public int getOffset() { return offset; }
+
+    public List<Node> getNodes() { return nodes; }
+
+    /**
+     * Child entry with the size of its own subtree, so the UI can lay it out before expanding it
+     */
+    public static class Node {
+        private final TraceEntry entry;
+        private final int childCount;
+        private final int descendantCount;
+
+        public Node(TraceEntry entry, int childCount, int descendantCount) {
+            this.entry = entry;
+            this.childCount = childCount;
+            this.descendantCount = descendantCount;
+        }
+
+        public TraceEntry getEntry() { return entry; }
+
+        /** Number of direct children */
+        public int getChildCount() { return childCount; }
+
+        /** Number of entries below this one */
+        public int getDescendantCount() { return descendantCount; }
+    }
+}
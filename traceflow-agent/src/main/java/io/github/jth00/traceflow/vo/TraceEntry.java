@@ -1,5 +1,6 @@
 package io.github.jth00.traceflow.vo;
 
+import io.github.jth00.traceflow.capture.CapturedValue;
 import io.github.jth00.traceflow.enums.MethodTypeEnum;
 
 import java.util.List;
@@ -24,35 +25,248 @@ public class TraceEntry {
     private final String errorMessage;
     private final String stackTrace;
     private MethodTypeEnum methodType;
+    private final List<CapturedValue> arguments;
+    private final CapturedValue returnValue;
+    private final ResourceUsage resources;
+    private final CallAggregate aggregate;
+    private final SqlExecution sql;
+    private final String errorOriginId;
 
-    public TraceEntry(String id, String parentId, String sessionId,
-                      String className, String methodName, String returnType,
-                      List<String> parameterTypes,
-                      long startTime, long duration, boolean isAsync,
-                      boolean isError, String errorType, String errorMessage,
-                      String stackTrace,
-                      MethodTypeEnum methodType) {
-        this.id = id;
-        this.parentId = parentId;
-        this.sessionId = sessionId;
-        this.className = className;
-        this.methodName = methodName;
-        this.returnType = returnType;
-        this.parameterTypes = parameterTypes;
-        this.startTime = startTime;
-        this.duration = duration;
-        this.isAsync = isAsync;
-        this.isError = isError;
-        this.errorType = errorType;
-        this.errorMessage = errorMessage;
-        this.stackTrace = stackTrace;
-        this.methodType = methodType;
+    private TraceEntry(Builder builder) {
+        this.id = builder.id;
+        this.parentId = builder.parentId;
+        this.sessionId = builder.sessionId;
+        this.className = builder.className;
+        this.methodName = builder.methodName;
+        this.returnType = builder.returnType;
+        this.parameterTypes = builder.parameterTypes;
+        this.startTime = builder.startTime;
+        this.duration = builder.duration;
+        this.isAsync = builder.isAsync;
+        this.isError = builder.isError;
+        this.errorType = builder.errorType;
+        this.errorMessage = builder.errorMessage;
+        this.stackTrace = builder.stackTrace;
+        this.methodType = builder.methodType;
+        this.arguments = builder.arguments;
+        this.returnValue = builder.returnValue;
+        this.resources = builder.resources;
+        this.aggregate = builder.aggregate;
+        this.sql = builder.sql;
+        this.errorOriginId = builder.errorOriginId;
+    }
+
+    /**
+     * Start a new entry; fields that are not set stay null, 0 or false
+     * @return Empty builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Start a modified copy of this entry
+     * @return Builder holding all fields of this entry
+     */
+    public Builder toBuilder() {
+        return new Builder()
+            .id(id).parentId(parentId).sessionId(sessionId)
+            .className(className).methodName(methodName).returnType(returnType).parameterTypes(parameterTypes)
+            .startTime(startTime).duration(duration).async(isAsync)
+            .error(isError, errorType, errorMessage).stackTrace(stackTrace).methodType(methodType)
+            .arguments(arguments).returnValue(returnValue).resources(resources)
+            .aggregate(aggregate).sql(sql).errorOriginId(errorOriginId);
+    }
+
+    /**
+     * Copy of this entry standing for a run of repeated calls
+     * Duration and resource usage become the totals of the run.
+     * @param aggregate Count and timing of the run, including this call
+     * @return Aggregated entry
+     */
+    public TraceEntry withAggregate(CallAggregate aggregate) {
+        return toBuilder()
+            .duration(aggregate.getTotalNanos() / 1_000_000)
+            .resources(resources != null ? aggregate.toResourceUsage() : null)
+            .aggregate(aggregate)
+            .build();
+    }
+
+    /**
+     * Builder of trace entries
+     * Most entries only set a few of the optional fields (values, resources, SQL, ...).
+     */
+    public static class Builder {
+        private String id;
+        private String parentId;
+        private String sessionId;
+        private String className;
+        private String methodName;
+        private String returnType;
+        private List<String> parameterTypes = List.of();
+        private long startTime;
+        private long duration;
+        private boolean isAsync;
+        private boolean isError;
+        private String errorType;
+        private String errorMessage;
+        private String stackTrace;
+        private MethodTypeEnum methodType;
+        private List<CapturedValue> arguments;
+        private CapturedValue returnValue;
+        private ResourceUsage resources;
+        private CallAggregate aggregate;
+        private SqlExecution sql;
+        private String errorOriginId;
+
+        private Builder() {
+        }
+
+        public Builder id(String id) { this.id = id; return this; }
+
+        public Builder parentId(String parentId) { this.parentId = parentId; return this; }
+
+        public Builder sessionId(String sessionId) { this.sessionId = sessionId; return this; }
+
+        public Builder className(String className) { this.className = className; return this; }
+
+        public Builder methodName(String methodName) { this.methodName = methodName; return this; }
+
+        public Builder returnType(String returnType) { this.returnType = returnType; return this; }
+
+        public Builder parameterTypes(List<String> parameterTypes) { this.parameterTypes = parameterTypes; return this; }
+
+        /**
+         * Class, method name, return and parameter types of an instrumented method
+         * @param method Method description
+         * @return This builder
+         */
+        public Builder method(MethodInfo method) {
+            return className(method.getClassName())
+                .methodName(method.getMethodName())
+                .returnType(method.getReturnType())
+                .parameterTypes(method.getParameterTypes());
+        }
+
+        public Builder startTime(long startTime) { this.startTime = startTime; return this; }
+
+        public Builder duration(long duration) { this.duration = duration; return this; }
+
+        public Builder async(boolean isAsync) { this.isAsync = isAsync; return this; }
+
+        public Builder error(boolean isError, String errorType, String errorMessage) {
+            this.isError = isError;
+            this.errorType = errorType;
+            this.errorMessage = errorMessage;
+            return this;
+        }
+
+        /**
+         * Error flag, type and message of an exception thrown by the call
+         * @param error Exception or null if the call succeeded
+         * @return This builder
+         */
+        public Builder error(Throwable error) {
+            return error != null ?
+                error(true, error.getClass().getSimpleName(), error.getMessage()) : error(false, null, null);
+        }
+
+        public Builder stackTrace(String stackTrace) { this.stackTrace = stackTrace; return this; }
+
+        public Builder methodType(MethodTypeEnum methodType) { this.methodType = methodType; return this; }
+
+        public Builder arguments(List<CapturedValue> arguments) { this.arguments = arguments; return this; }
+
+        public Builder returnValue(CapturedValue returnValue) { this.returnValue = returnValue; return this; }
+
+        public Builder resources(ResourceUsage resources) { this.resources = resources; return this; }
+
+        public Builder aggregate(CallAggregate aggregate) { this.aggregate = aggregate; return this; }
+
+        public Builder sql(SqlExecution sql) { this.sql = sql; return this; }
+
+        public Builder errorOriginId(String errorOriginId) { this.errorOriginId = errorOriginId; return this; }
+
+        public TraceEntry build() {
+            return new TraceEntry(this);
+        }
     }
 
     // Getters
+    public String getId() { return id; }
+
+    public String getParentId() { return parentId; }
+
     public String getSessionId() { return sessionId; }
 
+    public String getClassName() { return className; }
+
+    public String getMethodName() { return methodName; }
+
+    public String getReturnType() { return returnType; }
+
+    public List<String> getParameterTypes() { return parameterTypes; }
+
+    public long getStartTime() { return startTime; }
+
+    public long getDuration() { return duration; }
+
+    public boolean isError() { return isError; }
+
+    public String getErrorType() { return errorType; }
+
+    public String getErrorMessage() { return errorMessage; }
+
+    public String getStackTrace() { return stackTrace; }
+
+    public MethodTypeEnum getMethodType() { return methodType; }
+
     public boolean isAsync() {
         return isAsync;
     }
+
+    /**
+     * Rough heap size of this entry (object headers, references and string contents)
+     * Class, method and type names are shared with MethodInfo and not counted
+     * @return Estimated bytes
+     */
+    public long estimateBytes() {
+        long bytes = 128 + 3 * 76;  // entry + id/parentId/sessionId UUID strings
+        if (errorMessage != null) bytes += 40 + errorMessage.length();
+        if (stackTrace != null) bytes += 40 + stackTrace.length();
+        if (arguments != null) {
+            for (CapturedValue argument : arguments) {
+                bytes += estimateBytes(argument);
+            }
+        }
+        if (returnValue != null) bytes += estimateBytes(returnValue);
+        if (resources != null) bytes += 40;
+        if (aggregate != null) bytes += 56;
+        if (sql != null) bytes += 64 + sql.getSql().length();
+        if (errorOriginId != null) bytes += 76;
+        return bytes;
+    }
+
+    private static long estimateBytes(CapturedValue value) {
+        String text = value.getValue();
+        return 32 + (text != null ? 40 + text.length() : 0);
+    }
+
+    /** Captured parameter values, null when capture is disabled */
+    public List<CapturedValue> getArguments() { return arguments; }
+
+    /** Captured return value, null when capture is disabled or the method is void */
+    public CapturedValue getReturnValue() { return returnValue; }
+
+    /** Allocation and CPU time of the call, null unless resources are measured */
+    public ResourceUsage getResources() { return resources; }
+
+    /** Count and timing of the calls this entry stands for, null for a single call */
+    public CallAggregate getAggregate() { return aggregate; }
+
+    /** Executed SQL statement, null unless this is a {@link MethodTypeEnum#SQL} entry */
+    public SqlExecution getSql() { return sql; }
+
+    /** Entry of the call that threw the exception this call propagated, null if this call threw it */
+    public String getErrorOriginId() { return errorOriginId; }
 }
\ No newline at end of file
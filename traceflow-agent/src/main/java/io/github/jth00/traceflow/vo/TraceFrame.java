@@ -0,0 +1,229 @@
+package io.github.jth00.traceflow.vo;
+
+import io.github.jth00.traceflow.capture.CapturedValue;
+import io.github.jth00.traceflow.enums.RecordModeEnum;
+import io.github.jth00.traceflow.jfr.TraceFlowEvent;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+
+/**
+ * In-flight state of a traced method call
+ * Created by the enter advice and handed to the exit advice of the same invocation
+ */
+public class TraceFrame {
+    private final MethodInfo method;
+    private final String id;
+    private final String parentId;
+    private final String sessionId;
+    private final long startTime;
+    private final long enterNanos;
+    private final long startNanos;
+    private final TraceFrame parent;
+    private final RecordModeEnum mode;
+    private final int depth;
+
+    // Accumulated wall time of direct children, used for self time
+    private long childNanos;
+
+    // Captured parameter values, null unless the method is captured
+    private List<CapturedValue> arguments;
+
+    // Thread CPU time and allocated bytes at body start, -1 unless resources are measured
+    private long startCpuNanos = -1;
+    private long startAllocatedBytes = -1;
+
+    // Flight recorder event of the call, null unless a recording enables it
+    private TraceFlowEvent flightEvent;
+
+    // Last finished direct child, held back while its repeats are folded into it
+    private MethodInfo runMethod;
+    private TraceEntry runEntry;
+    private CallAggregate runAggregate;
+
+    // Direct children cut off by session limits, null if none
+    private CallAggregate truncated;
+    private String truncatedReason;
+    private long truncatedStartTime;
+
+    // Kotlin suspend calls: own state machine, continuation of the caller, and suspension state
+    // Continuations are held weakly: they key the frame in CoroutineTracer's weak maps, and a
+    // strong reference from the frame would keep both alive for a coroutine that never resumes
+    private WeakReference<Object> continuation;
+    private WeakReference<Object> completion;
+    private volatile boolean suspended;
+    private boolean resumed;
+
+    public TraceFrame(MethodInfo method, String id, String parentId, String sessionId,
+                      long startTime, long enterNanos, long startNanos, TraceFrame parent,
+                      RecordModeEnum mode) {
+        this.method = method;
+        this.id = id;
+        this.parentId = parentId;
+        this.sessionId = sessionId;
+        this.startTime = startTime;
+        this.enterNanos = enterNanos;
+        this.startNanos = startNanos;
+        this.parent = parent;
+        this.mode = mode;
+        this.depth = parent != null ? parent.depth + 1 : 0;
+    }
+
+    /**
+     * Add the elapsed time of a finished direct child call
+     * Only called from the thread owning this frame
+     * @param nanos Child elapsed time in nanoseconds
+     */
+    public void addChildNanos(long nanos) {
+        childNanos += nanos;
+    }
+
+    // Getters
+    public MethodInfo getMethod() { return method; }
+
+    public String getId() { return id; }
+
+    public String getParentId() { return parentId; }
+
+    public String getSessionId() { return sessionId; }
+
+    public long getStartTime() { return startTime; }
+
+    /** Time the enter advice started, before any tracing overhead */
+    public long getEnterNanos() { return enterNanos; }
+
+    /** Time the method body started, after tracing overhead */
+    public long getStartNanos() { return startNanos; }
+
+    public TraceFrame getParent() { return parent; }
+
+    public RecordModeEnum getMode() { return mode; }
+
+    /** True if the call gets its own entry */
+    public boolean isRecorded() { return mode == RecordModeEnum.RECORDED; }
+
+    /** Number of traced callers on this thread (0 for the session root) */
+    public int getDepth() { return depth; }
+
+    public long getChildNanos() { return childNanos; }
+
+    /** Captured parameter values, null unless the method is captured */
+    public List<CapturedValue> getArguments() { return arguments; }
+
+    public void setArguments(List<CapturedValue> arguments) {
+        this.arguments = arguments;
+    }
+
+    /**
+     * Record thread CPU time and allocated bytes at body start
+     * @param cpuNanos Thread CPU time
+     * @param allocatedBytes Thread allocated bytes
+     */
+    public void setResourceStart(long cpuNanos, long allocatedBytes) {
+        this.startCpuNanos = cpuNanos;
+        this.startAllocatedBytes = allocatedBytes;
+    }
+
+    /** True if CPU time and allocation are measured for this call */
+    public boolean isResourceMeasured() { return startCpuNanos >= 0; }
+
+    public long getStartCpuNanos() { return startCpuNanos; }
+
+    public long getStartAllocatedBytes() { return startAllocatedBytes; }
+
+    public TraceFlowEvent getFlightEvent() { return flightEvent; }
+
+    public void setFlightEvent(TraceFlowEvent flightEvent) {
+        this.flightEvent = flightEvent;
+    }
+
+    // -------------------- Child Runs --------------------
+
+    /**
+     * Hold back a finished child entry so following repeats can be folded into it
+     * Only called from the thread owning this frame
+     * @param method Method of the child
+     * @param entry Entry of the child
+     * @param aggregate Aggregate already holding the child call
+     */
+    public void startRun(MethodInfo method, TraceEntry entry, CallAggregate aggregate) {
+        this.runMethod = method;
+        this.runEntry = entry;
+        this.runAggregate = aggregate;
+    }
+
+    /**
+     * Release the held back child entry
+     * @return Entry and aggregate of the run or null if no child is held back
+     */
+    public TraceEntry takeRunEntry() {
+        TraceEntry entry = runEntry;
+        if (entry != null && runAggregate.getCount() > 1) {
+            entry = entry.withAggregate(runAggregate);
+        }
+        runMethod = null;
+        runEntry = null;
+        runAggregate = null;
+        return entry;
+    }
+
+    /** Method of the held back child entry, null if none */
+    public MethodInfo getRunMethod() { return runMethod; }
+
+    public CallAggregate getRunAggregate() { return runAggregate; }
+
+    /**
+     * Get the summary of children cut off by session limits, creating it on first use
+     * @param reason Limit that cut off the first child
+     * @param startTime Wall clock start time of the cut off child
+     * @return Summary aggregate
+     */
+    public CallAggregate truncated(String reason, long startTime) {
+        if (truncated == null) {
+            truncated = new CallAggregate();
+            truncatedReason = reason;
+            truncatedStartTime = startTime;
+        }
+        return truncated;
+    }
+
+    /** Summary of children cut off by session limits, null if none */
+    public CallAggregate getTruncated() { return truncated; }
+
+    public String getTruncatedReason() { return truncatedReason; }
+
+    public long getTruncatedStartTime() { return truncatedStartTime; }
+
+    // -------------------- Suspension --------------------
+
+    /** State machine of a suspend call, called again each time the call resumes; null if none */
+    public Object getContinuation() { return continuation != null ? continuation.get() : null; }
+
+    public void setContinuation(Object continuation) {
+        this.continuation = continuation != null ? new WeakReference<>(continuation) : null;
+    }
+
+    /** Continuation of the caller, passed as the last argument of a suspend call */
+    public Object getCompletion() { return completion != null ? completion.get() : null; }
+
+    public void setCompletion(Object completion) {
+        this.completion = completion != null ? new WeakReference<>(completion) : null;
+    }
+
+    /** True while a suspend call waits to be resumed */
+    public boolean isSuspended() { return suspended; }
+
+    /**
+     * Mark a suspend call as suspended or running again
+     * @param suspended true when the call returned COROUTINE_SUSPENDED
+     */
+    public void setSuspended(boolean suspended) {
+        this.suspended = suspended;
+        if (!suspended) {
+            this.resumed = true;
+        }
+    }
+
+    /** True once a suspended call ran again, so its later segments are not new calls */
+    public boolean isResumed() { return resumed; }
+}
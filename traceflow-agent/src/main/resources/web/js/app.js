@@ -4,6 +4,8 @@ let loadedSessions = new Map();
 let autoRefresh = false;
 let autoRefreshTimer = null;
 let currentData = null;
+let currentAnalysis = null;
+let currentRepeated = [];
 let filters = {
     showAccessors: false,
     mergeDuplicates: false
@@ -12,15 +14,20 @@ let zoomBehavior = null;
 let currentZoom = 1;
 let modalOpen = false;
 
+// Sessions larger than this are drawn on a canvas and their children loaded page by page
+const LARGE_SESSION_NODES = 2000;
+const SUBTREE_PAGE_SIZE = 200;
+let largeTree = null;
+
 // ========== Modal Functions ==========
-function openModal(nodeData) {
+function openModal(nodeData, repeated = null) {
     modalOpen = true;
     const modal = document.getElementById('modal');
     const modalBody = document.getElementById('modal-body');
 
     if (zoomBehavior) {
-        d3.select("svg").on('.zoom', null);
-        d3.select("svg").classed('modal-open', true);
+        zoomSelection().on('.zoom', null);
+        zoomSelection().classed('modal-open', true);
     }
 
     let html = `
@@ -35,6 +42,16 @@ function openModal(nodeData) {
         </div>
     `;
 
+    // Calls merged from a peer agent
+    if (nodeData.peer) {
+        html += `
+            <div class="modal-row">
+                <div class="modal-label">Peer</div>
+                <div class="modal-value">${nodeData.peer}</div>
+            </div>
+        `;
+    }
+
     // Show additional info for merged methods
     if (nodeData.mergedCount && nodeData.mergedCount > 1) {
         html += `
@@ -50,13 +67,57 @@ function openModal(nodeData) {
         `;
     }
 
+    // Method called repeatedly under its parent call (N+1)
+    if (repeated) {
+        html += `
+            <div class="modal-row">
+                <div class="modal-label">⚠️ Repeated</div>
+                <div class="modal-value">${repeated.totalCalls} calls under ${repeated.parentMethod}, ${repeated.totalDuration}ms in total${repeated.dataAccess ? ' (data access)' : ''}</div>
+            </div>
+        `;
+    }
+
+    // JDBC statement executed by the parent call
+    if (nodeData.sql) {
+        html += `
+            <div class="modal-row">
+                <div class="modal-label">SQL</div>
+                <div class="modal-value sql-text">${escapeHtml(nodeData.sql.sql)}</div>
+            </div>
+
+            <div class="modal-row">
+                <div class="modal-label">Rows</div>
+                <div class="modal-value">${nodeData.sql.rows >= 0 ? nodeData.sql.rows : '<span class="no-param">(unknown)</span>'}</div>
+            </div>
+        `;
+    }
+
+    // Repeated calls folded into this entry, or calls cut off by a session limit
+    if (nodeData.aggregate) {
+        const agg = nodeData.aggregate;
+        html += `
+            <div class="modal-row">
+                <div class="modal-label">${nodeData.methodType === 'TRUNCATED' ? 'Not Recorded' : 'Repeated Calls'}</div>
+                <div class="modal-value">${agg.count} calls${agg.errorCount > 0 ? ` (${agg.errorCount} failed)` : ''}</div>
+            </div>
+
+            <div class="modal-row">
+                <div class="modal-label">Total / Min / Max</div>
+                <div class="modal-value">${formatNanos(agg.totalNanos)} / ${formatNanos(agg.minNanos)} / ${formatNanos(agg.maxNanos)} (avg: ${formatNanos(agg.totalNanos / agg.count)})</div>
+            </div>
+        `;
+    }
+
     html += `
         <div class="modal-row">
             <div class="modal-label">Parameters</div>
             <div>
                 ${nodeData.parameterTypes && nodeData.parameterTypes.length > 0
                     ? `<ul class="param-list">
-                        ${nodeData.parameterTypes.map(type => `<li class="param-item">${type}</li>`).join('')}
+                        ${nodeData.parameterTypes.map((type, i) => `<li class="param-item">${type}${
+                            nodeData.arguments && nodeData.arguments[i]
+                                ? ` = <span class="captured-value">${formatCapturedValue(nodeData.arguments[i])}</span>`
+                                : ''}</li>`).join('')}
                        </ul>`
                     : '<div class="no-param">No parameters</div>'
                 }
@@ -65,12 +126,19 @@ function openModal(nodeData) {
 
         <div class="modal-row">
             <div class="modal-label">Return Type</div>
-            <div class="modal-value">${nodeData.returnType}</div>
+            <div class="modal-value">${nodeData.returnType ?? '<span class="no-param">(not instrumented)</span>'}</div>
         </div>
 
+        ${nodeData.returnValue ? `
+            <div class="modal-row">
+                <div class="modal-label">Return Value</div>
+                <div class="modal-value captured-value">${formatCapturedValue(nodeData.returnValue)}</div>
+            </div>
+        ` : ''}
+
         <div class="modal-row">
             <div class="modal-label">Duration</div>
-            <div class="modal-value">${nodeData.duration}ms</div>
+            <div class="modal-value">${formatDuration(nodeData)}${isSampled(nodeData) ? ' (estimated from stack samples)' : ''}</div>
         </div>
 
         <div class="modal-row">
@@ -80,10 +148,40 @@ function openModal(nodeData) {
 
         <div class="modal-row">
             <div class="modal-label">Async</div>
-            <div class="modal-value">${nodeData.async ? 'Yes' : 'No'}</div>
+            <div class="modal-value">${nodeData.isAsync ? 'Yes' : 'No'}</div>
         </div>
     `;
 
+    if (nodeData.resources) {
+        const res = nodeData.resources;
+        html += `
+            <div class="modal-row">
+                <div class="modal-label">CPU / Wall</div>
+                <div class="modal-value">${formatNanos(res.cpuNanos)} / ${formatNanos(res.wallNanos)}</div>
+            </div>
+
+            <div class="modal-row">
+                <div class="modal-label">Allocated</div>
+                <div class="modal-value">${formatBytes(res.allocatedBytes)}</div>
+            </div>
+        `;
+    }
+
+    const asyncChild = findAsyncChild(nodeData);
+    if (asyncChild) {
+        html += `
+            <div class="modal-row">
+                <div class="modal-label">Critical Time</div>
+                <div class="modal-value">${asyncChild.critical}ms${asyncChild.detached ? ' (detached)' : ''}</div>
+            </div>
+
+            <div class="modal-row">
+                <div class="modal-label">Overlap / Wait</div>
+                <div class="modal-value">${asyncChild.overlap}ms / ${asyncChild.wait}ms</div>
+            </div>
+        `;
+    }
+
     if (nodeData.isError) {
         html += `
             <div class="error-section">
@@ -108,6 +206,13 @@ function openModal(nodeData) {
                         <div class="modal-value stack-trace">${nodeData.stackTrace}</div>
                     </div>
                 ` : ''}
+
+                ${nodeData.errorOriginId ? `
+                    <div class="modal-row">
+                        <div class="modal-label">Thrown In</div>
+                        <div class="modal-value">${describeErrorOrigin(nodeData.errorOriginId)}</div>
+                    </div>
+                ` : ''}
             </div>
         `;
     }
@@ -116,14 +221,59 @@ function openModal(nodeData) {
     modal.classList.add('active');
 }
 
+/**
+ * Call that threw an exception propagated by another call (holds the stack trace)
+ */
+function describeErrorOrigin(originId) {
+    const origin = currentData && currentData.find(entry => entry.id === originId);
+    return origin ? callLabel(origin) : '<span class="no-param">(not recorded)</span>';
+}
+
+function isSampled(nodeData) {
+    return nodeData.methodType === 'SAMPLED';
+}
+
+function formatDuration(nodeData) {
+    return `${isSampled(nodeData) ? '~' : ''}${nodeData.duration}ms`;
+}
+
+function formatNanos(nanos) {
+    return nanos >= 1000000 ? `${(nanos / 1000000).toFixed(1)}ms` : `${Math.round(nanos / 1000)}µs`;
+}
+
+function formatBytes(bytes) {
+    if (bytes >= 1024 * 1024) return `${(bytes / (1024 * 1024)).toFixed(1)} MB`;
+    if (bytes >= 1024) return `${(bytes / 1024).toFixed(1)} KB`;
+    return `${bytes} B`;
+}
+
+/**
+ * Render a captured parameter/return value as escaped text
+ * Values are rendered in the background, so a missing value is still pending
+ */
+function formatCapturedValue(captured) {
+    if (captured.value === undefined || captured.value === null) {
+        return '<span class="no-param">(rendering...)</span>';
+    }
+    const text = captured.value
+        .replace(/&/g, '&amp;')
+        .replace(/</g, '&lt;')
+        .replace(/>/g, '&gt;')
+        .replace(/"/g, '&quot;');
+    return captured.truncated ? `${text} <span class="no-param">(truncated)</span>` : text;
+}
+
 function closeModal() {
     modalOpen = false;
     const modal = document.getElementById('modal');
     modal.classList.remove('active');
 
     if (zoomBehavior) {
-        d3.select("svg").call(zoomBehavior);
-        d3.select("svg").classed('modal-open', false);
+        zoomSelection().call(zoomBehavior);
+        zoomSelection().classed('modal-open', false);
+        if (largeTree) {
+            zoomSelection().on('dblclick.zoom', null);
+        }
     }
 }
 
@@ -134,23 +284,32 @@ function closeModalOnOverlay(event) {
 }
 
 // ========== Zoom Functions ==========
+/**
+ * Element the zoom behavior is attached to (the canvas while a large session is shown)
+ */
+function zoomSelection() {
+    return d3.select(largeTree ? "#tree-canvas" : "#graph-container svg");
+}
+
 function zoomIn() {
     if (!zoomBehavior || modalOpen) return;
-    const svg = d3.select("svg");
-    svg.transition().duration(300).call(zoomBehavior.scaleBy, 1.3);
+    zoomSelection().transition().duration(300).call(zoomBehavior.scaleBy, 1.3);
 }
 
 function zoomOut() {
     if (!zoomBehavior || modalOpen) return;
-    const svg = d3.select("svg");
-    svg.transition().duration(300).call(zoomBehavior.scaleBy, 0.7);
+    zoomSelection().transition().duration(300).call(zoomBehavior.scaleBy, 0.7);
 }
 
 function zoomReset() {
     if (!zoomBehavior || modalOpen) return;
-    const svg = d3.select("svg");
+    if (largeTree) {
+        largeTree.offsetY = 0;
+        zoomSelection().transition().duration(500).call(zoomBehavior.transform, d3.zoomIdentity);
+        return;
+    }
     const margin = { top: 50, right: 50, bottom: 50, left: 150 };
-    svg.transition().duration(500).call(
+    zoomSelection().transition().duration(500).call(
         zoomBehavior.transform,
         d3.zoomIdentity.translate(margin.left, margin.top)
     );
@@ -172,6 +331,8 @@ async function checkNewSessions() {
             }
 
             renderSessionList();
+            await loadRepeatedCalls();
+            await loadSqlStatistics();
 
             if (newSessionsArray.length > 0) {
                 const latestSession = newSessionsArray[0];
@@ -192,11 +353,29 @@ async function loadSession(sessionId, isNew = false) {
     }
 
     try {
-        const res = await fetch(`/logs?sessionId=${sessionId}`);
-        const data = await res.json();
+        // Large sessions are not fetched at once; their roots are kept and children loaded on demand
+        const rootPage = await fetchSubtree(sessionId, null, 0);
+        const large = rootPage && rootPage.sessionSize > LARGE_SESSION_NODES;
+
+        // Sessions started in peer JVMs by this session are merged into the tree
+        let data = null;
+        if (!large) {
+            const res = await fetch(`/logs?sessionId=${sessionId}&merge=peers`);
+            data = await res.json();
+        }
+
+        // Critical path is computed on demand by the agent
+        const analysisRes = await fetch(`/logs?action=analysis&sessionId=${sessionId}`);
+        const analysis = analysisRes.ok ? await analysisRes.json() : null;
+
+        // Methods called repeatedly under one parent call
+        const repeatedRes = await fetch(`/logs?action=repeated&sessionId=${sessionId}`);
+        const repeated = repeatedRes.ok ? await repeatedRes.json() : [];
 
         // Find entry point method name
-        const entryPoint = data.find(entry => entry.methodType === 'ENTRY_POINT');
+        const entryPoint = large
+            ? rootPage.nodes.map(node => node.entry).find(entry => entry.methodType === 'ENTRY_POINT')
+            : data.find(entry => entry.methodType === 'ENTRY_POINT');
         const entryMethodName = entryPoint
             ? `${entryPoint.className.split('.').pop()}.${entryPoint.methodName}`
             : 'Unknown';
@@ -204,6 +383,10 @@ async function loadSession(sessionId, isNew = false) {
         loadedSessions.set(sessionId, {
             id: sessionId,
             data: data,
+            rootPage: large ? rootPage : null,
+            size: large ? rootPage.sessionSize : data.length,
+            analysis: analysis,
+            repeated: repeated,
             isNew: isNew,
             timestamp: new Date().toLocaleTimeString(),
             entryMethodName: entryMethodName
@@ -242,7 +425,7 @@ function renderSessionList() {
         div.innerHTML = `
             <div>${session.entryMethodName}</div>
             <div class="session-info">
-                ${session.timestamp} | ${session.data.length} calls
+                ${session.timestamp} | ${session.size} calls
             </div>
         `;
 
@@ -260,15 +443,152 @@ function selectSession(sessionId) {
     if (session) {
         session.isNew = false;
         currentData = session.data;
+        currentAnalysis = session.analysis;
+        currentRepeated = session.repeated || [];
+
+        if (session.rootPage) {
+            renderSessionList();
+            showLargeTree(session);
+            updateStatus(`Displaying session: ${session.entryMethodName} | ${session.size} calls, loaded on demand` +
+                `${filters.mergeDuplicates ? ' (not merged)' : ''}${describeAnalysis(currentAnalysis)}`);
+            return;
+        }
 
         renderSessionList();
         updateFilterCounts(currentData);
         applyFilters();
 
-        updateStatus(`Displaying session: ${session.entryMethodName}`);
+        updateStatus(`Displaying session: ${session.entryMethodName}${describeAnalysis(currentAnalysis)}`);
+    }
+}
+
+// ========== Analysis Functions ==========
+/**
+ * Async call analysis of a node (merged nodes use their first entry)
+ */
+function findAsyncChild(nodeData) {
+    if (!currentAnalysis || !currentAnalysis.asyncChildren) return null;
+    const ids = nodeData.mergedIds || [nodeData.id];
+    return currentAnalysis.asyncChildren.find(child => ids.includes(child.entryId)) || null;
+}
+
+function isCritical(nodeData) {
+    if (!currentAnalysis) return false;
+    const ids = nodeData.mergedIds || [nodeData.id];
+    return ids.some(id => currentAnalysis.criticalPath.includes(id));
+}
+
+/**
+ * Simple label of a call ("SimpleClass.method"), as used by the repeated call detector
+ */
+function callLabel(nodeData) {
+    return `${nodeData.className.split(/[.$]/).pop()}.${nodeData.methodName}`;
+}
+
+/**
+ * Repeated call finding of a tree node in the current session
+ */
+function findRepeated(d) {
+    if (!d.parent || !d.data.className) return null;
+    const parentLabel = d.parent.data.className ? callLabel(d.parent.data) : '';
+    return currentRepeated.find(r => r.className === d.data.className &&
+        r.methodName === d.data.methodName && r.parentMethod === parentLabel) || null;
+}
+
+async function loadRepeatedCalls() {
+    try {
+        const res = await fetch("/logs?action=repeated");
+        renderRepeatedList(await res.json());
+    } catch (error) {
+        console.error("Error loading repeated calls:", error);
     }
 }
 
+function renderRepeatedList(findings) {
+    const container = document.getElementById("repeated-list");
+    container.innerHTML = "";
+    document.getElementById("repeatedCount").textContent = findings.length;
+
+    if (findings.length === 0) {
+        container.innerHTML = '<div class="session-info">None detected</div>';
+        return;
+    }
+
+    findings.slice(0, 10).forEach(finding => {
+        const div = document.createElement("div");
+        div.className = "repeated-item" + (finding.dataAccess ? " data-access" : "");
+        div.innerHTML = `
+            <div>${finding.dataAccess ? '🗄️ ' : ''}${callLabel(finding)}</div>
+            <div class="session-info">
+                in ${finding.parentMethod} (${finding.entryPoint})<br>
+                ${finding.totalCalls} calls / ${finding.sessions} sessions | max ${finding.maxCalls} | ${finding.totalDuration}ms
+            </div>
+        `;
+        div.onclick = async () => {
+            await loadSession(finding.sessionId);
+            renderSessionList();
+            selectSession(finding.sessionId);
+        };
+        container.appendChild(div);
+    });
+}
+
+async function loadSqlStatistics() {
+    try {
+        const res = await fetch("/logs?action=sql");
+        renderSqlList(await res.json());
+    } catch (error) {
+        console.error("Error loading SQL statistics:", error);
+    }
+}
+
+function renderSqlList(statements) {
+    const container = document.getElementById("sql-list");
+    container.innerHTML = "";
+    document.getElementById("sqlCount").textContent = statements.length;
+
+    if (statements.length === 0) {
+        container.innerHTML = '<div class="session-info">No statements recorded</div>';
+        return;
+    }
+
+    statements.slice(0, 10).forEach(statement => {
+        const div = document.createElement("div");
+        div.className = "repeated-item" + (statement.errors > 0 ? " sql-failed" : "");
+        div.title = statement.sql;
+        div.innerHTML = `
+            <div class="sql-text">${escapeHtml(shortSql(statement.sql))}</div>
+            <div class="session-info">
+                ${statement.executions} runs${statement.errors > 0 ? ` (${statement.errors} failed)` : ''} | ${statement.rows} rows<br>
+                total ${formatNanos(statement.totalNanos)} | avg ${formatNanos(statement.totalNanos / statement.executions)} | max ${formatNanos(statement.maxNanos)}
+            </div>
+        `;
+        div.onclick = async () => {
+            await loadSession(statement.sessionId);
+            renderSessionList();
+            selectSession(statement.sessionId);
+        };
+        container.appendChild(div);
+    });
+}
+
+/**
+ * SQL shortened for node labels and the statement list
+ */
+function shortSql(sql, max = 60) {
+    return sql.length > max ? sql.substring(0, max) + '…' : sql;
+}
+
+function escapeHtml(text) {
+    return text.replace(/&/g, '&amp;').replace(/</g, '&lt;').replace(/>/g, '&gt;');
+}
+
+function describeAnalysis(analysis) {
+    if (!analysis || !analysis.boundingAsyncId) return '';
+    const bounding = analysis.asyncChildren.find(child => child.entryId === analysis.boundingAsyncId);
+    return ` | Bounded by async ${bounding.method} (${bounding.critical}ms of ${analysis.totalDuration}ms)`;
+}
+
 // ========== Filter Functions ==========
 function updateFilterCounts(data) {
     if (!data || data.length === 0) return;
@@ -294,11 +614,16 @@ function updateFilterCounts(data) {
 
 // ========== Filter ==========
 function applyFilters() {
-    if (!currentData) return;
-
     filters.showAccessors = document.getElementById('filter-accessor').checked;
     filters.mergeDuplicates = document.getElementById('merge-duplicates').checked;
 
+    // Large sessions hide accessors while drawing; duplicates are not merged across pages
+    if (largeTree) {
+        scheduleLargeTreeDraw();
+        return;
+    }
+    if (!currentData) return;
+
     let filteredData = [...currentData];
 
     // 1. Apply Getter/Setter filter
@@ -368,11 +693,26 @@ function buildTreeForMerge(entries) {
     return roots;
 }
 
+/**
+ * Sum the measured resources of a merged call into its node
+ */
+function addResources(target, resources) {
+    if (!resources) return;
+    if (!target.resources) {
+        target.resources = { ...resources };
+        return;
+    }
+    target.resources.allocatedBytes += resources.allocatedBytes;
+    target.resources.cpuNanos += resources.cpuNanos;
+    target.resources.wallNanos += resources.wallNanos;
+}
+
 function mergeTreeRecursively(nodes) {
     const methodMap = {};
 
     nodes.forEach(node => {
-        const key = `${node.className}.${node.methodName}`;
+        // Different statements of the same JDBC method are kept apart
+        const key = `${node.className}.${node.methodName}${node.sql ? ' ' + node.sql.sql : ''}`;
 
         if (!methodMap[key]) {
             methodMap[key] = {
@@ -381,12 +721,14 @@ function mergeTreeRecursively(nodes) {
                 mergedIds: [node.id],
                 mergedCount: 1,
                 totalDuration: node.duration,
+                resources: node.resources ? { ...node.resources } : null,
                 children: node.children || []
             };
         } else {
             methodMap[key].mergedIds.push(node.id);
             methodMap[key].mergedCount++;
             methodMap[key].totalDuration += node.duration;
+            addResources(methodMap[key], node.resources);
             methodMap[key].children.push(...(node.children || []));
         }
     });
@@ -462,6 +804,7 @@ function buildTree(entries, originalData) {
 
 function renderGraph(rootNode) {
     const container = document.getElementById('graph-container');
+    hideLargeTree();
     const svg = d3.select("#graph-container svg");
     svg.selectAll("*").remove();
 
@@ -508,7 +851,7 @@ function renderGraph(rootNode) {
     g.selectAll(".link")
         .data(root.links())
         .enter().append("path")
-        .attr("class", "link")
+        .attr("class", d => isCritical(d.source.data) && isCritical(d.target.data) ? "link critical" : "link")
         .attr("d", d3.linkHorizontal().x(d => d.y).y(d => d.x));
 
     const node = g.selectAll(".node")
@@ -522,6 +865,11 @@ function renderGraph(rootNode) {
                 classes += " error";
             }
 
+            // Exception thrown by a child call and passed on by this one
+            if (d.data.errorOriginId) {
+                classes += " propagated";
+            }
+
             classes += " " + type.toLowerCase().replace('_', '-');
 
             // Mark merged nodes
@@ -529,12 +877,24 @@ function renderGraph(rootNode) {
                 classes += " merged";
             }
 
+            if (isCritical(d.data)) {
+                classes += " critical";
+            }
+
+            if (findRepeated(d)) {
+                classes += " repeated";
+            }
+
+            if (d.data.peer) {
+                classes += " remote";
+            }
+
             return classes;
         })
         .attr("transform", d => `translate(${d.y},${d.x})`)
         .on("click", function(event, d) {
             event.stopPropagation();
-            openModal(d.data);
+            openModal(d.data, findRepeated(d));
         });
 
     node.append("circle").attr("r", 5);
@@ -546,7 +906,11 @@ function renderGraph(rootNode) {
             const className = d.data.className ?
                 d.data.className.split('.').pop() : 'Unknown';
             const methodName = d.data.methodName;
-            const count = d.data.mergedCount > 1 ? ` (×${d.data.mergedCount})` : '';
+            const calls = d.data.mergedCount > 1 ? d.data.mergedCount : d.data.aggregate?.count;
+            const count = calls > 1 ? ` (×${calls})` : '';
+            if (d.data.sql) {
+                return `${shortSql(d.data.sql.sql, 40)}${count}`;
+            }
             return `${className}.${methodName}${count}`;
         });
 
@@ -555,11 +919,360 @@ function renderGraph(rootNode) {
         .attr("text-anchor", "middle")
         .style("font-size", "9px")
         .style("fill", "#6c757d")
-        .text(d => `${d.data.duration}ms`);
+        .text(d => formatDuration(d.data));
 
     document.getElementById('zoom-level').textContent = '100%';
 }
 
+// ========== Large Session (Canvas) ==========
+// Icicle view: one row per depth, each node as wide as its subtree (entry count).
+// Only nodes wider than MIN_NODE_PX inside the viewport are drawn, and children are
+// fetched page by page from /logs?action=subtree when a node is expanded or zoomed into.
+const LARGE_TREE_ROW = 22;
+const LARGE_TREE_MARGIN = 10;
+const MIN_NODE_PX = 3;
+const LABEL_MIN_PX = 40;
+const AUTO_EXPAND_PX = 80;
+const MAX_PENDING_PAGES = 4;
+const LARGE_TREE_COLORS = {
+    ROOT: '#343a40',
+    ENTRY_POINT: '#007bff',
+    BUSINESS: '#28a745',
+    GETTER: '#6c757d',
+    SETTER: '#6c757d',
+    BLOCKING: '#ffc107',
+    SAMPLED: '#5cb85c',
+    TRUNCATED: '#adb5bd',
+    SQL: '#6f42c1',
+    ERROR: '#dc3545'
+};
+
+async function fetchSubtree(sessionId, parentId, offset) {
+    const params = new URLSearchParams({ action: 'subtree', sessionId, offset, limit: SUBTREE_PAGE_SIZE });
+    if (parentId) {
+        params.set('parentId', parentId);
+    }
+    try {
+        const res = await fetch(`/logs?${params}`);
+        return res.ok ? await res.json() : null;
+    } catch (error) {
+        console.error(`Error loading subtree of ${parentId || sessionId}:`, error);
+        return null;
+    }
+}
+
+function toLargeNode(pageNode, parent) {
+    return {
+        data: pageNode.entry,
+        parent: parent,
+        depth: parent ? parent.depth + 1 : 0,
+        childCount: pageNode.childCount,
+        descendantCount: pageNode.descendantCount,
+        children: null,
+        loading: false
+    };
+}
+
+function showLargeTree(session) {
+    const page = session.rootPage;
+    const container = document.getElementById('graph-container');
+    container.classList.add('large-tree');
+    d3.select("#graph-container svg").selectAll("*").remove();
+
+    // Several roots are wrapped under a synthetic parent, as in buildTree
+    let root;
+    if (page.totalChildren === 1) {
+        root = toLargeNode(page.nodes[0], null);
+    } else {
+        root = {
+            data: {
+                id: '__ROOT__',
+                className: 'TraceFlow',
+                methodName: 'ROOT',
+                methodType: 'ROOT',
+                duration: page.nodes.reduce((sum, node) => sum + (node.entry.duration || 0), 0)
+            },
+            parent: null,
+            depth: 0,
+            childCount: page.totalChildren,
+            descendantCount: page.sessionSize,
+            children: null,
+            loading: false,
+            synthetic: true
+        };
+        root.children = page.nodes.map(node => toLargeNode(node, root));
+    }
+
+    const canvas = document.getElementById('tree-canvas');
+    const tree = {
+        sessionId: session.id,
+        size: page.sessionSize,
+        canvas: canvas,
+        root: root,
+        transform: d3.zoomIdentity,
+        offsetY: 0,
+        hits: [],
+        pending: 0,
+        loaded: page.nodes.length,
+        drawPending: false
+    };
+    largeTree = tree;
+
+    zoomBehavior = d3.zoom()
+        .scaleExtent([0.5, 1e7])
+        .filter(event => !modalOpen && (!event.ctrlKey || event.type === 'wheel') && !event.button)
+        .on("zoom", (event) => {
+            // Zoom scales the time axis only; dragging also scrolls the rows
+            const type = event.sourceEvent && event.sourceEvent.type;
+            if (type === 'mousemove' || type === 'pointermove' || type === 'touchmove') {
+                tree.offsetY += event.transform.y - tree.transform.y;
+            }
+            tree.transform = event.transform;
+            currentZoom = event.transform.k;
+            document.getElementById('zoom-level').textContent = `${Math.round(currentZoom * 100)}%`;
+            scheduleLargeTreeDraw();
+        });
+
+    d3.select(canvas)
+        .call(zoomBehavior)
+        .call(zoomBehavior.transform, d3.zoomIdentity)
+        .on('dblclick.zoom', null);
+
+    // Click opens the details (or loads more children); double click zooms into the node
+    let clickTimer = null;
+    canvas.onclick = (event) => {
+        const hit = hitLargeTree(event);
+        if (!hit) return;
+        clearTimeout(clickTimer);
+        clickTimer = setTimeout(() => {
+            if (hit.more) {
+                expandLargeNode(hit.more, true);
+            } else {
+                openModal(hit.node.data, findRepeated(hit.node));
+            }
+        }, 250);
+    };
+    canvas.ondblclick = (event) => {
+        clearTimeout(clickTimer);
+        const hit = hitLargeTree(event);
+        if (hit && hit.node) {
+            focusLargeNode(hit);
+        }
+    };
+
+    document.getElementById('count-accessor').textContent = '-';
+    document.getElementById('count-duplicates').textContent = '-';
+    scheduleLargeTreeDraw();
+}
+
+function hideLargeTree() {
+    if (!largeTree) return;
+    largeTree = null;
+    document.getElementById('graph-container').classList.remove('large-tree');
+}
+
+/**
+ * Load the next page of children of a node
+ * Automatic expansion while drawing is limited to a few pages at a time
+ */
+async function expandLargeNode(node, explicit = false) {
+    const tree = largeTree;
+    const loadedChildren = node.children ? node.children.length : 0;
+    if (!tree || node.loading || loadedChildren >= node.childCount) return;
+    if (!explicit && tree.pending >= MAX_PENDING_PAGES) return;
+
+    node.loading = true;
+    tree.pending++;
+    try {
+        const parentId = node.synthetic ? null : node.data.id;
+        const page = await fetchSubtree(tree.sessionId, parentId, loadedChildren);
+        if (page && largeTree === tree) {
+            node.children = (node.children || []).concat(page.nodes.map(child => toLargeNode(child, node)));
+            tree.loaded += page.nodes.length;
+        }
+    } finally {
+        node.loading = false;
+        tree.pending--;
+        scheduleLargeTreeDraw();
+    }
+}
+
+/**
+ * Zoom so the node fills the width and its row is near the top
+ */
+function focusLargeNode(hit) {
+    const tree = largeTree;
+    const width = tree.canvas.clientWidth;
+    const k = tree.transform.k * width / Math.max(hit.right - hit.left, 1);
+    const x = -(hit.left - tree.transform.x) / tree.transform.k * k;
+    tree.offsetY = -Math.max(hit.node.depth - 1, 0) * LARGE_TREE_ROW;
+    d3.select(tree.canvas).transition().duration(500)
+        .call(zoomBehavior.transform, d3.zoomIdentity.translate(x, 0).scale(k));
+    expandLargeNode(hit.node, true);
+}
+
+function hitLargeTree(event) {
+    if (!largeTree) return null;
+    const rect = largeTree.canvas.getBoundingClientRect();
+    const x = event.clientX - rect.left;
+    const y = event.clientY - rect.top;
+    return largeTree.hits.find(hit => x >= hit.left && x <= hit.right &&
+        y >= hit.top && y <= hit.top + LARGE_TREE_ROW) || null;
+}
+
+function scheduleLargeTreeDraw() {
+    if (!largeTree || largeTree.drawPending) return;
+    largeTree.drawPending = true;
+    requestAnimationFrame(drawLargeTree);
+}
+
+function drawLargeTree() {
+    const tree = largeTree;
+    if (!tree) return;
+    tree.drawPending = false;
+
+    const canvas = tree.canvas;
+    const width = canvas.clientWidth;
+    const height = canvas.clientHeight;
+    const ratio = window.devicePixelRatio || 1;
+    if (canvas.width !== Math.round(width * ratio) || canvas.height !== Math.round(height * ratio)) {
+        canvas.width = Math.round(width * ratio);
+        canvas.height = Math.round(height * ratio);
+    }
+    const ctx = canvas.getContext('2d');
+    ctx.setTransform(ratio, 0, 0, ratio, 0, 0);
+    ctx.clearRect(0, 0, width, height);
+    ctx.font = '11px sans-serif';
+    ctx.textBaseline = 'middle';
+
+    const scale = width * tree.transform.k;
+    const toX = x => x * scale + tree.transform.x;
+    tree.hits = [];
+
+    const stack = [{ node: tree.root, x0: 0, x1: 1 }];
+    while (stack.length > 0) {
+        const { node, x0, x1 } = stack.pop();
+        const left = toX(x0);
+        const right = toX(x1);
+        const top = LARGE_TREE_MARGIN + node.depth * LARGE_TREE_ROW + tree.offsetY;
+        // Outside the viewport: deeper rows are lower, so the whole subtree is skipped
+        if (right < 0 || left > width || top > height) continue;
+
+        if (top + LARGE_TREE_ROW > 0) {
+            drawLargeNode(ctx, node, left, right, top, width);
+            tree.hits.push({ node, left, right, top });
+        }
+        if (right - left >= AUTO_EXPAND_PX && !node.children && node.childCount > 0) {
+            expandLargeNode(node);
+        }
+        if (!node.children) continue;
+
+        // Children share the parent width by subtree size; runs of tiny ones are drawn as one block
+        const unit = (x1 - x0) / Math.max(node.descendantCount, 1);
+        const childTop = top + LARGE_TREE_ROW;
+        let x = x0;
+        let tinyStart = null;
+        for (const child of node.children) {
+            const end = x + (child.descendantCount + 1) * unit;
+            const hidden = !filters.showAccessors &&
+                (child.data.methodType === 'GETTER' || child.data.methodType === 'SETTER');
+            if (!hidden && (end - x) * scale < MIN_NODE_PX) {
+                if (tinyStart === null) tinyStart = x;
+            } else {
+                if (tinyStart !== null) {
+                    drawCoalesced(ctx, toX(tinyStart), toX(x), childTop);
+                    tinyStart = null;
+                }
+                if (!hidden) {
+                    stack.push({ node: child, x0: x, x1: end });
+                }
+            }
+            x = end;
+        }
+        if (tinyStart !== null) {
+            drawCoalesced(ctx, toX(tinyStart), toX(x), childTop);
+        }
+
+        // Children beyond the loaded pages
+        if (node.children.length < node.childCount && toX(x1) - toX(x) >= 1) {
+            const moreLeft = toX(x);
+            const moreRight = toX(x1);
+            if (moreRight - moreLeft >= AUTO_EXPAND_PX) {
+                expandLargeNode(node);
+            }
+            drawMore(ctx, node, moreLeft, moreRight, childTop, width);
+            tree.hits.push({ more: node, left: moreLeft, right: moreRight, top: childTop });
+        }
+    }
+
+    document.getElementById('filter-stats').textContent =
+        `Showing: ${tree.hits.length} / Loaded: ${tree.loaded} / Total: ${tree.size}`;
+}
+
+function largeNodeColor(data) {
+    if (data.errorOriginId) return '#e4606d';
+    if (data.isError) return LARGE_TREE_COLORS.ERROR;
+    if (data.sql) return LARGE_TREE_COLORS.SQL;
+    return LARGE_TREE_COLORS[data.methodType] || LARGE_TREE_COLORS.BUSINESS;
+}
+
+function largeNodeLabel(node) {
+    const data = node.data;
+    const calls = data.aggregate?.count;
+    const count = calls > 1 ? ` (×${calls})` : '';
+    const name = data.sql ? shortSql(data.sql.sql, 40) : callLabel(data);
+    const more = !node.children && node.childCount > 0 ? ` ▸ ${node.descendantCount}` : '';
+    return `${name}${count} ${formatDuration(data)}${more}`;
+}
+
+function drawLargeNode(ctx, node, left, right, top, width) {
+    // Clamp to the viewport so labels stay visible on wide nodes
+    const x = Math.max(left, 0);
+    const w = Math.min(right, width) - x;
+    ctx.fillStyle = largeNodeColor(node.data);
+    ctx.fillRect(x, top, Math.max(w - 1, 1), LARGE_TREE_ROW - 2);
+
+    const repeated = findRepeated(node);
+    if (isCritical(node.data) || repeated) {
+        ctx.strokeStyle = repeated ? '#fd7e14' : '#e8590c';
+        ctx.lineWidth = 2;
+        ctx.strokeRect(x + 1, top + 1, Math.max(w - 3, 1), LARGE_TREE_ROW - 4);
+    }
+
+    if (w >= LABEL_MIN_PX) {
+        drawLabel(ctx, largeNodeLabel(node), x, w, top,
+            node.data.methodType === 'BLOCKING' || node.data.methodType === 'TRUNCATED' ? '#212529' : '#ffffff');
+    }
+}
+
+function drawCoalesced(ctx, left, right, top) {
+    ctx.fillStyle = '#ced4da';
+    ctx.fillRect(left, top, Math.max(right - left - 1, 1), LARGE_TREE_ROW - 2);
+}
+
+function drawMore(ctx, node, left, right, top, width) {
+    const x = Math.max(left, 0);
+    const w = Math.min(right, width) - x;
+    ctx.strokeStyle = '#adb5bd';
+    ctx.lineWidth = 1;
+    ctx.setLineDash([3, 3]);
+    ctx.strokeRect(x + 0.5, top + 0.5, Math.max(w - 2, 1), LARGE_TREE_ROW - 3);
+    ctx.setLineDash([]);
+    if (w >= LABEL_MIN_PX) {
+        const remaining = node.childCount - node.children.length;
+        drawLabel(ctx, node.loading ? 'loading…' : `… ${remaining} more`, x, w, top, '#6c757d');
+    }
+}
+
+function drawLabel(ctx, text, x, w, top, color) {
+    // Rough fit by character count; measureText per node is too slow for thousands of nodes
+    const maxChars = Math.floor((w - 8) / 6.5);
+    if (maxChars < 3) return;
+    ctx.fillStyle = color;
+    ctx.fillText(text.length > maxChars ? text.substring(0, maxChars - 1) + '…' : text,
+        x + 4, top + (LARGE_TREE_ROW - 2) / 2);
+}
+
 // ========== Utility Functions ==========
 function updateStatus(message) {
     document.getElementById("status").textContent =
@@ -586,7 +1299,9 @@ let resizeTimer;
 window.addEventListener('resize', function() {
     clearTimeout(resizeTimer);
     resizeTimer = setTimeout(function() {
-        if (currentData) {
+        if (largeTree) {
+            scheduleLargeTreeDraw();
+        } else if (currentData) {
             applyFilters();
         }
     }, 250);
@@ -0,0 +1,200 @@
+package io.github.jth00.traceflow;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+/**
+ * Application JVM started with the packaged agent, for integration tests
+ *
+ * The class path holds the test classes and the given extra entries; Jetty, Gson and the
+ * servlet API come from the agent JAR like in a real deployment. The agent web server runs on
+ * its own port, so tests read results through the same API as the web UI.
+ */
+public class AgentJvm implements AutoCloseable {
+    private static final long TIMEOUT_MILLIS = 30_000;
+    private static final long POLL_MILLIS = 100;
+
+    private final Process process;
+    private final StringBuffer output = new StringBuffer();
+    private final int webPort;
+
+    private AgentJvm(Process process, int webPort) {
+        this.process = process;
+        this.webPort = webPort;
+
+        Thread reader = new Thread(() -> {
+            try (BufferedReader lines = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    output.append(line).append('\n');
+                }
+            } catch (IOException ignored) {
+                // Process ended
+            }
+        }, "agent-jvm-output");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Start a main class of the test class path with the agent
+     * @param agentArgs Agent arguments (port is added)
+     * @param classPath Extra class path entries (e.g., a JDBC driver JAR)
+     * @param mainClass Main class
+     * @param args Program arguments
+     * @return Started JVM, web server not necessarily up yet
+     * @throws IOException If the JVM cannot be started
+     */
+    public static AgentJvm start(String agentArgs, List<String> classPath, Class<?> mainClass, String... args)
+            throws IOException {
+        String agentJar = System.getProperty("traceflow.agentJar");
+        if (agentJar == null) {
+            throw new IllegalStateException("traceflow.agentJar is not set (run through the Gradle test task)");
+        }
+        int webPort = freePort();
+
+        List<String> entries = new ArrayList<>();
+        entries.add(locationOf(mainClass));
+        entries.addAll(classPath);
+
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-javaagent:" + agentJar + "=" + agentArgs + ",port=" + webPort);
+        command.add("-cp");
+        command.add(String.join(File.pathSeparator, entries));
+        command.add(mainClass.getName());
+        command.addAll(List.of(args));
+
+        return new AgentJvm(new ProcessBuilder(command).redirectErrorStream(true).start(), webPort);
+    }
+
+    /**
+     * Class path entry a class was loaded from
+     * @param type Class on the test class path
+     * @return Directory or JAR path
+     */
+    public static String locationOf(Class<?> type) {
+        try {
+            return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Find a free local port
+     * @return Port number
+     * @throws IOException If no port is available
+     */
+    public static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Base URL of the agent web server
+     * @return e.g., http://localhost:8081
+     */
+    public String getWebUrl() {
+        return "http://localhost:" + webPort;
+    }
+
+    /**
+     * Wait until the JVM printed a line starting with a prefix
+     * @param prefix Line prefix
+     * @return Rest of the first matching line
+     */
+    public String awaitLine(String prefix) throws Exception {
+        return await(() -> {
+            for (String line : output.toString().split("\n")) {
+                if (line.startsWith(prefix)) {
+                    return line.substring(prefix.length()).trim();
+                }
+            }
+            if (!process.isAlive()) {
+                throw new IllegalStateException("JVM exited before printing '" + prefix + "':\n" + output);
+            }
+            return null;
+        }, line -> line != null);
+    }
+
+    /**
+     * GET a JSON resource of the agent web server, retrying until it satisfies a condition
+     * @param pathAndQuery e.g., /logs?action=sessions
+     * @param done Condition on the response
+     * @return First response satisfying the condition
+     */
+    public JsonElement awaitJson(String pathAndQuery, Predicate<JsonElement> done) throws Exception {
+        return await(() -> getJson(pathAndQuery), json -> json != null && done.test(json));
+    }
+
+    /**
+     * GET a JSON resource of the agent web server
+     * @param pathAndQuery e.g., /logs?action=sessions
+     * @return Parsed response, or null if the server is not up or did not answer 200
+     */
+    public JsonElement getJson(String pathAndQuery) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(getWebUrl() + pathAndQuery).openConnection();
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                return null;
+            }
+            try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+                return JsonParser.parseReader(reader);
+            }
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Output printed so far (agent log included), for assertion messages
+     * @return Output text
+     */
+    public String getOutput() {
+        return output.toString();
+    }
+
+    @Override
+    public void close() {
+        process.destroyForcibly();
+    }
+
+    private <T> T await(Callable<T> fetch, Predicate<T> done) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (true) {
+            T value = fetch.call();
+            if (done.test(value)) {
+                return value;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out waiting for the agent JVM, last value: " + value +
+                    "\n" + output);
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+    }
+}
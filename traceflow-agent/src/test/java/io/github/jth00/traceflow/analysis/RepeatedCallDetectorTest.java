@@ -0,0 +1,164 @@
+package io.github.jth00.traceflow.analysis;
+
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.interceptor.EntryPointInterceptor;
+import io.github.jth00.traceflow.interceptor.TraceFlowInterceptor;
+import io.github.jth00.traceflow.store.TraceStore;
+import io.github.jth00.traceflow.vo.RepeatedCall;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import io.github.jth00.traceflow.vo.TraceFrame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Repeated calls found in sessions recorded in-process through the interceptors
+ * A method called at least the threshold times under one parent call must be reported once
+ * per parent method, counting folded calls with their aggregated count.
+ */
+class RepeatedCallDetectorTest {
+    private static final String ROOT = "sample.repeated.OrderService.listOrders()V";
+    private static final String LOAD = "sample.repeated.OrderService.loadOrders()V";
+    private static final String FIND = "sample.repeated.OrderRepository.findItems(J)Ljava/util/List;";
+    private static final String FORMAT = "sample.repeated.OrderService.format()V";
+
+    private TraceFlowConfig original;
+
+    @BeforeEach
+    void saveConfig() {
+        original = TraceFlowConfig.current();
+        RepeatedCallDetector.reset();
+    }
+
+    @AfterEach
+    void restoreConfig() {
+        TraceFlowConfig.update(original);
+        RepeatedCallDetector.reset();
+    }
+
+    @Test
+    void foldedLoopCountsWithItsAggregatedCalls() {
+        configure(true, 10);
+
+        List<TraceEntry> entries = record(() -> call(LOAD, () -> {
+            repeat(FIND, 12);
+            repeat(FORMAT, 3);
+        }));
+
+        List<RepeatedCall> findings = RepeatedCallDetector.detect(entries);
+        assertEquals(1, findings.size());
+        RepeatedCall finding = findings.get(0);
+        assertEquals("OrderService.listOrders", finding.getEntryPoint());
+        assertEquals("OrderService.loadOrders", finding.getParentMethod());
+        assertEquals("sample.repeated.OrderRepository", finding.getClassName());
+        assertEquals("findItems", finding.getMethodName());
+        assertTrue(finding.isDataAccess());
+        assertEquals(1, finding.getOccurrences());
+        assertEquals(12, finding.getTotalCalls());
+        assertEquals(12, finding.getMaxCalls());
+        assertEquals(entries.get(0).getSessionId(), finding.getSessionId());
+        assertEquals(find(entries, "loadOrders").getId(), finding.getParentEntryId());
+    }
+
+    @Test
+    void callsUnderSeveralParentCallsFormOneFinding() {
+        configure(false, 3);
+
+        List<TraceEntry> entries = record(() -> {
+            call(LOAD, () -> repeat(FIND, 3));
+            call(LOAD, () -> repeat(FIND, 4));
+            // Below the threshold under another parent method
+            call(FORMAT, () -> repeat(FIND, 2));
+        });
+
+        List<RepeatedCall> findings = RepeatedCallDetector.detect(entries);
+        assertEquals(1, findings.size());
+        RepeatedCall finding = findings.get(0);
+        assertEquals("OrderService.loadOrders", finding.getParentMethod());
+        assertEquals("findItems", finding.getMethodName());
+        assertEquals(1, finding.getSessions());
+        assertEquals(2, finding.getOccurrences());
+        assertEquals(7, finding.getTotalCalls());
+        assertEquals(4, finding.getMaxCalls());
+    }
+
+    @Test
+    void reportAccumulatesStoredSessions() {
+        configure(true, 10);
+
+        record(() -> call(LOAD, () -> repeat(FIND, 12)));
+        String lastSession = record(() -> call(LOAD, () -> repeat(FIND, 15))).get(0).getSessionId();
+
+        List<RepeatedCall> report = RepeatedCallDetector.report();
+        assertEquals(1, report.size());
+        RepeatedCall total = report.get(0);
+        assertEquals(2, total.getSessions());
+        assertEquals(2, total.getOccurrences());
+        assertEquals(27, total.getTotalCalls());
+        assertEquals(15, total.getMaxCalls());
+        assertEquals(lastSession, total.getSessionId());
+
+        RepeatedCallDetector.reset();
+        assertTrue(RepeatedCallDetector.report().isEmpty());
+    }
+
+    @Test
+    void thresholdZeroDisablesDetection() {
+        configure(true, 0);
+
+        List<TraceEntry> entries = record(() -> call(LOAD, () -> repeat(FIND, 50)));
+
+        assertFalse(entries.isEmpty());
+        assertTrue(RepeatedCallDetector.detect(entries).isEmpty());
+        assertTrue(RepeatedCallDetector.report().isEmpty());
+    }
+
+    // -------------------- Helpers --------------------
+
+    private static void configure(boolean compressLoops, int repeatedCallThreshold) {
+        TraceFlowConfig config = TraceFlowConfig.current().copy();
+        config.setCompressLoops(compressLoops);
+        config.setRepeatedCallThreshold(repeatedCallThreshold);
+        TraceFlowConfig.update(config);
+    }
+
+    /**
+     * Run a session rooted at {@link #ROOT}, store it and read it back
+     */
+    private static List<TraceEntry> record(Runnable body) {
+        TraceFrame root = EntryPointInterceptor.onEnter(ROOT);
+        assertNotNull(root.getSessionId(), "Session not started");
+        body.run();
+        EntryPointInterceptor.onExit(root, null, null);
+        return TraceStore.getTracesBySession(root.getSessionId());
+    }
+
+    private static void repeat(String signature, int times) {
+        for (int i = 0; i < times; i++) {
+            call(signature, () -> { });
+        }
+    }
+
+    private static void call(String signature, Runnable body) {
+        TraceFrame frame = TraceFlowInterceptor.onEnter(signature);
+        assertNotNull(frame, signature);
+        body.run();
+        TraceFlowInterceptor.onExit(frame, null, null);
+    }
+
+    private static TraceEntry find(List<TraceEntry> entries, String methodName) {
+        for (TraceEntry entry : entries) {
+            if (methodName.equals(entry.getMethodName())) {
+                return entry;
+            }
+        }
+        throw new AssertionError("No entry for " + methodName);
+    }
+}
@@ -0,0 +1,255 @@
+package io.github.jth00.traceflow.analysis;
+
+import com.google.gson.Gson;
+import io.github.jth00.traceflow.vo.SessionComparison;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Baseline and current session sets compared call path by call path
+ * A path must be flagged only when its mean self time changed by the threshold percentage,
+ * the minimum delta and more than the session to session noise; calls must be told apart by
+ * class and parameter types, and a parent cycle in an imported file must not stop the
+ * comparison.
+ */
+class SessionDiffTest {
+    private static final String CHECKOUT = "sample.diff.Checkout";
+    private static final String REPOSITORY = "sample.diff.OrderRepository";
+    private static final String LOAD_PATH = "Checkout.run > OrderRepository.load";
+    private static final String SAVE_PATH = "Checkout.run > OrderRepository.save";
+    private static final long BASE_TIME = 1_700_000_000_000L;
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    void thresholdAndMinDeltaAreInclusive() {
+        // load 10ms -> 12ms (+20%, +2ms), save 10ms -> 5ms
+        List<List<TraceEntry>> baseline = List.of(checkout(10, 10));
+        List<List<TraceEntry>> current = List.of(checkout(12, 5));
+
+        SessionComparison atLimits = SessionDiff.compare(baseline, current, 20, 2 * MILLIS);
+        assertEquals(SessionDiff.STATUS_REGRESSED, row(atLimits, LOAD_PATH).getStatus());
+        assertEquals(2 * MILLIS, row(atLimits, LOAD_PATH).getSelfDeltaNanos());
+        assertEquals(SessionDiff.STATUS_IMPROVED, row(atLimits, SAVE_PATH).getStatus());
+        // Children take all of the entry point's time
+        assertEquals(SessionDiff.STATUS_UNCHANGED, row(atLimits, "Checkout.run").getStatus());
+        assertEquals(1, atLimits.getRegressions());
+        // Regressions first
+        assertEquals(LOAD_PATH, atLimits.getRows().get(0).getPath());
+
+        SessionComparison overThreshold = SessionDiff.compare(baseline, current, 20.1, 2 * MILLIS);
+        assertEquals(SessionDiff.STATUS_UNCHANGED, row(overThreshold, LOAD_PATH).getStatus());
+        assertEquals(0, overThreshold.getRegressions());
+
+        SessionComparison overMinDelta = SessionDiff.compare(baseline, current, 20, 2 * MILLIS + 1);
+        assertEquals(SessionDiff.STATUS_UNCHANGED, row(overMinDelta, LOAD_PATH).getStatus());
+        assertEquals(SessionDiff.STATUS_IMPROVED, row(overMinDelta, SAVE_PATH).getStatus());
+    }
+
+    @Test
+    void changesWithinNoiseAreNotFlagged() {
+        // Same means (10ms -> 12ms), spread 1ms (t = 2.45) and 2ms (t = 1.22) between sessions
+        List<List<TraceEntry>> steadyBaseline = List.of(checkout(9, 1), checkout(10, 1), checkout(11, 1));
+        List<List<TraceEntry>> steadyCurrent = List.of(checkout(11, 1), checkout(12, 1), checkout(13, 1));
+        List<List<TraceEntry>> noisyBaseline = List.of(checkout(8, 1), checkout(10, 1), checkout(12, 1));
+        List<List<TraceEntry>> noisyCurrent = List.of(checkout(10, 1), checkout(12, 1), checkout(14, 1));
+
+        SessionComparison steady = SessionDiff.compare(steadyBaseline, steadyCurrent, 20, MILLIS);
+        assertEquals(SessionDiff.STATUS_REGRESSED, row(steady, LOAD_PATH).getStatus());
+        SessionComparison noisy = SessionDiff.compare(noisyBaseline, noisyCurrent, 20, MILLIS);
+        assertEquals(SessionDiff.STATUS_UNCHANGED, row(noisy, LOAD_PATH).getStatus());
+        assertEquals(2 * MILLIS, row(noisy, LOAD_PATH).getSelfDeltaNanos());
+
+        // No spread at all: any change over the threshold is significant
+        SessionComparison constant = SessionDiff.compare(List.of(checkout(10, 1), checkout(10, 1)),
+            List.of(checkout(12, 1), checkout(12, 1)), 20, MILLIS);
+        assertEquals(SessionDiff.STATUS_REGRESSED, row(constant, LOAD_PATH).getStatus());
+    }
+
+    @Test
+    void addedAndRemovedPathsNeedTheMinDelta() {
+        List<TraceEntry> baseline = checkout(10, 0);
+        List<TraceEntry> current = checkout(10, 0);
+        TraceEntry root = current.get(0);
+        current.add(entry(root, "sample.diff.Audit", "log", List.of(), 3));
+        current.add(entry(root, "sample.diff.Metrics", "count", List.of(), 0));
+
+        SessionComparison comparison = SessionDiff.compare(List.of(baseline), List.of(current), 20, MILLIS);
+        SessionComparison.Row audit = row(comparison, "Checkout.run > Audit.log");
+        assertEquals(SessionDiff.STATUS_ADDED, audit.getStatus());
+        assertTrue(audit.isSignificant());
+        SessionComparison.Row metrics = row(comparison, "Checkout.run > Metrics.count");
+        assertEquals(SessionDiff.STATUS_ADDED, metrics.getStatus());
+        assertFalse(metrics.isSignificant());
+        assertEquals(1, comparison.getRegressions());
+
+        SessionComparison reversed = SessionDiff.compare(List.of(current), List.of(baseline), 20, MILLIS);
+        assertEquals(SessionDiff.STATUS_REMOVED, row(reversed, "Checkout.run > Audit.log").getStatus());
+        assertEquals(0, reversed.getRegressions());
+    }
+
+    @Test
+    void overloadsAndEquallyNamedClassesStayApart() {
+        String otherRepository = "sample.diff.archive.OrderRepository";
+        List<List<TraceEntry>> baseline = List.of(repositories(otherRepository, 10, 10, 10));
+        // Only the archive repository's load(long) got slower
+        List<List<TraceEntry>> current = List.of(repositories(otherRepository, 10, 10, 20));
+
+        SessionComparison comparison = SessionDiff.compare(baseline, current, 20, MILLIS);
+        List<SessionComparison.Row> loads = new ArrayList<>();
+        for (SessionComparison.Row row : comparison.getRows()) {
+            if (row.getPath().equals(LOAD_PATH)) loads.add(row);
+        }
+        // Same display path, three distinct calls
+        assertEquals(3, loads.size(), () -> comparison.getRows().toString());
+        assertEquals(3, new HashSet<>(keys(loads)).size());
+        assertEquals(1, comparison.getRegressions());
+        SessionComparison.Row regressed = comparison.getRows().get(0);
+        assertEquals(SessionDiff.STATUS_REGRESSED, regressed.getStatus());
+        assertTrue(regressed.getKey().endsWith(otherRepository + ".load(long)"), regressed.getKey());
+        assertEquals(10 * MILLIS, regressed.getSelfDeltaNanos());
+        for (SessionComparison.Row row : loads) {
+            if (row != regressed) assertEquals(SessionDiff.STATUS_UNCHANGED, row.getStatus(), row.getKey());
+        }
+    }
+
+    @Test
+    void parentCycleInImportedFileIsCut(@TempDir Path directory) throws Exception {
+        // x and y name each other as parent, as in a hand-edited export
+        List<TraceEntry> entries = checkout(10, 10);
+        String session = entries.get(0).getSessionId();
+        entries.add(entry(session, "x", "y", "sample.diff.Cycle", "x", 2));
+        entries.add(entry(session, "y", "x", "sample.diff.Cycle", "y", 2));
+        Path file = write(directory, "cycle.json", entries);
+
+        Collection<List<TraceEntry>> sessions = SessionDiff.readFile(file);
+        assertEquals(1, sessions.size());
+        SessionComparison comparison = SessionDiff.compare(sessions, sessions, 20, MILLIS);
+
+        Set<String> paths = new HashSet<>();
+        for (SessionComparison.Row row : comparison.getRows()) {
+            paths.add(row.getPath());
+            assertEquals(SessionDiff.STATUS_UNCHANGED, row.getStatus(), row.getPath());
+        }
+        assertEquals(Set.of("Checkout.run", LOAD_PATH, SAVE_PATH, "Cycle.y", "Cycle.y > Cycle.x"), paths);
+    }
+
+    @Test
+    void commandLineExitsWithStatusTwoOnRegressions(@TempDir Path directory) throws Exception {
+        Path baseline = write(directory, "baseline.json", checkout(10, 10));
+        Path current = write(directory, "current.json", checkout(20, 10));
+
+        assertEquals(SessionDiff.EXIT_REGRESSED, SessionDiff.run(new String[]{baseline.toString(), current.toString()}));
+        assertEquals(SessionDiff.EXIT_REGRESSED,
+            SessionDiff.run(new String[]{baseline.toString(), current.toString(), "--json"}));
+        assertEquals(0, SessionDiff.run(new String[]{baseline.toString(), baseline.toString()}));
+        assertEquals(0, SessionDiff.run(new String[]{current.toString(), baseline.toString()}));
+        assertEquals(0, SessionDiff.run(new String[]{baseline.toString(), current.toString(), "--threshold=101"}));
+        assertEquals(0, SessionDiff.run(new String[]{baseline.toString(), current.toString(), "--min-delta-ms=10.5"}));
+        assertEquals(SessionDiff.EXIT_USAGE, SessionDiff.run(new String[]{baseline.toString()}));
+    }
+
+    // -------------------- Helpers --------------------
+
+    /**
+     * Checkout session: the entry point with a load and a save child of the given milliseconds
+     */
+    private static List<TraceEntry> checkout(long loadMillis, long saveMillis) {
+        TraceEntry root = entry(UUID.randomUUID().toString(), UUID.randomUUID().toString(), null,
+            CHECKOUT, "run", loadMillis + saveMillis);
+        List<TraceEntry> entries = new ArrayList<>();
+        entries.add(root);
+        entries.add(entry(root, REPOSITORY, "load", List.of("long"), loadMillis));
+        entries.add(entry(root, REPOSITORY, "save", List.of(), saveMillis));
+        return entries;
+    }
+
+    /**
+     * Session calling load(long), load(String) and another repository's load(long)
+     */
+    private static List<TraceEntry> repositories(String otherRepository, long byId, long byName, long archived) {
+        TraceEntry root = entry(UUID.randomUUID().toString(), UUID.randomUUID().toString(), null,
+            CHECKOUT, "run", byId + byName + archived);
+        List<TraceEntry> entries = new ArrayList<>();
+        entries.add(root);
+        entries.add(entry(root, REPOSITORY, "load", List.of("long"), byId));
+        entries.add(entry(root, REPOSITORY, "load", List.of("java.lang.String"), byName));
+        entries.add(entry(root, otherRepository, "load", List.of("long"), archived));
+        return entries;
+    }
+
+    private static TraceEntry entry(TraceEntry parent, String className, String methodName,
+                                    List<String> parameterTypes, long durationMillis) {
+        return TraceEntry.builder()
+            .id(UUID.randomUUID().toString())
+            .parentId(parent.getId())
+            .sessionId(parent.getSessionId())
+            .className(className)
+            .methodName(methodName)
+            .returnType("void")
+            .parameterTypes(parameterTypes)
+            .startTime(BASE_TIME)
+            .duration(durationMillis)
+            .build();
+    }
+
+    private static TraceEntry entry(String sessionId, String id, String parentId, String className,
+                                    String methodName, long durationMillis) {
+        return TraceEntry.builder()
+            .id(id)
+            .parentId(parentId)
+            .sessionId(sessionId)
+            .className(className)
+            .methodName(methodName)
+            .returnType("void")
+            .parameterTypes(List.of())
+            .startTime(BASE_TIME)
+            .duration(durationMillis)
+            .build();
+    }
+
+    private static SessionComparison.Row row(SessionComparison comparison, String path) {
+        SessionComparison.Row found = null;
+        for (SessionComparison.Row row : comparison.getRows()) {
+            if (row.getPath().equals(path)) {
+                assertNull(found, () -> "More than one row for " + path);
+                found = row;
+            }
+        }
+        assertNotNull(found, () -> "No row for " + path + ": " + comparison.getRows());
+        return found;
+    }
+
+    private static List<String> keys(List<SessionComparison.Row> rows) {
+        List<String> keys = new ArrayList<>();
+        for (SessionComparison.Row row : rows) {
+            keys.add(row.getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * Export entries the way GET /logs returns them
+     */
+    private static Path write(Path directory, String name, List<TraceEntry> entries) throws Exception {
+        Path file = directory.resolve(name);
+        Files.writeString(file, new Gson().toJson(entries), StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,159 @@
+package io.github.jth00.traceflow.benchmark;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.implementation.FixedValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup time of a large class path with and without the agent
+ *
+ * Generates application classes (in the traced package) and library classes (outside it),
+ * then starts a JVM per run that loads all of them with Class.forName, the way a Spring
+ * application loads its beans and dependencies at boot. Prints class loading time and JVM
+ * uptime per mode.
+ *
+ * Run with: ./gradlew :traceflow-agent:startupBenchmark
+ * System properties:
+ * - traceflow.agentJar: agent to measure (required, set by the Gradle task)
+ * - traceflow.baselineAgentJar: another agent build to compare against (optional)
+ * - traceflow.appClasses / traceflow.libraryClasses / traceflow.runs: sizes (2000 / 8000 / 5)
+ */
+public class StartupBenchmark {
+    private static final String APP_PACKAGE = "bench.app";
+    private static final String LIBRARY_PACKAGE = "bench.lib";
+    private static final String CLASS_LIST = "classes.txt";
+    private static final String LOAD_MS = "LOAD_MS ";
+    private static final String UPTIME_MS = "UPTIME_MS ";
+
+    public static void main(String[] args) throws Exception {
+        String agentJar = System.getProperty("traceflow.agentJar");
+        if (agentJar == null) {
+            throw new IllegalArgumentException("traceflow.agentJar is not set");
+        }
+        int appClasses = Integer.getInteger("traceflow.appClasses", 2000);
+        int libraryClasses = Integer.getInteger("traceflow.libraryClasses", 8000);
+        int runs = Integer.getInteger("traceflow.runs", 5);
+
+        Path classDir = Files.createTempDirectory("traceflow-startup");
+        generate(classDir, appClasses, libraryClasses);
+        System.out.println("[TraceFlow Benchmark] " + appClasses + " application classes, " +
+            libraryClasses + " library classes, " + runs + " runs per mode");
+
+        report("no agent", classDir, null, runs);
+        String baseline = System.getProperty("traceflow.baselineAgentJar");
+        if (baseline != null) {
+            report("baseline agent", classDir, baseline, runs);
+        }
+        report("agent", classDir, agentJar, runs);
+    }
+
+    /**
+     * Child JVM entry: load every generated class
+     */
+    public static class Load {
+        public static void main(String[] args) throws Exception {
+            long start = System.nanoTime();
+            for (String name : Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+                Class.forName(name);
+            }
+            System.out.println(LOAD_MS + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            System.out.println(UPTIME_MS + ManagementFactory.getRuntimeMXBean().getUptime());
+            System.exit(0);
+        }
+    }
+
+    // ---- Class Generation ----
+
+    private static void generate(Path classDir, int appClasses, int libraryClasses) throws IOException {
+        List<String> names = new ArrayList<>();
+        ByteBuddy byteBuddy = new ByteBuddy();
+        for (int i = 0; i < appClasses; i++) {
+            // Bean-like class: a field with accessors and a business method
+            String name = APP_PACKAGE + ".gen" + (i % 20) + ".Service" + i;
+            byteBuddy.subclass(Object.class)
+                .name(name)
+                .defineField("value", int.class, Visibility.PRIVATE)
+                .defineMethod("getValue", int.class, Visibility.PUBLIC).intercept(FieldAccessor.ofField("value"))
+                .defineMethod("setValue", void.class, Visibility.PUBLIC).withParameters(int.class)
+                .intercept(FieldAccessor.ofField("value"))
+                .defineMethod("work", int.class, Visibility.PUBLIC).withParameters(int.class)
+                .intercept(FixedValue.value(i))
+                .make()
+                .saveIn(classDir.toFile());
+            names.add(name);
+        }
+        for (int i = 0; i < libraryClasses; i++) {
+            String name = LIBRARY_PACKAGE + (i % 40) + ".Library" + i;
+            byteBuddy.subclass(Object.class)
+                .name(name)
+                .defineMethod("apply", String.class, Visibility.PUBLIC).withParameters(int.class)
+                .intercept(FixedValue.value("x"))
+                .make()
+                .saveIn(classDir.toFile());
+            names.add(name);
+        }
+        // Application and library classes are loaded interleaved, as during a real boot
+        Collections.shuffle(names, new Random(42));
+        Files.write(classDir.resolve(CLASS_LIST), names, StandardCharsets.UTF_8);
+    }
+
+    // ---- Measurement ----
+
+    private static void report(String label, Path classDir, String agentJar, int runs) throws Exception {
+        List<Long> loadMillis = new ArrayList<>();
+        List<Long> uptimeMillis = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            long[] result = run(classDir, agentJar);
+            loadMillis.add(result[0]);
+            uptimeMillis.add(result[1]);
+        }
+        Collections.sort(loadMillis);
+        Collections.sort(uptimeMillis);
+        System.out.println("[TraceFlow Benchmark] " + label + ": class loading " + describe(loadMillis) +
+            ", JVM uptime " + describe(uptimeMillis));
+    }
+
+    private static long[] run(Path classDir, String agentJar) throws Exception {
+        String harness = new File(StartupBenchmark.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (agentJar != null) {
+            command.add("-javaagent:" + agentJar + "=package=" + APP_PACKAGE + ",webServer=off");
+        }
+        command.add("-cp");
+        command.add(classDir + File.pathSeparator + harness);
+        command.add(Load.class.getName());
+        command.add(classDir.resolve(CLASS_LIST).toString());
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long load = -1;
+        long uptime = -1;
+        for (String line : new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+            if (line.startsWith(LOAD_MS)) load = Long.parseLong(line.substring(LOAD_MS.length()).trim());
+            if (line.startsWith(UPTIME_MS)) uptime = Long.parseLong(line.substring(UPTIME_MS.length()).trim());
+        }
+        if (process.waitFor() != 0 || load < 0) {
+            throw new IllegalStateException("Benchmark JVM failed: " + command);
+        }
+        return new long[] { load, uptime };
+    }
+
+    private static String describe(List<Long> sortedMillis) {
+        return "median " + sortedMillis.get(sortedMillis.size() / 2) + "ms (min " + sortedMillis.get(0) +
+            "ms, max " + sortedMillis.get(sortedMillis.size() - 1) + "ms)";
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.jth00.traceflow.blocking;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.github.jth00.traceflow.AgentJvm;
+import org.junit.jupiter.api.Test;
+import sample.blocking.WaitingService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Waits of a traced call on a lock, a monitor, a future and a socket
+ * Every wait must be recorded as one BLOCKING child of the traced method it happened in:
+ * the park inside a future's get only through the get, and waits of threads that are not
+ * tracing (a helper thread, the main thread after the entry point) not at all.
+ */
+class BlockingDetectionTest {
+    private static final String FIXTURE_PACKAGE = "sample.blocking";
+    private static final int WAIT_MILLIS = 40;
+
+    // Entry timestamps are whole milliseconds, a wait's start is derived from its end
+    private static final long CLOCK_SLACK_MILLIS = 2;
+
+    @Test
+    void waitsAreRecordedOnceUnderTheirTracedCaller() throws Exception {
+        try (AgentJvm app = AgentJvm.start(
+                 "package=" + FIXTURE_PACKAGE + ",blocking=true,entryPoints=" + FIXTURE_PACKAGE + ".WaitingService.process",
+                 List.of(), WaitingService.class, String.valueOf(WAIT_MILLIS))) {
+            assertEquals("42", app.awaitLine("RESULT "), app::getOutput);
+
+            JsonArray sessions = app.awaitJson("/logs?action=sessions",
+                    json -> json.getAsJsonObject().getAsJsonArray("sessions").size() == 1)
+                .getAsJsonObject().getAsJsonArray("sessions");
+            JsonArray entries = app.getJson("/logs?sessionId=" + sessions.get(0).getAsString()).getAsJsonArray();
+
+            Map<String, JsonObject> byId = new HashMap<>();
+            Map<String, List<JsonObject>> waitsByCaller = new HashMap<>();
+            for (JsonElement element : entries) {
+                JsonObject entry = element.getAsJsonObject();
+                byId.put(entry.get("id").getAsString(), entry);
+            }
+            for (JsonObject entry : byId.values()) {
+                if (!"BLOCKING".equals(entry.get("methodType").getAsString())) continue;
+                JsonObject parent = byId.get(entry.get("parentId").getAsString());
+                assertNotNull(parent, () -> "Wait without a recorded parent: " + entry);
+                waitsByCaller.computeIfAbsent(parent.get("methodName").getAsString(), k -> new ArrayList<>()).add(entry);
+                assertWithin(parent, entry);
+            }
+
+            assertWait(waitsByCaller, "parkBriefly", "java.util.concurrent.locks.LockSupport", "parkNanos", entries);
+            assertWait(waitsByCaller, "waitOnMonitor", "java.lang.Object", "wait", entries);
+            // The park inside get is nested and not recorded a second time
+            assertWait(waitsByCaller, "awaitResult", "java.util.concurrent.CompletableFuture", "get", entries);
+            assertWait(waitsByCaller, "readReply", "java.net.Socket", "read", entries);
+
+            // Nothing from the helper thread or the main thread outside of the entry point
+            assertEquals(4, waitsByCaller.values().stream().mapToInt(List::size).sum(), entries::toString);
+            assertEquals(1, app.getJson("/logs?action=sessions")
+                .getAsJsonObject().getAsJsonArray("sessions").size());
+        }
+    }
+
+    private static void assertWait(Map<String, List<JsonObject>> waitsByCaller, String caller,
+                                   String className, String methodName, JsonArray entries) {
+        List<JsonObject> waits = waitsByCaller.get(caller);
+        assertNotNull(waits, () -> "No wait under " + caller + ": " + entries);
+        assertEquals(1, waits.size(), () -> "Waits under " + caller + ": " + waits);
+        JsonObject wait = waits.get(0);
+        assertEquals(className, wait.get("className").getAsString());
+        assertEquals(methodName, wait.get("methodName").getAsString());
+        assertTrue(wait.get("duration").getAsLong() > 0, () -> "Empty wait " + wait);
+    }
+
+    private static void assertWithin(JsonObject parent, JsonObject child) {
+        long parentStart = parent.get("startTime").getAsLong();
+        long parentEnd = parentStart + parent.get("duration").getAsLong();
+        long childStart = child.get("startTime").getAsLong();
+        long childEnd = childStart + child.get("duration").getAsLong();
+        assertTrue(childStart >= parentStart - CLOCK_SLACK_MILLIS && childEnd <= parentEnd + CLOCK_SLACK_MILLIS,
+            () -> "Wait " + child + " outside of its parent " + parent);
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.jth00.traceflow.context;
+
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.interceptor.EntryPointInterceptor;
+import io.github.jth00.traceflow.interceptor.TraceFlowInterceptor;
+import io.github.jth00.traceflow.store.TraceStore;
+import io.github.jth00.traceflow.vo.CallAggregate;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import io.github.jth00.traceflow.vo.TraceFrame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sessions recorded in-process through the interceptors under session limits
+ * Repeated sibling calls must fold into one aggregated entry, and calls beyond the depth or
+ * entry limit must be summarized as a TRUNCATED child of the recorded parent.
+ */
+class SessionLimitsTest {
+    private static final String ROOT = "sample.limits.Job.run()V";
+    private static final String STEP = "sample.limits.Job.step(I)V";
+    private static final String FINISH = "sample.limits.Job.finish()V";
+    private static final String OUTER = "sample.limits.Job.outer()V";
+    private static final String INNER = "sample.limits.Job.inner()V";
+    private static final String LEAF = "sample.limits.Job.leaf()V";
+
+    private TraceFlowConfig original;
+
+    @BeforeEach
+    void saveConfig() {
+        original = TraceFlowConfig.current();
+    }
+
+    @AfterEach
+    void restoreConfig() {
+        TraceFlowConfig.update(original);
+    }
+
+    @Test
+    void repeatedCallsFoldIntoOneAggregatedEntry() {
+        configure(true, 0, 0);
+
+        List<TraceEntry> entries = record(() -> {
+            for (int i = 1; i <= 5; i++) {
+                call(STEP, i);
+            }
+            call(FINISH, 0);
+        });
+
+        TraceEntry root = find(entries, "run");
+        TraceEntry step = single(entries, "step");
+        assertEquals(root.getId(), step.getParentId());
+        CallAggregate aggregate = step.getAggregate();
+        assertNotNull(aggregate, () -> "Loop not folded: " + entries);
+        assertEquals(5, aggregate.getCount());
+        assertEquals(0, aggregate.getErrorCount());
+        assertTrue(aggregate.getMinNanos() >= 1_000_000, () -> "min " + aggregate.getMinNanos());
+        assertTrue(aggregate.getMaxNanos() >= 5_000_000, () -> "max " + aggregate.getMaxNanos());
+        assertTrue(aggregate.getMinNanos() <= aggregate.getMaxNanos());
+        assertTrue(aggregate.getTotalNanos() >= 15_000_000, () -> "total " + aggregate.getTotalNanos());
+        assertEquals(aggregate.getTotalNanos() / 1_000_000, step.getDuration());
+
+        // A different method ends the run and is recorded on its own
+        TraceEntry finish = single(entries, "finish");
+        assertEquals(root.getId(), finish.getParentId());
+        assertNull(finish.getAggregate());
+    }
+
+    @Test
+    void callsBelowTheDepthLimitAreSummarized() {
+        configure(false, 2, 0);
+
+        List<TraceEntry> entries = record(() -> call(OUTER, () -> call(INNER, () -> {
+            for (int i = 0; i < 3; i++) {
+                // The leaf's own callee is hidden with it and not counted
+                call(LEAF, () -> call(STEP, 0));
+            }
+        })));
+
+        TraceEntry inner = single(entries, "inner");
+        assertNull(find(entries, "leaf"), () -> "Call below the depth limit recorded: " + entries);
+        assertNull(find(entries, "step"), () -> "Call below the depth limit recorded: " + entries);
+        assertSummary(entries, inner, "[depth limit 2]", 3);
+    }
+
+    @Test
+    void callsBeyondTheEntryLimitAreSummarized() {
+        configure(false, 0, 3);
+
+        List<TraceEntry> entries = record(() -> {
+            call(OUTER, 0);
+            call(INNER, 0);
+            call(FINISH, 0);
+            for (int i = 0; i < 4; i++) {
+                call(LEAF, 0);
+            }
+        });
+
+        TraceEntry root = find(entries, "run");
+        for (String methodName : List.of("outer", "inner", "finish")) {
+            assertEquals(root.getId(), single(entries, methodName).getParentId());
+        }
+        assertNull(find(entries, "leaf"), () -> "Call beyond the entry limit recorded: " + entries);
+        assertSummary(entries, root, "[entry limit 3]", 4);
+        // Root, three admitted calls and the summary
+        assertEquals(5, entries.size(), entries::toString);
+    }
+
+    // -------------------- Helpers --------------------
+
+    private static void configure(boolean compressLoops, int maxCallDepth, int maxSessionEntries) {
+        TraceFlowConfig config = TraceFlowConfig.current().copy();
+        config.setCompressLoops(compressLoops);
+        config.setMaxCallDepth(maxCallDepth);
+        config.setMaxSessionEntries(maxSessionEntries);
+        TraceFlowConfig.update(config);
+    }
+
+    /**
+     * Run a session rooted at {@link #ROOT} and read it back from the store
+     */
+    private static List<TraceEntry> record(Runnable body) {
+        TraceFrame root = EntryPointInterceptor.onEnter(ROOT);
+        assertNotNull(root.getSessionId(), "Session not started");
+        body.run();
+        EntryPointInterceptor.onExit(root, null, null);
+        return TraceStore.getTracesBySession(root.getSessionId());
+    }
+
+    private static void call(String signature, long sleepMillis) {
+        call(signature, () -> sleep(sleepMillis));
+    }
+
+    private static void call(String signature, Runnable body) {
+        TraceFrame frame = TraceFlowInterceptor.onEnter(signature);
+        assertNotNull(frame, signature);
+        body.run();
+        TraceFlowInterceptor.onExit(frame, null, null);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void assertSummary(List<TraceEntry> entries, TraceEntry parent, String reason, long count) {
+        List<TraceEntry> summaries = new ArrayList<>();
+        for (TraceEntry entry : entries) {
+            if (entry.getMethodType() == MethodTypeEnum.TRUNCATED) summaries.add(entry);
+        }
+        assertEquals(1, summaries.size(), entries::toString);
+        TraceEntry summary = summaries.get(0);
+        assertEquals(parent.getId(), summary.getParentId());
+        assertEquals(SessionLimits.SUMMARY_CLASS, summary.getClassName());
+        assertEquals(reason, summary.getMethodName());
+        assertNotNull(summary.getAggregate());
+        assertEquals(count, summary.getAggregate().getCount());
+    }
+
+    private static TraceEntry single(List<TraceEntry> entries, String methodName) {
+        int matches = 0;
+        for (TraceEntry entry : entries) {
+            if (methodName.equals(entry.getMethodName())) matches++;
+        }
+        assertEquals(1, matches, () -> "Entries of " + methodName + ": " + entries);
+        return find(entries, methodName);
+    }
+
+    private static TraceEntry find(List<TraceEntry> entries, String methodName) {
+        for (TraceEntry entry : entries) {
+            if (methodName.equals(entry.getMethodName())) {
+                return entry;
+            }
+        }
+        return null;
+    }
+}
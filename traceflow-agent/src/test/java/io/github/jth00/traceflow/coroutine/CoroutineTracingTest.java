@@ -0,0 +1,88 @@
+package io.github.jth00.traceflow.coroutine;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.github.jth00.traceflow.AgentJvm;
+import org.junit.jupiter.api.Test;
+import sample.coroutines.CoroutineAppKt;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Suspend functions of kotlinx.coroutines resumed on the IO and Default dispatchers
+ * Every call must stay in the session of the suspend entry point, below its caller, and a
+ * suspended call must be timed until it returned its result, not until its first suspension.
+ */
+class CoroutineTracingTest {
+    private static final String FIXTURE_PACKAGE = "sample.coroutines";
+    private static final long DELAY_MILLIS = 100;
+
+    @Test
+    void resumedCallsKeepTheirParentAndFullDuration() throws Exception {
+        List<String> kotlinJars = List.of(
+            AgentJvm.locationOf(kotlin.Unit.class),
+            AgentJvm.locationOf(kotlinx.coroutines.CoroutineScope.class));
+        try (AgentJvm app = AgentJvm.start(
+                 "package=" + FIXTURE_PACKAGE + ",coroutines=true,entryPoints=" + FIXTURE_PACKAGE + ".OrderFlow.checkout",
+                 kotlinJars, CoroutineAppKt.class, String.valueOf(DELAY_MILLIS))) {
+            assertEquals("7", app.awaitLine("RESULT "), app::getOutput);
+
+            // Resumptions on other threads must not start sessions of their own
+            JsonArray sessionIds = app.awaitJson("/logs?action=sessions",
+                    json -> json.getAsJsonObject().getAsJsonArray("sessions").size() > 0)
+                .getAsJsonObject().getAsJsonArray("sessions");
+            assertEquals(1, sessionIds.size(), app::getOutput);
+            JsonArray entries = app.awaitJson("/logs?sessionId=" + sessionIds.get(0).getAsString(),
+                json -> find(json.getAsJsonArray(), "checkout") != null).getAsJsonArray();
+
+            JsonObject checkout = find(entries, "checkout");
+            JsonObject loadStock = find(entries, "loadStock");
+            JsonObject count = find(entries, "count");
+            JsonObject fetchPrice = find(entries, "fetchPrice");
+            JsonObject loadPrice = find(entries, "loadPrice");
+            JsonObject confirm = find(entries, "confirm");
+            for (JsonObject entry : new JsonObject[]{loadStock, count, fetchPrice, loadPrice, confirm}) {
+                assertNotNull(entry, () -> "Missing call: " + entries);
+            }
+
+            // Parent chain across dispatchers, including calls made after a resumption
+            assertParent(checkout, loadStock);
+            assertParent(loadStock, count);
+            assertParent(checkout, fetchPrice);
+            assertParent(fetchPrice, loadPrice);
+            assertParent(checkout, confirm);
+
+            // Durations cover every suspension of the call
+            assertAtLeast(DELAY_MILLIS, loadStock);
+            assertAtLeast(2 * DELAY_MILLIS, loadPrice);
+            assertAtLeast(2 * DELAY_MILLIS, fetchPrice);
+            assertAtLeast(2 * DELAY_MILLIS, checkout);
+        }
+    }
+
+    private static void assertParent(JsonObject parent, JsonObject child) {
+        assertEquals(parent.get("id").getAsString(), child.get("parentId").getAsString(),
+            () -> child.get("methodName").getAsString() + " is not a child of " + parent.get("methodName").getAsString());
+    }
+
+    private static void assertAtLeast(long millis, JsonObject entry) {
+        long duration = entry.get("duration").getAsLong();
+        assertTrue(duration >= millis,
+            () -> entry.get("methodName").getAsString() + " took " + duration + "ms, expected at least " + millis + "ms");
+    }
+
+    private static JsonObject find(JsonArray entries, String methodName) {
+        for (JsonElement element : entries) {
+            JsonObject entry = element.getAsJsonObject();
+            if (methodName.equals(entry.get("methodName").getAsString())) {
+                return entry;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,308 @@
+package io.github.jth00.traceflow.export;
+
+import io.github.jth00.traceflow.capture.CapturedValue;
+import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.vo.CallAggregate;
+import io.github.jth00.traceflow.vo.ResourceUsage;
+import io.github.jth00.traceflow.vo.SessionLink;
+import io.github.jth00.traceflow.vo.SqlExecution;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Binary batches pushed from agents to the collector
+ * Every field of a session must survive a framed round trip, strings must be written once,
+ * and frames or payloads that do not match the format must be rejected before anything of
+ * their announced size is allocated.
+ */
+class TraceBatchCodecTest {
+    private static final String NODE = "orders-1";
+    private static final String CLASS = "sample.export.OrderService";
+    private static final long BASE_TIME = 1_700_000_000_000L;
+
+    @Test
+    void roundTripPreservesEveryField() throws IOException {
+        String session = id();
+        String root = id();
+        String query = id();
+        String failure = id();
+        List<TraceEntry> entries = List.of(
+            TraceEntry.builder()
+                .id(root).sessionId(session)
+                .className(CLASS).methodName("placeOrder").returnType("java.lang.String")
+                .parameterTypes(List.of("java.lang.String", "int"))
+                .startTime(BASE_TIME).duration(12_345_678_901L)
+                .methodType(MethodTypeEnum.ENTRY_POINT)
+                .arguments(Arrays.asList(CapturedValue.rendered("order-7", false), CapturedValue.rendered("3", false)))
+                .returnValue(CapturedValue.rendered("x".repeat(300), true))
+                .resources(new ResourceUsage(1L << 40, 987_654_321L, 12_345_678_901L))
+                .build(),
+            TraceEntry.builder()
+                .id(query).parentId(root).sessionId(session)
+                .className(CLASS).methodName("findStock").returnType("int")
+                .parameterTypes(null)
+                .startTime(BASE_TIME + 200).duration(150)
+                .methodType(MethodTypeEnum.SQL)
+                .aggregate(new CallAggregate(40, 6_000, 100, 400, 2))
+                .sql(new SqlExecution("select count(*) from stock where item = ?", -1, null))
+                .build(),
+            // Async continuation reported with a start before the entry point
+            TraceEntry.builder()
+                .id(failure).parentId(root).sessionId(session)
+                .className("sample.export.Notifier").methodName("notify").returnType("void")
+                .parameterTypes(List.of())
+                .startTime(BASE_TIME - 5).duration(0)
+                .async(true)
+                .error(true, "java.lang.IllegalStateException", "mail server down")
+                .stackTrace("java.lang.IllegalStateException: mail server down\n\tat sample.export.Notifier.notify")
+                .errorOriginId(query)
+                .build());
+        SessionLink link = new SessionLink(session, id(), id());
+        String local = id();
+        List<TraceEntry> localEntries = List.of(
+            TraceEntry.builder()
+                .id(id()).sessionId(local)
+                .className(CLASS).methodName("placeOrder").returnType("java.lang.String")
+                .parameterTypes(List.of("java.lang.String", "int"))
+                .startTime(BASE_TIME + 1_000).duration(1)
+                .build());
+
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        TraceBatchCodec.writeFrame(frames, NODE, List.of(
+            new TraceBatchCodec.Session(entries, link),
+            new TraceBatchCodec.Session(localEntries, null)));
+        ByteArrayInputStream in = new ByteArrayInputStream(frames.toByteArray());
+        TraceBatchCodec.Batch batch = TraceBatchCodec.decode(TraceBatchCodec.readFrame(in));
+        assertNull(TraceBatchCodec.readFrame(in));
+
+        assertEquals(NODE, batch.getNode());
+        assertEquals(2, batch.getSessions().size());
+        TraceBatchCodec.Session linked = batch.getSessions().get(0);
+        assertEquals(session, linked.getSessionId());
+        assertEquals(link.getSessionId(), linked.getLink().getSessionId());
+        assertEquals(link.getParentSessionId(), linked.getLink().getParentSessionId());
+        assertEquals(link.getParentEntryId(), linked.getLink().getParentEntryId());
+        assertEquals(entries.size(), linked.getEntries().size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertSameEntry(entries.get(i), linked.getEntries().get(i));
+        }
+        TraceBatchCodec.Session started = batch.getSessions().get(1);
+        assertEquals(local, started.getSessionId());
+        assertNull(started.getLink());
+        assertSameEntry(localEntries.get(0), started.getEntries().get(0));
+
+        // Null parameter types are sent as none
+        assertEquals(List.of(), linked.getEntries().get(1).getParameterTypes());
+    }
+
+    @Test
+    void repeatedStringsAreWrittenOnce() throws IOException {
+        List<TraceEntry> entries = new ArrayList<>();
+        String session = id();
+        String root = id();
+        entries.add(entry(session, root, null, 0));
+        for (int i = 1; i < 50; i++) {
+            entries.add(entry(session, id(), root, i));
+        }
+
+        byte[] payload = TraceBatchCodec.encode(NODE, List.of(new TraceBatchCodec.Session(entries, null)));
+
+        String text = new String(payload, StandardCharsets.ISO_8859_1);
+        assertEquals(1, occurrences(text, CLASS));
+        assertEquals(1, occurrences(text, session));
+        assertEquals(50, TraceBatchCodec.decode(payload).getSessions().get(0).getEntries().size());
+    }
+
+    @Test
+    void emptyStreamHasNoFrame() throws IOException {
+        assertNull(TraceBatchCodec.readFrame(new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    void rejectsOtherMagic() {
+        byte[] frame = header(0x47455420, 4);
+        IOException error = assertThrows(IOException.class,
+            () -> TraceBatchCodec.readFrame(new ByteArrayInputStream(frame)));
+        assertTrue(error.getMessage().startsWith("Not a TraceFlow batch"), error.getMessage());
+    }
+
+    @Test
+    void rejectsNegativeAndOversizedLength() {
+        for (int length : new int[]{-1, Integer.MIN_VALUE, TraceBatchCodec.MAX_PAYLOAD_BYTES + 1}) {
+            byte[] frame = header(TraceBatchCodec.MAGIC, length);
+            IOException error = assertThrows(IOException.class,
+                () -> TraceBatchCodec.readFrame(new ByteArrayInputStream(frame)));
+            assertEquals("Invalid batch size: " + length, error.getMessage());
+        }
+    }
+
+    @Test
+    void rejectsTruncatedFrame() throws IOException {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        TraceBatchCodec.writeFrame(frames, NODE,
+            List.of(new TraceBatchCodec.Session(List.of(entry(id(), id(), null, 0)), null)));
+        byte[] frame = frames.toByteArray();
+        byte[] truncated = Arrays.copyOf(frame, frame.length - 3);
+
+        assertThrows(EOFException.class, () -> TraceBatchCodec.readFrame(new ByteArrayInputStream(truncated)));
+        // A header alone is not a batch either
+        assertThrows(EOFException.class,
+            () -> TraceBatchCodec.readFrame(new ByteArrayInputStream(Arrays.copyOf(frame, 6))));
+    }
+
+    @Test
+    void rejectsCountLargerThanPayload() throws IOException {
+        // Version, node and a string table announcing a million strings in a few bytes
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeByte(1);
+        payload.writeByte(1);
+        payload.writeByte('n');
+        writeVarLong(payload, 1_000_000);
+        payload.writeByte(0);
+
+        IOException error = assertThrows(IOException.class, () -> TraceBatchCodec.decode(bytes.toByteArray()));
+        assertEquals("Invalid count: 1000000", error.getMessage());
+    }
+
+    @Test
+    void rejectsReferenceOutsideStringTable() throws IOException {
+        // Empty string table, one session whose ID points at string 5
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeByte(1);
+        payload.writeByte(1);
+        payload.writeByte('n');
+        writeVarLong(payload, 0);
+        writeVarLong(payload, 1);
+        writeVarLong(payload, 5);
+        payload.writeBoolean(false);
+
+        IOException error = assertThrows(IOException.class, () -> TraceBatchCodec.decode(bytes.toByteArray()));
+        assertEquals("Invalid string reference: 5", error.getMessage());
+    }
+
+    @Test
+    void rejectsOtherVersion() {
+        byte[] payload = {2, 1, 'n', 0, 0};
+        assertThrows(IOException.class, () -> TraceBatchCodec.decode(payload));
+    }
+
+    // -------------------- Helpers --------------------
+
+    private static TraceEntry entry(String session, String id, String parentId, long startOffset) {
+        return TraceEntry.builder()
+            .id(id).parentId(parentId).sessionId(session)
+            .className(CLASS).methodName("reserve").returnType("void")
+            .parameterTypes(List.of("long"))
+            .startTime(BASE_TIME + startOffset).duration(startOffset * 1_000)
+            .methodType(MethodTypeEnum.BUSINESS)
+            .build();
+    }
+
+    private static byte[] header(int magic, int length) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        try {
+            data.writeInt(magic);
+            data.writeInt(length);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int occurrences(String text, String value) {
+        int count = 0;
+        for (int i = text.indexOf(value); i >= 0; i = text.indexOf(value, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void assertSameEntry(TraceEntry expected, TraceEntry actual) {
+        String id = expected.getId();
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getParentId(), actual.getParentId(), id);
+        assertEquals(expected.getSessionId(), actual.getSessionId(), id);
+        assertEquals(expected.getClassName(), actual.getClassName(), id);
+        assertEquals(expected.getMethodName(), actual.getMethodName(), id);
+        assertEquals(expected.getReturnType(), actual.getReturnType(), id);
+        if (expected.getParameterTypes() != null) {
+            assertEquals(expected.getParameterTypes(), actual.getParameterTypes(), id);
+        }
+        assertEquals(expected.getStartTime(), actual.getStartTime(), id);
+        assertEquals(expected.getDuration(), actual.getDuration(), id);
+        assertEquals(expected.isAsync(), actual.isAsync(), id);
+        assertEquals(expected.isError(), actual.isError(), id);
+        assertEquals(expected.getErrorType(), actual.getErrorType(), id);
+        assertEquals(expected.getErrorMessage(), actual.getErrorMessage(), id);
+        assertEquals(expected.getStackTrace(), actual.getStackTrace(), id);
+        assertEquals(expected.getMethodType(), actual.getMethodType(), id);
+        assertEquals(expected.getErrorOriginId(), actual.getErrorOriginId(), id);
+
+        assertEquals(expected.getArguments() == null, actual.getArguments() == null, id);
+        if (expected.getArguments() != null) {
+            assertEquals(expected.getArguments().size(), actual.getArguments().size(), id);
+            for (int i = 0; i < expected.getArguments().size(); i++) {
+                assertSameValue(expected.getArguments().get(i), actual.getArguments().get(i), id);
+            }
+        }
+        assertEquals(expected.getReturnValue() == null, actual.getReturnValue() == null, id);
+        if (expected.getReturnValue() != null) {
+            assertSameValue(expected.getReturnValue(), actual.getReturnValue(), id);
+        }
+        assertEquals(expected.getResources() == null, actual.getResources() == null, id);
+        if (expected.getResources() != null) {
+            assertEquals(expected.getResources().getAllocatedBytes(), actual.getResources().getAllocatedBytes(), id);
+            assertEquals(expected.getResources().getCpuNanos(), actual.getResources().getCpuNanos(), id);
+            assertEquals(expected.getResources().getWallNanos(), actual.getResources().getWallNanos(), id);
+        }
+        assertEquals(expected.getAggregate() == null, actual.getAggregate() == null, id);
+        if (expected.getAggregate() != null) {
+            assertEquals(expected.getAggregate().getCount(), actual.getAggregate().getCount(), id);
+            assertEquals(expected.getAggregate().getTotalNanos(), actual.getAggregate().getTotalNanos(), id);
+            assertEquals(expected.getAggregate().getMinNanos(), actual.getAggregate().getMinNanos(), id);
+            assertEquals(expected.getAggregate().getMaxNanos(), actual.getAggregate().getMaxNanos(), id);
+            assertEquals(expected.getAggregate().getErrorCount(), actual.getAggregate().getErrorCount(), id);
+        }
+        assertEquals(expected.getSql() == null, actual.getSql() == null, id);
+        if (expected.getSql() != null) {
+            assertEquals(expected.getSql().getSql(), actual.getSql().getSql(), id);
+            assertEquals(expected.getSql().getRows(), actual.getSql().getRows(), id);
+        }
+    }
+
+    private static void assertSameValue(CapturedValue expected, CapturedValue actual, String id) {
+        assertEquals(expected.getValue(), actual.getValue(), id);
+        assertEquals(expected.isTruncated(), actual.isTruncated(), id);
+    }
+
+    private static String id() {
+        return UUID.randomUUID().toString();
+    }
+}
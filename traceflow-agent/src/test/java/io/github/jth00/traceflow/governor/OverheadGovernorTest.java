@@ -0,0 +1,96 @@
+package io.github.jth00.traceflow.governor;
+
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Level decisions of the overhead governor, one evaluation window at a time
+ * Over budget the governor must step up one level per window until the last level, where
+ * deep tracing is disabled; it must step down only once the overhead is below half the
+ * budget, and disabling it must return to full tracing.
+ */
+class OverheadGovernorTest {
+    private static final long WINDOW = 5_000_000_000L;
+    private static final int PROCESSORS = 4;
+    private static final double BUDGET = 2.0;
+
+    // 1% of the CPU capacity of a window
+    private static final long ONE_PERCENT_CPU = WINDOW * PROCESSORS / 100;
+
+    @Test
+    void overheadOverBudgetStepsUpToTheLastLevel() {
+        int level = 0;
+        for (int expected = 1; expected <= OverheadGovernor.MAX_LEVEL; expected++) {
+            level = OverheadGovernor.nextLevel(WINDOW, PROCESSORS, 0, 0, 0, 3 * ONE_PERCENT_CPU, BUDGET, level);
+            assertEquals(expected, level);
+        }
+        // No level beyond the last one
+        assertEquals(OverheadGovernor.MAX_LEVEL,
+            OverheadGovernor.nextLevel(WINDOW, PROCESSORS, 0, 0, 0, 3 * ONE_PERCENT_CPU, BUDGET, level));
+
+        // Sampling halves per level and stays at its lowest rate on the last level
+        assertEquals(1, OverheadGovernor.sampleInterval(0));
+        assertEquals(2, OverheadGovernor.sampleInterval(1));
+        assertEquals(64, OverheadGovernor.sampleInterval(OverheadGovernor.MAX_LEVEL - 1));
+        assertEquals(64, OverheadGovernor.sampleInterval(OverheadGovernor.MAX_LEVEL));
+    }
+
+    @Test
+    void latencyOverBudgetStepsUp() {
+        // Negligible CPU, but interceptors add 10% to traced calls
+        long traced = 1_000_000_000L;
+        assertEquals(1, OverheadGovernor.nextLevel(WINDOW, PROCESSORS, 80_000_000L, 20_000_000L, traced, 0, BUDGET, 0));
+
+        // At 1 in 8 sessions the same traced time adds 1.25% to an average call, within budget
+        assertEquals(3, OverheadGovernor.nextLevel(WINDOW, PROCESSORS, 80_000_000L, 20_000_000L, traced, 0, BUDGET, 3));
+        assertEquals(1.25, OverheadGovernor.latencyPercent(80_000_000L, 20_000_000L, traced, 3), 1e-9);
+    }
+
+    @Test
+    void deepTracingIsDisabledOnlyAtTheLastLevel() {
+        int last = OverheadGovernor.MAX_LEVEL;
+        assertEquals(100, OverheadGovernor.limitDepth(100, last - 1));
+        assertEquals(0, OverheadGovernor.limitDepth(0, last - 1));
+        assertEquals(1, OverheadGovernor.limitDepth(100, last));
+        // Unlimited depth is limited too
+        assertEquals(1, OverheadGovernor.limitDepth(0, last));
+    }
+
+    @Test
+    void stepsDownOnlyBelowHalfTheBudget() {
+        int level = 3;
+        // Between half the budget and the budget: stay
+        assertEquals(level, OverheadGovernor.nextLevel(WINDOW, PROCESSORS, 0, 0, 0, ONE_PERCENT_CPU, BUDGET, level));
+        assertEquals(level, OverheadGovernor.nextLevel(WINDOW, PROCESSORS, 0, 0, 0, 2 * ONE_PERCENT_CPU, BUDGET, level));
+        // Below half the budget: one level down per window, never below 0
+        assertEquals(2, OverheadGovernor.nextLevel(WINDOW, PROCESSORS, 0, 0, 0, ONE_PERCENT_CPU - 1, BUDGET, level));
+        assertEquals(0, OverheadGovernor.nextLevel(WINDOW, PROCESSORS, 0, 0, 0, 0, BUDGET, 0));
+        // Just over the budget: up
+        assertEquals(4, OverheadGovernor.nextLevel(WINDOW, PROCESSORS, 0, 0, 0, 2 * ONE_PERCENT_CPU + 1, BUDGET, level));
+    }
+
+    @Test
+    void disablingReturnsToFullTracing() {
+        assertEquals(0, OverheadGovernor.nextLevel(WINDOW, PROCESSORS, 0, 0, 0, 50 * ONE_PERCENT_CPU, 0, 5));
+
+        TraceFlowConfig enabled = TraceFlowConfig.current().copy();
+        enabled.setOverheadBudgetPercent(BUDGET);
+        TraceFlowConfig disabled = TraceFlowConfig.current().copy();
+        disabled.setOverheadBudgetPercent(0);
+        try {
+            OverheadGovernor.configure(enabled);
+            OverheadGovernor.setLevel(OverheadGovernor.MAX_LEVEL);
+            assertEquals(1, OverheadGovernor.limitDepth(0));
+
+            OverheadGovernor.configure(disabled);
+            assertEquals(0, OverheadGovernor.getLevel());
+            assertEquals(1, OverheadGovernor.getSampleInterval());
+            assertEquals(0, OverheadGovernor.limitDepth(0));
+            assertEquals(0, OverheadGovernor.getOverheadPercent(), 0);
+        } finally {
+            OverheadGovernor.configure(disabled);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.jth00.traceflow.jdbc;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.github.jth00.traceflow.AgentJvm;
+import org.junit.jupiter.api.Test;
+import sample.jdbc.OrderRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Statements executed against H2 inside a traced session
+ * Every execution must be recorded as an SQL child of the traced method that ran it, with
+ * normalized SQL, row count and a duration inside the duration of its parent.
+ */
+class JdbcTracingTest {
+    private static final String FIXTURE_PACKAGE = "sample.jdbc";
+    private static final String H2_DRIVER = "org.h2.Driver";
+    private static final int REPORT_MILLIS = 50;
+
+    // Entry timestamps are whole milliseconds, an SQL entry's start is derived from its end
+    private static final long CLOCK_SLACK_MILLIS = 2;
+
+    @Test
+    void statementsAreRecordedAsTimedChildrenOfTheirCaller() throws Exception {
+        String h2Jar = AgentJvm.locationOf(Class.forName(H2_DRIVER));
+        try (AgentJvm app = AgentJvm.start(
+                 "package=" + FIXTURE_PACKAGE + ",jdbc=true,entryPoints=" + FIXTURE_PACKAGE + ".OrderRepository.process",
+                 List.of(h2Jar), OrderRepository.class, String.valueOf(REPORT_MILLIS))) {
+            assertEquals("500", app.awaitLine("RESULT "), app::getOutput);
+
+            String sessionId = app.awaitJson("/logs?action=sessions",
+                    json -> json.getAsJsonObject().getAsJsonArray("sessions").size() == 1)
+                .getAsJsonObject().getAsJsonArray("sessions").get(0).getAsString();
+            JsonArray entries = app.getJson("/logs?sessionId=" + sessionId).getAsJsonArray();
+
+            Map<String, JsonObject> byId = new HashMap<>();
+            Map<String, List<JsonObject>> sqlByCaller = new HashMap<>();
+            for (JsonElement element : entries) {
+                JsonObject entry = element.getAsJsonObject();
+                byId.put(entry.get("id").getAsString(), entry);
+            }
+            for (JsonObject entry : byId.values()) {
+                if (!"SQL".equals(entry.get("methodType").getAsString())) continue;
+                JsonObject parent = byId.get(entry.get("parentId").getAsString());
+                assertNotNull(parent, () -> "SQL entry without a recorded parent: " + entry);
+                sqlByCaller.computeIfAbsent(parent.get("methodName").getAsString(), k -> new ArrayList<>()).add(entry);
+                assertWithin(parent, entry);
+            }
+
+            List<JsonObject> schema = sqlByCaller.get("createSchema");
+            assertNotNull(schema, () -> "No SQL under createSchema: " + entries);
+            assertEquals(2, schema.size());
+
+            // Prepared statement: one entry per execution, SQL remembered from prepareStatement
+            List<JsonObject> inserts = sqlByCaller.get("insertOrders");
+            assertNotNull(inserts, () -> "No SQL under insertOrders: " + entries);
+            assertEquals(3, inserts.size());
+            for (JsonObject insert : inserts) {
+                assertEquals("java.sql.PreparedStatement", insert.get("className").getAsString());
+                assertEquals("executeUpdate", insert.get("methodName").getAsString());
+                assertEquals("INSERT INTO orders (amount) VALUES (?)", sql(insert).get("sql").getAsString());
+                assertEquals(1, sql(insert).get("rows").getAsLong());
+            }
+
+            // Query: literal normalized, rows counted while the result set is read
+            List<JsonObject> queries = sqlByCaller.get("totalAbove");
+            assertNotNull(queries, () -> "No SQL under totalAbove: " + entries);
+            assertEquals(1, queries.size());
+            assertEquals("SELECT amount FROM orders WHERE amount > ?", sql(queries.get(0)).get("sql").getAsString());
+            assertEquals(2, sql(queries.get(0)).get("rows").getAsLong());
+
+            // Slow statement: its time is measured, not the time of the surrounding call
+            List<JsonObject> reports = sqlByCaller.get("runReport");
+            assertNotNull(reports, () -> "No SQL under runReport: " + entries);
+            assertEquals(1, reports.size());
+            long reportDuration = reports.get(0).get("duration").getAsLong();
+            assertTrue(reportDuration >= REPORT_MILLIS,
+                () -> "Statement took " + reportDuration + "ms, expected at least " + REPORT_MILLIS + "ms");
+        }
+    }
+
+    private static JsonObject sql(JsonObject entry) {
+        return entry.getAsJsonObject("sql");
+    }
+
+    private static void assertWithin(JsonObject parent, JsonObject child) {
+        long parentStart = parent.get("startTime").getAsLong();
+        long parentEnd = parentStart + parent.get("duration").getAsLong();
+        long childStart = child.get("startTime").getAsLong();
+        long childEnd = childStart + child.get("duration").getAsLong();
+        assertTrue(childStart >= parentStart - CLOCK_SLACK_MILLIS && childEnd <= parentEnd + CLOCK_SLACK_MILLIS,
+            () -> "SQL entry " + child + " outside of its parent " + parent);
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.jth00.traceflow.propagation;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.github.jth00.traceflow.AgentJvm;
+import org.junit.jupiter.api.Test;
+import sample.propagation.InventoryApp;
+import sample.propagation.OrderApp;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Context propagation between two JVMs running the agent
+ * OrderApp calls InventoryServlet over HttpURLConnection; the header added to the request
+ * must link the inventory session to the call entry of the order session.
+ */
+class CrossJvmPropagationTest {
+    private static final String FIXTURE_PACKAGE = "sample.propagation";
+
+    @Test
+    void propagatedHeaderLinksTheCalledSession() throws Exception {
+        int inventoryPort = AgentJvm.freePort();
+        try (AgentJvm inventory = AgentJvm.start(
+                 "package=" + FIXTURE_PACKAGE + ",propagate=true,entryPoints=" + FIXTURE_PACKAGE + ".InventoryServlet.doGet",
+                 List.of(), InventoryApp.class, String.valueOf(inventoryPort))) {
+            inventory.awaitLine("READY");
+
+            try (AgentJvm order = AgentJvm.start(
+                     "package=" + FIXTURE_PACKAGE + ",propagate=true,entryPoints=" + FIXTURE_PACKAGE + ".OrderApp.checkout" +
+                         ",peers=" + inventory.getWebUrl(),
+                     List.of(), OrderApp.class, "http://localhost:" + inventoryPort)) {
+                assertEquals("4", order.awaitLine("RESULT "), order::getOutput);
+
+                // Calling session and its entry point
+                JsonArray sessionIds = order.awaitJson("/logs?action=sessions",
+                    json -> json.getAsJsonObject().getAsJsonArray("sessions").size() == 1)
+                    .getAsJsonObject().getAsJsonArray("sessions");
+                String orderSessionId = sessionIds.get(0).getAsString();
+                JsonObject checkout = find(order.awaitJson("/logs?sessionId=" + orderSessionId,
+                    json -> json.getAsJsonArray().size() > 0).getAsJsonArray(), "checkout");
+                assertNotNull(checkout, order::getOutput);
+
+                // Called JVM: session linked to the calling entry
+                JsonArray linked = inventory.awaitJson("/logs?action=linked&parentSessionId=" + orderSessionId,
+                    json -> json.getAsJsonArray().size() > 0).getAsJsonArray();
+                assertEquals(1, linked.size(), inventory::getOutput);
+                JsonObject link = linked.get(0).getAsJsonObject();
+                assertEquals(checkout.get("id").getAsString(), link.get("parentEntryId").getAsString());
+                JsonArray inventoryEntries = link.getAsJsonArray("entries");
+                assertNotNull(find(inventoryEntries, "doGet"), inventory::getOutput);
+                assertNotNull(find(inventoryEntries, "reserve"), inventory::getOutput);
+
+                // Calling JVM: merged tree with the remote entry point under the calling entry
+                JsonArray merged = order.getJson("/logs?sessionId=" + orderSessionId + "&merge=peers").getAsJsonArray();
+                JsonObject doGet = find(merged, "doGet");
+                assertNotNull(doGet, order::getOutput);
+                assertEquals(checkout.get("id").getAsString(), doGet.get("parentId").getAsString());
+                assertEquals(inventory.getWebUrl(), doGet.get("peer").getAsString());
+                assertTrue(find(merged, "reserve") != null, "merged session lacks the remote child call");
+            }
+        }
+    }
+
+    private static JsonObject find(JsonArray entries, String methodName) {
+        for (JsonElement element : entries) {
+            JsonObject entry = element.getAsJsonObject();
+            if (methodName.equals(entry.get("methodName").getAsString())) {
+                return entry;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,231 @@
+package io.github.jth00.traceflow.store;
+
+import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.vo.SubtreePage;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Sessions split into a shared shape and per call values
+ * Reading a stored session must give back every entry exactly as it was recorded, in
+ * depth-first order, and sessions with the same call tree must share one shape. Pages of
+ * children must rebuild only the requested entries, with the size of their subtrees.
+ */
+class StoredSessionTest {
+    private static final String SESSION = UUID.randomUUID().toString();
+    private static final String CLASS = "sample.store.Checkout";
+    private static final long BASE_TIME = 1_700_000_000_000L;
+
+    @Test
+    void roundTripPreservesEveryEntry() {
+        String root = id();
+        String load = id();
+        String price = id();
+        String save = id();
+        // Recorded as calls finish: children first, siblings out of start order
+        List<TraceEntry> entries = List.of(
+            entry(price, load, "price", 12, 3, MethodTypeEnum.BUSINESS, false),
+            failed(save, root, "save", 30, 5),
+            entry(load, root, "load", 10, 8, MethodTypeEnum.GETTER, true),
+            entry(root, null, "checkout", 0, 40, MethodTypeEnum.ENTRY_POINT, false));
+
+        StoredSession stored = StoredSession.create(SESSION, entries, UnaryOperator.identity());
+        List<TraceEntry> read = stored.toEntries();
+
+        assertEquals(List.of(root, load, price, save), ids(read));
+        Map<String, TraceEntry> recorded = byId(entries);
+        for (TraceEntry entry : read) {
+            assertSameEntry(recorded.get(entry.getId()), entry);
+        }
+        assertEquals(40, stored.getRootDuration());
+    }
+
+    @Test
+    void entriesWithoutUuidsOrWithAMissingParentRoundTrip() {
+        List<TraceEntry> entries = List.of(
+            entry("root", null, "checkout", 0, 20, MethodTypeEnum.ENTRY_POINT, false),
+            entry("child", "root", "load", 5, 10, null, false),
+            entry("orphan", "flushed-earlier", "price", 8, 2, MethodTypeEnum.BUSINESS, false));
+
+        List<TraceEntry> read = StoredSession.create(SESSION, entries, UnaryOperator.identity()).toEntries();
+
+        assertEquals(List.of("root", "child", "orphan"), ids(read));
+        Map<String, TraceEntry> recorded = byId(entries);
+        for (TraceEntry entry : read) {
+            assertSameEntry(recorded.get(entry.getId()), entry);
+        }
+    }
+
+    @Test
+    void sessionsWithTheSameTreeShareOneShape() {
+        Map<SessionShape, SessionShape> pool = new HashMap<>();
+        UnaryOperator<SessionShape> intern = shape -> pool.computeIfAbsent(shape, s -> s);
+
+        StoredSession first = StoredSession.create(SESSION, session(0, "load", "save"), intern);
+        StoredSession second = StoredSession.create(SESSION, session(500, "load", "save"), intern);
+        StoredSession other = StoredSession.create(SESSION, session(900, "load", "price"), intern);
+
+        assertSame(first.getShape(), second.getShape());
+        assertNotSame(first.getShape(), other.getShape());
+        assertEquals(2, pool.size());
+        assertEquals(List.of("checkout", "load", "save"), methodNames(second.toEntries()));
+    }
+
+    @Test
+    void childrenArePagedWithTheirSubtreeSizes() {
+        // Child i has i children; the first child of step2 has one more level
+        String root = id();
+        List<TraceEntry> entries = new ArrayList<>();
+        entries.add(entry(root, null, "checkout", 0, 100, MethodTypeEnum.ENTRY_POINT, false));
+        List<String> children = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String child = id();
+            children.add(child);
+            entries.add(entry(child, root, "step" + i, 10 * (i + 1), 5, MethodTypeEnum.BUSINESS, false));
+            for (int j = 0; j < i; j++) {
+                String grandchild = id();
+                entries.add(entry(grandchild, child, "item", 10 * (i + 1) + j, 1, MethodTypeEnum.BUSINESS, false));
+                if (i == 2 && j == 0) {
+                    entries.add(entry(id(), grandchild, "price", 10 * (i + 1), 1, MethodTypeEnum.BUSINESS, false));
+                }
+            }
+        }
+        StoredSession stored = StoredSession.create(SESSION, entries, UnaryOperator.identity());
+        Map<String, TraceEntry> recorded = byId(entries);
+
+        SubtreePage page = stored.page(root, 1, 2);
+        assertEquals(SESSION, page.getSessionId());
+        assertEquals(root, page.getParentId());
+        assertEquals(entries.size(), page.getSessionSize());
+        assertEquals(5, page.getTotalChildren());
+        assertEquals(1, page.getOffset());
+        assertEquals(2, page.getNodes().size());
+        assertNode(recorded, children.get(1), 1, 1, page.getNodes().get(0));
+        assertNode(recorded, children.get(2), 2, 3, page.getNodes().get(1));
+
+        SubtreePage roots = stored.page(null, 0, 10);
+        assertEquals(1, roots.getTotalChildren());
+        assertNode(recorded, root, 5, entries.size() - 1, roots.getNodes().get(0));
+
+        SubtreePage past = stored.page(root, 5, 2);
+        assertEquals(5, past.getTotalChildren());
+        assertEquals(0, past.getNodes().size());
+
+        assertNull(stored.page(id(), 0, 10));
+    }
+
+    // -------------------- Helpers --------------------
+
+    /**
+     * Entry point with one child per method name, all with fresh IDs and timings from the start
+     */
+    private static List<TraceEntry> session(long start, String... children) {
+        String root = id();
+        List<TraceEntry> entries = new ArrayList<>();
+        entries.add(entry(root, null, "checkout", start, 50, MethodTypeEnum.ENTRY_POINT, false));
+        for (int i = 0; i < children.length; i++) {
+            entries.add(entry(id(), root, children[i], start + 1 + i, start % 7 + i, MethodTypeEnum.BUSINESS, false));
+        }
+        return entries;
+    }
+
+    private static TraceEntry entry(String id, String parentId, String methodName, long startOffset,
+                                    long duration, MethodTypeEnum methodType, boolean async) {
+        return TraceEntry.builder()
+            .id(id)
+            .parentId(parentId)
+            .sessionId(SESSION)
+            .className(CLASS)
+            .methodName(methodName)
+            .returnType("void")
+            .parameterTypes(List.of("java.lang.String", "int"))
+            .startTime(BASE_TIME + startOffset)
+            .duration(duration)
+            .async(async)
+            .methodType(methodType)
+            .build();
+    }
+
+    private static TraceEntry failed(String id, String parentId, String methodName, long startOffset, long duration) {
+        return TraceEntry.builder()
+            .id(id)
+            .parentId(parentId)
+            .sessionId(SESSION)
+            .className(CLASS)
+            .methodName(methodName)
+            .returnType("void")
+            .parameterTypes(List.of())
+            .startTime(BASE_TIME + startOffset)
+            .duration(duration)
+            .error(true, "java.lang.IllegalStateException", "out of stock")
+            .stackTrace("java.lang.IllegalStateException: out of stock")
+            .methodType(MethodTypeEnum.ERROR)
+            .build();
+    }
+
+    private static void assertNode(Map<String, TraceEntry> recorded, String id, int childCount,
+                                   int descendantCount, SubtreePage.Node node) {
+        assertEquals(id, node.getEntry().getId());
+        assertSameEntry(recorded.get(id), node.getEntry());
+        assertEquals(childCount, node.getChildCount(), id);
+        assertEquals(descendantCount, node.getDescendantCount(), id);
+    }
+
+    private static void assertSameEntry(TraceEntry expected, TraceEntry actual) {
+        String id = expected.getId();
+        assertEquals(expected.getParentId(), actual.getParentId(), id);
+        assertEquals(expected.getSessionId(), actual.getSessionId(), id);
+        assertEquals(expected.getClassName(), actual.getClassName(), id);
+        assertEquals(expected.getMethodName(), actual.getMethodName(), id);
+        assertEquals(expected.getReturnType(), actual.getReturnType(), id);
+        assertEquals(expected.getParameterTypes(), actual.getParameterTypes(), id);
+        assertEquals(expected.getStartTime(), actual.getStartTime(), id);
+        assertEquals(expected.getDuration(), actual.getDuration(), id);
+        assertEquals(expected.isAsync(), actual.isAsync(), id);
+        assertEquals(expected.isError(), actual.isError(), id);
+        assertEquals(expected.getErrorType(), actual.getErrorType(), id);
+        assertEquals(expected.getErrorMessage(), actual.getErrorMessage(), id);
+        assertEquals(expected.getStackTrace(), actual.getStackTrace(), id);
+        assertEquals(expected.getMethodType(), actual.getMethodType(), id);
+    }
+
+    private static String id() {
+        return UUID.randomUUID().toString();
+    }
+
+    private static Map<String, TraceEntry> byId(List<TraceEntry> entries) {
+        Map<String, TraceEntry> byId = new HashMap<>();
+        for (TraceEntry entry : entries) {
+            byId.put(entry.getId(), entry);
+        }
+        return byId;
+    }
+
+    private static List<String> ids(List<TraceEntry> entries) {
+        List<String> ids = new ArrayList<>();
+        for (TraceEntry entry : entries) {
+            ids.add(entry.getId());
+        }
+        return ids;
+    }
+
+    private static List<String> methodNames(List<TraceEntry> entries) {
+        List<String> names = new ArrayList<>();
+        for (TraceEntry entry : entries) {
+            names.add(entry.getMethodName());
+        }
+        return names;
+    }
+}
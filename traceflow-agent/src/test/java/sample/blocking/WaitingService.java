@@ -0,0 +1,84 @@
+package sample.blocking;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Application of the blocking detection test: one wait of each kind inside a traced call
+ * A helper thread that is not traced completes the future and answers on the socket after
+ * parking itself, and the main thread parks again after the traced call. Prints
+ * "RESULT <reply>" and keeps running so the test can read the session from its agent.
+ */
+public class WaitingService {
+    private final long waitMillis;
+    private final Socket client;
+
+    public WaitingService(long waitMillis, Socket client) {
+        this.waitMillis = waitMillis;
+        this.client = client;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long waitMillis = Long.parseLong(args[0]);
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket peer = server.accept()) {
+            WaitingService service = new WaitingService(waitMillis, client);
+            CompletableFuture<String> result = new CompletableFuture<>();
+            Thread helper = new Thread(() -> {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(3 * waitMillis));
+                result.complete("ready");
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(waitMillis));
+                try (OutputStream out = peer.getOutputStream()) {
+                    out.write(42);
+                    out.flush();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, "untraced-helper");
+            helper.start();
+
+            int reply = service.process(result);
+            // Outside of any traced call
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(waitMillis));
+            System.out.println("RESULT " + reply);
+            Thread.currentThread().join();
+        }
+    }
+
+    public int process(CompletableFuture<String> result) throws Exception {
+        parkBriefly();
+        waitOnMonitor();
+        awaitResult(result);
+        return readReply();
+    }
+
+    void parkBriefly() {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(waitMillis));
+    }
+
+    void waitOnMonitor() throws InterruptedException {
+        Object monitor = new Object();
+        synchronized (monitor) {
+            monitor.wait(waitMillis, 0);
+        }
+    }
+
+    // CompletableFuture.get parks internally, only the get is recorded
+    String awaitResult(CompletableFuture<String> result) throws InterruptedException, ExecutionException {
+        return result.get();
+    }
+
+    int readReply() throws IOException {
+        InputStream in = client.getInputStream();
+        return in.read();
+    }
+}
@@ -0,0 +1,71 @@
+package sample.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Application of the JDBC test: statements against an in-memory H2 database
+ * Runs the traced entry point once, prints "RESULT <total>" and keeps running so the test
+ * can read the session from its agent.
+ */
+public class OrderRepository {
+    private final Connection connection;
+
+    public OrderRepository(Connection connection) {
+        this.connection = connection;
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:orders;DB_CLOSE_DELAY=-1")) {
+            System.out.println("RESULT " + new OrderRepository(connection).process(Integer.parseInt(args[0])));
+            Thread.currentThread().join();
+        }
+    }
+
+    public int process(int reportMillis) throws SQLException {
+        createSchema();
+        insertOrders(List.of(100, 200, 300));
+        int total = totalAbove(150);
+        runReport(reportMillis);
+        return total;
+    }
+
+    void createSchema() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE orders (id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, amount INT)");
+            statement.execute("CREATE ALIAS SLEEP_MS FOR 'sample.jdbc.SqlFunctions.sleep'");
+        }
+    }
+
+    void insertOrders(List<Integer> amounts) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO orders (amount) VALUES (?)")) {
+            for (int amount : amounts) {
+                statement.setInt(1, amount);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    int totalAbove(int minAmount) throws SQLException {
+        int total = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT amount FROM orders WHERE amount > " + minAmount)) {
+            while (rows.next()) {
+                total += rows.getInt(1);
+            }
+        }
+        return total;
+    }
+
+    void runReport(int millis) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT SLEEP_MS(" + millis + ")")) {
+            rows.next();
+        }
+    }
+}
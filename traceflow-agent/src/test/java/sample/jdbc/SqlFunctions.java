@@ -0,0 +1,12 @@
+package sample.jdbc;
+
+/**
+ * Java function registered in H2 to make a statement take a known minimum time
+ */
+public class SqlFunctions {
+
+    public static int sleep(int millis) throws InterruptedException {
+        Thread.sleep(millis);
+        return millis;
+    }
+}
@@ -0,0 +1,22 @@
+package sample.propagation;
+
+import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee10.servlet.ServletHolder;
+import org.eclipse.jetty.server.Server;
+
+/**
+ * Called service of the propagation test: a servlet on the given port
+ * Prints "READY" once the server accepts requests.
+ */
+public class InventoryApp {
+
+    public static void main(String[] args) throws Exception {
+        Server server = new Server(Integer.parseInt(args[0]));
+        ServletContextHandler context = new ServletContextHandler();
+        context.addServlet(new ServletHolder(new InventoryServlet()), "/reserve");
+        server.setHandler(context);
+        server.start();
+        System.out.println("READY");
+        server.join();
+    }
+}
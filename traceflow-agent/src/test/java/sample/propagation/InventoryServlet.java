@@ -0,0 +1,23 @@
+package sample.propagation;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Entry point of the called service
+ */
+public class InventoryServlet extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("text/plain");
+        resp.getWriter().write(String.valueOf(reserve(req.getParameter("item"))));
+    }
+
+    int reserve(String item) {
+        return item != null ? item.length() : 0;
+    }
+}
@@ -0,0 +1,29 @@
+package sample.propagation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Calling service of the propagation test
+ * Calls the inventory service from a traced entry point, prints "RESULT <body>" and keeps
+ * running so the test can read the merged session from its agent.
+ */
+public class OrderApp {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("RESULT " + new OrderApp().checkout(args[0]));
+        Thread.currentThread().join();
+    }
+
+    public String checkout(String inventoryUrl) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(inventoryUrl + "/reserve?item=book").openConnection();
+        try (InputStream in = connection.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
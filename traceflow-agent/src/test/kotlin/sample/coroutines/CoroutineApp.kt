@@ -0,0 +1,56 @@
+package sample.coroutines
+
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withContext
+
+/**
+ * Application of the coroutine test: suspend functions resumed on other dispatchers
+ * Runs the traced entry point once, prints "RESULT <total>" and keeps running so the test
+ * can read the session from its agent.
+ */
+fun main(args: Array<String>) {
+    val delayMillis = args[0].toLong()
+    val result = runBlocking { OrderFlow(delayMillis).checkout() }
+    println("RESULT $result")
+    Thread.currentThread().join()
+}
+
+class OrderFlow(private val delayMillis: Long) {
+
+    /** Entry point: suspends until both calls completed on other dispatchers, then continues */
+    suspend fun checkout(): Int {
+        val total = coroutineScope {
+            val stock = async(Dispatchers.IO) { loadStock() }
+            val price = async(Dispatchers.Default) { fetchPrice() }
+            stock.await() + price.await()
+        }
+        return confirm(total)
+    }
+
+    /** Own state machine, resumed on an IO thread after the delay */
+    suspend fun loadStock(): Int {
+        delay(delayMillis)
+        return count(2)
+    }
+
+    /** Tail call: no state machine, completes with loadPrice */
+    suspend fun fetchPrice(): Int = loadPrice()
+
+    /** Suspends twice, once on another dispatcher */
+    suspend fun loadPrice(): Int {
+        val base = withContext(Dispatchers.IO) {
+            delay(delayMillis)
+            3
+        }
+        delay(delayMillis)
+        return base
+    }
+
+    fun count(items: Int): Int = items * 2
+
+    fun confirm(total: Int): Int = total
+}
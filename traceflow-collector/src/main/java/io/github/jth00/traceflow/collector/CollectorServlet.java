@@ -0,0 +1,152 @@
+package io.github.jth00.traceflow.collector;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.github.jth00.traceflow.analysis.CriticalPathAnalyzer;
+import io.github.jth00.traceflow.analysis.ResourceProfiler;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * REST API of the collector, compatible with the agent's /logs endpoint
+ * The web UI of the agent works unchanged against it, across all nodes.
+ */
+public class CollectorServlet extends HttpServlet {
+    private static final String ACTION_SESSIONS = "sessions";
+    private static final String ACTION_NEW_SESSIONS = "new-sessions";
+    private static final String ACTION_ANALYSIS = "analysis";
+    private static final String ACTION_NODES = "nodes";
+    private static final String ACTION_RESOURCES = "resources";
+    private static final String PARAM_MERGE = "merge";
+    private static final String MERGE_PEERS = "peers";
+
+    private static final String KEY_SESSIONS = "sessions";
+    private static final String KEY_COUNT = "count";
+    private static final String KEY_NEW_SESSIONS = "newSessions";
+    private static final String KEY_HAS_NEW = "hasNew";
+
+    /** Maximum number of calls followed when merging linked sessions */
+    private static final int MAX_HOPS = 4;
+
+    private final ShardedTraceIndex index;
+    private final IngestServer ingest;
+    private final Set<String> sentSessions = new HashSet<>();
+
+    public CollectorServlet(ShardedTraceIndex index, IngestServer ingest) {
+        this.index = index;
+        this.ingest = ingest;
+    }
+
+    /**
+     * Handle GET requests for trace data
+     * 1. ?action=sessions - Get all session IDs
+     * 2. ?action=new-sessions - Get only new session IDs
+     * 3. ?sessionId=xxx - Get trace data for specific session
+     * 4. ?sessionId=xxx&amp;merge=peers - Get session data merged with linked sessions of other nodes
+     * 5. ?action=analysis&amp;sessionId=xxx - Get critical path and async overlap analysis
+     * 6. ?action=nodes - Get session counts per node and ingest statistics
+     * 7. ?action=resources&amp;sessionId=xxx - Get allocation and CPU time per method and call path
+     */
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("application/json; charset=UTF-8");
+        resp.setHeader("Cache-Control", "no-cache");
+
+        String action = req.getParameter("action");
+        String sessionId = req.getParameter("sessionId");
+        Gson gson = new Gson();
+
+        if (ACTION_SESSIONS.equals(action)) {
+            Set<String> sessions = index.getSessionIds();
+            Map<String, Object> response = new HashMap<>();
+            response.put(KEY_SESSIONS, sessions);
+            response.put(KEY_COUNT, sessions.size());
+            resp.getWriter().write(gson.toJson(response));
+
+        } else if (ACTION_NEW_SESSIONS.equals(action)) {
+            Set<String> newSessions = index.getSessionIds();
+            synchronized (sentSessions) {
+                newSessions.removeAll(sentSessions);
+                sentSessions.addAll(newSessions);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put(KEY_NEW_SESSIONS, newSessions);
+            response.put(KEY_HAS_NEW, !newSessions.isEmpty());
+            resp.getWriter().write(gson.toJson(response));
+
+        } else if (ACTION_NODES.equals(action)) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("nodes", index.getNodeSummary());
+            response.put("shards", index.getShardSizes());
+            response.put("receivedBatches", ingest.getReceivedBatches());
+            response.put("receivedSessions", ingest.getReceivedSessions());
+            response.put("rejectedBatches", ingest.getRejectedBatches());
+            response.put("ingestQueueDepth", ingest.getQueueDepth());
+            resp.getWriter().write(gson.toJson(response));
+
+        } else if (sessionId != null) {
+            StoredSession session = index.get(sessionId);
+            if (session == null) {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown session: " + sessionId);
+                return;
+            }
+
+            if (ACTION_ANALYSIS.equals(action)) {
+                resp.getWriter().write(gson.toJson(CriticalPathAnalyzer.analyze(session.getEntries())));
+            } else if (ACTION_RESOURCES.equals(action)) {
+                resp.getWriter().write(gson.toJson(ResourceProfiler.profile(List.of(session.getEntries()))));
+            } else if (MERGE_PEERS.equals(req.getParameter(PARAM_MERGE))) {
+                resp.getWriter().write(gson.toJson(merge(session, gson)));
+            } else {
+                resp.getWriter().write(gson.toJson(session.getEntries()));
+            }
+
+        } else {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "sessionId or action is required");
+        }
+    }
+
+    /**
+     * Merge sessions started in other nodes by calls of a session
+     * Roots of linked sessions are re-parented under the calling entry and marked with their node.
+     */
+    private JsonArray merge(StoredSession session, Gson gson) {
+        JsonArray merged = gson.toJsonTree(session.getEntries()).getAsJsonArray();
+        Set<String> visited = new HashSet<>();
+        visited.add(session.getSessionId());
+        appendLinked(session.getSessionId(), merged, visited, 1, gson);
+        return merged;
+    }
+
+    private void appendLinked(String parentSessionId, JsonArray merged, Set<String> visited, int hop, Gson gson) {
+        if (hop > MAX_HOPS) {
+            return;
+        }
+        List<StoredSession> linked = index.getLinked(parentSessionId);
+        for (StoredSession child : linked) {
+            if (!visited.add(child.getSessionId())) {
+                continue;
+            }
+            for (JsonElement element : gson.toJsonTree(child.getEntries()).getAsJsonArray()) {
+                JsonObject entry = element.getAsJsonObject();
+                if (!entry.has("parentId")) {
+                    entry.addProperty("parentId", child.getLink().getParentEntryId());
+                }
+                entry.addProperty("peer", child.getNode());
+                merged.add(entry);
+            }
+            appendLinked(child.getSessionId(), merged, visited, hop + 1, gson);
+        }
+    }
+}
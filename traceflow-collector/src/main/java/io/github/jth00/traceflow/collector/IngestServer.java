@@ -0,0 +1,123 @@
+package io.github.jth00.traceflow.collector;
+
+import io.github.jth00.traceflow.export.TraceBatchCodec;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TCP endpoint receiving session batches from agents
+ *
+ * Pipeline:
+ * - one reader thread per agent connection reads frames
+ * - a fixed pool of workers decodes frames and writes sessions to the index
+ * - when the worker queue is full the reader decodes the frame itself,
+ *   which slows down reading and pushes back on the agent through TCP
+ */
+public class IngestServer {
+    private static final int WORKER_QUEUE_CAPACITY = 1024;
+
+    private final int port;
+    private final ShardedTraceIndex index;
+    private final ThreadPoolExecutor workers;
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private final LongAdder receivedBatches = new LongAdder();
+    private final LongAdder receivedSessions = new LongAdder();
+    private final LongAdder rejectedBatches = new LongAdder();
+
+    /**
+     * @param port Ingest port
+     * @param workerCount Number of decode workers
+     * @param index Target index
+     */
+    public IngestServer(int port, int workerCount, ShardedTraceIndex index) {
+        this.port = port;
+        this.index = index;
+
+        AtomicInteger workerId = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(WORKER_QUEUE_CAPACITY),
+            task -> {
+                Thread thread = new Thread(task, "traceflow-ingest-" + workerId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Start accepting agent connections
+     * @throws IOException If the port cannot be bound
+     */
+    public void start() throws IOException {
+        ServerSocket serverSocket = new ServerSocket(port);
+        Thread acceptor = new Thread(() -> accept(serverSocket), "traceflow-ingest-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("[TraceFlow Collector] Accepting agents on port " + port +
+            " (" + workers.getCorePoolSize() + " workers)");
+    }
+
+    private void accept(ServerSocket serverSocket) {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread reader = new Thread(() -> read(socket),
+                    "traceflow-ingest-connection-" + connectionCount.incrementAndGet());
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                System.err.println("[TraceFlow Collector] Accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void read(Socket socket) {
+        String remote = String.valueOf(socket.getRemoteSocketAddress());
+        System.out.println("[TraceFlow Collector] Agent connected: " + remote);
+        try (socket; InputStream in = new BufferedInputStream(socket.getInputStream())) {
+            byte[] payload;
+            while ((payload = TraceBatchCodec.readFrame(in)) != null) {
+                byte[] frame = payload;
+                workers.execute(() -> ingest(frame));
+            }
+        } catch (IOException e) {
+            System.err.println("[TraceFlow Collector] Connection " + remote + " closed: " + e.getMessage());
+        }
+        System.out.println("[TraceFlow Collector] Agent disconnected: " + remote);
+    }
+
+    private void ingest(byte[] payload) {
+        try {
+            TraceBatchCodec.Batch batch = TraceBatchCodec.decode(payload);
+            long now = System.currentTimeMillis();
+            for (TraceBatchCodec.Session session : batch.getSessions()) {
+                index.put(new StoredSession(session.getSessionId(), batch.getNode(), session.getLink(),
+                    session.getEntries(), now));
+            }
+            receivedBatches.increment();
+            receivedSessions.add(batch.getSessions().size());
+        } catch (IOException | RuntimeException e) {
+            rejectedBatches.increment();
+            System.err.println("[TraceFlow Collector] Rejected malformed batch: " + e.getMessage());
+        }
+    }
+
+    // Getters
+    public long getReceivedBatches() { return receivedBatches.sum(); }
+
+    public long getReceivedSessions() { return receivedSessions.sum(); }
+
+    public long getRejectedBatches() { return rejectedBatches.sum(); }
+
+    public int getQueueDepth() { return workers.getQueue().size(); }
+}
@@ -0,0 +1,153 @@
+package io.github.jth00.traceflow.collector;
+
+import io.github.jth00.traceflow.vo.TraceEntry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.HashSet;
+
+/**
+ * In-memory session index partitioned by session ID
+ *
+ * Each shard is an LRU map guarded by its own lock, so ingest workers writing different
+ * sessions rarely contend. When a shard is full, its least recently used session is evicted.
+ */
+public class ShardedTraceIndex {
+    private final Shard[] shards;
+
+    /**
+     * @param shardCount Number of shards
+     * @param maxSessions Maximum number of sessions across all shards
+     */
+    public ShardedTraceIndex(int shardCount, int maxSessions) {
+        int perShard = Math.max(1, maxSessions / shardCount);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(perShard);
+        }
+    }
+
+    /**
+     * Store or replace a session
+     * @param session Received session
+     */
+    public void put(StoredSession session) {
+        shardFor(session.getSessionId()).put(session);
+    }
+
+    /**
+     * Get a session
+     * @param sessionId Session ID
+     * @return Session or null
+     */
+    public StoredSession get(String sessionId) {
+        return shardFor(sessionId).get(sessionId);
+    }
+
+    /**
+     * Get IDs of all stored sessions
+     * @return Session IDs
+     */
+    public Set<String> getSessionIds() {
+        Set<String> ids = new HashSet<>();
+        for (Shard shard : shards) {
+            shard.collectIds(ids);
+        }
+        return ids;
+    }
+
+    /**
+     * Get sessions started by calls of a parent session
+     * @param parentSessionId Calling session ID
+     * @return Linked sessions
+     */
+    public List<StoredSession> getLinked(String parentSessionId) {
+        List<StoredSession> linked = new ArrayList<>();
+        for (Shard shard : shards) {
+            shard.collectLinked(parentSessionId, linked);
+        }
+        return linked;
+    }
+
+    /**
+     * Get session count per node
+     * @return Node name to session count
+     */
+    public Map<String, Integer> getNodeSummary() {
+        Map<String, Integer> summary = new HashMap<>();
+        for (Shard shard : shards) {
+            shard.countNodes(summary);
+        }
+        return summary;
+    }
+
+    /**
+     * Get session and entry counts per shard
+     * @return One {sessions, entries} pair per shard
+     */
+    public List<long[]> getShardSizes() {
+        List<long[]> sizes = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            sizes.add(shard.size());
+        }
+        return sizes;
+    }
+
+    private Shard shardFor(String sessionId) {
+        return shards[Math.floorMod(sessionId.hashCode(), shards.length)];
+    }
+
+    /**
+     * One partition of the index
+     */
+    private static class Shard {
+        private final Map<String, StoredSession> sessions;
+
+        Shard(int capacity) {
+            this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, StoredSession> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized void put(StoredSession session) {
+            sessions.put(session.getSessionId(), session);
+        }
+
+        synchronized StoredSession get(String sessionId) {
+            return sessions.get(sessionId);
+        }
+
+        synchronized void collectIds(Set<String> ids) {
+            ids.addAll(sessions.keySet());
+        }
+
+        synchronized void collectLinked(String parentSessionId, List<StoredSession> linked) {
+            for (StoredSession session : sessions.values()) {
+                if (session.getLink() != null && parentSessionId.equals(session.getLink().getParentSessionId())) {
+                    linked.add(session);
+                }
+            }
+        }
+
+        synchronized void countNodes(Map<String, Integer> summary) {
+            for (StoredSession session : sessions.values()) {
+                summary.merge(session.getNode(), 1, Integer::sum);
+            }
+        }
+
+        synchronized long[] size() {
+            long entries = 0;
+            for (StoredSession session : sessions.values()) {
+                entries += session.getEntries().size();
+            }
+            return new long[]{sessions.size(), entries};
+        }
+    }
+}
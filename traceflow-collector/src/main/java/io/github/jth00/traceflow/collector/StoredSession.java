@@ -0,0 +1,39 @@
+package io.github.jth00.traceflow.collector;
+
+import io.github.jth00.traceflow.vo.SessionLink;
+import io.github.jth00.traceflow.vo.TraceEntry;
+
+import java.util.List;
+
+/**
+ * Session received from an agent
+ */
+public class StoredSession {
+    private final String sessionId;
+    private final String node;
+    private final SessionLink link;
+    private final List<TraceEntry> entries;
+    private final long receivedAt;
+
+    public StoredSession(String sessionId, String node, SessionLink link,
+                         List<TraceEntry> entries, long receivedAt) {
+        this.sessionId = sessionId;
+        this.node = node;
+        this.link = link;
+        this.entries = entries;
+        this.receivedAt = receivedAt;
+    }
+
+    // Getters
+    public String getSessionId() { return sessionId; }
+
+    /** Name of the agent that pushed the session */
+    public String getNode() { return node; }
+
+    /** Link to the calling session, null if started by the node itself */
+    public SessionLink getLink() { return link; }
+
+    public List<TraceEntry> getEntries() { return entries; }
+
+    public long getReceivedAt() { return receivedAt; }
+}
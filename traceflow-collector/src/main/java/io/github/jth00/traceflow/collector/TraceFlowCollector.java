@@ -0,0 +1,103 @@
+package io.github.jth00.traceflow.collector;
+
+import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee10.servlet.ServletHolder;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.ResourceHandler;
+import org.eclipse.jetty.util.resource.ResourceFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Standalone collector for sessions pushed by TraceFlow agents
+ *
+ * Agents started with collector=host:port push completed sessions over a binary protocol.
+ * The collector keeps them in a session-sharded in-memory index and serves the TraceFlow
+ * web UI for all nodes. Several collectors can run side by side; agents partition sessions
+ * between them by session ID.
+ *
+ * Usage: java -jar traceflow-collector.jar port=8080,ingestPort=9400,shards=16,workers=4,maxSessions=10000
+ */
+public class TraceFlowCollector {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_INGEST_PORT = 9400;
+    private static final int DEFAULT_SHARDS = 16;
+    private static final int DEFAULT_MAX_SESSIONS = 10_000;
+
+    private static final String WEB_RESOURCE_DIR = "web";
+    private static final String WELCOME_FILE = "index.html";
+    private static final String LOGS_PATH = "/logs";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args.length > 0 ? args[0] : null);
+        int port = intOption(options, "port", DEFAULT_PORT);
+        int ingestPort = intOption(options, "ingestPort", DEFAULT_INGEST_PORT);
+        int shards = intOption(options, "shards", DEFAULT_SHARDS);
+        int workers = intOption(options, "workers", Runtime.getRuntime().availableProcessors());
+        int maxSessions = intOption(options, "maxSessions", DEFAULT_MAX_SESSIONS);
+
+        ShardedTraceIndex index = new ShardedTraceIndex(shards, maxSessions);
+        IngestServer ingest = new IngestServer(ingestPort, workers, index);
+        ingest.start();
+
+        Server server = startWebServer(port, index, ingest);
+        System.out.println("[TraceFlow Collector] Web UI started at http://localhost:" + port +
+            " (" + shards + " shards, up to " + maxSessions + " sessions)");
+        server.join();
+    }
+
+    /**
+     * Start the web UI backed by the index
+     * Static resources are the agent's web UI on the class path.
+     */
+    private static Server startWebServer(int port, ShardedTraceIndex index, IngestServer ingest) throws Exception {
+        Server server = new Server(port);
+
+        ResourceHandler resourceHandler = new ResourceHandler();
+        ResourceFactory resourceFactory = ResourceFactory.of(resourceHandler);
+        resourceHandler.setBaseResource(resourceFactory.newClassLoaderResource(WEB_RESOURCE_DIR));
+        resourceHandler.setDirAllowed(false);
+        resourceHandler.setWelcomeFiles(WELCOME_FILE);
+
+        ServletContextHandler servletHandler = new ServletContextHandler();
+        servletHandler.setContextPath("/");
+        servletHandler.addServlet(new ServletHolder(new CollectorServlet(index, ingest)), LOGS_PATH);
+
+        server.setHandler(new Handler.Sequence(resourceHandler, servletHandler));
+        server.start();
+        return server;
+    }
+
+    /**
+     * Parse arguments in the agent's format
+     * @param args Comma-separated key=value pairs
+     * @return Parsed options
+     */
+    private static Map<String, String> parseArgs(String args) {
+        Map<String, String> map = new HashMap<>();
+        if (args == null || args.isBlank()) return map;
+        for (String part : args.split(",")) {
+            String[] kv = part.split("=", 2);
+            if (kv.length == 2) map.put(kv[0].trim(), kv[1].trim());
+        }
+        return map;
+    }
+
+    private static int intOption(Map<String, String> options, String key, int defaultValue) {
+        String value = options.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        System.err.println("[TraceFlow Collector] Invalid " + key + ": " + value + ", using default " + defaultValue);
+        return defaultValue;
+    }
+}
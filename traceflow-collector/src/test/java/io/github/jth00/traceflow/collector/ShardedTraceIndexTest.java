@@ -0,0 +1,106 @@
+package io.github.jth00.traceflow.collector;
+
+import io.github.jth00.traceflow.vo.SessionLink;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Sessions received by the collector
+ * A full shard must evict its least recently used session, where reading a session counts
+ * as a use, and a session pushed again must replace the stored one instead of taking a
+ * second slot.
+ */
+class ShardedTraceIndexTest {
+    private static final long RECEIVED_AT = 1_700_000_000_000L;
+
+    @Test
+    void fullShardEvictsLeastRecentlyUsed() {
+        ShardedTraceIndex index = new ShardedTraceIndex(1, 3);
+        index.put(session("a", "node-1"));
+        index.put(session("b", "node-1"));
+        index.put(session("c", "node-2"));
+
+        // Reading a makes b the least recently used
+        index.get("a");
+        index.put(session("d", "node-2"));
+
+        assertEquals(Set.of("a", "c", "d"), index.getSessionIds());
+        assertNull(index.get("b"));
+        assertEquals(Map.of("node-1", 1, "node-2", 2), index.getNodeSummary());
+        assertEquals(3L, index.getShardSizes().get(0)[0]);
+    }
+
+    @Test
+    void capacityIsSplitAcrossShards() {
+        ShardedTraceIndex index = new ShardedTraceIndex(4, 2);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String id = "session-" + i;
+            ids.add(id);
+            index.put(session(id, "node-1"));
+        }
+
+        // At least one session per shard, however small the total
+        assertEquals(4, index.getSessionIds().size());
+        for (long[] size : index.getShardSizes()) {
+            assertEquals(1L, size[0]);
+        }
+        assertEquals(96, ids.stream().filter(id -> index.get(id) == null).count());
+    }
+
+    @Test
+    void sessionPushedAgainReplacesStoredOne() {
+        ShardedTraceIndex index = new ShardedTraceIndex(1, 2);
+        index.put(session("a", "node-1"));
+        index.put(session("b", "node-1"));
+
+        StoredSession again = new StoredSession("a", "node-2", new SessionLink("a", "parent", "call"),
+            entries("a", 3), RECEIVED_AT + 1);
+        index.put(again);
+
+        assertEquals(Set.of("a", "b"), index.getSessionIds());
+        assertSame(again, index.get("a"));
+        assertEquals(Map.of("node-1", 1, "node-2", 1), index.getNodeSummary());
+        assertEquals(List.of(again), index.getLinked("parent"));
+        long[] size = index.getShardSizes().get(0);
+        assertEquals(2L, size[0]);
+        assertEquals(4L, size[1]);
+
+        // The replaced session is the most recently used, so b goes first
+        index.put(session("c", "node-1"));
+        assertEquals(Set.of("a", "c"), index.getSessionIds());
+    }
+
+    // -------------------- Helpers --------------------
+
+    private static StoredSession session(String sessionId, String node) {
+        return new StoredSession(sessionId, node, null, entries(sessionId, 1), RECEIVED_AT);
+    }
+
+    private static List<TraceEntry> entries(String sessionId, int count) {
+        List<TraceEntry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(TraceEntry.builder()
+                .id(sessionId + "-" + i)
+                .parentId(i == 0 ? null : sessionId + "-0")
+                .sessionId(sessionId)
+                .className("sample.collector.Checkout")
+                .methodName("step" + i)
+                .returnType("void")
+                .parameterTypes(List.of())
+                .startTime(RECEIVED_AT + i)
+                .duration(1)
+                .build());
+        }
+        return entries;
+    }
+}
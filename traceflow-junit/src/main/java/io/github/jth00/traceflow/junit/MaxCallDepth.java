@@ -0,0 +1,18 @@
+package io.github.jth00.traceflow.junit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the test if traced calls nest deeper than allowed
+ * Depth is counted from the session root (1 for calls made directly by the test method).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface MaxCallDepth {
+
+    /** Maximum call depth */
+    int value();
+}
@@ -0,0 +1,29 @@
+package io.github.jth00.traceflow.junit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the test if a method is called more often than allowed
+ * Calls folded by loop compression count with their folded call count.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Repeatable(MaxCalls.List.class)
+public @interface MaxCalls {
+
+    /** Method pattern ("OrderRepository.findById", "com.example.*Client.*", "findById") */
+    String method();
+
+    /** Maximum number of calls in the sessions of the test */
+    long value();
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.TYPE, ElementType.METHOD})
+    @interface List {
+        MaxCalls[] value();
+    }
+}
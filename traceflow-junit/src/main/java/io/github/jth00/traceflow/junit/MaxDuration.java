@@ -0,0 +1,20 @@
+package io.github.jth00.traceflow.junit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the test if traced calls take longer than allowed in total
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface MaxDuration {
+
+    /** Maximum total duration in milliseconds */
+    long millis();
+
+    /** Method pattern whose calls are summed, empty for the whole sessions of the test */
+    String method() default "";
+}
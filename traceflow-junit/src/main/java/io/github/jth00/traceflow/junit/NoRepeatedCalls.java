@@ -0,0 +1,20 @@
+package io.github.jth00.traceflow.junit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the test if a method is called repeatedly under one parent call (N+1)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface NoRepeatedCalls {
+
+    /** Minimum calls under one parent reported as repeated, 0 for the agent's repeatedCallThreshold */
+    int threshold() default 0;
+
+    /** Only report data access methods (dataAccessPatterns), not loops over in-memory helpers */
+    boolean dataAccessOnly() default true;
+}
@@ -0,0 +1,365 @@
+package io.github.jth00.traceflow.junit;
+
+import io.github.jth00.traceflow.analysis.RepeatedCallDetector;
+import io.github.jth00.traceflow.config.TraceFlowConfig;
+import io.github.jth00.traceflow.vo.RepeatedCall;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Trace summary of one test and the expectations it violated
+ *
+ * Written as build/traceflow/test-reports/&lt;class&gt;/&lt;test&gt;.json, next to
+ * &lt;test&gt;.entries.json with the raw entries in the GET /logs format, so the sessions
+ * of a test run can be compared with a baseline run by SessionDiff.
+ */
+public class TestTraceReport {
+
+    /** Maximum methods listed in the report */
+    private static final int MAX_METHODS = 50;
+
+    private static final String REPORT_SUFFIX = ".json";
+    private static final String ENTRIES_SUFFIX = ".entries.json";
+
+    private final String test;
+    private final int sessions;
+    private final int entries;
+    private final long durationNanos;
+    private final int maxDepth;
+    private final List<MethodCalls> methods;
+    private final List<RepeatedCall> repeatedCalls;
+    private final List<String> violations;
+
+    // Raw entries, written to their own file
+    private final transient List<List<TraceEntry>> sessionEntries;
+
+    private TestTraceReport(String test, List<List<TraceEntry>> sessionEntries, long durationNanos, int maxDepth,
+                            List<MethodCalls> methods, List<RepeatedCall> repeatedCalls, List<String> violations) {
+        this.test = test;
+        this.sessions = sessionEntries.size();
+        this.entries = sessionEntries.stream().mapToInt(List::size).sum();
+        this.durationNanos = durationNanos;
+        this.maxDepth = maxDepth;
+        this.methods = methods;
+        this.repeatedCalls = repeatedCalls;
+        this.violations = violations;
+        this.sessionEntries = sessionEntries;
+    }
+
+    // === Evaluation ===
+
+    /**
+     * Collect the expectations of a test method and its class
+     * @param method Test method
+     * @return Expectation annotations, class level first
+     */
+    static List<Object> expectations(Method method) {
+        List<Object> expectations = new ArrayList<>();
+        for (AnnotatedElement element : List.of(method.getDeclaringClass(), method)) {
+            expectations.addAll(List.of(element.getAnnotationsByType(MaxCalls.class)));
+            addIfPresent(expectations, element.getAnnotation(MaxDuration.class));
+            addIfPresent(expectations, element.getAnnotation(MaxCallDepth.class));
+            addIfPresent(expectations, element.getAnnotation(NoRepeatedCalls.class));
+        }
+        return expectations;
+    }
+
+    private static void addIfPresent(List<Object> expectations, Object annotation) {
+        if (annotation != null) {
+            expectations.add(annotation);
+        }
+    }
+
+    /**
+     * Summarize the sessions of a test and check its expectations
+     * @param test Test name
+     * @param sessions Entries of each session recorded during the test
+     * @param expectations Expectation annotations
+     * @return Report
+     */
+    static TestTraceReport evaluate(String test, List<List<TraceEntry>> sessions, List<Object> expectations) {
+        Map<String, MethodCalls> methods = new LinkedHashMap<>();
+        long durationNanos = 0;
+        int maxDepth = 0;
+        for (List<TraceEntry> entries : sessions) {
+            Map<String, TraceEntry> byId = new HashMap<>();
+            for (TraceEntry entry : entries) {
+                byId.put(entry.getId(), entry);
+            }
+            // A test class in a traced package records the test method again below the session root
+            TraceEntry wrapper = wrapperRoot(entries);
+            Map<String, Integer> depths = new HashMap<>();
+            for (TraceEntry entry : entries) {
+                if (entry.getParentId() == null) {
+                    durationNanos += nanos(entry);
+                }
+                maxDepth = Math.max(maxDepth, depth(entry, byId, depths) - (wrapper != null ? 1 : 0));
+                if (entry != wrapper) {
+                    methods.computeIfAbsent(entry.getClassName() + "." + entry.getMethodName(), MethodCalls::new)
+                        .add(entry);
+                }
+            }
+        }
+
+        List<RepeatedCall> repeated = new ArrayList<>();
+        List<String> violations = new ArrayList<>();
+        for (Object expectation : expectations) {
+            if (expectation instanceof MaxCalls) {
+                MaxCalls maxCalls = (MaxCalls) expectation;
+                long calls = 0;
+                for (MethodCalls method : matching(methods, maxCalls.method())) {
+                    calls += method.calls;
+                }
+                if (calls > maxCalls.value()) {
+                    violations.add(maxCalls.method() + " called " + calls + " times, expected at most " +
+                        maxCalls.value() + " (@MaxCalls)");
+                }
+            } else if (expectation instanceof MaxDuration) {
+                MaxDuration maxDuration = (MaxDuration) expectation;
+                long nanos = durationNanos;
+                String target = "Test sessions";
+                if (!maxDuration.method().isEmpty()) {
+                    nanos = 0;
+                    for (MethodCalls method : matching(methods, maxDuration.method())) {
+                        nanos += method.totalNanos;
+                    }
+                    target = maxDuration.method();
+                }
+                if (nanos > maxDuration.millis() * 1_000_000) {
+                    violations.add(target + " took " + millis(nanos) + ", expected at most " +
+                        maxDuration.millis() + "ms (@MaxDuration)");
+                }
+            } else if (expectation instanceof MaxCallDepth) {
+                MaxCallDepth maxCallDepth = (MaxCallDepth) expectation;
+                if (maxDepth > maxCallDepth.value()) {
+                    violations.add("Call depth " + maxDepth + ", expected at most " + maxCallDepth.value() +
+                        " (@MaxCallDepth)");
+                }
+            } else if (expectation instanceof NoRepeatedCalls) {
+                NoRepeatedCalls noRepeatedCalls = (NoRepeatedCalls) expectation;
+                for (RepeatedCall finding : detectRepeated(sessions, noRepeatedCalls.threshold())) {
+                    if (noRepeatedCalls.dataAccessOnly() && !finding.isDataAccess()) continue;
+                    repeated.add(finding);
+                    violations.add(finding.getClassName() + "." + finding.getMethodName() + " called " +
+                        finding.getMaxCalls() + " times under one " + finding.getParentMethod() +
+                        " call (@NoRepeatedCalls)");
+                }
+            }
+        }
+
+        List<MethodCalls> top = new ArrayList<>(methods.values());
+        top.sort(Comparator.comparingLong((MethodCalls method) -> method.totalNanos).reversed());
+        if (top.size() > MAX_METHODS) {
+            top = new ArrayList<>(top.subList(0, MAX_METHODS));
+        }
+        return new TestTraceReport(test, sessions, durationNanos, maxDepth, top, repeated, violations);
+    }
+
+    private static List<RepeatedCall> detectRepeated(List<List<TraceEntry>> sessions, int threshold) {
+        if (threshold <= 0) {
+            threshold = TraceFlowConfig.current().getRepeatedCallThreshold();
+        }
+        if (threshold <= 0) {
+            threshold = TraceFlowConfig.DEFAULT_REPEATED_CALL_THRESHOLD;
+        }
+        List<RepeatedCall> findings = new ArrayList<>();
+        for (List<TraceEntry> entries : sessions) {
+            findings.addAll(RepeatedCallDetector.detect(entries, threshold));
+        }
+        return findings;
+    }
+
+    /**
+     * Session root whose only purpose is to wrap the same method traced as its child
+     * @return Root entry, or null if the root is not such a wrapper
+     */
+    private static TraceEntry wrapperRoot(List<TraceEntry> entries) {
+        TraceEntry root = null;
+        for (TraceEntry entry : entries) {
+            if (entry.getParentId() == null) {
+                root = entry;
+                break;
+            }
+        }
+        if (root == null) {
+            return null;
+        }
+        for (TraceEntry entry : entries) {
+            if (root.getId().equals(entry.getParentId()) &&
+                root.getClassName().equals(entry.getClassName()) &&
+                root.getMethodName().equals(entry.getMethodName())) {
+                return root;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Depth below the session root (0 for the root)
+     */
+    private static int depth(TraceEntry entry, Map<String, TraceEntry> byId, Map<String, Integer> depths) {
+        Integer cached = depths.get(entry.getId());
+        if (cached != null) {
+            return cached;
+        }
+        TraceEntry parent = entry.getParentId() != null ? byId.get(entry.getParentId()) : null;
+        int depth = parent != null ? depth(parent, byId, depths) + 1 : 0;
+        depths.put(entry.getId(), depth);
+        return depth;
+    }
+
+    /**
+     * Methods matching a pattern, by qualified name, "SimpleClass.method" or method name alone
+     */
+    private static List<MethodCalls> matching(Map<String, MethodCalls> methods, String pattern) {
+        Pattern regex = Pattern.compile(globToRegex(pattern));
+        boolean qualified = pattern.indexOf('.') >= 0;
+        List<MethodCalls> matched = new ArrayList<>();
+        for (MethodCalls method : methods.values()) {
+            String name = method.method;
+            int dot = name.lastIndexOf('.');
+            String className = name.substring(0, dot);
+            String methodName = name.substring(dot + 1);
+            String simpleName = className.substring(
+                Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1) + "." + methodName;
+            boolean matches = qualified ?
+                regex.matcher(name).matches() || regex.matcher(simpleName).matches() :
+                regex.matcher(methodName).matches();
+            if (matches) {
+                matched.add(method);
+            }
+        }
+        return matched;
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : glob.trim().toCharArray()) {
+            switch (c) {
+                case '*': sb.append(".*"); break;
+                case '?': sb.append('.'); break;
+                default: sb.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Duration of an entry, including all calls folded into it
+     */
+    private static long nanos(TraceEntry entry) {
+        if (entry.getAggregate() != null) {
+            return entry.getAggregate().getTotalNanos();
+        }
+        if (entry.getResources() != null) {
+            return entry.getResources().getWallNanos();
+        }
+        return entry.getDuration() * 1_000_000;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1_000_000.0);
+    }
+
+    // === Output ===
+
+    /**
+     * Write the report and the raw entries of the test
+     * @param directory Report root directory
+     * @param className Test class name
+     * @param testName Test method name
+     * @return Report file, or null if it could not be written
+     */
+    Path write(Path directory, String className, String testName) {
+        Path classDirectory = directory.resolve(className);
+        String fileName = testName.replaceAll("[^A-Za-z0-9._-]", "_");
+        Path report = classDirectory.resolve(fileName + REPORT_SUFFIX);
+        try {
+            Files.createDirectories(classDirectory);
+            Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+            try (Writer writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+                gson.toJson(this, writer);
+            }
+            List<TraceEntry> all = new ArrayList<>();
+            sessionEntries.forEach(all::addAll);
+            try (Writer writer = Files.newBufferedWriter(classDirectory.resolve(fileName + ENTRIES_SUFFIX),
+                StandardCharsets.UTF_8)) {
+                new Gson().toJson(all, writer);
+            }
+            return report;
+        } catch (IOException e) {
+            System.err.println("[TraceFlow Test] Failed to write report " + report + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Failure message listing all violated expectations
+     * @return Message
+     */
+    String describeViolations() {
+        StringBuilder sb = new StringBuilder("[TraceFlow] Trace expectations failed for ").append(test).append(':');
+        for (String violation : violations) {
+            sb.append("\n - ").append(violation);
+        }
+        return sb.toString();
+    }
+
+    // Getters
+    public String getTest() { return test; }
+
+    public int getSessions() { return sessions; }
+
+    public int getEntries() { return entries; }
+
+    public long getDurationNanos() { return durationNanos; }
+
+    public int getMaxDepth() { return maxDepth; }
+
+    public List<MethodCalls> getMethods() { return methods; }
+
+    public List<RepeatedCall> getRepeatedCalls() { return repeatedCalls; }
+
+    public List<String> getViolations() { return violations; }
+
+    /**
+     * Calls and total time of one method across the sessions of a test
+     */
+    public static class MethodCalls {
+        private final String method;
+        private long calls;
+        private long totalNanos;
+
+        MethodCalls(String method) {
+            this.method = method;
+        }
+
+        void add(TraceEntry entry) {
+            calls += entry.getAggregate() != null ? entry.getAggregate().getCount() : 1;
+            totalNanos += nanos(entry);
+        }
+
+        public String getMethod() { return method; }
+
+        public long getCalls() { return calls; }
+
+        public long getTotalNanos() { return totalNanos; }
+    }
+}
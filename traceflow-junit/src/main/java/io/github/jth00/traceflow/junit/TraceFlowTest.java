@@ -0,0 +1,21 @@
+package io.github.jth00.traceflow.junit;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Traces every test method of a class as its own session
+ *
+ * Trace expectations ({@link MaxCalls}, {@link MaxDuration}, {@link MaxCallDepth},
+ * {@link NoRepeatedCalls}) on the class apply to all of its tests, on a method to that test only.
+ * Requires the TraceFlow agent in the test JVM (traceFlow { traceTests = true }).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@ExtendWith(TraceFlowTestExtension.class)
+public @interface TraceFlowTest {
+}
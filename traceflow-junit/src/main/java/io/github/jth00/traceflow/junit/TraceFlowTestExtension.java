@@ -0,0 +1,164 @@
+package io.github.jth00.traceflow.junit;
+
+import io.github.jth00.traceflow.context.TraceContext;
+import io.github.jth00.traceflow.interceptor.EntryPointInterceptor;
+import io.github.jth00.traceflow.registry.MethodRegistry;
+import io.github.jth00.traceflow.store.TraceStore;
+import io.github.jth00.traceflow.vo.SessionLink;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import io.github.jth00.traceflow.vo.TraceFrame;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JUnit 5 extension that traces each test method and checks its trace expectations
+ *
+ * The test method becomes the entry point of a session, so traced calls made by the test
+ * are recorded below it. The overhead governor never skips or limits these sessions. After the test,
+ * its sessions are read from TraceStore in-process: the test's own session and the sessions
+ * linked to it by context propagation (e.g., a request the test sent to an embedded server).
+ * Sessions of other tests or background work are not included. Linked sessions still running
+ * when the test returns (e.g., the server flushes after sending the response) are awaited for
+ * up to 5 seconds. A report is written per test, then violated expectations fail the test.
+ */
+public class TraceFlowTestExtension implements InvocationInterceptor {
+    private static final String REPORT_DIR_PROPERTY = "traceflow.reportDir";
+    private static final String DEFAULT_REPORT_DIR = "build/traceflow/test-reports";
+    private static final String AGENT_CLASS = "io.github.jth00.traceflow.store.TraceStore";
+    private static final long LINKED_SESSION_TIMEOUT_MILLIS = 5000;
+    private static final long LINKED_SESSION_POLL_MILLIS = 10;
+
+    private static volatile Boolean agentPresent;
+
+    @Override
+    public void interceptTestMethod(Invocation<Void> invocation, ReflectiveInvocationContext<Method> invocationContext,
+                                    ExtensionContext extensionContext) throws Throwable {
+        trace(invocation, invocationContext.getExecutable(), extensionContext, false);
+    }
+
+    @Override
+    public void interceptTestTemplateMethod(Invocation<Void> invocation,
+                                            ReflectiveInvocationContext<Method> invocationContext,
+                                            ExtensionContext extensionContext) throws Throwable {
+        trace(invocation, invocationContext.getExecutable(), extensionContext, true);
+    }
+
+    private static void trace(Invocation<Void> invocation, Method method, ExtensionContext context,
+                              boolean template) throws Throwable {
+        if (!isAgentPresent()) {
+            invocation.proceed();
+            return;
+        }
+
+        TraceFrame frame = EntryPointInterceptor.onEnterAlwaysTraced(MethodRegistry.signature(method));
+        Throwable failure = null;
+        try {
+            invocation.proceed();
+        } catch (Throwable t) {
+            failure = t;
+        }
+        EntryPointInterceptor.onExit(frame, null, failure);
+
+        // Not traced (e.g., tracing disabled at runtime): nothing to check
+        if (frame == null || frame.getSessionId() == null) {
+            System.out.println("[TraceFlow Test] " + method.getName() + " was not traced, trace expectations are not checked");
+            if (failure != null) {
+                throw failure;
+            }
+            return;
+        }
+
+        String testName = method.getDeclaringClass().getName() + "." + method.getName() +
+            (template ? " " + context.getDisplayName() : "");
+        TestTraceReport report = TestTraceReport.evaluate(testName, collectSessions(frame.getSessionId()),
+            TestTraceReport.expectations(method));
+        Path reportFile = report.write(reportDirectory(), method.getDeclaringClass().getName(),
+            method.getName() + (template ? "-" + context.getDisplayName() : ""));
+
+        // A failing test reports its own failure; the trace report is still written
+        if (failure != null) {
+            throw failure;
+        }
+        if (!report.getViolations().isEmpty()) {
+            throw new AssertionError(report.describeViolations() +
+                (reportFile != null ? "\nReport: " + reportFile : ""));
+        }
+    }
+
+    /**
+     * The test's session and the sessions linked to it, directly or through other linked sessions
+     * @param testSessionId Session ID of the test method
+     */
+    private static List<List<TraceEntry>> collectSessions(String testSessionId) {
+        List<List<TraceEntry>> sessions = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        long deadline = System.currentTimeMillis() + LINKED_SESSION_TIMEOUT_MILLIS;
+        pending.add(testSessionId);
+        while (!pending.isEmpty()) {
+            String sessionId = pending.poll();
+            if (!visited.add(sessionId)) continue;
+            awaitLinkedSessions(sessionId, deadline);
+            List<TraceEntry> entries = TraceStore.getTracesBySession(sessionId);
+            if (!entries.isEmpty()) {
+                sessions.add(entries);
+            }
+            for (SessionLink link : TraceStore.getLinkedSessions(sessionId)) {
+                pending.add(link.getSessionId());
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Wait until the linked sessions of a session are flushed or the deadline passed
+     * @param sessionId Parent session ID
+     * @param deadline Time in milliseconds shared by all sessions of the test
+     */
+    private static void awaitLinkedSessions(String sessionId, long deadline) {
+        for (String linkedId : TraceStore.getRunningLinkedSessions(sessionId)) {
+            while (TraceContext.isSessionRetained(linkedId) && System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(LINKED_SESSION_POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static Path reportDirectory() {
+        return Paths.get(System.getProperty(REPORT_DIR_PROPERTY, DEFAULT_REPORT_DIR));
+    }
+
+    /**
+     * Check if the TraceFlow agent classes are loaded in this JVM
+     * Without the agent (e.g., a test started from an IDE) tests run untraced.
+     */
+    private static boolean isAgentPresent() {
+        Boolean present = agentPresent;
+        if (present == null) {
+            try {
+                Class.forName(AGENT_CLASS, false, ClassLoader.getSystemClassLoader());
+                present = true;
+            } catch (ClassNotFoundException e) {
+                System.out.println("[TraceFlow Test] Agent not attached, trace expectations are not checked");
+                present = false;
+            }
+            agentPresent = present;
+        }
+        return present;
+    }
+}
@@ -0,0 +1,224 @@
+package io.github.jth00.traceflow.junit;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.github.jth00.traceflow.enums.MethodTypeEnum;
+import io.github.jth00.traceflow.vo.CallAggregate;
+import io.github.jth00.traceflow.vo.TraceEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Trace expectations checked against sessions of a test
+ * Folded calls count with their folded call count, the test method traced again below the
+ * session root does not add to the call depth, and only the violated expectations are reported.
+ */
+class TestTraceReportTest {
+    private static final String TESTS = "sample.report.CheckoutTests";
+    private static final String SERVICE = "sample.report.OrderService";
+    private static final String REPOSITORY = "sample.report.OrderRepository";
+
+    @Test
+    void expectationsListClassLevelFirst() throws Exception {
+        List<Object> expectations = TestTraceReport.expectations(fixture("all"));
+
+        List<Class<? extends Annotation>> types = new ArrayList<>();
+        for (Object expectation : expectations) {
+            types.add(((Annotation) expectation).annotationType());
+        }
+        assertEquals(List.of(MaxCallDepth.class, MaxCalls.class, MaxCalls.class, MaxDuration.class,
+            NoRepeatedCalls.class), types);
+    }
+
+    @Test
+    void maxCallsCountsFoldedCallsAcrossSessions() throws Exception {
+        List<TraceEntry> first = session(30);
+        first.add(aggregated(first.get(0), REPOSITORY, "findById", 5, 20));
+        List<TraceEntry> second = session(40);
+        second.add(entry(second.get(0), REPOSITORY, "findById", 5));
+
+        TestTraceReport report = evaluate("calls", first, second);
+
+        assertEquals(List.of("OrderRepository.findById called 6 times, expected at most 5 (@MaxCalls)"),
+            report.getViolations());
+        assertEquals(2, report.getSessions());
+        assertEquals(4, report.getEntries());
+        TestTraceReport.MethodCalls findById = method(report, REPOSITORY + ".findById");
+        assertEquals(6, findById.getCalls());
+        assertEquals(25_000_000, findById.getTotalNanos());
+    }
+
+    @Test
+    void maxDurationChecksSessionsAndMethods() throws Exception {
+        List<TraceEntry> first = session(30);
+        first.add(aggregated(first.get(0), REPOSITORY, "findById", 5, 20));
+        List<TraceEntry> second = session(40);
+        second.add(entry(second.get(0), REPOSITORY, "findById", 5));
+
+        TestTraceReport sessions = evaluate("duration", first, second);
+        assertEquals(70_000_000, sessions.getDurationNanos());
+        assertEquals(List.of("Test sessions took 70.0ms, expected at most 60ms (@MaxDuration)"),
+            sessions.getViolations());
+
+        TestTraceReport method = evaluate("methodDuration", first, second);
+        assertEquals(List.of("findById took 25.0ms, expected at most 20ms (@MaxDuration)"), method.getViolations());
+    }
+
+    @Test
+    void maxCallDepthDoesNotCountTheWrappedTestMethod() throws Exception {
+        List<TraceEntry> entries = session(30);
+        TraceEntry wrapped = entry(entries.get(0), TESTS, "test", 29);
+        TraceEntry place = entry(wrapped, SERVICE, "place", 20);
+        entries.add(wrapped);
+        entries.add(place);
+        entries.add(entry(place, REPOSITORY, "save", 10));
+
+        TestTraceReport report = evaluate("depth", entries);
+
+        assertEquals(2, report.getMaxDepth());
+        assertEquals(List.of("Call depth 2, expected at most 1 (@MaxCallDepth)"), report.getViolations());
+        assertEquals(1, method(report, TESTS + ".test").getCalls());
+    }
+
+    @Test
+    void noRepeatedCallsReportsDataAccessMethodsOnly() throws Exception {
+        List<TraceEntry> entries = session(30);
+        TraceEntry load = entry(entries.get(0), SERVICE, "loadOrders", 20);
+        entries.add(load);
+        for (int i = 0; i < 4; i++) {
+            entries.add(entry(load, REPOSITORY, "findById", 2));
+            entries.add(entry(load, SERVICE, "format", 1));
+        }
+
+        TestTraceReport dataAccess = evaluate("dataAccessRepeated", entries);
+        assertEquals(List.of(REPOSITORY + ".findById called 4 times under one OrderService.loadOrders call " +
+            "(@NoRepeatedCalls)"), dataAccess.getViolations());
+        assertEquals(1, dataAccess.getRepeatedCalls().size());
+
+        TestTraceReport all = evaluate("allRepeated", entries);
+        assertEquals(2, all.getViolations().size(), () -> all.getViolations().toString());
+        assertEquals(2, all.getRepeatedCalls().size());
+    }
+
+    @Test
+    void reportAndEntriesAreWrittenPerTest(@TempDir Path directory) throws Exception {
+        List<TraceEntry> entries = session(30);
+        entries.add(aggregated(entries.get(0), REPOSITORY, "findById", 6, 20));
+        TestTraceReport report = evaluate("calls", entries);
+
+        Path file = report.write(directory, TESTS, "calls [1]");
+
+        assertEquals(directory.resolve(TESTS).resolve("calls__1_.json"), file);
+        JsonObject json = JsonParser.parseString(Files.readString(file, StandardCharsets.UTF_8)).getAsJsonObject();
+        assertEquals(TESTS + ".calls", json.get("test").getAsString());
+        assertEquals(1, json.get("sessions").getAsInt());
+        assertEquals(1, json.getAsJsonArray("violations").size());
+        Path entriesFile = directory.resolve(TESTS).resolve("calls__1_.entries.json");
+        assertEquals(2, JsonParser.parseString(Files.readString(entriesFile, StandardCharsets.UTF_8))
+            .getAsJsonArray().size());
+        assertTrue(report.describeViolations().contains("\n - OrderRepository.findById called 6 times"),
+            report::describeViolations);
+    }
+
+    // -------------------- Fixtures --------------------
+
+    @MaxCallDepth(5)
+    static class Expectations {
+        @MaxCalls(method = "OrderRepository.findById", value = 5)
+        @MaxCalls(method = "sample.report.*Repository.*", value = 6)
+        @MaxCalls(method = "findBy*", value = 6)
+        void calls() { }
+
+        @MaxDuration(millis = 60)
+        void duration() { }
+
+        @MaxDuration(millis = 20, method = "findById")
+        void methodDuration() { }
+
+        @MaxCallDepth(1)
+        void depth() { }
+
+        @NoRepeatedCalls(threshold = 3)
+        void dataAccessRepeated() { }
+
+        @NoRepeatedCalls(threshold = 3, dataAccessOnly = false)
+        void allRepeated() { }
+
+        @MaxCalls(method = "findById", value = 1)
+        @MaxCalls(method = "save", value = 1)
+        @MaxDuration(millis = 100)
+        @NoRepeatedCalls
+        void all() { }
+    }
+
+    // -------------------- Helpers --------------------
+
+    private static Method fixture(String name) throws NoSuchMethodException {
+        return Expectations.class.getDeclaredMethod(name);
+    }
+
+    @SafeVarargs
+    private static TestTraceReport evaluate(String fixture, List<TraceEntry>... sessions) throws Exception {
+        Method method = fixture(fixture);
+        return TestTraceReport.evaluate(TESTS + "." + fixture, List.of(sessions),
+            TestTraceReport.expectations(method));
+    }
+
+    private static TestTraceReport.MethodCalls method(TestTraceReport report, String name) {
+        for (TestTraceReport.MethodCalls method : report.getMethods()) {
+            if (method.getMethod().equals(name)) {
+                return method;
+            }
+        }
+        throw new AssertionError("No calls of " + name);
+    }
+
+    /**
+     * New session holding only its root, the traced test method
+     */
+    private static List<TraceEntry> session(long durationMillis) {
+        List<TraceEntry> entries = new ArrayList<>();
+        entries.add(builder(null, TESTS, "test", durationMillis)
+            .sessionId(UUID.randomUUID().toString())
+            .methodType(MethodTypeEnum.ENTRY_POINT)
+            .build());
+        return entries;
+    }
+
+    private static TraceEntry entry(TraceEntry parent, String className, String methodName, long durationMillis) {
+        return builder(parent, className, methodName, durationMillis).build();
+    }
+
+    private static TraceEntry aggregated(TraceEntry parent, String className, String methodName, long count,
+                                         long totalMillis) {
+        long totalNanos = totalMillis * 1_000_000;
+        return builder(parent, className, methodName, totalMillis)
+            .aggregate(new CallAggregate(count, totalNanos, totalNanos / count, totalNanos / count, 0))
+            .build();
+    }
+
+    private static TraceEntry.Builder builder(TraceEntry parent, String className, String methodName,
+                                              long durationMillis) {
+        return TraceEntry.builder()
+            .id(UUID.randomUUID().toString())
+            .parentId(parent != null ? parent.getId() : null)
+            .sessionId(parent != null ? parent.getSessionId() : null)
+            .className(className)
+            .methodName(methodName)
+            .startTime(System.currentTimeMillis())
+            .duration(durationMillis)
+            .methodType(MethodTypeEnum.BUSINESS);
+    }
+}
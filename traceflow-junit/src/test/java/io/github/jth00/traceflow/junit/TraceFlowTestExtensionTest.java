@@ -0,0 +1,108 @@
+package io.github.jth00.traceflow.junit;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.testkit.engine.EngineTestKit;
+import org.junit.platform.testkit.engine.Event;
+import org.junit.platform.testkit.engine.Events;
+import sample.junit.CheckoutTests;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectMethod;
+
+/**
+ * Tests of {@link CheckoutTests} run through the extension in this JVM
+ * A test must fail when its sessions violate an expectation, keep its own failure otherwise,
+ * and its report must include linked sessions flushed after the test returned.
+ */
+class TraceFlowTestExtensionTest {
+    private static final String REPORT_DIR_PROPERTY = "traceflow.reportDir";
+
+    @TempDir
+    Path reportDir;
+
+    @BeforeEach
+    void redirectReports() {
+        System.setProperty(REPORT_DIR_PROPERTY, reportDir.toString());
+    }
+
+    @AfterEach
+    void restoreReports() {
+        System.clearProperty(REPORT_DIR_PROPERTY);
+    }
+
+    @Test
+    void testWithinExpectationsPasses() throws IOException {
+        Events events = run("withinExpectations");
+
+        assertEquals(1, events.succeeded().count());
+        JsonObject report = report("withinExpectations");
+        assertEquals(1, report.get("sessions").getAsInt());
+        assertEquals(0, report.getAsJsonArray("violations").size());
+    }
+
+    @Test
+    void violatedExpectationFailsTheTest() throws IOException {
+        Throwable failure = failure("tooManyCalls");
+
+        assertInstanceOf(AssertionError.class, failure);
+        assertTrue(failure.getMessage().contains("OrderRepository.findById called 3 times, expected at most 2 (@MaxCalls)"),
+            failure::getMessage);
+        assertTrue(failure.getMessage().contains("Report: "), failure::getMessage);
+        assertEquals(1, report("tooManyCalls").getAsJsonArray("violations").size());
+    }
+
+    @Test
+    void testFailureIsReportedInsteadOfViolations() throws IOException {
+        Throwable failure = failure("failsOnItsOwn");
+
+        assertInstanceOf(IllegalStateException.class, failure);
+        assertEquals("out of stock", failure.getMessage());
+        // The report is written all the same
+        assertEquals(1, report("failsOnItsOwn").getAsJsonArray("violations").size());
+    }
+
+    @Test
+    void linkedSessionsFlushedAfterTheTestAreChecked() throws IOException {
+        Throwable failure = failure("linkedSessionFinishingLater");
+
+        assertInstanceOf(AssertionError.class, failure);
+        assertTrue(failure.getMessage().contains("findById called 3 times"), failure::getMessage);
+        assertEquals(2, report("linkedSessionFinishingLater").get("sessions").getAsInt());
+    }
+
+    // -------------------- Helpers --------------------
+
+    private static Events run(String testMethod) {
+        return EngineTestKit.engine("junit-jupiter")
+            .selectors(selectMethod(CheckoutTests.class, testMethod))
+            .execute()
+            .testEvents();
+    }
+
+    private static Throwable failure(String testMethod) {
+        List<Event> failed = run(testMethod).failed().list();
+        assertEquals(1, failed.size(), testMethod);
+        return failed.get(0).getPayload(TestExecutionResult.class)
+            .flatMap(TestExecutionResult::getThrowable)
+            .orElseThrow();
+    }
+
+    private JsonObject report(String testMethod) throws IOException {
+        Path file = reportDir.resolve(CheckoutTests.class.getName()).resolve(testMethod + ".json");
+        return JsonParser.parseString(Files.readString(file, StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+}
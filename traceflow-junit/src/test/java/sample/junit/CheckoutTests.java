@@ -0,0 +1,72 @@
+package sample.junit;
+
+import io.github.jth00.traceflow.context.TraceContext;
+import io.github.jth00.traceflow.interceptor.EntryPointInterceptor;
+import io.github.jth00.traceflow.junit.MaxCalls;
+import io.github.jth00.traceflow.junit.TraceFlowTest;
+import io.github.jth00.traceflow.store.TraceStore;
+import io.github.jth00.traceflow.vo.SessionLink;
+import io.github.jth00.traceflow.vo.TraceFrame;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests run by TraceFlowTestExtensionTest through the engine test kit, not by the build
+ * Each test calls the traced repository and expects at most two calls.
+ */
+@TraceFlowTest
+@MaxCalls(method = "OrderRepository.findById", value = 2)
+public class CheckoutTests {
+    private static final String HANDLE = "sample.junit.InventoryServer.handle()V";
+    private static final long FLUSH_DELAY_MILLIS = 200;
+
+    private final OrderRepository repository = new OrderRepository();
+
+    @Test
+    void withinExpectations() {
+        find(2);
+    }
+
+    @Test
+    void tooManyCalls() {
+        find(3);
+    }
+
+    @Test
+    void failsOnItsOwn() {
+        find(3);
+        throw new IllegalStateException("out of stock");
+    }
+
+    /**
+     * A server in the same JVM answers the test, then makes its calls and flushes its session
+     */
+    @Test
+    void linkedSessionFinishingLater() throws InterruptedException {
+        String sessionId = TraceContext.getSessionId();
+        String entryId = TraceContext.peekCall();
+        CountDownLatch responded = new CountDownLatch(1);
+        Thread server = new Thread(() -> {
+            TraceFrame root = EntryPointInterceptor.onEnter(HANDLE);
+            // Link made by context propagation when the request carries the test's context
+            TraceStore.linkSession(new SessionLink(root.getSessionId(), sessionId, entryId));
+            responded.countDown();
+            try {
+                Thread.sleep(FLUSH_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            find(3);
+            EntryPointInterceptor.onExit(root, null, null);
+        });
+        server.start();
+        responded.await();
+    }
+
+    private void find(int times) {
+        for (int i = 0; i < times; i++) {
+            repository.findById(i);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package sample.junit;
+
+import io.github.jth00.traceflow.interceptor.TraceFlowInterceptor;
+import io.github.jth00.traceflow.vo.TraceFrame;
+
+/**
+ * Traced method of the extension test fixtures
+ * The test JVM runs without the agent, so the method calls the interceptor the way
+ * instrumented code does.
+ */
+public class OrderRepository {
+    private static final String FIND_BY_ID = "sample.junit.OrderRepository.findById(J)Ljava/lang/String;";
+
+    public String findById(long id) {
+        TraceFrame frame = TraceFlowInterceptor.onEnter(FIND_BY_ID);
+        String order = "order-" + id;
+        if (frame != null) {
+            TraceFlowInterceptor.onExit(frame, order, null);
+        }
+        return order;
+    }
+}
@@ -1,13 +1,37 @@
 package io.github.jth00.traceflow;
 
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Gradle extension for TraceFlow configuration
  * Allows users to configure the plugin via build.gradle
  */
 public class TraceFlowExtension {
+    /** Session limits applied by the agent when not configured */
+    static final int DEFAULT_MAX_SESSION_ENTRIES = 10_000;
+    static final int DEFAULT_MAX_CALL_DEPTH = 100;
+    static final int DEFAULT_REPEATED_CALL_THRESHOLD = 10;
+
     private boolean autoInject = true;
     private int webServerPort = 8081;
+    private String webServerHost = "127.0.0.1";
+    private boolean lazyWebServer = false;
+    private boolean buildTimeInstrumentation = false;
+    private boolean propagateContext = false;
+    private List<String> peers = new ArrayList<>();
+    private boolean measureResources = false;
+    private boolean detectBlocking = false;
+    private boolean traceJdbc = false;
+    private boolean traceCoroutines = false;
+    private int samplingInterval = 0;
+    private boolean jfrMethodEvents = false;
+    private int maxSessionEntries = DEFAULT_MAX_SESSION_ENTRIES;
+    private int maxCallDepth = DEFAULT_MAX_CALL_DEPTH;
+    private boolean compressLoops = true;
+    private int repeatedCallThreshold = DEFAULT_REPEATED_CALL_THRESHOLD;
+    private double overheadBudgetPercent = 0;
+    private boolean traceTests = false;
     private String packagePath;
 
     /**
@@ -48,6 +72,282 @@ public class TraceFlowExtension {
         this.webServerPort = port;
     }
 
+    /**
+     * Get the address the web server listens on
+     * @return Host name or address
+     */
+    public String getWebServerHost() {
+        return webServerHost;
+    }
+
+    /**
+     * Set the address the web server listens on
+     * The web API has no authentication; use 0.0.0.0 only on trusted networks.
+     * @param host Host name or address (default: 127.0.0.1, this machine only)
+     */
+    public void setWebServerHost(String host) {
+        this.webServerHost = host;
+    }
+
+    /**
+     * Check if the web server starts with the first trace session instead of the JVM
+     * @return true if the web server starts lazily
+     */
+    public boolean isLazyWebServer() {
+        return lazyWebServer;
+    }
+
+    /**
+     * Start the web server with the first trace session instead of the JVM
+     * Keeps Jetty off the startup path; /control and /metrics are unreachable until then.
+     * @param lazyWebServer true to start lazily
+     */
+    public void setLazyWebServer(boolean lazyWebServer) {
+        this.lazyWebServer = lazyWebServer;
+    }
+
+    /**
+     * Check if classes are instrumented at build time instead of by the Java agent
+     * @return true if build-time instrumentation is enabled
+     */
+    public boolean isBuildTimeInstrumentation() {
+        return buildTimeInstrumentation;
+    }
+
+    /**
+     * Instrument classes at build time instead of injecting the Java agent
+     * @param buildTimeInstrumentation true to instrument after compileJava
+     */
+    public void setBuildTimeInstrumentation(boolean buildTimeInstrumentation) {
+        this.buildTimeInstrumentation = buildTimeInstrumentation;
+    }
+
+    /**
+     * Check if the trace context is propagated over HTTP to other traced JVMs
+     * @return true if context propagation is enabled
+     */
+    public boolean isPropagateContext() {
+        return propagateContext;
+    }
+
+    /**
+     * Propagate the trace context over HttpURLConnection, HttpClient and servlet requests
+     * @param propagateContext true to enable
+     */
+    public void setPropagateContext(boolean propagateContext) {
+        this.propagateContext = propagateContext;
+    }
+
+    /**
+     * Get peer agents whose linked sessions are merged into local sessions
+     * @return Base URLs of peer web servers
+     */
+    public List<String> getPeers() {
+        return peers;
+    }
+
+    /**
+     * Set peer agents whose linked sessions are merged into local sessions
+     * @param peers Base URLs of peer web servers (e.g., "http://localhost:8082")
+     */
+    public void setPeers(List<String> peers) {
+        this.peers = peers;
+    }
+
+    /**
+     * Check if CPU time and heap allocation are measured per traced call
+     * @return true if resource measurement is enabled
+     */
+    public boolean isMeasureResources() {
+        return measureResources;
+    }
+
+    /**
+     * Measure thread CPU time and heap allocation of every traced call
+     * @param measureResources true to enable
+     */
+    public void setMeasureResources(boolean measureResources) {
+        this.measureResources = measureResources;
+    }
+
+    /**
+     * Check if blocking waits inside traced calls are recorded
+     * @return true if blocking detection is enabled
+     */
+    public boolean isDetectBlocking() {
+        return detectBlocking;
+    }
+
+    /**
+     * Record waits on locks, monitors, futures and socket reads as child entries
+     * @param detectBlocking true to enable
+     */
+    public void setDetectBlocking(boolean detectBlocking) {
+        this.detectBlocking = detectBlocking;
+    }
+
+    /**
+     * Check if JDBC statements executed inside traced calls are recorded
+     * @return true if JDBC tracing is enabled
+     */
+    public boolean isTraceJdbc() {
+        return traceJdbc;
+    }
+
+    /**
+     * Record JDBC statement executions (normalized SQL, time and row count) as child entries
+     * @param traceJdbc true to enable
+     */
+    public void setTraceJdbc(boolean traceJdbc) {
+        this.traceJdbc = traceJdbc;
+    }
+
+    /**
+     * Check if Kotlin suspend functions are traced across suspension points
+     * @return true if coroutine support is enabled
+     */
+    public boolean isTraceCoroutines() {
+        return traceCoroutines;
+    }
+
+    /**
+     * Keep the trace context of Kotlin coroutines resumed on other threads and time suspend
+     * functions until they complete
+     * @param traceCoroutines true to enable
+     */
+    public void setTraceCoroutines(boolean traceCoroutines) {
+        this.traceCoroutines = traceCoroutines;
+    }
+
+    /**
+     * Get the stack sampling interval of sampling mode
+     * @return Interval in milliseconds, 0 when every traced call is instrumented
+     */
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * Instrument only entry points and sample the stacks of their sessions
+     * @param samplingInterval Interval in milliseconds (e.g., 10), 0 to instrument every traced call
+     */
+    public void setSamplingInterval(int samplingInterval) {
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Check if traced calls are emitted as flight recorder events
+     * @return true if method call events are enabled
+     */
+    public boolean isJfrMethodEvents() {
+        return jfrMethodEvents;
+    }
+
+    /**
+     * Emit every traced call as a flight recorder event while a recording runs
+     * Session events are always emitted while a recording runs.
+     * @param jfrMethodEvents true to enable
+     */
+    public void setJfrMethodEvents(boolean jfrMethodEvents) {
+        this.jfrMethodEvents = jfrMethodEvents;
+    }
+
+    /**
+     * Get the maximum number of entries recorded per session
+     * @return Entry limit, 0 for no limit
+     */
+    public int getMaxSessionEntries() {
+        return maxSessionEntries;
+    }
+
+    /**
+     * Limit the entries recorded per session; further calls are summarized in their parent
+     * @param maxSessionEntries Entry limit (default: 10000), 0 for no limit
+     */
+    public void setMaxSessionEntries(int maxSessionEntries) {
+        this.maxSessionEntries = maxSessionEntries;
+    }
+
+    /**
+     * Get the maximum depth of recorded calls below the entry point
+     * @return Depth limit, 0 for no limit
+     */
+    public int getMaxCallDepth() {
+        return maxCallDepth;
+    }
+
+    /**
+     * Limit the depth of recorded calls; deeper calls are summarized in their parent
+     * @param maxCallDepth Depth limit (default: 100), 0 for no limit
+     */
+    public void setMaxCallDepth(int maxCallDepth) {
+        this.maxCallDepth = maxCallDepth;
+    }
+
+    /**
+     * Check if consecutive calls of the same method are folded into one entry
+     * @return true if loop compression is enabled
+     */
+    public boolean isCompressLoops() {
+        return compressLoops;
+    }
+
+    /**
+     * Fold consecutive calls of the same method under the same parent into one aggregated entry
+     * @param compressLoops true to enable (default), false to record every call
+     */
+    public void setCompressLoops(boolean compressLoops) {
+        this.compressLoops = compressLoops;
+    }
+
+    /**
+     * Get the number of calls under one parent call reported as repeated (N+1)
+     * @return Threshold, 0 when detection is disabled
+     */
+    public int getRepeatedCallThreshold() {
+        return repeatedCallThreshold;
+    }
+
+    /**
+     * Report methods called at least this many times under the same parent call
+     * @param repeatedCallThreshold Threshold (default: 10, at least 2), 0 to disable detection
+     */
+    public void setRepeatedCallThreshold(int repeatedCallThreshold) {
+        this.repeatedCallThreshold = repeatedCallThreshold;
+    }
+
+    /**
+     * Get the share of CPU and request time the agent may use before tracing is throttled
+     * @return Budget in percent, 0 when the overhead governor is disabled
+     */
+    public double getOverheadBudgetPercent() {
+        return overheadBudgetPercent;
+    }
+
+    /**
+     * Sample fewer sessions and disable deep tracing while the agent overhead exceeds the budget
+     * @param overheadBudgetPercent Budget in percent (e.g., 2.0), 0 to disable (default)
+     */
+    public void setOverheadBudgetPercent(double overheadBudgetPercent) {
+        this.overheadBudgetPercent = overheadBudgetPercent;
+    }
+
+    /**
+     * Check if test tasks are traced for trace expectations (traceflow-junit)
+     * @return true if tests are traced
+     */
+    public boolean isTraceTests() {
+        return traceTests;
+    }
+
+    /**
+     * Trace Test tasks and add the TraceFlow JUnit 5 extension to the test class path
+     * @param traceTests true to enable
+     */
+    public void setTraceTests(boolean traceTests) {
+        this.traceTests = traceTests;
+    }
+
     /**
      * Get package path to instrument
      * @return Package path
@@ -0,0 +1,89 @@
+package io.github.jth00.traceflow;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.process.ExecOperations;
+
+import javax.inject.Inject;
+import java.io.File;
+
+/**
+ * Instruments compiled classes at build time
+ * Runs the TraceFlow instrumenter from the agent JAR over the compileJava output,
+ * so the packaged application is traced without -javaagent.
+ */
+public abstract class TraceFlowInstrumentTask extends DefaultTask {
+
+    private static final String INSTRUMENTER_CLASS = "io.github.jth00.traceflow.agent.TraceFlowInstrumenter";
+
+    /**
+     * Classes produced by the compile task
+     * @return Compiled classes directory
+     */
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract DirectoryProperty getClassesDirectory();
+
+    /**
+     * Compile class path used to resolve super types of instrumented classes
+     * @return Compile class path
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getCompileClasspath();
+
+    /**
+     * Agent JAR that contains the instrumenter
+     * @return Agent class path
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getAgentClasspath();
+
+    /**
+     * Agent arguments applied at build time and stored for runtime
+     * @return Agent arguments (e.g., port=8081,package=com.example)
+     */
+    @Input
+    public abstract Property<String> getAgentArgs();
+
+    /**
+     * Directory receiving instrumented and copied classes
+     * @return Output directory
+     */
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDirectory();
+
+    @Inject
+    protected abstract ExecOperations getExecOperations();
+
+    @Inject
+    protected abstract FileSystemOperations getFileSystemOperations();
+
+    @TaskAction
+    public void instrument() {
+        File outputDir = getOutputDirectory().get().getAsFile();
+
+        // Always start from the raw compile output, so classes are never instrumented twice
+        getFileSystemOperations().delete(spec -> spec.delete(outputDir));
+
+        getExecOperations().javaexec(spec -> {
+            spec.classpath(getAgentClasspath());
+            spec.getMainClass().set(INSTRUMENTER_CLASS);
+            spec.args(
+                getClassesDirectory().get().getAsFile().getAbsolutePath(),
+                outputDir.getAbsolutePath(),
+                getAgentArgs().get(),
+                getCompileClasspath().getAsPath()
+            );
+        });
+    }
+}
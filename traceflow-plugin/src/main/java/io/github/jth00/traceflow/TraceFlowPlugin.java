@@ -3,8 +3,15 @@ package io.github.jth00.traceflow;
 import org.gradle.api.GradleException;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.tasks.JavaExec;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.TaskProvider;
+import org.gradle.api.tasks.compile.JavaCompile;
+import org.gradle.api.tasks.testing.Test;
+import org.gradle.process.JavaForkOptions;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -14,7 +21,8 @@ import java.util.Set;
 
 /**
  * Gradle plugin for TraceFlow agent injection
- * Automatically injects the Java agent into JavaExec tasks
+ * Automatically injects the Java agent into JavaExec tasks (and Test tasks with traceTests),
+ * or instruments compiled classes at build time when buildTimeInstrumentation is enabled
  */
 public class TraceFlowPlugin implements Plugin<Project> {
 
@@ -23,6 +31,11 @@ public class TraceFlowPlugin implements Plugin<Project> {
     private static final String AGENT_GROUP = "io.github.jth-00";
     private static final String AGENT_ARTIFACT = "traceflow-agent";
     private static final String ANNOTATIONS_ARTIFACT = "traceflow-annotations";
+    private static final String JUNIT_ARTIFACT = "traceflow-junit";
+    private static final String INSTRUMENT_TASK = "traceflowInstrument";
+    private static final String RAW_CLASSES_DIR = "traceflow/raw-classes/java/main";
+    private static final String TEST_REPORT_DIR = "traceflow/test-reports";
+    private static final String TEST_REPORT_PROPERTY = "traceflow.reportDir";
 
     @Override
     public void apply(Project project) {
@@ -56,13 +69,22 @@ public class TraceFlowPlugin implements Plugin<Project> {
             // Resolve agent JAR from Maven Central
             File agentJar = resolveAgent(project, agentConfig);
 
+            if (ext.isTraceTests()) {
+                configureTests(project, agentJar, ext);
+            }
+
+            if (ext.isBuildTimeInstrumentation()) {
+                configureBuildTimeInstrumentation(project, agentJar, ext);
+                return;
+            }
+
             // Inject agent into JavaExec tasks
             project.getTasks().withType(JavaExec.class).configureEach(task -> {
                 // Support both 'run' and 'bootRun' tasks
                 if (task.getName().equals("run") ||
                     task.getName().equals("bootRun") ||
                     task.getName().contains("Run")) {
-                    configureJavaAgent(project, task, agentJar, ext);
+                    configureJavaAgent(project, task, agentJar, agentOptions(ext));
                 }
             });
         });
@@ -165,13 +187,41 @@ public class TraceFlowPlugin implements Plugin<Project> {
     }
 
     /**
-     * Configure Java agent for a specific task
+     * Trace test tasks for the TraceFlow JUnit 5 extension
+     * - traceflow-junit is added to testImplementation
+     * - Test tasks get the Java agent with the web server turned off
+     *   (with build-time instrumentation they already run the instrumented classes)
+     * - per-test trace reports are written to build/traceflow/test-reports
      * @param project Gradle project
-     * @param task JavaExec task to configure
      * @param agentJar Agent JAR file
      * @param ext TraceFlow extension configuration
      */
-    private void configureJavaAgent(Project project, JavaExec task, File agentJar, TraceFlowExtension ext) {
+    private void configureTests(Project project, File agentJar, TraceFlowExtension ext) {
+        String version = getPluginVersion(project);
+        project.getPlugins().withId("java", plugin -> project.getDependencies().add(
+            "testImplementation", String.format("%s:%s:%s", AGENT_GROUP, JUNIT_ARTIFACT, version)));
+
+        File reportDir = project.getLayout().getBuildDirectory().dir(TEST_REPORT_DIR).get().getAsFile();
+        project.getTasks().withType(Test.class).configureEach(task -> {
+            task.systemProperty(TEST_REPORT_PROPERTY, reportDir.getAbsolutePath());
+            if (!ext.isBuildTimeInstrumentation()) {
+                // Propagation links sessions of requests sent by a test to the test's session
+                configureJavaAgent(project, task, agentJar, agentOptions(ext) + ",webServer=off" +
+                    (ext.isPropagateContext() ? "" : ",propagate=true"));
+            }
+        });
+        project.getLogger().lifecycle("[TraceFlow] Test tracing enabled, reports in " + reportDir);
+    }
+
+    /**
+     * Configure Java agent for a specific task
+     * @param project Gradle project
+     * @param task JavaExec or Test task to configure
+     * @param agentJar Agent JAR file
+     * @param options Agent options
+     */
+    private <T extends Task & JavaForkOptions> void configureJavaAgent(Project project, T task, File agentJar,
+                                                                      String options) {
         task.doFirst(t -> {
             if (!agentJar.exists()) {
                 throw new GradleException(
@@ -179,16 +229,11 @@ public class TraceFlowPlugin implements Plugin<Project> {
                         ". This should not happen - please report this issue.");
             }
 
-            JavaExec execTask = (JavaExec) t;
             String agentArg = "-javaagent:" + agentJar.getAbsolutePath();
 
-            // Configure port and package
-            String options = String.format("port=%d,package=%s",
-                ext.getWebServerPort(),
-                ext.getPackagePath());
             agentArg += "=" + options;
 
-            List<String> newJvmArgs = new ArrayList<>(Objects.requireNonNull(execTask.getJvmArgs()));
+            List<String> newJvmArgs = new ArrayList<>(Objects.requireNonNull(task.getJvmArgs()));
 
             // Prevent duplicate additions
             boolean alreadyAdded = newJvmArgs.stream()
@@ -201,7 +246,118 @@ public class TraceFlowPlugin implements Plugin<Project> {
                 project.getLogger().debug("[TraceFlow] Agent already injected, skipping");
             }
 
-            execTask.setJvmArgs(newJvmArgs);
+            task.setJvmArgs(newJvmArgs);
         });
     }
+
+    /**
+     * Build agent options from the extension
+     * @param ext TraceFlow extension configuration
+     * @return Agent options (e.g., port=8081,host=127.0.0.1,package=com.example)
+     */
+    private String agentOptions(TraceFlowExtension ext) {
+        // Configure address and package
+        String options = String.format("port=%d,host=%s,package=%s",
+            ext.getWebServerPort(),
+            ext.getWebServerHost(),
+            ext.getPackagePath());
+        if (ext.isLazyWebServer()) {
+            options += ",webServer=lazy";
+        }
+        if (ext.isPropagateContext()) {
+            options += ",propagate=true";
+        }
+        if (!ext.getPeers().isEmpty()) {
+            options += ",peers=" + String.join(";", ext.getPeers());
+        }
+        if (ext.isMeasureResources()) {
+            options += ",resources=true";
+        }
+        if (ext.isDetectBlocking()) {
+            options += ",blocking=true";
+        }
+        if (ext.isTraceJdbc()) {
+            options += ",jdbc=true";
+        }
+        if (ext.isTraceCoroutines()) {
+            options += ",coroutines=true";
+        }
+        if (ext.getSamplingInterval() > 0) {
+            options += ",sampling=" + ext.getSamplingInterval();
+        }
+        if (ext.isJfrMethodEvents()) {
+            options += ",jfrMethods=true";
+        }
+        if (ext.getMaxSessionEntries() != TraceFlowExtension.DEFAULT_MAX_SESSION_ENTRIES) {
+            options += ",maxEntries=" + ext.getMaxSessionEntries();
+        }
+        if (ext.getMaxCallDepth() != TraceFlowExtension.DEFAULT_MAX_CALL_DEPTH) {
+            options += ",maxDepth=" + ext.getMaxCallDepth();
+        }
+        if (!ext.isCompressLoops()) {
+            options += ",compressLoops=false";
+        }
+        if (ext.getRepeatedCallThreshold() != TraceFlowExtension.DEFAULT_REPEATED_CALL_THRESHOLD) {
+            options += ",repeatThreshold=" + ext.getRepeatedCallThreshold();
+        }
+        if (ext.getOverheadBudgetPercent() > 0) {
+            options += ",overheadBudget=" + ext.getOverheadBudgetPercent();
+        }
+        return options;
+    }
+
+    /**
+     * Instrument the main source set at build time instead of injecting the agent
+     * - compileJava writes to an intermediate directory
+     * - traceflowInstrument writes instrumented classes to the original classes directory,
+     *   so jar, bootJar, run and test tasks all use them
+     * - the agent JAR is added to the runtime class path as the runtime library
+     * - options that instrument JDK or library classes need the runtime agent and are rejected
+     * @param project Gradle project
+     * @param agentJar Agent JAR file
+     * @param ext TraceFlow extension configuration
+     */
+    private void configureBuildTimeInstrumentation(Project project, File agentJar, TraceFlowExtension ext) {
+        SourceSetContainer sourceSets = project.getExtensions().findByType(SourceSetContainer.class);
+        if (sourceSets == null) {
+            throw new GradleException("[TraceFlow] buildTimeInstrumentation requires the 'java' plugin");
+        }
+
+        List<String> agentOnly = new ArrayList<>();
+        if (ext.isPropagateContext()) agentOnly.add("propagateContext");
+        if (ext.isDetectBlocking()) agentOnly.add("detectBlocking");
+        if (ext.isTraceJdbc()) agentOnly.add("traceJdbc");
+        if (ext.isTraceCoroutines()) agentOnly.add("traceCoroutines");
+        if (!agentOnly.isEmpty()) {
+            throw new GradleException("[TraceFlow] " + String.join(", ", agentOnly) +
+                " cannot be used with buildTimeInstrumentation: it instruments JDK or library classes, " +
+                "which requires the runtime agent (-javaagent)");
+        }
+
+        SourceSet main = sourceSets.getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+        TaskProvider<JavaCompile> compileJava =
+            project.getTasks().named(main.getCompileJavaTaskName(), JavaCompile.class);
+
+        compileJava.configure(task -> task.getDestinationDirectory()
+            .set(project.getLayout().getBuildDirectory().dir(RAW_CLASSES_DIR)));
+
+        TaskProvider<TraceFlowInstrumentTask> instrument = project.getTasks()
+            .register(INSTRUMENT_TASK, TraceFlowInstrumentTask.class, task -> {
+                task.setGroup("build");
+                task.setDescription("Instruments compiled classes with TraceFlow");
+                task.getClassesDirectory().set(compileJava.flatMap(JavaCompile::getDestinationDirectory));
+                task.getCompileClasspath().from(main.getCompileClasspath());
+                task.getAgentClasspath().from(agentJar);
+                task.getAgentArgs().set(agentOptions(ext));
+                task.getOutputDirectory().set(main.getJava().getDestinationDirectory());
+            });
+
+        // Downstream consumers of the main classes now see the instrumented output
+        main.getJava().compiledBy(instrument, TraceFlowInstrumentTask::getOutputDirectory);
+        main.compiledBy(instrument);
+
+        project.getDependencies().add(main.getRuntimeOnlyConfigurationName(), project.files(agentJar));
+
+        project.getLogger().lifecycle("[TraceFlow] Build-time instrumentation enabled for " + ext.getPackagePath());
+    }
 }